@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the allocation budget of the statement conversion: runs {@link GDMConversionBenchmark#processGDMStatement} on the synthetic
+ * resource with the GC profiler and fails, if the normalized allocation rate ('gc.alloc.rate.norm', i.e., bytes per operation) divided by
+ * the statement count of the resource exceeds the budget. Run with 'mvn -Pjmh verify' (or 'java -cp target/benchmarks.jar
+ * org.dswarm.wikidataimporter.GDMConversionAllocationBudget [BYTES_PER_STATEMENT_BUDGET]').
+ *
+ * @author tgaengler
+ */
+public final class GDMConversionAllocationBudget {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMConversionAllocationBudget.class);
+
+	/**
+	 * the allocated bytes per converted statement (incl. its qualifiers, on average 2 per statement of the synthetic resource)
+	 */
+	public static final double DEFAULT_BYTES_PER_STATEMENT_BUDGET = 640;
+
+	private static final int    STATEMENT_COUNT             = 1000;
+	private static final String ALLOCATION_RATE_NORM_SUFFIX = "gc.alloc.rate.norm";
+
+	private GDMConversionAllocationBudget() {
+
+	}
+
+	public static void main(final String[] args) throws RunnerException {
+
+		final double budget = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_BYTES_PER_STATEMENT_BUDGET;
+
+		final Options options = new OptionsBuilder()
+				.include(GDMConversionBenchmark.class.getSimpleName() + ".processGDMStatement$")
+				.param("resource", GDMConversionBenchmark.SYNTHETIC_RESOURCE)
+				.param("syntheticStatementCount", String.valueOf(STATEMENT_COUNT))
+				.addProfiler(GCProfiler.class)
+				.build();
+
+		for (final RunResult runResult : new Runner(options).run()) {
+
+			final double bytesPerStatement = allocationRateNorm(runResult) / STATEMENT_COUNT;
+
+			LOG.info("statement conversion allocates '{}' bytes per statement (budget: '{}' bytes)", String.format("%.1f", bytesPerStatement),
+					budget);
+
+			if (bytesPerStatement > budget) {
+
+				throw new IllegalStateException(String.format(
+						"statement conversion exceeds its allocation budget: '%.1f' bytes per statement (budget: '%.1f' bytes)",
+						bytesPerStatement, budget));
+			}
+		}
+	}
+
+	private static double allocationRateNorm(final RunResult runResult) {
+
+		// note: the result name is prefixed with a separator (e.g. '·gc.alloc.rate.norm'), depending on the JMH version
+		for (final Map.Entry<String, Result> secondaryResult : runResult.getSecondaryResults().entrySet()) {
+
+			if (secondaryResult.getKey().endsWith(ALLOCATION_RATE_NORM_SUFFIX)) {
+
+				return secondaryResult.getValue().getScore();
+			}
+		}
+
+		throw new IllegalStateException("GC profiler didn't report the normalized allocation rate");
+	}
+}
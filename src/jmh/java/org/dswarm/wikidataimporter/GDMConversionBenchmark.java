@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.io.Resources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+
+import org.dswarm.wikidataimporter.benchmark.GDMModelBenchmarkData;
+import org.dswarm.wikidataimporter.benchmark.InMemoryImportTarget;
+
+/**
+ * Benchmarks the hot path of the GDM to Wikibase conversion (without any I/O, see {@link InMemoryImportTarget}): the statement conversion
+ * ({@link WikidataDswarmImporter#processGDMStatement}), the qualifier conversion ({@link WikidataDswarmImporter#processGDMQualifiedAttributes}),
+ * the item assembly of {@link WikidataDswarmImporter#processGDMResource} and the copy + JSON serialization of an item before its
+ * 'wbeditentity' request ({@link WikibaseAPIClient#serializeEntity}). One operation processes all statements of one resource, i.e., the
+ * throughput is in resources per second: either the resource of 'lic_dmp_01_v1.csv.gson' ('template') or a large synthetic resource
+ * ('synthetic'). The properties + placeholder items are created at setup, i.e., the benchmarks measure the steady state of an import (all
+ * entity ids are cached). Run with 'mvn -Pjmh package && java -jar target/benchmarks.jar GDMConversionBenchmark -prof gc' to see the
+ * allocation rates as well. Note: this benchmark is located in the importer package, since the benchmarked methods are package-private.
+ *
+ * @author tgaengler
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class GDMConversionBenchmark {
+
+	public static final String TEMPLATE_RESOURCE  = "template";
+	public static final String SYNTHETIC_RESOURCE = "synthetic";
+
+	private static final String SYNTHETIC_RESOURCE_URI = "http://data.slub-dresden.de/datamodels/4/records/synthetic";
+
+	@Param({ TEMPLATE_RESOURCE, SYNTHETIC_RESOURCE })
+	public String resource;
+
+	/**
+	 * the number of statements of the synthetic resource
+	 */
+	@Param({ "1000" })
+	public int syntheticStatementCount;
+
+	private InMemoryImportTarget   importTarget;
+	private WikidataDswarmImporter importer;
+	private GDMResourceRecord      gdmResource;
+	private ItemDocument           item;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, WikidataImporterException {
+
+		importTarget = new InMemoryImportTarget();
+		importer = new WikidataDswarmImporter(importTarget);
+		gdmResource = readResource();
+
+		// note: creates all properties + placeholder items of the resource, i.e., the entity id caches are warm
+		item = importer.createItemDocument(gdmResource);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+
+		importTarget.close();
+	}
+
+	@Benchmark
+	public void processGDMStatement(final Blackhole blackhole) {
+
+		for (int i = 0; i < gdmResource.getStatementCount(); i++) {
+
+			blackhole.consume(importer.processGDMStatement(gdmResource.getStatement(i)));
+		}
+	}
+
+	@Benchmark
+	public void processGDMQualifiedAttributes(final Blackhole blackhole) {
+
+		for (int i = 0; i < gdmResource.getStatementCount(); i++) {
+
+			blackhole.consume(importer.processGDMQualifiedAttributes(gdmResource.getStatement(i)));
+		}
+	}
+
+	@Benchmark
+	public ItemDocument processGDMResource() {
+
+		return importer.createItemDocument(gdmResource);
+	}
+
+	@Benchmark
+	public String serializeItem() throws JsonProcessingException, WikidataImporterException {
+
+		return WikibaseAPIClient.serializeEntity(item, WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
+	}
+
+	private GDMResourceRecord readResource() throws IOException, WikidataImporterException {
+
+		final GDMResourceRecord[] resourceRecord = new GDMResourceRecord[1];
+
+		try (final InputStream gdmModelStream = SYNTHETIC_RESOURCE.equals(resource) ?
+				new ByteArrayInputStream(GDMModelBenchmarkData.syntheticResource(SYNTHETIC_RESOURCE_URI, syntheticStatementCount)
+						.getBytes(StandardCharsets.UTF_8)) :
+				Resources.getResource(GDMModelBenchmarkData.DEFAULT_GDM_MODEL_TEMPLATE).openStream()) {
+
+			new GDMStreamReader().read(gdmModelStream, record -> resourceRecord[0] = record.copy());
+		}
+
+		return resourceRecord[0];
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+
+import org.dswarm.wikidataimporter.CompactEntityIdCache;
+import org.dswarm.wikidataimporter.EntityIdCache;
+
+/**
+ * Compares lookups in the {@link CompactEntityIdCache} with lookups in a HashMap&lt;String, ItemIdValue&gt; (the former item id cache of the
+ * importer). Run with '-prof gc' to verify that compact cache lookups don't allocate. For the memory per entity, see
+ * {@link EntityIdCacheFootprint}.
+ *
+ * @author tgaengler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class EntityIdCacheBenchmark {
+
+	private static final int LOOKUP_URI_COUNT = 1 << 20;
+
+	@Param({ "1000000", "10000000" })
+	public int entityCount;
+
+	private EntityIdCache            compactEntityIdCache;
+	private Map<String, ItemIdValue> hashMapEntityIdCache;
+	private String[]                 lookupURIs;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		compactEntityIdCache = new CompactEntityIdCache(entityCount, false);
+		hashMapEntityIdCache = new HashMap<>();
+
+		for (int i = 0; i < entityCount; i++) {
+
+			final String resourceURI = GDMModelBenchmarkData.resourceURI(i);
+
+			compactEntityIdCache.put(resourceURI, i + 1);
+			hashMapEntityIdCache.put(resourceURI, Datamodel.makeItemIdValue("Q" + (i + 1), null));
+		}
+
+		// note: lookup URIs are distinct String instances, i.e., they need to be hashed + compared (as URIs read from a GDM model)
+		lookupURIs = new String[LOOKUP_URI_COUNT];
+
+		for (int i = 0; i < LOOKUP_URI_COUNT; i++) {
+
+			lookupURIs[i] = GDMModelBenchmarkData.resourceURI((i * 7919L) % entityCount);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class LookupPosition {
+
+		private int position;
+
+		String next(final String[] lookupURIs) {
+
+			position = (position + 1) & (lookupURIs.length - 1);
+
+			return lookupURIs[position];
+		}
+	}
+
+	@Benchmark
+	public int compactLookup(final LookupPosition lookupPosition) {
+
+		return compactEntityIdCache.get(lookupPosition.next(lookupURIs));
+	}
+
+	@Benchmark
+	public ItemIdValue hashMapLookup(final LookupPosition lookupPosition) {
+
+		return hashMapEntityIdCache.get(lookupPosition.next(lookupURIs));
+	}
+}
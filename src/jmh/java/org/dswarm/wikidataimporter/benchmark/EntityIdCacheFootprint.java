@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+
+import org.dswarm.wikidataimporter.CompactEntityIdCache;
+import org.dswarm.wikidataimporter.EntityIdCache;
+
+/**
+ * Measures the (heap) memory per entity of the {@link CompactEntityIdCache} and of a HashMap&lt;String, ItemIdValue&gt;. Run with 'java
+ * -Xmx8g -cp target/benchmarks.jar org.dswarm.wikidataimporter.benchmark.EntityIdCacheFootprint [ENTITY_COUNT]'.
+ *
+ * @author tgaengler
+ */
+public final class EntityIdCacheFootprint {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EntityIdCacheFootprint.class);
+
+	private static final int DEFAULT_ENTITY_COUNT = 10000000;
+
+	private EntityIdCacheFootprint() {
+
+	}
+
+	public static void main(final String[] args) {
+
+		final int entityCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ENTITY_COUNT;
+
+		final long baseline = usedMemory();
+		final EntityIdCache compactEntityIdCache = new CompactEntityIdCache();
+
+		for (int i = 0; i < entityCount; i++) {
+
+			compactEntityIdCache.put(GDMModelBenchmarkData.resourceURI(i), i + 1);
+		}
+
+		final long compactMemory = usedMemory() - baseline;
+
+		LOG.info("compact entity id cache: '{}' entities, '{}' bytes heap ('{}' bytes per entity), estimated '{}' bytes per entity", entityCount,
+				compactMemory, compactMemory / entityCount, compactEntityIdCache.getMemoryUsage() / entityCount);
+
+		final Map<String, ItemIdValue> hashMapEntityIdCache = new HashMap<>();
+
+		for (int i = 0; i < entityCount; i++) {
+
+			hashMapEntityIdCache.put(GDMModelBenchmarkData.resourceURI(i), Datamodel.makeItemIdValue("Q" + (i + 1), null));
+		}
+
+		final long hashMapMemory = usedMemory() - baseline - compactMemory;
+
+		LOG.info("hash map entity id cache: '{}' entities, '{}' bytes heap ('{}' bytes per entity)", hashMapEntityIdCache.size(), hashMapMemory,
+				hashMapMemory / entityCount);
+
+		// keep both caches reachable until the end of the measurement
+		LOG.debug("'{}' + '{}' entities", compactEntityIdCache.size(), hashMapEntityIdCache.size());
+	}
+
+	private static long usedMemory() {
+
+		final Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++) {
+
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
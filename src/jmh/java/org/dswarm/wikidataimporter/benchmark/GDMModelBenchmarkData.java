@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates benchmark data, i.e., scales a GDM model (template) to a given size by copying its resources (with new resource URIs).
+ *
+ * @author tgaengler
+ */
+public final class GDMModelBenchmarkData {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMModelBenchmarkData.class);
+
+	public static final String DEFAULT_GDM_MODEL_TEMPLATE = "lic_dmp_01_v1.csv.gson";
+
+	public static final long MEGABYTE = 1024L * 1024;
+
+	private static final String RESOURCE_URI_POSTFIX_SEPARATOR = "-";
+
+	private static final int DATA_MODEL_COUNT = 16;
+
+	private static final String SYNTHETIC_NAMESPACE                 = "http://data.slub-dresden.de/resources/1/schema#synthetic";
+	private static final int    SYNTHETIC_LITERAL_PREDICATE_COUNT   = 48;
+	private static final int    SYNTHETIC_RESOURCE_PREDICATE_COUNT  = 16;
+	private static final int    SYNTHETIC_RESOURCE_OBJECT_COUNT     = 256;
+	private static final int    SYNTHETIC_RESOURCE_OBJECT_FREQUENCY = 4;
+
+	private GDMModelBenchmarkData() {
+
+	}
+
+	/**
+	 * Writes a GDM model of (at least) the given size into a temporary file. Every copy of the template resource gets its own resource URI.
+	 * Note: the template needs to be a GDM model with one resource, which resource URI is the first field name of the GDM model.
+	 *
+	 * @param gdmModelTemplate the (class path) resource of the GDM model template
+	 * @param targetSize       the minimal size of the generated GDM model (in bytes)
+	 * @return the path of the generated GDM model file
+	 * @throws IOException
+	 */
+	public static Path scale(final String gdmModelTemplate, final long targetSize) throws IOException {
+
+		final URL templateURL = Resources.getResource(gdmModelTemplate);
+		final String template = Resources.toString(templateURL, StandardCharsets.UTF_8);
+
+		final int resourceStart = template.indexOf('{');
+		final int resourceEnd = template.lastIndexOf('}') + 1;
+		final String resource = template.substring(resourceStart, resourceEnd);
+
+		final int resourceURIStart = resource.indexOf('"') + 1;
+		final String resourceURI = resource.substring(resourceURIStart, resource.indexOf('"', resourceURIStart));
+
+		final Path gdmModelFile = Files.createTempFile("gdm-model-benchmark-", ".gson");
+
+		long size = 0;
+		long resourceCount = 0;
+
+		try (final BufferedWriter writer = Files.newBufferedWriter(gdmModelFile, StandardCharsets.UTF_8)) {
+
+			writer.write('[');
+
+			while (size < targetSize) {
+
+				if (resourceCount > 0) {
+
+					writer.write(",\n");
+				}
+
+				final String resourceCopy = resource.replace(resourceURI, resourceURI + RESOURCE_URI_POSTFIX_SEPARATOR + resourceCount);
+
+				writer.write(resourceCopy);
+
+				// note: the template is ASCII (mostly), i.e., characters ~ bytes
+				size += resourceCopy.length() + 2;
+				resourceCount++;
+			}
+
+			writer.write(']');
+		}
+
+		LOG.info("generated GDM model with '{}' resources ('{}' bytes) @ '{}'", resourceCount, Files.size(gdmModelFile), gdmModelFile);
+
+		return gdmModelFile;
+	}
+
+	/**
+	 * Generates a GDM model with one large resource, e.g., a record with many (repeated) fields. Every statement has a statement uuid, every
+	 * other statement an order and a confidence as well; every 4th statement refers to one of a few resource objects (e.g. subject
+	 * headings).
+	 *
+	 * @param resourceURI    the resource URI
+	 * @param statementCount the number of statements of the resource
+	 * @return the GDM model JSON
+	 */
+	public static String syntheticResource(final String resourceURI, final int statementCount) {
+
+		final StringBuilder gdmModel = new StringBuilder("[{\"").append(resourceURI).append("\":[");
+
+		for (int i = 0; i < statementCount; i++) {
+
+			if (i > 0) {
+
+				gdmModel.append(',');
+			}
+
+			gdmModel.append("{\"s\":{\"uri\":\"").append(resourceURI).append("\"},");
+
+			if (i % SYNTHETIC_RESOURCE_OBJECT_FREQUENCY == 0) {
+
+				gdmModel.append("\"p\":\"").append(SYNTHETIC_NAMESPACE).append("ResourcePredicate")
+						.append(i % SYNTHETIC_RESOURCE_PREDICATE_COUNT)
+						.append("\",\"o\":{\"uri\":\"").append(SYNTHETIC_NAMESPACE).append("Object")
+						.append(i % SYNTHETIC_RESOURCE_OBJECT_COUNT)
+						.append("\"}");
+			} else {
+
+				gdmModel.append("\"p\":\"").append(SYNTHETIC_NAMESPACE).append("LiteralPredicate")
+						.append(i % SYNTHETIC_LITERAL_PREDICATE_COUNT)
+						.append("\",\"o\":{\"v\":\"value ").append(i).append(" of a synthetic resource\"}");
+			}
+
+			gdmModel.append(",\"uuid\":\"").append(String.format("%08x-0000-4000-8000-%012x", i, i)).append('"');
+
+			if (i % 2 == 0) {
+
+				gdmModel.append(",\"order\":").append(i).append(",\"confidence\":\"0.9\"");
+			}
+
+			gdmModel.append('}');
+		}
+
+		return gdmModel.append("]}]").toString();
+	}
+
+	/**
+	 * @param i the number of the resource
+	 * @return a GDM resource URI (of one of a few data models) with a UUID-like local name
+	 */
+	public static String resourceURI(final long i) {
+
+		return String.format("http://data.slub-dresden.de/datamodels/%d/records/%08x-%04x-4%03x-%04x-%012x", i % DATA_MODEL_COUNT, i >>> 16,
+				i & 0xFFFF, i % 0xFFF, i % 0x3FFF | 0x8000, i * 0x9E3779B97F4A7C15L >>> 16);
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.dswarm.graph.json.stream.ModelParser;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+import org.dswarm.wikidataimporter.WikidataImporterException;
+
+/**
+ * Compares the {@link ModelParser} (GDM object graph) with the {@link GDMStreamReader} (flyweight resource records) on a GDM model that is
+ * scaled from 'lic_dmp_01_v1.csv.gson' (default: 1 GB). Run with 'mvn -Pjmh package && java -jar target/benchmarks.jar
+ * GDMModelParserBenchmark -prof gc' to see the allocation rates as well.
+ *
+ * @author tgaengler
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Benchmark)
+public class GDMModelParserBenchmark {
+
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * the size of the GDM model in MB
+	 */
+	@Param({ "1024" })
+	public int gdmModelSize;
+
+	private Path gdmModelFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		gdmModelFile = GDMModelBenchmarkData.scale(GDMModelBenchmarkData.DEFAULT_GDM_MODEL_TEMPLATE, gdmModelSize * GDMModelBenchmarkData.MEGABYTE);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+
+		Files.deleteIfExists(gdmModelFile);
+	}
+
+	@Benchmark
+	public long modelParser(final Blackhole blackhole) throws IOException {
+
+		final long[] statementCount = new long[1];
+
+		try (final InputStream gdmModelStream = new BufferedInputStream(Files.newInputStream(gdmModelFile), IO_BUFFER_SIZE)) {
+
+			new ModelParser(gdmModelStream).parse().toBlocking().forEach(resource -> {
+
+				statementCount[0] += resource.size();
+
+				blackhole.consume(resource);
+			});
+		}
+
+		return statementCount[0];
+	}
+
+	@Benchmark
+	public long streamingReader(final Blackhole blackhole) throws IOException, WikidataImporterException {
+
+		final long[] statementCount = new long[1];
+
+		try (final InputStream gdmModelStream = new BufferedInputStream(Files.newInputStream(gdmModelFile), IO_BUFFER_SIZE)) {
+
+			new GDMStreamReader().read(gdmModelStream, resourceRecord -> {
+
+				for (int i = 0; i < resourceRecord.getStatementCount(); i++) {
+
+					blackhole.consume(resourceRecord.getStatement(i));
+				}
+
+				statementCount[0] += resourceRecord.getStatementCount();
+			});
+		}
+
+		return statementCount[0];
+	}
+}
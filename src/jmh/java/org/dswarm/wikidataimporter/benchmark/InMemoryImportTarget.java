@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.benchmark;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+import org.dswarm.wikidataimporter.ImportMetrics;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+
+/**
+ * An import target that only generates entity identifiers (in memory), i.e., the conversion can be benchmarked without any I/O.
+ *
+ * @author tgaengler
+ */
+public class InMemoryImportTarget implements WikibaseImportTarget {
+
+	private static final String PROPERTY_ID_PREFIX = "P";
+	private static final String ITEM_ID_PREFIX     = "Q";
+	private static final String TARGET_NAME        = "in-memory";
+
+	private final AtomicInteger propertyIdCounter = new AtomicInteger();
+	private final AtomicInteger itemIdCounter     = new AtomicInteger();
+	private final ImportMetrics metrics           = new ImportMetrics(TARGET_NAME);
+
+	@Override
+	public PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty) {
+
+		return Datamodel.makePropertyIdValue(PROPERTY_ID_PREFIX + propertyIdCounter.incrementAndGet(), null);
+	}
+
+	@Override
+	public ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) {
+
+		return createItem(resourceURI, wikidataItem);
+	}
+
+	@Override
+	public ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) {
+
+		return Datamodel.makeItemIdValue(ITEM_ID_PREFIX + itemIdCounter.incrementAndGet(), null);
+	}
+
+	@Override
+	public ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem,
+			final boolean placeholder) {
+
+		return itemId;
+	}
+
+	public int getPropertyCount() {
+
+		return propertyIdCounter.get();
+	}
+
+	public int getItemCount() {
+
+		return itemIdCounter.get();
+	}
+
+	@Override
+	public ImportMetrics getMetrics() {
+
+		return metrics;
+	}
+
+	@Override
+	public void close() {
+
+		metrics.close();
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Implements {@link #computeIfAbsent(String, ToIntFunction)} on top of {@link #get(String)} and {@link #put(String, int)}, i.e., entity
+ * ids are created outside of the locks of the cache (slow entity creations, e.g., Wikibase API requests, don't block lookups of other
+ * URIs), but at most once per URI.
+ *
+ * @author tgaengler
+ */
+public abstract class AbstractEntityIdCache implements EntityIdCache {
+
+	private final ConcurrentMap<String, CompletableFuture<Integer>> pendingEntityIds = new ConcurrentHashMap<>();
+
+	@Override
+	public int computeIfAbsent(final String uri, final ToIntFunction<String> entityIdCreator) {
+
+		final int entityId = get(uri);
+
+		if (entityId != NO_ENTITY_ID) {
+
+			return entityId;
+		}
+
+		final CompletableFuture<Integer> newPendingEntityId = new CompletableFuture<>();
+		final CompletableFuture<Integer> pendingEntityId = pendingEntityIds.putIfAbsent(uri, newPendingEntityId);
+
+		if (pendingEntityId != null) {
+
+			// another thread creates the entity id right now
+
+			try {
+
+				return pendingEntityId.join();
+			} catch (final CompletionException e) {
+
+				if (e.getCause() instanceof RuntimeException) {
+
+					throw (RuntimeException) e.getCause();
+				}
+
+				throw e;
+			}
+		}
+
+		try {
+
+			// re-check, since the other thread could have finished in the meantime
+
+			int createdEntityId = get(uri);
+
+			if (createdEntityId == NO_ENTITY_ID) {
+
+				createdEntityId = entityIdCreator.applyAsInt(uri);
+
+				put(uri, createdEntityId);
+			}
+
+			newPendingEntityId.complete(createdEntityId);
+
+			return createdEntityId;
+		} catch (final RuntimeException | Error e) {
+
+			newPendingEntityId.completeExceptionally(e);
+
+			throw e;
+		} finally {
+
+			pendingEntityIds.remove(uri, newPendingEntityId);
+		}
+	}
+}
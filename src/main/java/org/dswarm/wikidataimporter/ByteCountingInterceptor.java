@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Counts the bytes of the request bodies that are sent and of the response bodies that are read by an HTTP client (see
+ * {@link ImportMetrics#bytesSent(long)} + {@link ImportMetrics#bytesReceived(long)}).
+ *
+ * @author tgaengler
+ */
+final class ByteCountingInterceptor implements WriterInterceptor, ReaderInterceptor {
+
+	private final ImportMetrics metrics;
+
+	ByteCountingInterceptor(final ImportMetrics metrics) {
+
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void aroundWriteTo(final WriterInterceptorContext context) throws IOException {
+
+		context.setOutputStream(new FilterOutputStream(context.getOutputStream()) {
+
+			@Override
+			public void write(final int b) throws IOException {
+
+				out.write(b);
+				metrics.bytesSent(1);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+
+				out.write(b, off, len);
+				metrics.bytesSent(len);
+			}
+		});
+
+		context.proceed();
+	}
+
+	@Override
+	public Object aroundReadFrom(final ReaderInterceptorContext context) throws IOException {
+
+		context.setInputStream(new FilterInputStream(context.getInputStream()) {
+
+			@Override
+			public int read() throws IOException {
+
+				final int b = in.read();
+
+				if (b >= 0) {
+
+					metrics.bytesReceived(1);
+				}
+
+				return b;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+
+				final int read = in.read(b, off, len);
+
+				if (read > 0) {
+
+					metrics.bytesReceived(read);
+				}
+
+				return read;
+			}
+		});
+
+		return context.proceed();
+	}
+}
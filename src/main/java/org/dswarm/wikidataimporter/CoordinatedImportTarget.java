@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+/**
+ * An import target that creates the entities at another import target, whereby the creations are coordinated with other importer
+ * processes (via an {@link EntityIdCoordinator}), i.e., every property and (placeholder) item is created exactly once over all shards of a
+ * sharded import. A full item, whose (placeholder) item was already created by another process, is not created again, but the existing item
+ * is updated: the statements are merged into a registered placeholder item, any other item (e.g. a full item of a restarted process) is
+ * replaced.
+ *
+ * @author tgaengler
+ */
+public class CoordinatedImportTarget implements WikibaseImportTarget {
+
+	private final WikibaseImportTarget importTarget;
+	private final EntityIdCoordinator  entityIdCoordinator;
+
+	/**
+	 * @param importTarget        the import target that creates the entities
+	 * @param entityIdCoordinator the coordinator (will be closed together with this import target)
+	 */
+	public CoordinatedImportTarget(final WikibaseImportTarget importTarget, final EntityIdCoordinator entityIdCoordinator) {
+
+		this.importTarget = importTarget;
+		this.entityIdCoordinator = entityIdCoordinator;
+	}
+
+	@Override
+	public PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty)
+			throws WikidataImporterException {
+
+		final String propertyId = entityIdCoordinator.getOrCreateEntityId(propertyIdentifier, EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX,
+				() -> importTarget.createProperty(propertyIdentifier, wikidataProperty).getId());
+
+		return Datamodel.makePropertyIdValue(propertyId, null);
+	}
+
+	@Override
+	public ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		final String itemId = entityIdCoordinator.getOrCreatePlaceholderItemId(resourceURI,
+				() -> importTarget.createPlaceholderItem(resourceURI, wikidataItem).getId());
+
+		return Datamodel.makeItemIdValue(itemId, null);
+	}
+
+	@Override
+	public ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		final ItemIdValue[] createdItemId = new ItemIdValue[1];
+
+		final String itemId = entityIdCoordinator.getOrCreateEntityId(resourceURI, EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX, () -> {
+
+			createdItemId[0] = importTarget.createItem(resourceURI, wikidataItem);
+
+			return createdItemId[0].getId();
+		});
+
+		if (createdItemId[0] != null) {
+
+			return createdItemId[0];
+		}
+
+		// note: the item was created already, e.g., a placeholder item by another shard that referenced this resource or a full item by a
+		// previous run of this shard
+		return updateItem(resourceURI, Datamodel.makeItemIdValue(itemId, null), wikidataItem, false);
+	}
+
+	@Override
+	public ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem, final boolean placeholder)
+			throws WikidataImporterException {
+
+		// note: the registry knows, whether the item is a placeholder item (over all processes); the item is registered as full item first,
+		// i.e., an interrupted update is repeated as replacement of the item
+		final boolean registeredPlaceholder = entityIdCoordinator.completeItem(resourceURI);
+
+		return importTarget.updateItem(resourceURI, itemId, wikidataItem, registeredPlaceholder);
+	}
+
+	@Override
+	public long readEntityLabels(final EntityIdWarmUp.EntityLabelHandler handler) throws WikidataImporterException {
+
+		return importTarget.readEntityLabels(handler);
+	}
+
+	@Override
+	public ImportMetrics getMetrics() {
+
+		return importTarget.getMetrics();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+
+			importTarget.close();
+		} finally {
+
+			entityIdCoordinator.close();
+		}
+	}
+}
@@ -0,0 +1,395 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A disk-backed, persistent URI → (numeric) entity id store. Entries are appended to a log file ([int key length][int entity id][UTF-8
+ * key bytes]); the lookup index is an open addressing hash table in a memory-mapped (temporary) index file with 16 byte slots ([long key
+ * hash][long log offset]), i.e., neither keys nor index occupy heap memory. The index is rebuilt from the log on creation (an incomplete
+ * last record, e.g., after a crash, is truncated).<br/>
+ * Entries are not overwritten (the first entity id of a URI wins).
+ *
+ * @author tgaengler
+ */
+public class DiskEntityIdStore implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DiskEntityIdStore.class);
+
+	private static final int          SLOT_SIZE          = 16;
+	private static final int          WINDOW_SHIFT       = 30;
+	private static final long         WINDOW_SIZE        = 1L << WINDOW_SHIFT;
+	private static final long         WINDOW_MASK        = WINDOW_SIZE - 1;
+	private static final long         MIN_SLOT_COUNT     = 1L << 16;
+	private static final double       MAX_LOAD_FACTOR    = 0.5;
+	private static final long         EMPTY_HASH         = 0L;
+	private static final int          RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+	private static final int          READ_BUFFER_SIZE   = 512;
+	private static final int          IO_BUFFER_SIZE     = 1 << 16;
+	private static final String       INDEX_FILE_PREFIX  = "entity-id-index-";
+	private static final String       INDEX_FILE_POSTFIX = ".idx";
+	private static final HashFunction KEY_HASH_FUNCTION  = Hashing.murmur3_128();
+
+	private final Path        logFile;
+	private final FileChannel logChannel;
+	private       long        logSize;
+
+	private Path               indexFile;
+	private FileChannel        indexChannel;
+	private MappedByteBuffer[] indexWindows;
+	private long               slotCount;
+	private long               size;
+
+	private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+	/**
+	 * @param logFile     the log file of the store (will be created, if it doesn't exist)
+	 * @param uriConsumer receives all URIs that are already contained in the log file (e.g. to initialise a Bloom filter)
+	 * @throws IOException
+	 */
+	public DiskEntityIdStore(final Path logFile, final Consumer<String> uriConsumer) throws IOException {
+
+		this.logFile = logFile;
+		logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		createIndex(MIN_SLOT_COUNT);
+
+		try {
+
+			load(uriConsumer);
+		} catch (final IOException | RuntimeException e) {
+
+			closeQuietly();
+
+			throw e;
+		}
+
+		LOG.info("loaded '{}' entity ids from '{}' ('{}' bytes)", size, logFile, logSize);
+	}
+
+	/**
+	 * @param uri the URI
+	 * @return the (numeric) entity id of the URI or {@link EntityIdCache#NO_ENTITY_ID}
+	 * @throws IOException
+	 */
+	public synchronized int get(final String uri) throws IOException {
+
+		final byte[] key = uri.getBytes(StandardCharsets.UTF_8);
+		final long hash = hash(key);
+		final long mask = slotCount - 1;
+
+		for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+
+			final long slotHash = getSlotHash(slot);
+
+			if (slotHash == EMPTY_HASH) {
+
+				return EntityIdCache.NO_ENTITY_ID;
+			}
+
+			if (slotHash == hash) {
+
+				final int entityId = readEntityId(getSlotLogOffset(slot), key);
+
+				if (entityId != EntityIdCache.NO_ENTITY_ID) {
+
+					return entityId;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the entry to the log, if the URI is not contained yet.
+	 *
+	 * @param uri      the URI
+	 * @param entityId the (numeric) entity id
+	 * @throws IOException
+	 */
+	public synchronized void put(final String uri, final int entityId) throws IOException {
+
+		final int existingEntityId = get(uri);
+
+		if (existingEntityId != EntityIdCache.NO_ENTITY_ID) {
+
+			if (existingEntityId != entityId) {
+
+				LOG.warn("'{}' is already mapped to entity id '{}'; won't map it to '{}'", uri, existingEntityId, entityId);
+			}
+
+			return;
+		}
+
+		final byte[] key = uri.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + key.length);
+
+		record.putInt(key.length).putInt(entityId).put(key);
+		record.flip();
+
+		final long logOffset = logSize;
+
+		while (record.hasRemaining()) {
+
+			logChannel.write(record, logSize + record.position());
+		}
+
+		logSize += record.limit();
+
+		insert(hash(key), logOffset);
+	}
+
+	public synchronized long size() {
+
+		return size;
+	}
+
+	/**
+	 * forces all appended entries to the storage device
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void flush() throws IOException {
+
+		logChannel.force(false);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+
+		try {
+
+			logChannel.force(false);
+		} finally {
+
+			closeQuietly();
+		}
+	}
+
+	private void load(final Consumer<String> uriConsumer) throws IOException {
+
+		final long fileSize = logChannel.size();
+
+		try (final DataInputStream logStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile), IO_BUFFER_SIZE))) {
+
+			while (logSize < fileSize) {
+
+				final byte[] key;
+
+				try {
+
+					final int keyLength = logStream.readInt();
+
+					logStream.readInt();
+
+					key = new byte[keyLength];
+
+					logStream.readFully(key);
+				} catch (final EOFException e) {
+
+					LOG.warn("truncate incomplete entity id record at offset '{}' of '{}'", logSize, logFile);
+
+					logChannel.truncate(logSize);
+
+					break;
+				}
+
+				insert(hash(key), logSize);
+
+				logSize += RECORD_HEADER_SIZE + key.length;
+
+				uriConsumer.accept(new String(key, StandardCharsets.UTF_8));
+			}
+		}
+	}
+
+	/**
+	 * @return the entity id of the record at the given log offset, if its key equals the given key, or {@link EntityIdCache#NO_ENTITY_ID}
+	 */
+	private int readEntityId(final long logOffset, final byte[] key) throws IOException {
+
+		final int recordSize = RECORD_HEADER_SIZE + key.length;
+
+		if (readBuffer.capacity() < recordSize) {
+
+			readBuffer = ByteBuffer.allocate(recordSize);
+		}
+
+		readBuffer.clear();
+		readBuffer.limit(recordSize);
+
+		while (readBuffer.hasRemaining()) {
+
+			if (logChannel.read(readBuffer, logOffset + readBuffer.position()) < 0) {
+
+				// record is shorter than the key, i.e., it's another key
+				return EntityIdCache.NO_ENTITY_ID;
+			}
+		}
+
+		if (readBuffer.getInt(0) != key.length) {
+
+			return EntityIdCache.NO_ENTITY_ID;
+		}
+
+		for (int i = 0; i < key.length; i++) {
+
+			if (readBuffer.get(RECORD_HEADER_SIZE + i) != key[i]) {
+
+				return EntityIdCache.NO_ENTITY_ID;
+			}
+		}
+
+		return readBuffer.getInt(Integer.BYTES);
+	}
+
+	private void insert(final long hash, final long logOffset) throws IOException {
+
+		if (size + 1 > slotCount * MAX_LOAD_FACTOR) {
+
+			resizeIndex();
+		}
+
+		insertSlot(hash, logOffset);
+
+		size++;
+	}
+
+	private void insertSlot(final long hash, final long logOffset) {
+
+		final long mask = slotCount - 1;
+
+		long slot = hash & mask;
+
+		while (getSlotHash(slot) != EMPTY_HASH) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		final long position = slot * SLOT_SIZE;
+		final MappedByteBuffer window = indexWindows[(int) (position >>> WINDOW_SHIFT)];
+		final int windowOffset = (int) (position & WINDOW_MASK);
+
+		window.putLong(windowOffset, hash);
+		window.putLong(windowOffset + Long.BYTES, logOffset);
+	}
+
+	private long getSlotHash(final long slot) {
+
+		final long position = slot * SLOT_SIZE;
+
+		return indexWindows[(int) (position >>> WINDOW_SHIFT)].getLong((int) (position & WINDOW_MASK));
+	}
+
+	private long getSlotLogOffset(final long slot) {
+
+		final long position = slot * SLOT_SIZE + Long.BYTES;
+
+		return indexWindows[(int) (position >>> WINDOW_SHIFT)].getLong((int) (position & WINDOW_MASK));
+	}
+
+	private void createIndex(final long newSlotCount) throws IOException {
+
+		indexFile = Files.createTempFile(logFile.toAbsolutePath().getParent(), INDEX_FILE_PREFIX, INDEX_FILE_POSTFIX);
+		indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		slotCount = newSlotCount;
+
+		final long indexSize = slotCount * SLOT_SIZE;
+		final int windowCount = (int) ((indexSize + WINDOW_SIZE - 1) >>> WINDOW_SHIFT);
+
+		indexWindows = new MappedByteBuffer[windowCount];
+
+		for (int i = 0; i < windowCount; i++) {
+
+			final long windowStart = (long) i << WINDOW_SHIFT;
+
+			// note: the mapping extends the (sparse) file; new regions are zeroed, i.e., all slots are empty
+			indexWindows[i] = indexChannel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.min(WINDOW_SIZE, indexSize - windowStart));
+		}
+	}
+
+	private void resizeIndex() throws IOException {
+
+		final Path oldIndexFile = indexFile;
+		final FileChannel oldIndexChannel = indexChannel;
+		final MappedByteBuffer[] oldIndexWindows = indexWindows;
+
+		createIndex(slotCount << 1);
+
+		for (final MappedByteBuffer oldIndexWindow : oldIndexWindows) {
+
+			for (int windowOffset = 0; windowOffset < oldIndexWindow.limit(); windowOffset += SLOT_SIZE) {
+
+				final long hash = oldIndexWindow.getLong(windowOffset);
+
+				if (hash != EMPTY_HASH) {
+
+					insertSlot(hash, oldIndexWindow.getLong(windowOffset + Long.BYTES));
+				}
+			}
+		}
+
+		oldIndexChannel.close();
+		Files.deleteIfExists(oldIndexFile);
+
+		LOG.debug("resized entity id index of '{}' to '{}' slots", logFile, slotCount);
+	}
+
+	private void closeQuietly() {
+
+		try {
+
+			logChannel.close();
+		} catch (final IOException e) {
+
+			LOG.debug("couldn't close entity id log '{}'", logFile, e);
+		}
+
+		try {
+
+			indexChannel.close();
+			Files.deleteIfExists(indexFile);
+		} catch (final IOException e) {
+
+			LOG.debug("couldn't remove entity id index '{}'", indexFile, e);
+		}
+	}
+
+	private static long hash(final byte[] key) {
+
+		final long hash = KEY_HASH_FUNCTION.hashBytes(key).asLong();
+
+		// note: 0 marks empty slots
+		return hash != EMPTY_HASH ? hash : 1L;
+	}
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.nio.charset.StandardCharsets;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The preparation of a 'wbeditentity' request, i.e., the serialization of the entity (the request itself is sent on subscription, see
+ * {@link EditEntityResponseEvent}), see {@link ImportEvents}.
+ *
+ * @author tgaengler
+ */
+@Name("org.dswarm.wikidataimporter.EditEntityRequest")
+@Label("Edit Entity Request")
+@Category({ "D:SWARM", "Wikidata Importer" })
+@Description("The serialization of an entity for a wbeditentity request")
+@StackTrace(false)
+class EditEntityRequestEvent extends Event {
+
+	@Label("Entity Type")
+	String entityType;
+
+	@Label("Priority")
+	String priority;
+
+	@Label("Payload Size")
+	@Description("The size of the entity JSON")
+	@DataAmount(DataAmount.BYTES)
+	long payloadBytes;
+
+	EditEntityRequestEvent() {
+
+		begin();
+	}
+
+	void record(final String entityType, final RequestPriority priority, final String entityJSON) {
+
+		if (shouldCommit()) {
+
+			this.entityType = entityType;
+			this.priority = priority.name();
+			payloadBytes = entityJSON.getBytes(StandardCharsets.UTF_8).length;
+
+			commit();
+		}
+	}
+}
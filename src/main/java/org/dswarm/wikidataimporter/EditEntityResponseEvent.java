@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The processing of the response of a 'wbeditentity' request, i.e., mainly the wait on Wikibase (incl. the queueing of the request, see
+ * {@link PriorityRequestScheduler}), see {@link ImportEvents}.
+ *
+ * @author tgaengler
+ */
+@Name("org.dswarm.wikidataimporter.EditEntityResponse")
+@Label("Edit Entity Response")
+@Category({ "D:SWARM", "Wikidata Importer" })
+@Description("The wait on (and the processing of) the response of a wbeditentity request")
+@StackTrace(false)
+class EditEntityResponseEvent extends Event {
+
+	@Label("Entity Identifier")
+	String entityIdentifier;
+
+	@Label("Entity Type")
+	String entityType;
+
+	@Label("Status")
+	int status;
+
+	@Label("Response Size")
+	@Description("The content length of the response (-1, if unknown)")
+	@DataAmount(DataAmount.BYTES)
+	long responseBytes = -1;
+
+	@Label("Error")
+	@Description("The code of the API error (e.g. a label conflict), if any")
+	String error;
+
+	EditEntityResponseEvent() {
+
+		begin();
+	}
+
+	void record(final String entityIdentifier, final String entityType) {
+
+		if (shouldCommit()) {
+
+			this.entityIdentifier = entityIdentifier;
+			this.entityType = entityType;
+
+			commit();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * A cache of the numeric parts of Wikibase entity ids (e.g. 123 of "Q123") keyed by the (GDM) URIs they were created for.
+ *
+ * @author tgaengler
+ */
+public interface EntityIdCache {
+
+	/**
+	 * the value that is returned for URIs without cached entity id (numeric Wikibase entity ids start at 1)
+	 */
+	int NO_ENTITY_ID = 0;
+
+	/**
+	 * @param uri the URI
+	 * @return the cached (numeric) entity id or {@link #NO_ENTITY_ID}
+	 */
+	int get(final String uri);
+
+	/**
+	 * @param uri      the URI
+	 * @param entityId the (numeric) entity id
+	 */
+	void put(final String uri, final int entityId);
+
+	/**
+	 * Returns the cached entity id of the URI or creates it via the given function. The function is called at most once per URI, also when
+	 * several threads request the same URI concurrently.
+	 *
+	 * @param uri             the URI
+	 * @param entityIdCreator creates the (numeric) entity id for the URI
+	 * @return the cached or created (numeric) entity id
+	 */
+	int computeIfAbsent(final String uri, final ToIntFunction<String> entityIdCreator);
+
+	/**
+	 * @return the number of cached entity ids
+	 */
+	int size();
+
+	/**
+	 * @return an estimate of the memory (in bytes) that is occupied by this cache
+	 */
+	long getMemoryUsage();
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+/**
+ * A snapshot of the statistics of a {@link TieredEntityIdCache}.
+ *
+ * @author tgaengler
+ */
+public final class EntityIdCacheStats {
+
+	private final long hotTierHitCount;
+	private final long hotTierMissCount;
+	private final long hotTierEvictionCount;
+	private final long bloomFilterNegativeCount;
+	private final long diskTierHitCount;
+	private final long diskTierMissCount;
+
+	public EntityIdCacheStats(final long hotTierHitCount, final long hotTierMissCount, final long hotTierEvictionCount,
+			final long bloomFilterNegativeCount, final long diskTierHitCount, final long diskTierMissCount) {
+
+		this.hotTierHitCount = hotTierHitCount;
+		this.hotTierMissCount = hotTierMissCount;
+		this.hotTierEvictionCount = hotTierEvictionCount;
+		this.bloomFilterNegativeCount = bloomFilterNegativeCount;
+		this.diskTierHitCount = diskTierHitCount;
+		this.diskTierMissCount = diskTierMissCount;
+	}
+
+	public long getHotTierHitCount() {
+
+		return hotTierHitCount;
+	}
+
+	public long getHotTierMissCount() {
+
+		return hotTierMissCount;
+	}
+
+	public long getHotTierEvictionCount() {
+
+		return hotTierEvictionCount;
+	}
+
+	/**
+	 * @return the number of lookups that were answered by the Bloom filter ("definitely not created yet"), i.e., without disk access
+	 */
+	public long getBloomFilterNegativeCount() {
+
+		return bloomFilterNegativeCount;
+	}
+
+	public long getDiskTierHitCount() {
+
+		return diskTierHitCount;
+	}
+
+	/**
+	 * @return the number of disk lookups without result, i.e., the false positives of the Bloom filter
+	 */
+	public long getDiskTierMissCount() {
+
+		return diskTierMissCount;
+	}
+
+	public long getRequestCount() {
+
+		return hotTierHitCount + hotTierMissCount;
+	}
+
+	public double getHotTierHitRate() {
+
+		return rate(hotTierHitCount, getRequestCount());
+	}
+
+	/**
+	 * @return the rate of lookups that are answered by one of the tiers (hot tier or disk tier)
+	 */
+	public double getHitRate() {
+
+		return rate(hotTierHitCount + diskTierHitCount, getRequestCount());
+	}
+
+	public double getHotTierEvictionRate() {
+
+		return rate(hotTierEvictionCount, getRequestCount());
+	}
+
+	public double getBloomFilterFalsePositiveRate() {
+
+		return rate(diskTierMissCount, bloomFilterNegativeCount + diskTierMissCount);
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format(
+				"requests = '%d'; hot tier hits = '%d' (%.2f%%); hot tier evictions = '%d'; Bloom filter negatives = '%d'; disk tier hits = '%d'; "
+						+ "disk tier misses = '%d' (Bloom filter false positive rate = %.2f%%)", getRequestCount(), hotTierHitCount,
+				getHotTierHitRate() * 100, hotTierEvictionCount, bloomFilterNegativeCount, diskTierHitCount, diskTierMissCount,
+				getBloomFilterFalsePositiveRate() * 100);
+	}
+
+	private static double rate(final long count, final long total) {
+
+		return total == 0 ? 0.0 : (double) count / total;
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+
+/**
+ * Coordinates the creation of entities between several importer processes (e.g. the shards of a sharded import, see {@link ResourceShard})
+ * that import into the same Wikibase, i.e., every entity (property or item) is created exactly once and all processes get the same
+ * identifier for it.
+ *
+ * @author tgaengler
+ */
+public interface EntityIdCoordinator extends Closeable {
+
+	/**
+	 * Returns the identifier of the entity of the given URI, if it was already created (by any process), or creates the entity (exactly
+	 * once over all processes) via the given creation.
+	 *
+	 * @param uri            the GDM URI of the entity
+	 * @param entityIdPrefix the entity id prefix of the entity type, i.e., {@link EntityIdMapping#MEDIAWIKI_ITEM_ID_PREFIX} or
+	 *                       {@link EntityIdMapping#MEDIAWIKI_PROPERTY_ID_PREFIX}
+	 * @param entityCreation creates the entity and returns its identifier
+	 * @return the identifier of the (already) created entity
+	 * @throws WikidataImporterException
+	 */
+	String getOrCreateEntityId(final String uri, final String entityIdPrefix, final EntityCreation entityCreation)
+			throws WikidataImporterException;
+
+	/**
+	 * Like {@link #getOrCreateEntityId(String, String, EntityCreation)} for items, whereby a created item is registered as placeholder item
+	 * (until it's completed, see {@link #completeItem(String)}).
+	 *
+	 * @param uri            the GDM resource URI of the item
+	 * @param entityCreation creates the placeholder item and returns its identifier
+	 * @return the identifier of the (already) created item
+	 * @throws WikidataImporterException
+	 */
+	String getOrCreatePlaceholderItemId(final String uri, final EntityCreation entityCreation) throws WikidataImporterException;
+
+	/**
+	 * Registers the already created item of the given resource URI as full item, i.e., statements must not be merged into it anymore (they
+	 * would be duplicated, e.g., by a restarted process). Note: an item should be registered as full item before its statements are sent,
+	 * i.e., an interrupted completion is repeated as replacement of the item.
+	 *
+	 * @param uri the GDM resource URI of the item
+	 * @return true, if the item was registered as placeholder item (i.e. it can be completed by merging the statements into it)
+	 * @throws WikidataImporterException
+	 */
+	boolean completeItem(final String uri) throws WikidataImporterException;
+
+	@FunctionalInterface
+	interface EntityCreation {
+
+		String create() throws WikidataImporterException;
+	}
+}
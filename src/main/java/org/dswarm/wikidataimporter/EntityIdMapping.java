@@ -0,0 +1,255 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent GDM URI -> Wikibase entity identifier (e.g. 'Q42' or 'P31') mapping. Every new entry is appended to a tab-separated mapping
+ * file, i.e., an existing mapping file will be loaded on creation and continued. The lookup index is a {@link TieredEntityIdCache} (a
+ * bounded hot tier in front of a temporary disk tier), i.e., the heap memory of the mapping doesn't grow with the number of entities. Items
+ * are indexed with their positive numeric id, properties with their negated numeric id.
+ *
+ * @author tgaengler
+ */
+public class EntityIdMapping implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EntityIdMapping.class);
+
+	private static final char SEPARATOR = '\t';
+
+	public static final String MEDIAWIKI_ITEM_ID_PREFIX     = "Q";
+	public static final String MEDIAWIKI_PROPERTY_ID_PREFIX = "P";
+
+	public static final long DEFAULT_HOT_TIER_SIZE = 100000;
+	public static final long DEFAULT_EXPECTED_SIZE = 1000000;
+
+	private static final String INDEX_FILE_PREFIX  = "entity-id-mapping-";
+	private static final String INDEX_FILE_POSTFIX = ".log";
+
+	private final Path                index;
+	private final TieredEntityIdCache mapping;
+	private final BufferedWriter      mappingWriter;
+
+	private long maxItemId;
+	private long maxPropertyId;
+
+	public EntityIdMapping(final Path mappingFile) throws IOException {
+
+		this(mappingFile, DEFAULT_HOT_TIER_SIZE, DEFAULT_EXPECTED_SIZE);
+	}
+
+	/**
+	 * @param mappingFile  the mapping file (an existing one will be continued)
+	 * @param hotTierSize  the maximum number of entries that are kept in memory
+	 * @param expectedSize the expected number of entities (to dimension the Bloom filter of the index)
+	 * @throws IOException
+	 */
+	public EntityIdMapping(final Path mappingFile, final long hotTierSize, final long expectedSize) throws IOException {
+
+		// note: the index is rebuilt from the mapping file, i.e., it is only temporary
+		index = Files.createTempFile(mappingFile.toAbsolutePath().getParent(), INDEX_FILE_PREFIX, INDEX_FILE_POSTFIX);
+
+		try {
+
+			mapping = new TieredEntityIdCache(index, hotTierSize, expectedSize);
+
+			if (Files.exists(mappingFile)) {
+
+				load(mappingFile);
+			}
+
+			mappingWriter = Files.newBufferedWriter(mappingFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (final IOException | RuntimeException e) {
+
+			closeIndex();
+
+			throw e;
+		}
+	}
+
+	public Optional<String> getEntityId(final String uri) {
+
+		final int indexedEntityId = mapping.get(uri);
+
+		if (indexedEntityId == EntityIdCache.NO_ENTITY_ID) {
+
+			return Optional.empty();
+		}
+
+		return Optional.of(indexedEntityId > 0 ?
+				MEDIAWIKI_ITEM_ID_PREFIX + indexedEntityId :
+				MEDIAWIKI_PROPERTY_ID_PREFIX + -indexedEntityId);
+	}
+
+	public void putEntityId(final String uri, final String entityId) throws IOException {
+
+		final Optional<String> optionalPreviousEntityId = getEntityId(uri);
+
+		if (optionalPreviousEntityId.isPresent()) {
+
+			if (!optionalPreviousEntityId.get().equals(entityId)) {
+
+				LOG.warn("'{}' is already mapped to '{}'; won't map it to '{}'", uri, optionalPreviousEntityId.get(), entityId);
+			}
+
+			return;
+		}
+
+		index(uri, entityId);
+
+		mappingWriter.append(uri).append(SEPARATOR).append(entityId);
+		mappingWriter.newLine();
+	}
+
+	/**
+	 * @return the highest numeric item identifier of this mapping (or 0, if no item is mapped)
+	 */
+	public long getMaxItemId() {
+
+		return maxItemId;
+	}
+
+	/**
+	 * @return the highest numeric property identifier of this mapping (or 0, if no property is mapped)
+	 */
+	public long getMaxPropertyId() {
+
+		return maxPropertyId;
+	}
+
+	public int size() {
+
+		return mapping.size();
+	}
+
+	/**
+	 * @return an estimate of the heap memory of the index
+	 */
+	public long getMemoryUsage() {
+
+		return mapping.getMemoryUsage();
+	}
+
+	public void flush() throws IOException {
+
+		mappingWriter.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+
+			mappingWriter.close();
+		} finally {
+
+			closeIndex();
+		}
+	}
+
+	private void load(final Path mappingFile) throws IOException {
+
+		LOG.debug("try to load entity id mapping from '{}'", mappingFile);
+
+		try (final BufferedReader reader = Files.newBufferedReader(mappingFile, StandardCharsets.UTF_8)) {
+
+			String line;
+
+			while ((line = reader.readLine()) != null) {
+
+				final int separatorIndex = line.lastIndexOf(SEPARATOR);
+
+				if (separatorIndex <= 0) {
+
+					LOG.debug("skip malformed entity id mapping line '{}'", line);
+
+					continue;
+				}
+
+				final String uri = line.substring(0, separatorIndex);
+				final String entityId = line.substring(separatorIndex + 1);
+
+				index(uri, entityId);
+			}
+		}
+
+		LOG.info("loaded '{}' entity id mappings from '{}'", mapping.size(), mappingFile);
+	}
+
+	private void index(final String uri, final String entityId) {
+
+		final long numericId = parseNumericId(entityId);
+
+		if (numericId <= 0 || numericId > Integer.MAX_VALUE) {
+
+			LOG.warn("cannot index entity id '{}' of '{}'", entityId, uri);
+
+			return;
+		}
+
+		if (entityId.startsWith(MEDIAWIKI_ITEM_ID_PREFIX)) {
+
+			mapping.put(uri, (int) numericId);
+			maxItemId = Math.max(maxItemId, numericId);
+		} else if (entityId.startsWith(MEDIAWIKI_PROPERTY_ID_PREFIX)) {
+
+			mapping.put(uri, (int) -numericId);
+			maxPropertyId = Math.max(maxPropertyId, numericId);
+		} else {
+
+			LOG.warn("cannot index entity id '{}' of '{}'", entityId, uri);
+		}
+	}
+
+	private void closeIndex() throws IOException {
+
+		try {
+
+			if (mapping != null) {
+
+				mapping.close();
+			}
+		} finally {
+
+			Files.deleteIfExists(index);
+		}
+	}
+
+	private static long parseNumericId(final String entityId) {
+
+		try {
+
+			return Long.parseLong(entityId.substring(1));
+		} catch (final NumberFormatException e) {
+
+			LOG.debug("couldn't parse numeric part of entity id '{}'", entityId);
+
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+
+/**
+ * Reads the label → id mappings of the entities that already exist in a Wikibase, i.e., to warm up the entity id caches of the importer
+ * before an import into a non-empty Wikibase. Otherwise, every existing entity would only be found via a failing create request (label
+ * conflict). The mappings can be read from a (local) Wikibase JSON dump (streaming, optionally compressed) or via the API (enumeration of
+ * the item + property pages and wbgetentities requests in batches of {@link WikibaseAPIClient#WIKIBASE_API_GET_ENTITIES_LIMIT}).
+ *
+ * @author tgaengler
+ */
+public final class EntityIdWarmUp {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EntityIdWarmUp.class);
+
+	public static final String LANGUAGE_CODE_EN = "en";
+
+	private static final String ID_FIELD              = "id";
+	private static final String LABELS_FIELD          = "labels";
+	private static final String VALUE_FIELD           = "value";
+	private static final String QUERY_FIELD           = "query";
+	private static final String ALLPAGES_FIELD        = "allpages";
+	private static final String TITLE_FIELD           = "title";
+	private static final String CONTINUE_FIELD        = "continue";
+	private static final String APCONTINUE_FIELD      = "apcontinue";
+	private static final String ENTITIES_FIELD        = "entities";
+	private static final String MISSING_FIELD         = "missing";
+	private static final char   NAMESPACE_SEPARATOR   = ':';
+	private static final long   PROGRESS_LOG_INTERVAL = 100000;
+
+	private static final JsonFactory  JSON_FACTORY = new JsonFactory();
+	private static final ObjectMapper MAPPER       = new ObjectMapper();
+
+	private EntityIdWarmUp() {
+
+	}
+
+	/**
+	 * Streams the entities of the given Wikibase JSON dump (a JSON array of entity documents; gzip, zstd or bzip2 compressed dumps are
+	 * decompressed on the fly) and hands the id + English label of every entity to the handler.
+	 *
+	 * @param dumpFile the Wikibase JSON dump file
+	 * @param handler  the consumer of the entity labels
+	 * @return the number of handed over entities
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	public static long readJSONDump(final Path dumpFile, final EntityLabelHandler handler) throws IOException, WikidataImporterException {
+
+		LOG.info("read entity labels from Wikibase JSON dump '{}'", dumpFile);
+
+		long entityCount = 0;
+
+		try (final InputStream dumpStream = GDMModelCompression.open(dumpFile);
+				final JsonParser parser = JSON_FACTORY.createParser(dumpStream)) {
+
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+
+				throw new IOException(String.format("'%s' is not a Wikibase JSON dump (JSON array of entities expected)", dumpFile));
+			}
+
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+
+				String entityId = null;
+				String label = null;
+
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+					final String fieldName = parser.getCurrentName();
+					final JsonToken valueToken = parser.nextToken();
+
+					if (ID_FIELD.equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+
+						entityId = parser.getText();
+					} else if (LABELS_FIELD.equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+
+						label = readLabel(parser);
+					} else {
+
+						parser.skipChildren();
+					}
+				}
+
+				if (entityId != null && label != null) {
+
+					handler.handle(entityId, label);
+
+					if (++entityCount % PROGRESS_LOG_INTERVAL == 0) {
+
+						LOG.info("read '{}' entity labels from '{}'", entityCount, dumpFile);
+					}
+				}
+			}
+		}
+
+		LOG.info("read '{}' entity labels from Wikibase JSON dump '{}'", entityCount, dumpFile);
+
+		return entityCount;
+	}
+
+	/**
+	 * Enumerates all pages of the given namespaces (e.g. the item + property namespaces) and retrieves the English labels of the entities
+	 * in batches via wbgetentities.
+	 *
+	 * @param wikibaseAPIClient the API client of the Wikibase
+	 * @param namespaces        the ids of the entity namespaces
+	 * @param handler           the consumer of the entity labels
+	 * @return the number of handed over entities
+	 * @throws WikidataImporterException
+	 */
+	public static long readAPI(final WikibaseAPIClient wikibaseAPIClient, final int[] namespaces, final EntityLabelHandler handler)
+			throws WikidataImporterException {
+
+		long entityCount = 0;
+
+		for (final int namespace : namespaces) {
+
+			LOG.info("read entity labels of namespace '{}' via API", namespace);
+
+			final List<String> entityIds = new ArrayList<>();
+
+			String continueFrom = null;
+
+			do {
+
+				final JsonNode pagesJSON = readResponse(wikibaseAPIClient.listPages(namespace, continueFrom),
+						String.format("list pages of namespace '%s'", namespace));
+
+				for (final JsonNode pageJSON : pagesJSON.path(QUERY_FIELD).path(ALLPAGES_FIELD)) {
+
+					final String title = pageJSON.path(TITLE_FIELD).asText();
+
+					// note: the page title is the (namespace-prefixed) entity id, e.g., 'Item:Q42'
+					entityIds.add(title.substring(title.indexOf(NAMESPACE_SEPARATOR) + 1));
+
+					if (entityIds.size() == WikibaseAPIClient.WIKIBASE_API_GET_ENTITIES_LIMIT) {
+
+						entityCount += readEntityLabels(wikibaseAPIClient, entityIds, handler);
+						entityIds.clear();
+					}
+				}
+
+				final JsonNode continueJSON = pagesJSON.path(CONTINUE_FIELD).path(APCONTINUE_FIELD);
+
+				continueFrom = continueJSON.isTextual() ? continueJSON.asText() : null;
+			} while (continueFrom != null);
+
+			if (!entityIds.isEmpty()) {
+
+				entityCount += readEntityLabels(wikibaseAPIClient, entityIds, handler);
+			}
+
+			LOG.info("read '{}' entity labels (in total) via API", entityCount);
+		}
+
+		return entityCount;
+	}
+
+	private static long readEntityLabels(final WikibaseAPIClient wikibaseAPIClient, final List<String> entityIds,
+			final EntityLabelHandler handler) throws WikidataImporterException {
+
+		final JsonNode entitiesJSON = readResponse(wikibaseAPIClient.getEntityLabels(entityIds, LANGUAGE_CODE_EN),
+				String.format("get labels of entities '%s'", entityIds)).path(ENTITIES_FIELD);
+
+		long entityCount = 0;
+
+		final Iterator<Map.Entry<String, JsonNode>> entityJSONs = entitiesJSON.fields();
+
+		while (entityJSONs.hasNext()) {
+
+			final Map.Entry<String, JsonNode> entityJSON = entityJSONs.next();
+
+			if (entityJSON.getValue().has(MISSING_FIELD)) {
+
+				continue;
+			}
+
+			final JsonNode labelJSON = entityJSON.getValue().path(LABELS_FIELD).path(LANGUAGE_CODE_EN).path(VALUE_FIELD);
+
+			if (labelJSON.isTextual()) {
+
+				handler.handle(entityJSON.getKey(), labelJSON.asText());
+
+				entityCount++;
+			}
+		}
+
+		return entityCount;
+	}
+
+	private static JsonNode readResponse(final Observable<Response> responseObservable, final String request)
+			throws WikidataImporterException {
+
+		final Response response = responseObservable.toBlocking().firstOrDefault(null);
+
+		if (response == null) {
+
+			final String message = String.format("couldn't %s via API; request failed", request);
+
+			LOG.error(message);
+
+			throw new WikidataImporterException(message);
+		}
+
+		try {
+
+			return MAPPER.readTree(response.readEntity(String.class));
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't %s via API; couldn't parse response", request);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	/**
+	 * reads the English label of a 'labels' object (the parser is positioned at its start)
+	 */
+	private static String readLabel(final JsonParser parser) throws IOException {
+
+		String label = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			final String language = parser.getCurrentName();
+
+			parser.nextToken();
+
+			if (LANGUAGE_CODE_EN.equals(language) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+					final String fieldName = parser.getCurrentName();
+
+					parser.nextToken();
+
+					if (VALUE_FIELD.equals(fieldName) && parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+
+						label = parser.getText();
+					} else {
+
+						parser.skipChildren();
+					}
+				}
+			} else {
+
+				parser.skipChildren();
+			}
+		}
+
+		return label;
+	}
+
+	/**
+	 * consumes the label → id mappings of existing entities
+	 */
+	@FunctionalInterface
+	public interface EntityLabelHandler {
+
+		void handle(final String entityId, final String label) throws WikidataImporterException;
+	}
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+/**
+ * Checks the Wikibase constraints that would let an edit fail (and fixes the violations, if possible), while the importer builds an
+ * entity, i.e., before anything (incl. placeholder items for resource objects) is sent to the Wikibase:
+ * <ul>
+ * <li>terms (labels, descriptions) are limited to {@link #MAX_TERM_LENGTH} characters; longer terms (e.g. long URIs) are shortened with a
+ * hash postfix, i.e., they keep unique</li>
+ * <li>string values are limited to {@link #MAX_STRING_VALUE_LENGTH} characters; longer values are cut</li>
+ * <li>terms + string values must not be empty and must not have leading/trailing whitespace (they are trimmed or dropped)</li>
+ * <li>a property has one datatype (the datatype of its first value); resource values of string properties are coerced into strings,
+ * literal values of item properties are dropped</li>
+ * </ul>
+ * The limits are the defaults of Wikibase ('string-limits' repo setting).
+ *
+ * @author tgaengler
+ */
+public class EntityValidator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EntityValidator.class);
+
+	private static final LogSampler VIOLATION_LOG = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
+
+	public static final int MAX_TERM_LENGTH         = 250;
+	public static final int MAX_STRING_VALUE_LENGTH = 400;
+
+	private static final String       TOO_LONG_VALUE_POSTFIX = "...";
+	private static final String       TOO_LONG_TERM_POSTFIX  = "~";
+	private static final int          TERM_HASH_LENGTH       = 16;
+	private static final HashFunction TERM_HASH_FUNCTION     = Hashing.murmur3_128();
+
+	/**
+	 * the violations of Wikibase constraints that can be detected locally
+	 */
+	public enum Violation {
+
+		TOO_LONG_TERM,
+		EMPTY_TERM,
+		TOO_LONG_STRING_VALUE,
+		EMPTY_STRING_VALUE,
+		UNTRIMMED_VALUE,
+		DATATYPE_MISMATCH
+	}
+
+	private final Map<Violation, AtomicLong> violationCounts   = new EnumMap<>(Violation.class);
+	private final Map<String, String>        propertyDatatypes = new ConcurrentHashMap<>();
+
+	public EntityValidator() {
+
+		for (final Violation violation : Violation.values()) {
+
+			violationCounts.put(violation, new AtomicLong());
+		}
+	}
+
+	/**
+	 * @param term a label or description
+	 * @return the trimmed (and optionally shortened) term or nothing, if the term is empty
+	 */
+	public Optional<String> validateTerm(final String term) {
+
+		return Optional.ofNullable(validateTermOrNull(term));
+	}
+
+	/**
+	 * note: the allocation-free variant of {@link #validateTerm(String)} for the conversion hot path
+	 *
+	 * @param term a label or description
+	 * @return the trimmed (and optionally shortened) term or null, if the term is empty
+	 */
+	public String validateTermOrNull(final String term) {
+
+		final String trimmedTerm = trimOrNull(term, Violation.EMPTY_TERM);
+
+		if (trimmedTerm == null || trimmedTerm.length() <= MAX_TERM_LENGTH) {
+
+			return trimmedTerm;
+		}
+
+		reportViolation(Violation.TOO_LONG_TERM, trimmedTerm);
+
+		// note: a hash of the complete term keeps shortened terms unique (label + description pairs need to be unique)
+		final String termHash = TERM_HASH_FUNCTION.hashString(trimmedTerm, StandardCharsets.UTF_8).toString().substring(0, TERM_HASH_LENGTH);
+		final int prefixLength = MAX_TERM_LENGTH - TOO_LONG_TERM_POSTFIX.length() - TERM_HASH_LENGTH;
+
+		return new StringBuilder(MAX_TERM_LENGTH).append(trimmedTerm, 0, prefixLength).append(TOO_LONG_TERM_POSTFIX).append(termHash).toString();
+	}
+
+	/**
+	 * @param terms    the (source) terms, e.g., URIs
+	 * @param language the language code of the terms
+	 * @return the valid terms (empty terms are dropped)
+	 */
+	public List<MonolingualTextValue> validateTerms(final List<String> terms, final String language) {
+
+		final List<MonolingualTextValue> validTerms = new ArrayList<>();
+
+		for (final String term : terms) {
+
+			final String validTerm = validateTermOrNull(term);
+
+			if (validTerm != null) {
+
+				validTerms.add(Datamodel.makeMonolingualTextValue(validTerm, language));
+			}
+		}
+
+		return validTerms;
+	}
+
+	/**
+	 * @param term     the (source) term, e.g., a URI
+	 * @param language the language code of the term
+	 * @return the valid term as (immutable) singleton list or an (immutable) empty list, if the term is empty
+	 */
+	public List<MonolingualTextValue> validateTermList(final String term, final String language) {
+
+		final String validTerm = validateTermOrNull(term);
+
+		if (validTerm == null) {
+
+			return Collections.emptyList();
+		}
+
+		return Collections.singletonList(Datamodel.makeMonolingualTextValue(validTerm, language));
+	}
+
+	/**
+	 * @param value a string value (of a statement or qualifier)
+	 * @return the trimmed (and optionally cut) value or nothing, if the value is empty
+	 */
+	public Optional<String> validateStringValue(final String value) {
+
+		return Optional.ofNullable(validateStringValueOrNull(value));
+	}
+
+	/**
+	 * note: the allocation-free variant of {@link #validateStringValue(String)} for the conversion hot path
+	 *
+	 * @param value a string value (of a statement or qualifier)
+	 * @return the trimmed (and optionally cut) value or null, if the value is empty
+	 */
+	public String validateStringValueOrNull(final String value) {
+
+		final String trimmedValue = trimOrNull(value, Violation.EMPTY_STRING_VALUE);
+
+		if (trimmedValue == null || trimmedValue.length() <= MAX_STRING_VALUE_LENGTH) {
+
+			return trimmedValue;
+		}
+
+		reportViolation(Violation.TOO_LONG_STRING_VALUE, trimmedValue);
+
+		// note: copies the prefix only once (instead of substring + concatenation)
+		return new StringBuilder(MAX_STRING_VALUE_LENGTH).append(trimmedValue, 0, MAX_STRING_VALUE_LENGTH - TOO_LONG_VALUE_POSTFIX.length())
+				.append(TOO_LONG_VALUE_POSTFIX).toString();
+	}
+
+	/**
+	 * Registers the datatype of a property (the first registration wins, i.e., the datatype the property was created with).
+	 *
+	 * @param propertyIdentifier the GDM predicate URI (or qualified attribute identifier) of the property
+	 * @param datatype           the datatype of the property
+	 */
+	public void registerPropertyDatatype(final String propertyIdentifier, final String datatype) {
+
+		propertyDatatypes.putIfAbsent(propertyIdentifier, datatype);
+	}
+
+	/**
+	 * Determines the datatype that a value of the given property needs to have. Resource values of string properties can be coerced into
+	 * strings; literal values of item properties cannot be coerced (i.e. they need to be dropped).
+	 *
+	 * @param propertyIdentifier the GDM predicate URI (or qualified attribute identifier) of the property
+	 * @param valueDatatype      the datatype of the value
+	 * @return the datatype the value needs to be converted to or nothing, if the value cannot be converted
+	 */
+	public Optional<String> resolveValueDatatype(final String propertyIdentifier, final String valueDatatype) {
+
+		return Optional.ofNullable(resolveValueDatatypeOrNull(propertyIdentifier, valueDatatype));
+	}
+
+	/**
+	 * note: the allocation-free variant of {@link #resolveValueDatatype(String, String)} for the conversion hot path
+	 *
+	 * @param propertyIdentifier the GDM predicate URI (or qualified attribute identifier) of the property
+	 * @param valueDatatype      the datatype of the value
+	 * @return the datatype the value needs to be converted to or null, if the value cannot be converted
+	 */
+	public String resolveValueDatatypeOrNull(final String propertyIdentifier, final String valueDatatype) {
+
+		final String propertyDatatype = propertyDatatypes.get(propertyIdentifier);
+
+		if (propertyDatatype == null || propertyDatatype.equals(valueDatatype)) {
+
+			// note: the datatypes of properties that were not created by this importer (e.g. from a cache warm-up) are unknown
+			return valueDatatype;
+		}
+
+		reportViolation(Violation.DATATYPE_MISMATCH, propertyIdentifier);
+
+		if (DatatypeIdValue.DT_STRING.equals(propertyDatatype) && DatatypeIdValue.DT_ITEM.equals(valueDatatype)) {
+
+			return propertyDatatype;
+		}
+
+		return null;
+	}
+
+	public void reportViolation(final Violation violation, final String subject) {
+
+		violationCounts.get(violation).incrementAndGet();
+
+		VIOLATION_LOG.debug("found (and fixed) violation '{}' at '{}' ('{}' violations so far)", violation, subject);
+	}
+
+	public long getViolationCount(final Violation violation) {
+
+		return violationCounts.get(violation).get();
+	}
+
+	/**
+	 * @return the number of all found (and fixed) violations
+	 */
+	public long getViolationCount() {
+
+		long violationCount = 0;
+
+		for (final AtomicLong count : violationCounts.values()) {
+
+			violationCount += count.get();
+		}
+
+		return violationCount;
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder sb = new StringBuilder();
+
+		for (final Map.Entry<Violation, AtomicLong> violationCount : violationCounts.entrySet()) {
+
+			if (sb.length() > 0) {
+
+				sb.append("; ");
+			}
+
+			sb.append(violationCount.getKey()).append(" = '").append(violationCount.getValue().get()).append('\'');
+		}
+
+		return sb.toString();
+	}
+
+	private String trimOrNull(final String value, final Violation emptyViolation) {
+
+		if (value == null) {
+
+			return null;
+		}
+
+		// note: String#trim returns the value itself, if it has no leading/trailing whitespace
+		final String trimmedValue = value.trim();
+
+		if (trimmedValue.isEmpty()) {
+
+			reportViolation(emptyViolation, value);
+
+			return null;
+		}
+
+		if (trimmedValue.length() != value.length()) {
+
+			// note: otherwise, we'll get a 'wikibase-validator-malformed-value' error
+			reportViolation(Violation.UNTRIMMED_VALUE, value);
+		}
+
+		return trimmedValue;
+	}
+}
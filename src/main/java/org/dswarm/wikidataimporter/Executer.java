@@ -16,7 +16,23 @@
 package org.dswarm.wikidataimporter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,31 +43,738 @@ public class Executer {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Executer.class);
 
-	private static void executeImport(final String filePath) throws IOException, WikidataImporterException {
+	private static final ObjectMapper MAPPER = new ObjectMapper();
 
-		final WikidataDswarmImporter wikidataDswarmImporter = new WikidataDswarmImporter();
+	private static final String XML_DUMP_OPTION                        = "--xml-dump=";
+	private static final String ENTITY_ID_MAPPING_OPTION               = "--entity-id-mapping=";
+	private static final String PARALLEL_FILES_OPTION                  = "--parallel-files=";
+	private static final String PARSE_PARALLELISM_OPTION               = "--parse-parallelism=";
+	private static final String START_RESOURCE_OPTION                  = "--start-resource=";
+	private static final String STREAMING_PARSER_OPTION                = "--streaming-parser";
+	private static final String CONVERT_TO_BINARY_OPTION               = "--convert-to-binary";
+	private static final String WARM_UP_OPTION                         = "--warm-up=";
+	private static final String WARM_UP_API_SOURCE                     = "api";
+	private static final String SHARD_OPTION                           = "--shard=";
+	private static final String COORDINATION_DIRECTORY_OPTION          = "--coordination-dir=";
+	private static final String SHARD_STATUS_OPTION                    = "--shard-status=";
+	private static final String SERVICE_OPTION                         = "--service=";
+	private static final String SERVICE_HOST                           = "localhost";
+	private static final String TAIL_OPTION                            = "--tail=";
+	private static final String BATCH_SIZE_OPTION                      = "--batch-size=";
+	private static final String BATCH_LATENCY_OPTION                   = "--batch-latency=";
+	private static final String OFFSET_FILE_OPTION                     = "--offset-file=";
+	private static final String METRICS_PORT_OPTION                    = "--metrics-port=";
+	private static final String PROGRESS_INTERVAL_OPTION               = "--progress-interval=";
+	private static final String COST_PROFILE_OPTION                    = "--cost-profile=";
+	private static final String COST_PROFILE_TOP_OPTION                = "--cost-profile-top=";
+	private static final String DEFAULT_ENTITY_ID_MAPPING_FILE_POSTFIX = ".entity-id-mapping.tsv";
+	private static final String ITEM_ID_CACHE_FILE_PREFIX              = "item-id-cache-";
+	private static final String ITEM_ID_CACHE_FILE_POSTFIX             = ".log";
 
-		wikidataDswarmImporter.importGDMModel(filePath);
+	private static final String DSWARM_GDM_MODEL_FILE_IMPORTER_THREAD_NAMING_PATTERN = "dswarm-gdm-model-file-importer-%d";
+
+	private static void executeImport(final List<String> gdmModels, final int parallelFiles, final GDMModelReader gdmModelReader,
+			final String warmUpSource, final ResourceShard shard, final Path coordinationDirectory, final ImporterSettings importerSettings)
+			throws IOException, WikidataImporterException {
+
+		// note: all files share the API sessions + entity id caches of the targets
+		try (final WikidataDswarmMultiTargetImporter wikidataDswarmImporter = new WikidataDswarmMultiTargetImporter(
+				WikibaseTargetConfiguration.targets(), shard, coordinationDirectory)) {
+
+			importerSettings.applyTo(wikidataDswarmImporter);
+
+			if (WARM_UP_API_SOURCE.equals(warmUpSource)) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches();
+			} else if (warmUpSource != null) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches(Paths.get(warmUpSource));
+			}
+
+			executeImport(gdmModels, parallelFiles, gdmModel -> {
+
+				if (!GDMModelStreams.isStream(gdmModel)) {
+
+					wikidataDswarmImporter.importGDMModel(gdmModel, gdmModelReader);
+
+					return;
+				}
+
+				try (final InputStream gdmModelStream = GDMModelStreams.open(gdmModel)) {
+
+					wikidataDswarmImporter.importGDMModel(gdmModelStream, gdmModel, gdmModelReader, new ImportProgress());
+				}
+			});
+		}
+	}
+
+	private static void executeService(final int port, final int parallelJobs, final GDMModelReader gdmModelReader, final String warmUpSource,
+			final ResourceShard shard, final Path coordinationDirectory, final ImporterSettings importerSettings)
+			throws IOException, WikidataImporterException {
+
+		// note: all jobs share the API sessions + entity id caches of the targets
+		final WikidataDswarmMultiTargetImporter wikidataDswarmImporter = new WikidataDswarmMultiTargetImporter(
+				WikibaseTargetConfiguration.targets(), shard, coordinationDirectory);
+
+		importerSettings.applyTo(wikidataDswarmImporter);
+
+		final ImportService importService;
+
+		try {
+
+			if (WARM_UP_API_SOURCE.equals(warmUpSource)) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches();
+			} else if (warmUpSource != null) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches(Paths.get(warmUpSource));
+			}
+
+			importService = new ImportService(wikidataDswarmImporter, gdmModelReader, new InetSocketAddress(SERVICE_HOST, port), parallelJobs);
+		} catch (final IOException | WikidataImporterException | RuntimeException e) {
+
+			wikidataDswarmImporter.close();
+
+			throw e;
+		}
+
+		// note: the service runs until the JVM is shut down (e.g. via SIGTERM)
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+
+			try {
+
+				importService.close();
+			} finally {
+
+				try {
+
+					wikidataDswarmImporter.close();
+				} catch (final IOException e) {
+
+					LOG.error("couldn't close import targets", e);
+				}
+			}
+		}));
+	}
+
+	private static void executeTail(final Path logDirectory, final Path offsetFile, final int batchSize, final long maxBatchLatencyMillis,
+			final GDMModelReader gdmModelReader, final String warmUpSource, final ResourceShard shard, final Path coordinationDirectory,
+			final ImporterSettings importerSettings) throws IOException, WikidataImporterException {
+
+		// note: all batches share the API sessions + entity id caches of the targets
+		try (final WikidataDswarmMultiTargetImporter wikidataDswarmImporter = new WikidataDswarmMultiTargetImporter(
+				WikibaseTargetConfiguration.targets(), shard, coordinationDirectory)) {
+
+			importerSettings.applyTo(wikidataDswarmImporter);
+
+			if (WARM_UP_API_SOURCE.equals(warmUpSource)) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches();
+			} else if (warmUpSource != null) {
+
+				wikidataDswarmImporter.warmUpEntityIdCaches(Paths.get(warmUpSource));
+			}
+
+			final GDMChangeLogTailer changeLogTailer = new GDMChangeLogTailer(logDirectory, offsetFile, batchSize, maxBatchLatencyMillis,
+					(batch, batchName) -> wikidataDswarmImporter.importGDMModel(batch, batchName, gdmModelReader, new ImportProgress()));
+
+			final Thread tailingThread = Thread.currentThread();
+
+			// note: the tailing runs until the JVM is shut down (e.g. via SIGTERM), whereby the current batch is finished first
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+
+				changeLogTailer.close();
+
+				try {
+
+					tailingThread.join();
+				} catch (final InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+				}
+			}));
+
+			changeLogTailer.run();
+		}
+	}
+
+	private static void executeXMLDumpExport(final List<String> gdmModels, final int parallelFiles, final GDMModelReader gdmModelReader,
+			final String xmlDumpPath, final String entityIdMappingPath, final ImporterSettings importerSettings)
+			throws IOException, WikidataImporterException {
+
+		final Path xmlDumpFile = Paths.get(xmlDumpPath);
+
+		// note: the item id cache of the importer is disk-backed (like the index of the entity id mapping), i.e., the heap memory doesn't grow
+		// with the number of resources; it's only temporary, since the entity id mapping of the dump target persists all entity ids anyway
+		final Path itemIdCacheFile = Files.createTempFile(xmlDumpFile.toAbsolutePath().getParent(), ITEM_ID_CACHE_FILE_PREFIX,
+				ITEM_ID_CACHE_FILE_POSTFIX);
+
+		try (final WikibaseImportTarget importTarget = new MediaWikiXMLDumpImportTarget(xmlDumpFile, Paths.get(entityIdMappingPath));
+				final TieredEntityIdCache itemIdCache = new TieredEntityIdCache(itemIdCacheFile, EntityIdMapping.DEFAULT_HOT_TIER_SIZE,
+						EntityIdMapping.DEFAULT_EXPECTED_SIZE)) {
+
+			final WikidataDswarmImporter wikidataDswarmImporter = new WikidataDswarmImporter(importTarget, itemIdCache);
+
+			importerSettings.applyTo(wikidataDswarmImporter);
+
+			executeImport(gdmModels, parallelFiles, gdmModel -> {
+
+				if (!GDMModelStreams.isStream(gdmModel)) {
+
+					wikidataDswarmImporter.importGDMModel(gdmModel, gdmModelReader);
+
+					return;
+				}
+
+				try (final InputStream gdmModelStream = GDMModelStreams.open(gdmModel)) {
+
+					wikidataDswarmImporter.importGDMModel(gdmModelStream, gdmModel, gdmModelReader);
+				}
+			});
+
+			importerSettings.writeCostProfile(MediaWikiXMLDumpImportTarget.TARGET_NAME, wikidataDswarmImporter);
+		} finally {
+
+			Files.deleteIfExists(itemIdCacheFile);
+		}
 	}
 
+	private static void executeBinaryModelConversion(final List<String> gdmModelFiles, final int parallelFiles) throws WikidataImporterException {
+
+		executeImport(gdmModelFiles, parallelFiles, filePath -> {
+
+			final Path gdmModelFile = Paths.get(filePath);
+
+			GDMBinaryModelWriter.convert(gdmModelFile, GDMBinaryModelWriter.binaryModelFile(gdmModelFile));
+		});
+	}
+
+	private static void executeImport(final List<String> gdmModels, final int parallelFiles, final GDMModelImport gdmModelImport)
+			throws WikidataImporterException {
+
+		LOG.info("import '{}' GDM model(s) ('{}' in parallel)", gdmModels.size(), parallelFiles);
+
+		final ExecutorService executorService = Executors.newFixedThreadPool(parallelFiles,
+				new BasicThreadFactory.Builder().daemon(false).namingPattern(DSWARM_GDM_MODEL_FILE_IMPORTER_THREAD_NAMING_PATTERN).build());
+
+		final List<Future<?>> gdmModelFileImports = new ArrayList<>();
+
+		for (final String gdmModel : gdmModels) {
+
+			gdmModelFileImports.add(executorService.submit(() -> {
+
+				gdmModelImport.importGDMModel(gdmModel);
+
+				return null;
+			}));
+		}
+
+		executorService.shutdown();
+
+		int failedGDMModelFileImports = 0;
+
+		for (int i = 0; i < gdmModelFileImports.size(); i++) {
+
+			try {
+
+				gdmModelFileImports.get(i).get();
+			} catch (final ExecutionException e) {
+
+				failedGDMModelFileImports++;
+
+				LOG.error("something went wrong at import of GDM model '{}'", gdmModels.get(i), e.getCause());
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				executorService.shutdownNow();
+
+				throw new WikidataImporterException("interrupted while waiting for the GDM model imports", e);
+			}
+		}
+
+		if (failedGDMModelFileImports > 0) {
+
+			throw new WikidataImporterException(
+					String.format("import of '%d' from '%d' GDM model(s) failed", failedGDMModelFileImports, gdmModels.size()));
+		}
+
+		LOG.info("imported '{}' GDM model(s)", gdmModels.size());
+	}
+
+	private static void executeShardStatus(final Path coordinationDirectory) throws IOException {
+
+		for (final ShardProgress.Snapshot snapshot : ShardProgress.read(coordinationDirectory)) {
+
+			LOG.info("{}", snapshot);
+		}
+
+		LOG.info("{}", ShardProgress.aggregate(coordinationDirectory));
+	}
+
+	/**
+	 * usage: [--xml-dump=<xml dump file> [--entity-id-mapping=<entity id mapping file>]] [--parallel-files=<number of files that should be
+	 * imported in parallel>] [--parse-parallelism=<number of threads that parse a file>] [--start-resource=<ordinal of the first resource
+	 * of a file that should be imported>] [--streaming-parser] [--warm-up=api|<Wikibase JSON dump file>] [--shard=<shard index>/<shard
+	 * count> --coordination-dir=<directory that is shared by all shards>] <gdm model file, directory, glob pattern, '-' (stdin) or HTTP(S)
+	 * URL> ... (stdin and URLs are imported while they are read, see {@link GDMModelStreams})
+	 * <p/>
+	 * or: --shard-status=<coordination directory> (logs the progress of all shards of a sharded import)
+	 * <p/>
+	 * or: --service=<port> [--parallel-files=<number of jobs that should be imported in parallel>] [--parse-parallelism=...]
+	 * [--streaming-parser] [--warm-up=...] [--shard=... --coordination-dir=...] (runs the import service on localhost:&lt;port&gt;, see
+	 * {@link ImportService})
+	 * <p/>
+	 * or: --tail=<GDM change log directory> [--batch-size=<max. number of resources per batch>] [--batch-latency=<max. batch latency in
+	 * milliseconds>] [--offset-file=<offset file>] [--streaming-parser] [--warm-up=...] [--shard=... --coordination-dir=...] (imports the
+	 * resources that are appended to the change log continuously, see {@link GDMChangeLogTailer})
+	 * <p/>
+	 * or: --convert-to-binary [--parallel-files=<number of files that should be converted in parallel>] <gdm model file, directory or glob
+	 * pattern> ... (converts the GDM model files into binary GDM model files ('&lt;gdm model file&gt;.gdmb'), which can be imported instead)
+	 * <p/>
+	 * all modes: [--metrics-port=<port>] (serves the import metrics on localhost:&lt;port&gt;/metrics, see {@link MetricsEndpoint}; they
+	 * are exported via JMX as well, see {@link ImportMetrics})
+	 * <p/>
+	 * import, service + tail modes: [--progress-interval=<seconds>] (the interval of the progress reports of the GDM model imports (default: 10
+	 * seconds, 0 = no progress reports), see {@link ProgressReporter}) [--cost-profile=<report file> [--cost-profile-top=<number of the
+	 * slowest resources>]] (writes the import costs per predicate + resource size at the end of the run, see {@link ImportCostProfile})
+	 *
+	 * @param args
+	 */
 	public static void main(final String[] args) {
 
-		// 0. read path from arguments
+		Integer metricsPort = null;
+
+		for (final String arg : args != null ? args : new String[0]) {
+
+			if (arg.startsWith(METRICS_PORT_OPTION)) {
+
+				try {
+
+					metricsPort = Integer.valueOf(arg.substring(METRICS_PORT_OPTION.length()));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid port", arg);
+
+					return;
+				}
+			}
+		}
+
+		if (metricsPort == null) {
+
+			execute(args);
+
+			return;
+		}
+
+		final MetricsEndpoint metricsEndpoint;
+
+		try {
+
+			metricsEndpoint = new MetricsEndpoint(new InetSocketAddress(SERVICE_HOST, metricsPort));
+		} catch (final IOException e) {
+
+			LOG.error("cannot execute import - couldn't start the metrics endpoint on port '{}'", metricsPort, e);
+
+			return;
+		}
+
+		boolean running = false;
+
+		try {
+
+			running = execute(args);
+		} finally {
+
+			if (running) {
+
+				// note: the metrics endpoint is served as long as the import service runs
+				Runtime.getRuntime().addShutdownHook(new Thread(metricsEndpoint::close));
+			} else {
+
+				metricsEndpoint.close();
+			}
+		}
+	}
+
+	/**
+	 * @param args the command line arguments
+	 * @return true, if the executed mode keeps running after this method returned (i.e. the import service, which runs until the JVM is
+	 * shut down)
+	 */
+	private static boolean execute(final String[] args) {
+
+		// 0. read paths from arguments
 		if (args == null || args.length <= 0) {
 
 			LOG.error("cannot execute import - no file path given as commandline parameter");
 
-			return;
+			return false;
 		}
 
-		final String filePath = args[0];
+		final List<String> inputs = new ArrayList<>();
+		String xmlDumpPath = null;
+		String entityIdMappingPath = null;
+		Integer parallelFiles = null;
+		int parseParallelism = 1;
+		int startResource = 0;
+		GDMModelReader.ParserType parserType = GDMModelReader.ParserType.MODEL_PARSER;
+		boolean convertToBinary = false;
+		String warmUpSource = null;
+		String shard = null;
+		String coordinationDirectory = null;
+		String shardStatusDirectory = null;
+		Integer servicePort = null;
+		String tailDirectory = null;
+		int batchSize = GDMChangeLogTailer.DEFAULT_BATCH_SIZE;
+		long batchLatency = GDMChangeLogTailer.DEFAULT_BATCH_LATENCY_MILLIS;
+		String offsetFile = null;
+		long progressInterval = ProgressReporter.DEFAULT_INTERVAL_SECONDS;
+		String costProfileReport = null;
+		int costProfileTop = ImportCostProfile.DEFAULT_TOP_RESOURCES;
+
+		for (final String arg : args) {
+
+			if (arg.startsWith(XML_DUMP_OPTION)) {
+
+				xmlDumpPath = arg.substring(XML_DUMP_OPTION.length());
+			} else if (arg.startsWith(ENTITY_ID_MAPPING_OPTION)) {
+
+				entityIdMappingPath = arg.substring(ENTITY_ID_MAPPING_OPTION.length());
+			} else if (arg.startsWith(PARALLEL_FILES_OPTION)) {
+
+				try {
+
+					parallelFiles = Integer.valueOf(arg.substring(PARALLEL_FILES_OPTION.length()));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid number of parallel files", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(PARSE_PARALLELISM_OPTION)) {
+
+				try {
+
+					parseParallelism = Math.max(1, Integer.parseInt(arg.substring(PARSE_PARALLELISM_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid number of parser threads", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(START_RESOURCE_OPTION)) {
+
+				try {
+
+					startResource = Math.max(0, Integer.parseInt(arg.substring(START_RESOURCE_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid resource ordinal", arg);
+
+					return false;
+				}
+			} else if (arg.equals(STREAMING_PARSER_OPTION)) {
+
+				parserType = GDMModelReader.ParserType.STREAMING;
+			} else if (arg.equals(CONVERT_TO_BINARY_OPTION)) {
+
+				convertToBinary = true;
+			} else if (arg.startsWith(WARM_UP_OPTION)) {
+
+				warmUpSource = arg.substring(WARM_UP_OPTION.length());
+			} else if (arg.startsWith(SHARD_OPTION)) {
+
+				shard = arg.substring(SHARD_OPTION.length());
+			} else if (arg.startsWith(COORDINATION_DIRECTORY_OPTION)) {
+
+				coordinationDirectory = arg.substring(COORDINATION_DIRECTORY_OPTION.length());
+			} else if (arg.startsWith(SHARD_STATUS_OPTION)) {
+
+				shardStatusDirectory = arg.substring(SHARD_STATUS_OPTION.length());
+			} else if (arg.startsWith(SERVICE_OPTION)) {
+
+				try {
+
+					servicePort = Integer.valueOf(arg.substring(SERVICE_OPTION.length()));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid port", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(TAIL_OPTION)) {
+
+				tailDirectory = arg.substring(TAIL_OPTION.length());
+			} else if (arg.startsWith(BATCH_SIZE_OPTION)) {
+
+				try {
+
+					batchSize = Math.max(1, Integer.parseInt(arg.substring(BATCH_SIZE_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid batch size", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(BATCH_LATENCY_OPTION)) {
+
+				try {
+
+					batchLatency = Math.max(0, Long.parseLong(arg.substring(BATCH_LATENCY_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid batch latency", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(OFFSET_FILE_OPTION)) {
+
+				offsetFile = arg.substring(OFFSET_FILE_OPTION.length());
+			} else if (arg.startsWith(PROGRESS_INTERVAL_OPTION)) {
+
+				try {
+
+					progressInterval = Math.max(0, Long.parseLong(arg.substring(PROGRESS_INTERVAL_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid progress interval", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(COST_PROFILE_TOP_OPTION)) {
+
+				try {
+
+					costProfileTop = Math.max(0, Integer.parseInt(arg.substring(COST_PROFILE_TOP_OPTION.length())));
+				} catch (final NumberFormatException e) {
+
+					LOG.error("cannot execute import - '{}' is not a valid number of slowest resources", arg);
+
+					return false;
+				}
+			} else if (arg.startsWith(COST_PROFILE_OPTION)) {
+
+				costProfileReport = arg.substring(COST_PROFILE_OPTION.length());
+			} else if (arg.startsWith(METRICS_PORT_OPTION)) {
+
+				// note: the metrics endpoint is started (+ stopped) around the execution, see main
+			} else {
+
+				inputs.add(arg);
+			}
+		}
+
+		if (shardStatusDirectory != null) {
+
+			try {
+
+				executeShardStatus(Paths.get(shardStatusDirectory));
+			} catch (final IOException e) {
+
+				LOG.error("couldn't read the progress of the shards from '{}'", shardStatusDirectory, e);
+			}
+
+			return false;
+		}
+
+		if (inputs.isEmpty() && servicePort == null && tailDirectory == null) {
+
+			LOG.error("cannot execute import - no file path given as commandline parameter");
+
+			return false;
+		}
+
+		final ResourceShard resourceShard;
+
+		try {
+
+			resourceShard = shard != null ? ResourceShard.parse(shard) : ResourceShard.ALL;
+		} catch (final WikidataImporterException e) {
+
+			LOG.error("cannot execute import - {}", e.getMessage());
+
+			return false;
+		}
+
+		if (resourceShard.isSharded() && coordinationDirectory == null) {
+
+			LOG.error("cannot execute import - a sharded import needs a coordination directory that is shared by all shards ('{}')",
+					COORDINATION_DIRECTORY_OPTION);
+
+			return false;
+		}
+
+		final GDMModelReader gdmModelReader = new GDMModelReader(parseParallelism, startResource, parserType);
+		final ImporterSettings importerSettings = new ImporterSettings(progressInterval,
+				costProfileReport != null ? Paths.get(costProfileReport) : null, costProfileTop);
+
+		if (servicePort != null) {
+
+			try {
+
+				executeService(servicePort, parallelFiles != null ? Math.max(1, parallelFiles) : Runtime.getRuntime().availableProcessors(),
+						gdmModelReader, warmUpSource, resourceShard, coordinationDirectory != null ? Paths.get(coordinationDirectory) : null,
+						importerSettings);
+
+				return true;
+			} catch (final Exception e) {
+
+				LOG.error("something went wrong at import service execution.", e);
+			}
+
+			return false;
+		}
+
+		if (tailDirectory != null) {
+
+			final Path logDirectory = Paths.get(tailDirectory);
+			final Path logOffsetFile = offsetFile != null ? Paths.get(offsetFile) : GDMChangeLogTailer.defaultOffsetFile(logDirectory);
+
+			try {
+
+				executeTail(logDirectory, logOffsetFile, batchSize, batchLatency, gdmModelReader, warmUpSource, resourceShard,
+						coordinationDirectory != null ? Paths.get(coordinationDirectory) : null, importerSettings);
+			} catch (final Exception e) {
+
+				LOG.error("something went wrong at tailing of GDM change log '{}'.", tailDirectory, e);
+			}
+
+			return false;
+		}
 
 		try {
 
-			executeImport(filePath);
+			final List<String> gdmModelStreams = inputs.stream().filter(GDMModelStreams::isStream).collect(Collectors.toList());
+			final List<String> fileInputs = inputs.stream().filter(input -> !GDMModelStreams.isStream(input)).collect(Collectors.toList());
+
+			if (gdmModelStreams.stream().filter(GDMModelStreams.STDIN_INPUT::equals).count() > 1) {
+
+				LOG.error("cannot execute import - stdin ('{}') can only be read once", GDMModelStreams.STDIN_INPUT);
+
+				return false;
+			}
+
+			final List<String> gdmModels = new ArrayList<>(gdmModelStreams);
+
+			if (!fileInputs.isEmpty()) {
+
+				GDMModelFiles.resolve(fileInputs).forEach(gdmModelFile -> gdmModels.add(gdmModelFile.toString()));
+			}
+
+			if (gdmModels.isEmpty()) {
+
+				LOG.error("cannot execute import - couldn't find any GDM model file for '{}'", inputs);
+
+				return false;
+			}
+
+			if (convertToBinary) {
+
+				if (!gdmModelStreams.isEmpty()) {
+
+					LOG.error("cannot execute conversion - GDM model streams ('{}') can't be converted into binary GDM model files", gdmModelStreams);
+
+					return false;
+				}
+
+				final int defaultParallelFiles = Math.min(gdmModels.size(), Runtime.getRuntime().availableProcessors());
+
+				executeBinaryModelConversion(gdmModels, parallelFiles != null ? Math.max(1, parallelFiles) : defaultParallelFiles);
+			} else if (xmlDumpPath != null) {
+
+				if (entityIdMappingPath == null) {
+
+					entityIdMappingPath = xmlDumpPath + DEFAULT_ENTITY_ID_MAPPING_FILE_POSTFIX;
+				}
+
+				// note: the files are processed sequentially by default to keep the pre-assigned entity ids deterministic
+				executeXMLDumpExport(gdmModels, parallelFiles != null ? Math.max(1, parallelFiles) : 1, gdmModelReader, xmlDumpPath,
+						entityIdMappingPath, importerSettings);
+			} else {
+
+				final int defaultParallelFiles = Math.min(gdmModels.size(), Runtime.getRuntime().availableProcessors());
+
+				executeImport(gdmModels, parallelFiles != null ? Math.max(1, parallelFiles) : defaultParallelFiles, gdmModelReader,
+						warmUpSource, resourceShard, coordinationDirectory != null ? Paths.get(coordinationDirectory) : null, importerSettings);
+			}
 		} catch (final Exception e) {
 
 			LOG.error("something went wrong at import execution.", e);
 		}
+
+		return false;
+	}
+
+	/**
+	 * the settings of the importer of the import, service, tail + XML dump export modes
+	 */
+	private static final class ImporterSettings {
+
+		private final long progressInterval;
+		private final Path costProfileReport;
+		private final int  costProfileTop;
+
+		private ImporterSettings(final long progressInterval, final Path costProfileReport, final int costProfileTop) {
+
+			this.progressInterval = progressInterval;
+			this.costProfileReport = costProfileReport;
+			this.costProfileTop = costProfileTop;
+		}
+
+		private void applyTo(final WikidataDswarmMultiTargetImporter wikidataDswarmImporter) {
+
+			wikidataDswarmImporter.setProgressReportInterval(progressInterval, TimeUnit.SECONDS);
+
+			if (costProfileReport != null) {
+
+				wikidataDswarmImporter.enableCostProfile(costProfileReport, costProfileTop);
+			}
+		}
+
+		private void applyTo(final WikidataDswarmImporter wikidataDswarmImporter) {
+
+			wikidataDswarmImporter.setProgressReportInterval(progressInterval, TimeUnit.SECONDS);
+
+			if (costProfileReport != null) {
+
+				wikidataDswarmImporter.setCostProfile(new ImportCostProfile(costProfileTop));
+			}
+		}
+
+		/**
+		 * writes the cost profile of the given (single-target) importer in the format of
+		 * {@link WikidataDswarmMultiTargetImporter#getCostProfiles()}
+		 */
+		private void writeCostProfile(final String targetName, final WikidataDswarmImporter wikidataDswarmImporter) {
+
+			final ImportCostProfile costProfile = wikidataDswarmImporter.getCostProfile();
+
+			if (costProfileReport == null || costProfile == null) {
+
+				return;
+			}
+
+			final ObjectNode costProfiles = MAPPER.createObjectNode();
+
+			costProfiles.set(targetName, costProfile.toJSON());
+
+			try {
+
+				MAPPER.writerWithDefaultPrettyPrinter().writeValue(costProfileReport.toFile(), costProfiles);
+
+				LOG.info("wrote import cost profile to '{}'", costProfileReport);
+			} catch (final IOException e) {
+
+				LOG.error("couldn't write import cost profile to '{}'", costProfileReport, e);
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface GDMModelImport {
+
+		void importGDMModel(final String gdmModel) throws IOException, WikidataImporterException;
 	}
 }
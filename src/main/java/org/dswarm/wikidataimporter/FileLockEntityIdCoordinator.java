@@ -0,0 +1,444 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EntityIdCoordinator} for processes that share a (local or network) file system. The created entities are registered in a
+ * shared, append-only registry file (tab-separated URI + entity id lines, i.e., the format of {@link EntityIdMapping}, whereby the line of a
+ * placeholder item carries the additional column '{@value #PLACEHOLDER_ITEM_MARKER}' - a later line of its URI registers the completed
+ * full item); the creation of an
+ * entity is guarded by an exclusive file lock on one of {@link #LOCK_STRIPES} byte ranges of a lock file (selected by the URI), i.e.,
+ * different entities can be created concurrently. Every process reads the entries of the other processes incrementally, when it needs to
+ * create an entity that it doesn't know yet.<br/>
+ * Note: all registered entity ids are kept in memory; the file system needs to support (advisory) byte range locks, e.g., NFSv4.
+ *
+ * @author tgaengler
+ */
+public class FileLockEntityIdCoordinator implements EntityIdCoordinator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileLockEntityIdCoordinator.class);
+
+	public static final int    LOCK_STRIPES            = 1024;
+	public static final String PLACEHOLDER_ITEM_MARKER = "placeholder";
+
+	private static final long   APPEND_LOCK_POSITION = LOCK_STRIPES;
+	private static final String LOCK_FILE_POSTFIX    = ".lock";
+	private static final char   SEPARATOR            = '\t';
+	private static final byte   LINE_SEPARATOR       = '\n';
+	private static final int    IO_BUFFER_SIZE       = 1 << 16;
+
+	// note: file locks are held on behalf of the whole JVM (an overlapping lock attempt of the same JVM fails instead of blocking), i.e., the threads (and coordinator instances) of a JVM need to be serialised by JVM-wide locks before
+	private static final ReentrantLock[] JVM_STRIPE_LOCKS = new ReentrantLock[LOCK_STRIPES];
+	private static final ReentrantLock   JVM_APPEND_LOCK  = new ReentrantLock();
+
+	static {
+
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+
+			JVM_STRIPE_LOCKS[i] = new ReentrantLock();
+		}
+	}
+
+	private final Path        registryFile;
+	private final FileChannel registryChannel;
+	private final FileChannel lockChannel;
+
+	private final Map<String, String> itemIds             = new ConcurrentHashMap<>();
+	private final Map<String, String> propertyIds         = new ConcurrentHashMap<>();
+	private final Set<String>         placeholderItemURIs = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong createdEntityCount = new AtomicLong();
+	private final AtomicLong reusedEntityCount  = new AtomicLong();
+
+	private long readPosition;
+
+	/**
+	 * @param registryFile the shared registry file (will be created, if it doesn't exist); the lock file is '&lt;registry file&gt;.lock'
+	 * @throws IOException
+	 */
+	public FileLockEntityIdCoordinator(final Path registryFile) throws IOException {
+
+		this.registryFile = registryFile;
+		registryChannel = FileChannel.open(registryFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+
+			lockChannel = FileChannel.open(Paths.get(registryFile + LOCK_FILE_POSTFIX), StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+
+			refresh();
+		} catch (final IOException | RuntimeException e) {
+
+			registryChannel.close();
+
+			throw e;
+		}
+
+		LOG.info("loaded '{}' item ids + '{}' property ids from entity id registry '{}'", itemIds.size(), propertyIds.size(), registryFile);
+	}
+
+	@Override
+	public String getOrCreateEntityId(final String uri, final String entityIdPrefix, final EntityCreation entityCreation)
+			throws WikidataImporterException {
+
+		return getOrCreateEntityId(uri, entityIdPrefix, false, entityCreation);
+	}
+
+	@Override
+	public String getOrCreatePlaceholderItemId(final String uri, final EntityCreation entityCreation) throws WikidataImporterException {
+
+		return getOrCreateEntityId(uri, EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX, true, entityCreation);
+	}
+
+	@Override
+	public boolean completeItem(final String uri) throws WikidataImporterException {
+
+		// note: the line of an item is read together with its placeholder marker, i.e., a known item, which is not a placeholder item, is a
+		// full item
+		if (itemIds.containsKey(uri) && !placeholderItemURIs.contains(uri)) {
+
+			return false;
+		}
+
+		final int stripe = stripe(uri, EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX);
+		final ReentrantLock jvmStripeLock = JVM_STRIPE_LOCKS[stripe];
+
+		jvmStripeLock.lock();
+
+		try (final FileLock ignored = lockChannel.lock(stripe, 1, false)) {
+
+			refresh();
+
+			final String itemId = itemIds.get(uri);
+
+			if (itemId == null || !placeholderItemURIs.contains(uri)) {
+
+				return false;
+			}
+
+			append(uri, itemId, false);
+
+			placeholderItemURIs.remove(uri);
+
+			return true;
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't complete item '%s' via entity id registry '%s'", uri, registryFile);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		} finally {
+
+			jvmStripeLock.unlock();
+		}
+	}
+
+	private String getOrCreateEntityId(final String uri, final String entityIdPrefix, final boolean placeholderItem,
+			final EntityCreation entityCreation) throws WikidataImporterException {
+
+		final Map<String, String> entityIds = entityIds(entityIdPrefix);
+
+		final String knownEntityId = entityIds.get(uri);
+
+		if (knownEntityId != null) {
+
+			return knownEntityId;
+		}
+
+		final int stripe = stripe(uri, entityIdPrefix);
+		final ReentrantLock jvmStripeLock = JVM_STRIPE_LOCKS[stripe];
+
+		jvmStripeLock.lock();
+
+		try (final FileLock ignored = lockChannel.lock(stripe, 1, false)) {
+
+			// the entity might have been created by another process (or thread) in the meantime
+			refresh();
+
+			final String registeredEntityId = entityIds.get(uri);
+
+			if (registeredEntityId != null) {
+
+				reusedEntityCount.incrementAndGet();
+
+				return registeredEntityId;
+			}
+
+			final String entityId = entityCreation.create();
+
+			append(uri, entityId, placeholderItem);
+
+			if (entityIds.putIfAbsent(uri, entityId) == null && placeholderItem) {
+
+				placeholderItemURIs.add(uri);
+			}
+
+			createdEntityCount.incrementAndGet();
+
+			return entityId;
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't coordinate the creation of entity '%s' via entity id registry '%s'", uri, registryFile);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		} finally {
+
+			jvmStripeLock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of entities that were created by this process
+	 */
+	public long getCreatedEntityCount() {
+
+		return createdEntityCount.get();
+	}
+
+	/**
+	 * @return the number of entities that were created by another process, before this process attempted to create them
+	 */
+	public long getReusedEntityCount() {
+
+		return reusedEntityCount.get();
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		LOG.info("created '{}' entities + reused '{}' entities of other processes via entity id registry '{}'", createdEntityCount.get(),
+				reusedEntityCount.get(), registryFile);
+
+		try {
+
+			lockChannel.close();
+		} finally {
+
+			registryChannel.close();
+		}
+	}
+
+	/**
+	 * note: String#hashCode is specified, i.e., all processes select the same stripe for a URI
+	 */
+	private static int stripe(final String uri, final String entityIdPrefix) {
+
+		return Math.floorMod(31 * uri.hashCode() + entityIdPrefix.hashCode(), LOCK_STRIPES);
+	}
+
+	private Map<String, String> entityIds(final String entityIdPrefix) throws WikidataImporterException {
+
+		switch (entityIdPrefix) {
+
+			case EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX:
+
+				return itemIds;
+			case EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX:
+
+				return propertyIds;
+			default:
+
+				final String message = String.format("unknown entity id prefix '%s'", entityIdPrefix);
+
+				LOG.error(message);
+
+				throw new WikidataImporterException(message);
+		}
+	}
+
+	/**
+	 * reads the (complete) lines that were appended to the registry since the last refresh
+	 */
+	private synchronized void refresh() throws IOException {
+
+		final long registrySize = registryChannel.size();
+
+		if (registrySize <= readPosition) {
+
+			return;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+		final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+		long position = readPosition;
+
+		while (position < registrySize) {
+
+			buffer.clear();
+
+			final int readBytes = registryChannel.read(buffer, position);
+
+			if (readBytes <= 0) {
+
+				break;
+			}
+
+			for (int i = 0; i < readBytes; i++) {
+
+				final byte b = buffer.get(i);
+
+				if (b == LINE_SEPARATOR) {
+
+					readLine(new String(line.toByteArray(), StandardCharsets.UTF_8));
+
+					line.reset();
+
+					// note: an incomplete last line (i.e. an append in progress) will be read again at the next refresh
+					readPosition = position + i + 1;
+				} else {
+
+					line.write(b);
+				}
+			}
+
+			position += readBytes;
+		}
+	}
+
+	private void readLine(final String line) {
+
+		final boolean placeholderItem = line.endsWith(SEPARATOR + PLACEHOLDER_ITEM_MARKER);
+		final String entityLine = placeholderItem ? line.substring(0, line.length() - PLACEHOLDER_ITEM_MARKER.length() - 1) : line;
+		final int separatorIndex = entityLine.lastIndexOf(SEPARATOR);
+
+		if (separatorIndex <= 0) {
+
+			LOG.warn("skip invalid line '{}' of entity id registry '{}'", line, registryFile);
+
+			return;
+		}
+
+		final String uri = entityLine.substring(0, separatorIndex);
+		final String entityId = entityLine.substring(separatorIndex + 1);
+
+		if (entityId.startsWith(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX)) {
+
+			// note: the line of a completed item follows the line of its placeholder item
+			if (itemIds.putIfAbsent(uri, entityId) == null && placeholderItem) {
+
+				placeholderItemURIs.add(uri);
+			} else if (!placeholderItem) {
+
+				placeholderItemURIs.remove(uri);
+			}
+		} else if (entityId.startsWith(EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX)) {
+
+			propertyIds.putIfAbsent(uri, entityId);
+		} else {
+
+			LOG.warn("skip line '{}' of entity id registry '{}', since '{}' is neither an item nor a property id", line, registryFile, entityId);
+		}
+	}
+
+	private void append(final String uri, final String entityId, final boolean placeholderItem) throws IOException {
+
+		final String marker = placeholderItem ? SEPARATOR + PLACEHOLDER_ITEM_MARKER : "";
+		final ByteBuffer line = StandardCharsets.UTF_8.encode(uri + SEPARATOR + entityId + marker + (char) LINE_SEPARATOR);
+
+		JVM_APPEND_LOCK.lock();
+
+		try (final FileLock ignored = lockChannel.lock(APPEND_LOCK_POSITION, 1, false)) {
+
+			long position = truncateIncompleteLine(registryChannel.size());
+
+			while (line.hasRemaining()) {
+
+				position += registryChannel.write(line, position);
+			}
+
+			// note: the other processes should see the entry, before this process releases the stripe lock
+			registryChannel.force(false);
+		} finally {
+
+			JVM_APPEND_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * truncates an incomplete last line (e.g. of a crashed process) - an append is always done under the append lock, i.e., an incomplete
+	 * line can't be an append in progress here
+	 *
+	 * @return the (new) size of the registry
+	 */
+	private long truncateIncompleteLine(final long registrySize) throws IOException {
+
+		final ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+
+		long end = registrySize;
+
+		while (end > 0) {
+
+			final long start = Math.max(0, end - IO_BUFFER_SIZE);
+
+			buffer.clear();
+			buffer.limit((int) (end - start));
+
+			while (buffer.hasRemaining()) {
+
+				if (registryChannel.read(buffer, start + buffer.position()) < 0) {
+
+					break;
+				}
+			}
+
+			for (int i = buffer.position() - 1; i >= 0; i--) {
+
+				if (buffer.get(i) == LINE_SEPARATOR) {
+
+					return truncate(start + i + 1, registrySize);
+				}
+			}
+
+			end = start;
+		}
+
+		return truncate(0, registrySize);
+	}
+
+	private long truncate(final long size, final long registrySize) throws IOException {
+
+		if (size < registrySize) {
+
+			LOG.warn("truncate incomplete last line of entity id registry '{}' ('{}' bytes)", registryFile, registrySize - size);
+
+			registryChannel.truncate(size);
+		}
+
+		return size;
+	}
+}
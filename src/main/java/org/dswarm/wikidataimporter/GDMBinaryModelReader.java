@@ -0,0 +1,291 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.dswarm.graph.json.NodeType;
+
+/**
+ * Reads binary GDM models (see {@link GDMBinaryModelWriter} for the format) via memory-mapped buffers. The resources can be read
+ * sequentially or by their ordinal (random access). The predicate dictionary is decoded when opening the binary model; URIs are decoded
+ * on access from the mapped URI dictionary. Reading is thread-safe, i.e., several threads can read (different resources) at once.
+ *
+ * @author tgaengler
+ */
+public class GDMBinaryModelReader implements Closeable {
+
+	private final FileChannel      channel;
+	private final MappedFileBuffer buffer;
+
+	private final int      resourceCount;
+	private final int      uriCount;
+	private final String[] predicateURIs;
+	private final long     uriOffsetTableOffset;
+	private final long     resourceOffsetTableOffset;
+
+	public GDMBinaryModelReader(final Path binaryModelFile) throws IOException {
+
+		channel = FileChannel.open(binaryModelFile, StandardOpenOption.READ);
+
+		try {
+
+			buffer = new MappedFileBuffer(channel);
+
+			if (buffer.size() < GDMBinaryModelWriter.HEADER_SIZE || buffer.getLong(0) != GDMBinaryModelWriter.MAGIC) {
+
+				throw new IOException(String.format("'%s' is not a binary GDM model file", binaryModelFile));
+			}
+
+			final int version = buffer.getInt(8);
+
+			if (version != GDMBinaryModelWriter.VERSION) {
+
+				throw new IOException(String.format("binary GDM model file '%s' has an unsupported version '%d'", binaryModelFile, version));
+			}
+
+			resourceCount = buffer.getInt(12);
+
+			final int predicateCount = buffer.getInt(16);
+
+			uriCount = buffer.getInt(20);
+
+			final long predicateDictionaryOffset = buffer.getLong(24);
+
+			uriOffsetTableOffset = buffer.getLong(40);
+			resourceOffsetTableOffset = buffer.getLong(48);
+
+			predicateURIs = new String[predicateCount];
+
+			final long[] position = { predicateDictionaryOffset };
+
+			for (int i = 0; i < predicateCount; i++) {
+
+				predicateURIs[i] = readString(position);
+			}
+		} catch (final IOException | RuntimeException e) {
+
+			channel.close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * @param path a file
+	 * @return true, if the file is a binary GDM model file (i.e. starts with the magic bytes of the format)
+	 * @throws IOException
+	 */
+	public static boolean isBinaryModel(final Path path) throws IOException {
+
+		if (!Files.isRegularFile(path) || Files.size(path) < GDMBinaryModelWriter.HEADER_SIZE) {
+
+			return false;
+		}
+
+		try (final InputStream stream = Files.newInputStream(path)) {
+
+			return new DataInputStream(stream).readLong() == GDMBinaryModelWriter.MAGIC;
+		}
+	}
+
+	public int getResourceCount() {
+
+		return resourceCount;
+	}
+
+	public int getURICount() {
+
+		return uriCount;
+	}
+
+	/**
+	 * Reads the resource with the given ordinal into the given record.
+	 *
+	 * @param resourceOrdinal the ordinal of the resource (starting with 0)
+	 * @param resourceRecord  the record that should be filled
+	 */
+	public void read(final int resourceOrdinal, final GDMResourceRecord resourceRecord) {
+
+		if (resourceOrdinal < 0 || resourceOrdinal >= resourceCount) {
+
+			throw new IndexOutOfBoundsException(String.format("resource ordinal '%d' is out of bounds (resource count = '%d')", resourceOrdinal,
+					resourceCount));
+		}
+
+		final long[] position = { buffer.getLong(resourceOffsetTableOffset + (long) resourceOrdinal * Long.BYTES) };
+
+		// skip the record length
+		readVarint(position);
+
+		resourceRecord.reset(readURI(readVarint(position)));
+
+		final int statementCount = readVarint(position);
+
+		for (int i = 0; i < statementCount; i++) {
+
+			readStatement(position, resourceRecord.nextStatement());
+		}
+	}
+
+	/**
+	 * Reads the resources from the given resource ordinal on sequentially. The resource record that is handed over to the handler will be
+	 * re-used for every resource.
+	 *
+	 * @param startResource the ordinal of the first resource that should be read
+	 * @param handler       the consumer of the resource records
+	 * @return the number of read resources
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	public long read(final int startResource, final GDMResourceHandler handler) throws IOException, WikidataImporterException {
+
+		final GDMResourceRecord resourceRecord = new GDMResourceRecord();
+
+		long readResources = 0;
+
+		for (int i = startResource; i < resourceCount; i++) {
+
+			read(i, resourceRecord);
+
+			handler.handle(resourceRecord);
+
+			readResources++;
+		}
+
+		return readResources;
+	}
+
+	/**
+	 * @param uriCode the code of a URI (in the URI dictionary)
+	 * @return the URI
+	 */
+	public String readURI(final int uriCode) {
+
+		final long[] position = { buffer.getLong(uriOffsetTableOffset + (long) uriCode * Long.BYTES) };
+
+		return readString(position);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		channel.close();
+	}
+
+	private void readStatement(final long[] position, final GDMStatementRecord statementRecord) {
+
+		statementRecord.setPredicateURI(predicateURIs[readVarint(position)]);
+
+		final int flags = buffer.get(position[0]++) & 0xFF;
+
+		final NodeType objectType;
+
+		switch (flags & GDMBinaryModelWriter.OBJECT_TYPE_MASK) {
+
+			case GDMBinaryModelWriter.OBJECT_TYPE_LITERAL:
+
+				objectType = NodeType.Literal;
+
+				break;
+			case GDMBinaryModelWriter.OBJECT_TYPE_RESOURCE:
+
+				objectType = NodeType.Resource;
+
+				break;
+			default:
+
+				objectType = NodeType.BNode;
+		}
+
+		final String objectValue;
+
+		if ((flags & GDMBinaryModelWriter.NULL_OBJECT_FLAG) != 0) {
+
+			objectValue = null;
+		} else if (objectType == NodeType.Resource) {
+
+			objectValue = readURI(readVarint(position));
+		} else {
+
+			objectValue = readString(position);
+		}
+
+		statementRecord.setObject(objectType, objectValue);
+
+		if ((flags & GDMBinaryModelWriter.UUID_FLAG) != 0) {
+
+			statementRecord.setUUID(readString(position));
+		}
+
+		if ((flags & GDMBinaryModelWriter.CONFIDENCE_FLAG) != 0) {
+
+			statementRecord.setConfidence(readString(position));
+		}
+
+		if ((flags & GDMBinaryModelWriter.EVIDENCE_FLAG) != 0) {
+
+			statementRecord.setEvidence(readString(position));
+		}
+
+		if ((flags & GDMBinaryModelWriter.ORDER_FLAG) != 0) {
+
+			statementRecord.setOrder(readString(position));
+		}
+	}
+
+	/**
+	 * @param position the current position (will be advanced)
+	 */
+	private int readVarint(final long[] position) {
+
+		int value = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+
+			b = buffer.get(position[0]++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	/**
+	 * @param position the current position (will be advanced)
+	 */
+	private String readString(final long[] position) {
+
+		final int length = readVarint(position);
+		final byte[] bytes = new byte[length];
+
+		buffer.get(position[0], bytes, 0, length);
+
+		position[0] += length;
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,398 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.io.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.dswarm.graph.json.NodeType;
+
+/**
+ * Converts GDM models into a compact, dictionary-encoded binary format, which can be read with near-zero parse cost (and random access by
+ * resource ordinal) via {@link GDMBinaryModelReader}. The format (all numbers are big endian; varints are unsigned LEB128; strings are
+ * varint length + UTF-8 bytes):
+ * <p/>
+ * <pre>
+ * header:                magic (long), version (int), resource count (int), predicate count (int), URI count (int),
+ *                        predicate dictionary offset (long), URI dictionary offset (long), URI offset table offset (long),
+ *                        resource offset table offset (long)
+ * resource records:      record length (varint), resource URI code (varint), statement count (varint), statements
+ * statement:             predicate code (varint), flags (byte), object value (URI code (varint) for resource objects; string otherwise),
+ *                        uuid, confidence, evidence, order (strings; only if flagged)
+ * predicate dictionary:  predicate URIs (strings)
+ * URI dictionary:        resource URIs + resource object URIs (strings)
+ * URI offset table:      URI dictionary entry offsets (longs)
+ * resource offset table: resource record offsets (longs)
+ * </pre>
+ * Note: the URI dictionary is held in memory while converting.
+ *
+ * @author tgaengler
+ */
+public class GDMBinaryModelWriter implements GDMResourceHandler, Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMBinaryModelWriter.class);
+
+	public static final String BINARY_MODEL_FILE_POSTFIX = ".gdmb";
+
+	static final long MAGIC       = 0x47444D42494E3031L; // "GDMBIN01"
+	static final int  VERSION     = 1;
+	static final int  HEADER_SIZE = 56;
+
+	static final int OBJECT_TYPE_LITERAL  = 0;
+	static final int OBJECT_TYPE_RESOURCE = 1;
+	static final int OBJECT_TYPE_BNODE    = 2;
+	static final int OBJECT_TYPE_MASK     = 0x03;
+	static final int UUID_FLAG            = 0x04;
+	static final int CONFIDENCE_FLAG      = 0x08;
+	static final int EVIDENCE_FLAG        = 0x10;
+	static final int ORDER_FLAG           = 0x20;
+	static final int NULL_OBJECT_FLAG     = 0x40;
+
+	private static final int IO_BUFFER_SIZE = 1 << 16;
+
+	private final Path                 binaryModelFile;
+	private final CountingOutputStream countingStream;
+	private final DataOutputStream     out;
+
+	private final Dictionary predicateDictionary = new Dictionary();
+	private final Dictionary uriDictionary       = new Dictionary();
+
+	private final RecordBuffer recordBuffer = new RecordBuffer();
+
+	private long[] resourceOffsets = new long[1024];
+	private int    resourceCount;
+
+	public GDMBinaryModelWriter(final Path binaryModelFile) throws IOException {
+
+		this.binaryModelFile = binaryModelFile;
+
+		countingStream = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(binaryModelFile), IO_BUFFER_SIZE));
+		out = new DataOutputStream(countingStream);
+
+		// placeholder for the header
+		out.write(new byte[HEADER_SIZE]);
+	}
+
+	/**
+	 * Converts the given GDM model file (JSON; also compressed) into the binary format.
+	 *
+	 * @param gdmModelFile    the GDM model file
+	 * @param binaryModelFile the binary model file
+	 * @return the number of converted resources
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	public static long convert(final Path gdmModelFile, final Path binaryModelFile) throws IOException, WikidataImporterException {
+
+		final long start = System.currentTimeMillis();
+
+		final long resourceCount;
+
+		try (final GDMBinaryModelWriter writer = new GDMBinaryModelWriter(binaryModelFile);
+				final InputStream gdmModelStream = GDMModelCompression.open(gdmModelFile)) {
+
+			resourceCount = new GDMStreamReader().read(gdmModelStream, writer);
+		}
+
+		LOG.info("converted '{}' resources of GDM model file '{}' ('{}' bytes) into binary model file '{}' ('{}' bytes) in '{}' ms", resourceCount,
+				gdmModelFile, Files.size(gdmModelFile), binaryModelFile, Files.size(binaryModelFile), System.currentTimeMillis() - start);
+
+		return resourceCount;
+	}
+
+	public static Path binaryModelFile(final Path gdmModelFile) {
+
+		return Paths.get(gdmModelFile.toString() + BINARY_MODEL_FILE_POSTFIX);
+	}
+
+	@Override
+	public void handle(final GDMResourceRecord resourceRecord) throws IOException {
+
+		recordBuffer.reset();
+		recordBuffer.writeVarint(uriDictionary.encode(resourceRecord.getResourceURI()));
+		recordBuffer.writeVarint(resourceRecord.getStatementCount());
+
+		for (int i = 0; i < resourceRecord.getStatementCount(); i++) {
+
+			writeStatement(resourceRecord.getStatement(i));
+		}
+
+		if (resourceCount == resourceOffsets.length) {
+
+			resourceOffsets = Arrays.copyOf(resourceOffsets, resourceCount * 2);
+		}
+
+		resourceOffsets[resourceCount++] = countingStream.getCount();
+
+		writeVarint(out, recordBuffer.size);
+		out.write(recordBuffer.bytes, 0, recordBuffer.size);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		try {
+
+			final long predicateDictionaryOffset = countingStream.getCount();
+
+			for (final String predicateURI : predicateDictionary.entries) {
+
+				writeString(out, predicateURI);
+			}
+
+			final long uriDictionaryOffset = countingStream.getCount();
+			final long[] uriOffsets = new long[uriDictionary.entries.size()];
+
+			for (int i = 0; i < uriOffsets.length; i++) {
+
+				uriOffsets[i] = countingStream.getCount();
+
+				writeString(out, uriDictionary.entries.get(i));
+			}
+
+			final long uriOffsetTableOffset = countingStream.getCount();
+
+			for (final long uriOffset : uriOffsets) {
+
+				out.writeLong(uriOffset);
+			}
+
+			final long resourceOffsetTableOffset = countingStream.getCount();
+
+			for (int i = 0; i < resourceCount; i++) {
+
+				out.writeLong(resourceOffsets[i]);
+			}
+
+			out.flush();
+
+			writeHeader(predicateDictionaryOffset, uriDictionaryOffset, uriOffsetTableOffset, resourceOffsetTableOffset);
+		} finally {
+
+			out.close();
+		}
+	}
+
+	private void writeStatement(final GDMStatementRecord statement) {
+
+		final NodeType objectType = statement.getObjectType();
+		final String objectValue = statement.getObjectValue();
+
+		int flags;
+
+		switch (objectType) {
+
+			case Literal:
+
+				flags = OBJECT_TYPE_LITERAL;
+
+				break;
+			case Resource:
+
+				flags = OBJECT_TYPE_RESOURCE;
+
+				break;
+			default:
+
+				flags = OBJECT_TYPE_BNODE;
+		}
+
+		flags |= objectValue == null ? NULL_OBJECT_FLAG : 0;
+		flags |= statement.getUUID() != null ? UUID_FLAG : 0;
+		flags |= statement.getConfidence() != null ? CONFIDENCE_FLAG : 0;
+		flags |= statement.getEvidence() != null ? EVIDENCE_FLAG : 0;
+		flags |= statement.getOrder() != null ? ORDER_FLAG : 0;
+
+		recordBuffer.writeVarint(predicateDictionary.encode(statement.getPredicateURI()));
+		recordBuffer.writeByte(flags);
+
+		if (objectValue != null) {
+
+			if (objectType == NodeType.Resource) {
+
+				recordBuffer.writeVarint(uriDictionary.encode(objectValue));
+			} else {
+
+				recordBuffer.writeString(objectValue);
+			}
+		}
+
+		if (statement.getUUID() != null) {
+
+			recordBuffer.writeString(statement.getUUID());
+		}
+
+		if (statement.getConfidence() != null) {
+
+			recordBuffer.writeString(statement.getConfidence());
+		}
+
+		if (statement.getEvidence() != null) {
+
+			recordBuffer.writeString(statement.getEvidence());
+		}
+
+		if (statement.getOrder() != null) {
+
+			recordBuffer.writeString(statement.getOrder());
+		}
+	}
+
+	private void writeHeader(final long predicateDictionaryOffset, final long uriDictionaryOffset, final long uriOffsetTableOffset,
+			final long resourceOffsetTableOffset) throws IOException {
+
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		header.putLong(MAGIC)
+				.putInt(VERSION)
+				.putInt(resourceCount)
+				.putInt(predicateDictionary.entries.size())
+				.putInt(uriDictionary.entries.size())
+				.putLong(predicateDictionaryOffset)
+				.putLong(uriDictionaryOffset)
+				.putLong(uriOffsetTableOffset)
+				.putLong(resourceOffsetTableOffset);
+
+		header.flip();
+
+		try (final FileChannel channel = FileChannel.open(binaryModelFile, StandardOpenOption.WRITE)) {
+
+			channel.write(header, 0);
+		}
+	}
+
+	private static void writeVarint(final DataOutputStream out, final int value) throws IOException {
+
+		int remaining = value;
+
+		while ((remaining & ~0x7F) != 0) {
+
+			out.writeByte((remaining & 0x7F) | 0x80);
+
+			remaining >>>= 7;
+		}
+
+		out.writeByte(remaining);
+	}
+
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+		writeVarint(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * assigns consecutive codes (in order of appearance)
+	 */
+	private static final class Dictionary {
+
+		private final Map<String, Integer> codes   = new HashMap<>();
+		private final List<String>         entries = new ArrayList<>();
+
+		private int encode(final String entry) {
+
+			final Integer code = codes.get(entry);
+
+			if (code != null) {
+
+				return code;
+			}
+
+			final int newCode = entries.size();
+
+			codes.put(entry, newCode);
+			entries.add(entry);
+
+			return newCode;
+		}
+	}
+
+	/**
+	 * a re-used buffer for a resource record (to determine its length before writing it)
+	 */
+	private static final class RecordBuffer {
+
+		private byte[] bytes = new byte[4096];
+		private int    size;
+
+		private void reset() {
+
+			size = 0;
+		}
+
+		private void writeByte(final int value) {
+
+			ensureCapacity(1);
+
+			bytes[size++] = (byte) value;
+		}
+
+		private void writeVarint(final int value) {
+
+			int remaining = value;
+
+			while ((remaining & ~0x7F) != 0) {
+
+				writeByte((remaining & 0x7F) | 0x80);
+
+				remaining >>>= 7;
+			}
+
+			writeByte(remaining);
+		}
+
+		private void writeString(final String value) {
+
+			final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+
+			writeVarint(valueBytes.length);
+			ensureCapacity(valueBytes.length);
+
+			System.arraycopy(valueBytes, 0, bytes, size, valueBytes.length);
+
+			size += valueBytes.length;
+		}
+
+		private void ensureCapacity(final int length) {
+
+			if (size + length > bytes.length) {
+
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+			}
+		}
+	}
+}
@@ -0,0 +1,500 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tails an append-only GDM change log, i.e., a directory of NDJSON files ('*.ndjson', one GDM resource
+ * ({"&lt;resource uri&gt;":[&lt;statements&gt;]}) per line, whereby a changed resource is simply appended again, i.e., with all its current
+ * statements, since its item is replaced by the import target). The files are consumed in the order of their names (i.e., a rotated log
+ * should be named, e.g., 'changes-000001.ndjson', 'changes-000002.ndjson', ...). New resources are collected into micro batches, which are
+ * imported when the batch is full or when its oldest resource waited for the maximum batch latency. The offset (file + byte position) of
+ * the last imported batch is persisted in an offset file, i.e., the tailing continues there after a restart (at-least-once, since a
+ * resource of an interrupted batch is imported again, which replaces the items that were already created, i.e., their statements are not
+ * duplicated).
+ *
+ * @author tgaengler
+ */
+public class GDMChangeLogTailer implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMChangeLogTailer.class);
+
+	public static final String CHANGE_LOG_FILE_GLOB         = "*.ndjson";
+	public static final String DEFAULT_OFFSET_FILE_NAME     = "gdm-change-log.offset";
+	public static final int    DEFAULT_BATCH_SIZE           = 1000;
+	public static final long   DEFAULT_BATCH_LATENCY_MILLIS = 5000;
+
+	private static final String FILE_KEY          = "file";
+	private static final String OFFSET_KEY        = "offset";
+	private static final String TEMP_FILE_POSTFIX = ".tmp";
+
+	private static final long MAX_POLL_INTERVAL_MILLIS = 1000;
+	private static final int  READ_BUFFER_SIZE         = 64 * 1024;
+
+	private static final byte LINE_SEPARATOR     = '\n';
+	private static final byte RESOURCE_SEPARATOR = ',';
+	private static final byte ARRAY_START        = '[';
+	private static final byte ARRAY_END          = ']';
+
+	private final Path        logDirectory;
+	private final Path        offsetFile;
+	private final int         batchSize;
+	private final long        maxBatchLatencyMillis;
+	private final long        pollIntervalMillis;
+	private final BatchImport batchImport;
+
+	private final ByteBuffer            readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+	private final ByteArrayOutputStream line       = new ByteArrayOutputStream();
+	private final ByteArrayOutputStream batch      = new ByteArrayOutputStream();
+
+	private final Object pollLock = new Object();
+
+	/**
+	 * the position up to which the change log was imported (and persisted)
+	 */
+	private String committedFile;
+	private long   committedOffset;
+
+	/**
+	 * the position up to which the change log was read (into the current batch)
+	 */
+	private String readFile;
+	private long   readOffset;
+
+	private int  batchRecords;
+	private long batchStartNanos;
+	private long batchCount;
+	private long importedRecords;
+
+	private volatile boolean running = true;
+
+	/**
+	 * @param logDirectory          the directory of the change log files
+	 * @param offsetFile            the file of the persisted offset
+	 * @param batchSize             the maximum number of resources per batch
+	 * @param maxBatchLatencyMillis the maximum time a read resource waits for its batch to be imported
+	 * @param batchImport           the import of a batch
+	 * @throws IOException if the persisted offset couldn't be read
+	 */
+	public GDMChangeLogTailer(final Path logDirectory, final Path offsetFile, final int batchSize, final long maxBatchLatencyMillis,
+			final BatchImport batchImport) throws IOException {
+
+		this.logDirectory = logDirectory;
+		this.offsetFile = offsetFile;
+		this.batchSize = Math.max(1, batchSize);
+		this.maxBatchLatencyMillis = Math.max(0, maxBatchLatencyMillis);
+		this.batchImport = batchImport;
+
+		pollIntervalMillis = Math.max(1, Math.min(this.maxBatchLatencyMillis, MAX_POLL_INTERVAL_MILLIS));
+
+		readOffset();
+
+		readFile = committedFile;
+		readOffset = committedOffset;
+	}
+
+	/**
+	 * @param logDirectory the directory of the change log files
+	 * @return the default offset file ('&lt;log directory&gt;/gdm-change-log.offset')
+	 */
+	public static Path defaultOffsetFile(final Path logDirectory) {
+
+		return logDirectory.resolve(DEFAULT_OFFSET_FILE_NAME);
+	}
+
+	/**
+	 * Tails the change log until the tailer is closed.
+	 *
+	 * @throws IOException if the change log couldn't be read or the offset couldn't be persisted
+	 */
+	public void run() throws IOException {
+
+		LOG.info("tail GDM change log '{}' (batch size = '{}', max. batch latency = '{}' ms) from '{}':'{}'", logDirectory, batchSize,
+				maxBatchLatencyMillis, committedFile, committedOffset);
+
+		while (running) {
+
+			poll();
+
+			synchronized (pollLock) {
+
+				if (running) {
+
+					try {
+
+						pollLock.wait(pollIntervalMillis);
+					} catch (final InterruptedException e) {
+
+						Thread.currentThread().interrupt();
+
+						running = false;
+					}
+				}
+			}
+		}
+
+		LOG.info("stopped tailing GDM change log '{}' at '{}':'{}' (imported '{}' resources in '{}' batches)", logDirectory, committedFile,
+				committedOffset, importedRecords, batchCount);
+	}
+
+	/**
+	 * Reads the resources that were appended since the last poll and imports all full batches (and the current batch, when its maximum
+	 * latency is exceeded). A failed batch is kept and retried at the next poll.
+	 *
+	 * @return the number of imported resources
+	 * @throws IOException if the change log couldn't be read or the offset couldn't be persisted
+	 */
+	public long poll() throws IOException {
+
+		final long importedRecordsBefore = importedRecords;
+
+		try {
+
+			if (batchRecords < batchSize) {
+
+				readChangeLog();
+			}
+
+			if (batchRecords > 0 && (batchRecords >= batchSize || batchLatencyMillis() >= maxBatchLatencyMillis)) {
+
+				importBatch();
+			}
+		} catch (final WikidataImporterException e) {
+
+			LOG.error("couldn't import batch '{}' of GDM change log '{}' - will retry", batchCount, logDirectory, e);
+		}
+
+		return importedRecords - importedRecordsBefore;
+	}
+
+	public long getImportedRecords() {
+
+		return importedRecords;
+	}
+
+	public String getCommittedFile() {
+
+		return committedFile;
+	}
+
+	public long getCommittedOffset() {
+
+		return committedOffset;
+	}
+
+	/**
+	 * Stops the tailing (after the current batch, a pending batch is read again at the next start).
+	 */
+	@Override
+	public void close() {
+
+		synchronized (pollLock) {
+
+			running = false;
+
+			pollLock.notifyAll();
+		}
+	}
+
+	private void readChangeLog() throws IOException, WikidataImporterException {
+
+		final List<String> logFiles = listLogFiles();
+
+		if (logFiles.isEmpty()) {
+
+			return;
+		}
+
+		if (readFile == null || !logFiles.contains(readFile)) {
+
+			if (readFile != null) {
+
+				LOG.warn("GDM change log file '{}' doesn't exist anymore - continue with the next file", readFile);
+			}
+
+			readFile = nextLogFile(logFiles, readFile);
+			readOffset = 0;
+
+			if (readFile == null) {
+
+				return;
+			}
+		}
+
+		while (running) {
+
+			final String nextFile = nextLogFile(logFiles, readFile);
+
+			// note: a file is complete, when a later file exists (i.e., its last line might miss the line separator)
+			if (!readLogFile(nextFile != null) || nextFile == null) {
+
+				return;
+			}
+
+			readFile = nextFile;
+			readOffset = 0;
+		}
+	}
+
+	/**
+	 * @return true, if the file was read completely, otherwise (the batch is full) false
+	 */
+	private boolean readLogFile(final boolean complete) throws IOException, WikidataImporterException {
+
+		try (final FileChannel channel = FileChannel.open(logDirectory.resolve(readFile), StandardOpenOption.READ)) {
+
+			long position = readOffset;
+
+			line.reset();
+
+			while (true) {
+
+				readBuffer.clear();
+
+				final int read = channel.read(readBuffer, position);
+
+				if (read < 0) {
+
+					break;
+				}
+
+				readBuffer.flip();
+
+				while (readBuffer.hasRemaining()) {
+
+					final byte b = readBuffer.get();
+
+					position++;
+
+					if (b != LINE_SEPARATOR) {
+
+						line.write(b);
+
+						continue;
+					}
+
+					addLine(position);
+
+					if (batchRecords >= batchSize) {
+
+						importBatch();
+
+						if (batchRecords >= batchSize) {
+
+							// note: the import failed, i.e., stop reading
+							return false;
+						}
+					}
+				}
+			}
+
+			if (complete && line.size() > 0) {
+
+				addLine(position);
+			}
+
+			return true;
+		}
+	}
+
+	private void addLine(final long lineEnd) {
+
+		if (!isBlank(line)) {
+
+			if (batchRecords == 0) {
+
+				batch.reset();
+				batch.write(ARRAY_START);
+
+				batchStartNanos = System.nanoTime();
+			} else {
+
+				batch.write(RESOURCE_SEPARATOR);
+			}
+
+			batch.write(line.toByteArray(), 0, line.size());
+
+			batchRecords++;
+		}
+
+		line.reset();
+
+		readOffset = lineEnd;
+	}
+
+	private void importBatch() throws IOException, WikidataImporterException {
+
+		final long batchLatencyMillis = batchLatencyMillis();
+		final byte[] batchBytes = Arrays.copyOf(batch.toByteArray(), batch.size() + 1);
+
+		batchBytes[batchBytes.length - 1] = ARRAY_END;
+
+		try (final InputStream batchStream = new ByteArrayInputStream(batchBytes)) {
+
+			batchImport.importBatch(batchStream, String.format("%s:%d", readFile, batchCount));
+		} catch (final IOException | RuntimeException e) {
+
+			// note: e.g. a parsing error of the batch, i.e., it is retried as well (the offset is not advanced)
+			throw new WikidataImporterException(String.format("couldn't import batch '%d' of GDM change log '%s'", batchCount, logDirectory), e);
+		}
+
+		importedRecords += batchRecords;
+		batchCount++;
+
+		LOG.info("imported batch of '{}' resources of GDM change log '{}' up to '{}':'{}' (latency = '{}' ms)", batchRecords, logDirectory,
+				readFile, readOffset, batchLatencyMillis);
+
+		batchRecords = 0;
+		batch.reset();
+
+		committedFile = readFile;
+		committedOffset = readOffset;
+
+		writeOffset();
+	}
+
+	private long batchLatencyMillis() {
+
+		return (System.nanoTime() - batchStartNanos) / 1000000;
+	}
+
+	private List<String> listLogFiles() throws IOException {
+
+		final List<String> logFiles = new ArrayList<>();
+
+		try (final DirectoryStream<Path> logFileStream = Files.newDirectoryStream(logDirectory, CHANGE_LOG_FILE_GLOB)) {
+
+			for (final Path logFile : logFileStream) {
+
+				logFiles.add(logFile.getFileName().toString());
+			}
+		}
+
+		Collections.sort(logFiles);
+
+		return logFiles;
+	}
+
+	/**
+	 * @return the first file that is ordered after the given file (or the first file, if no file is given), or null
+	 */
+	private static String nextLogFile(final List<String> logFiles, final String logFile) {
+
+		for (final String file : logFiles) {
+
+			if (logFile == null || file.compareTo(logFile) > 0) {
+
+				return file;
+			}
+		}
+
+		return null;
+	}
+
+	private static boolean isBlank(final ByteArrayOutputStream line) {
+
+		for (final byte b : line.toByteArray()) {
+
+			if (!Character.isWhitespace(b)) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void readOffset() throws IOException {
+
+		if (!Files.exists(offsetFile)) {
+
+			return;
+		}
+
+		final Properties properties = new Properties();
+
+		try (final InputStream offsetStream = Files.newInputStream(offsetFile)) {
+
+			properties.load(offsetStream);
+		}
+
+		committedFile = properties.getProperty(FILE_KEY);
+
+		try {
+
+			committedOffset = Long.parseLong(properties.getProperty(OFFSET_KEY, "0"));
+		} catch (final NumberFormatException e) {
+
+			throw new IOException(String.format("couldn't read offset of GDM change log from '%s'", offsetFile), e);
+		}
+	}
+
+	/**
+	 * note: the offset file is replaced atomically, i.e., a crash never leaves a partially written offset
+	 */
+	private void writeOffset() throws IOException {
+
+		final Properties properties = new Properties();
+
+		properties.setProperty(FILE_KEY, committedFile);
+		properties.setProperty(OFFSET_KEY, String.valueOf(committedOffset));
+
+		final Path tempFile = offsetFile.resolveSibling(offsetFile.getFileName() + TEMP_FILE_POSTFIX);
+
+		try (final OutputStream offsetStream = Files.newOutputStream(tempFile)) {
+
+			properties.store(offsetStream, null);
+		}
+
+		Files.move(tempFile, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * The import of a micro batch of the change log.
+	 */
+	@FunctionalInterface
+	public interface BatchImport {
+
+		/**
+		 * @param batch     the batch as GDM model ([{"&lt;resource uri&gt;":[&lt;statements&gt;]}, ...])
+		 * @param batchName the name of the batch (for logging)
+		 * @throws IOException
+		 * @throws WikidataImporterException if the import of the batch failed (the batch will be retried)
+		 */
+		void importBatch(final InputStream batch, final String batchName) throws IOException, WikidataImporterException;
+	}
+}
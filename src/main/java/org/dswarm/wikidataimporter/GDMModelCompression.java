@@ -0,0 +1,199 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+/**
+ * The compression formats of GDM model files, which are detected by their magic bytes (i.e. independent of the file name).
+ *
+ * @author tgaengler
+ */
+public enum GDMModelCompression {
+
+	NONE(new byte[0]) {
+
+		@Override
+		public InputStream decompress(final InputStream compressedStream) {
+
+			return compressedStream;
+		}
+	},
+
+	GZIP(new byte[] { 0x1f, (byte) 0x8b }) {
+
+		@Override
+		public InputStream decompress(final InputStream compressedStream) throws IOException {
+
+			// note: multi member gzip files (e.g. from pigz or concatenated exports) are common for large exports
+			return new GzipCompressorInputStream(compressedStream, true);
+		}
+	},
+
+	/**
+	 * note: requires zstd-jni at runtime
+	 */
+	ZSTD(new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd }) {
+
+		@Override
+		public InputStream decompress(final InputStream compressedStream) throws IOException {
+
+			return new ZstdCompressorInputStream(compressedStream);
+		}
+	},
+
+	BZIP2(new byte[] { 'B', 'Z', 'h' }) {
+
+		@Override
+		public InputStream decompress(final InputStream compressedStream) throws IOException {
+
+			return new BZip2CompressorInputStream(compressedStream, true);
+		}
+	};
+
+	private static final int MAX_MAGIC_LENGTH = 4;
+	private static final int IO_BUFFER_SIZE   = 1 << 16;
+
+	private final byte[] magic;
+
+	GDMModelCompression(final byte[] magic) {
+
+		this.magic = magic;
+	}
+
+	/**
+	 * @param compressedStream the (compressed) stream
+	 * @return the decompressed stream
+	 * @throws IOException
+	 */
+	public abstract InputStream decompress(final InputStream compressedStream) throws IOException;
+
+	/**
+	 * Detects the compression format of the given stream. The stream will be reset to its beginning afterwards.
+	 *
+	 * @param stream a stream that supports mark + reset
+	 * @return the compression format of the stream
+	 * @throws IOException
+	 */
+	public static GDMModelCompression detect(final InputStream stream) throws IOException {
+
+		final byte[] header = new byte[MAX_MAGIC_LENGTH];
+
+		stream.mark(MAX_MAGIC_LENGTH);
+
+		int headerLength = 0;
+		int read;
+
+		while (headerLength < MAX_MAGIC_LENGTH && (read = stream.read(header, headerLength, MAX_MAGIC_LENGTH - headerLength)) != -1) {
+
+			headerLength += read;
+		}
+
+		stream.reset();
+
+		for (final GDMModelCompression compression : values()) {
+
+			if (compression != NONE && compression.matches(header, headerLength)) {
+
+				return compression;
+			}
+		}
+
+		return NONE;
+	}
+
+	/**
+	 * @param gdmModelFile a GDM model file
+	 * @return the compression format of the GDM model file
+	 * @throws IOException
+	 */
+	public static GDMModelCompression detect(final Path gdmModelFile) throws IOException {
+
+		try (final InputStream stream = new BufferedInputStream(Files.newInputStream(gdmModelFile), MAX_MAGIC_LENGTH)) {
+
+			return detect(stream);
+		}
+	}
+
+	/**
+	 * Opens the given GDM model file and decompresses it (if necessary). The decompression runs on its own thread (see
+	 * {@link ReadAheadInputStream}).
+	 *
+	 * @param gdmModelFile a (compressed) GDM model file
+	 * @return the (decompressed) GDM model stream
+	 * @throws IOException
+	 */
+	public static InputStream open(final Path gdmModelFile) throws IOException {
+
+		return open(Files.newInputStream(gdmModelFile));
+	}
+
+	/**
+	 * Decompresses the given GDM model stream (if necessary), e.g., a GDM model that is streamed via HTTP. The decompression runs on its own
+	 * thread (see {@link ReadAheadInputStream}).
+	 *
+	 * @param gdmModelStream a (compressed) GDM model stream (will be closed together with the returned stream)
+	 * @return the (decompressed) GDM model stream
+	 * @throws IOException
+	 */
+	public static InputStream open(final InputStream gdmModelStream) throws IOException {
+
+		final InputStream stream = new BufferedInputStream(gdmModelStream, IO_BUFFER_SIZE);
+
+		try {
+
+			final GDMModelCompression compression = detect(stream);
+
+			if (compression == NONE) {
+
+				return stream;
+			}
+
+			return new ReadAheadInputStream(compression.decompress(stream));
+		} catch (final IOException | RuntimeException e) {
+
+			stream.close();
+
+			throw e;
+		}
+	}
+
+	private boolean matches(final byte[] header, final int headerLength) {
+
+		if (headerLength < magic.length) {
+
+			return false;
+		}
+
+		for (int i = 0; i < magic.length; i++) {
+
+			if (header[i] != magic[i]) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
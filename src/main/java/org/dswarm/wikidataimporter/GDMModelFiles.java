@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the GDM model files of the given inputs, i.e., files, directories (all '*.gson' files (also compressed ones, i.e.,
+ * '*.gson.gz', '*.gson.zst' or '*.gson.bz2'), incl. sub directories) or glob patterns (e.g. '/data/exports/model-4/*.gson').
+ *
+ * @author tgaengler
+ */
+public final class GDMModelFiles {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMModelFiles.class);
+
+	private static final String GLOB_SYNTAX             = "glob:";
+	private static final String GDM_MODEL_FILE_GLOB     = "*.{gson,gson.gz,gson.zst,gson.bz2}";
+	private static final String GLOB_SPECIAL_CHARACTERS = "*?[{";
+
+	private GDMModelFiles() {
+
+	}
+
+	/**
+	 * @param inputs files, directories or glob patterns
+	 * @return the (sorted and distinct) GDM model files of the given inputs
+	 * @throws IOException
+	 */
+	public static List<Path> resolve(final Collection<String> inputs) throws IOException {
+
+		final Set<Path> gdmModelFiles = new TreeSet<>();
+
+		for (final String input : inputs) {
+
+			final List<Path> inputGDMModelFiles = resolve(input);
+
+			if (inputGDMModelFiles.isEmpty()) {
+
+				LOG.warn("couldn't find any GDM model file for input '{}'", input);
+			}
+
+			gdmModelFiles.addAll(inputGDMModelFiles);
+		}
+
+		return new ArrayList<>(gdmModelFiles);
+	}
+
+	private static List<Path> resolve(final String input) throws IOException {
+
+		if (isGlob(input)) {
+
+			return resolveGlob(input);
+		}
+
+		final Path path = Paths.get(input).toAbsolutePath().normalize();
+
+		if (Files.isDirectory(path)) {
+
+			final PathMatcher gdmModelFileMatcher = FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + GDM_MODEL_FILE_GLOB);
+
+			return walk(path, file -> gdmModelFileMatcher.matches(file.getFileName()));
+		}
+
+		final List<Path> gdmModelFiles = new ArrayList<>();
+
+		if (Files.isRegularFile(path)) {
+
+			gdmModelFiles.add(path);
+		}
+
+		return gdmModelFiles;
+	}
+
+	private static List<Path> resolveGlob(final String glob) throws IOException {
+
+		final Path absoluteGlob = Paths.get(glob).toAbsolutePath();
+
+		// walk from the deepest directory without glob characters
+		Path baseDirectory = absoluteGlob.getRoot();
+
+		for (final Path segment : absoluteGlob) {
+
+			if (isGlob(segment.toString())) {
+
+				break;
+			}
+
+			baseDirectory = baseDirectory.resolve(segment);
+		}
+
+		if (!Files.isDirectory(baseDirectory)) {
+
+			return new ArrayList<>();
+		}
+
+		final PathMatcher globMatcher = FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + absoluteGlob.toString());
+
+		return walk(baseDirectory, globMatcher::matches);
+	}
+
+	private static List<Path> walk(final Path directory, final PathMatcher matcher) throws IOException {
+
+		try (final Stream<Path> paths = Files.walk(directory)) {
+
+			return paths.filter(Files::isRegularFile)
+					.filter(matcher::matches)
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static boolean isGlob(final String input) {
+
+		for (int i = 0; i < input.length(); i++) {
+
+			if (GLOB_SPECIAL_CHARACTERS.indexOf(input.charAt(i)) >= 0) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A byte offset index of the top-level resource objects of a GDM model file (i.e. a JSON array of resource objects). The index is built
+ * by a fast (brace + quote aware) pre-scan over the memory-mapped file, i.e., no JSON parsing is involved. The index is persisted next to
+ * the GDM model file ('&lt;gdm model file&gt;.gdmidx') and will be re-used as long as the GDM model file is not modified.
+ *
+ * @author tgaengler
+ */
+public class GDMModelIndex {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMModelIndex.class);
+
+	public static final String INDEX_FILE_POSTFIX = ".gdmidx";
+
+	private static final long INDEX_FILE_MAGIC = 0x47444D4944583031L; // "GDMIDX01"
+	private static final long SCAN_WINDOW_SIZE = 1L << 30;
+	private static final int  INITIAL_CAPACITY = 1024;
+	private static final int  IO_BUFFER_SIZE   = 1 << 16;
+
+	private final long   fileSize;
+	private final long   lastModified;
+	private final int    resourceCount;
+	private final long[] resourceStarts;
+	private final long[] resourceEnds;
+
+	private GDMModelIndex(final long fileSize, final long lastModified, final int resourceCount, final long[] resourceStarts,
+			final long[] resourceEnds) {
+
+		this.fileSize = fileSize;
+		this.lastModified = lastModified;
+		this.resourceCount = resourceCount;
+		this.resourceStarts = resourceStarts;
+		this.resourceEnds = resourceEnds;
+	}
+
+	/**
+	 * @return the number of (top-level) resources of the GDM model
+	 */
+	public int getResourceCount() {
+
+		return resourceCount;
+	}
+
+	/**
+	 * @param resourceOrdinal the ordinal of the resource (starting with 0)
+	 * @return the byte offset of the opening brace of the resource
+	 */
+	public long getResourceStart(final int resourceOrdinal) {
+
+		return resourceStarts[resourceOrdinal];
+	}
+
+	/**
+	 * @param resourceOrdinal the ordinal of the resource (starting with 0)
+	 * @return the byte offset after the closing brace of the resource
+	 */
+	public long getResourceEnd(final int resourceOrdinal) {
+
+		return resourceEnds[resourceOrdinal];
+	}
+
+	public long getFileSize() {
+
+		return fileSize;
+	}
+
+	/**
+	 * Loads the persisted index of the given GDM model file, if it is still valid, or builds (and persists) a new one.
+	 *
+	 * @param gdmModelFile the GDM model file
+	 * @return the index of the GDM model file
+	 * @throws IOException
+	 */
+	public static GDMModelIndex loadOrBuild(final Path gdmModelFile) throws IOException {
+
+		final Path indexFile = indexFile(gdmModelFile);
+		final long fileSize = Files.size(gdmModelFile);
+		final long lastModified = Files.getLastModifiedTime(gdmModelFile).toMillis();
+
+		if (Files.exists(indexFile)) {
+
+			try {
+
+				final GDMModelIndex index = load(indexFile);
+
+				if (index.fileSize == fileSize && index.lastModified == lastModified) {
+
+					LOG.debug("loaded GDM model index with '{}' resources from '{}'", index.resourceCount, indexFile);
+
+					return index;
+				}
+
+				LOG.debug("GDM model index '{}' is outdated", indexFile);
+			} catch (final IOException e) {
+
+				LOG.warn("couldn't load GDM model index from '{}'; will rebuild it", indexFile, e);
+			}
+		}
+
+		final GDMModelIndex index = build(gdmModelFile);
+
+		try {
+
+			index.persist(indexFile);
+		} catch (final IOException e) {
+
+			// an index that cannot be persisted is still usable
+			LOG.warn("couldn't persist GDM model index to '{}'", indexFile, e);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Scans the given GDM model file for the byte ranges of its top-level resource objects.
+	 *
+	 * @param gdmModelFile the GDM model file
+	 * @return the index of the GDM model file
+	 * @throws IOException if the file is not a JSON array of objects
+	 */
+	public static GDMModelIndex build(final Path gdmModelFile) throws IOException {
+
+		final long start = System.currentTimeMillis();
+
+		final long fileSize = Files.size(gdmModelFile);
+		final long lastModified = Files.getLastModifiedTime(gdmModelFile).toMillis();
+
+		long[] resourceStarts = new long[INITIAL_CAPACITY];
+		long[] resourceEnds = new long[INITIAL_CAPACITY];
+		int resourceCount = 0;
+
+		int depth = 0;
+		boolean inString = false;
+		boolean escaped = false;
+		long resourceStart = -1;
+
+		try (final FileChannel channel = FileChannel.open(gdmModelFile, StandardOpenOption.READ)) {
+
+			for (long windowStart = 0; windowStart < fileSize; windowStart += SCAN_WINDOW_SIZE) {
+
+				final long windowSize = Math.min(SCAN_WINDOW_SIZE, fileSize - windowStart);
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+
+				for (int i = 0; i < windowSize; i++) {
+
+					final byte b = window.get(i);
+
+					if (inString) {
+
+						if (escaped) {
+
+							escaped = false;
+						} else if (b == '\\') {
+
+							escaped = true;
+						} else if (b == '"') {
+
+							inString = false;
+						}
+
+						continue;
+					}
+
+					switch (b) {
+
+						case '"':
+
+							inString = true;
+
+							break;
+						case '{':
+
+							if (depth == 1) {
+
+								resourceStart = windowStart + i;
+							} else if (depth == 0) {
+
+								throw new IOException(String.format("GDM model file '%s' is not a JSON array (found '{' at byte '%d')", gdmModelFile,
+										windowStart + i));
+							}
+
+							depth++;
+
+							break;
+						case '[':
+
+							depth++;
+
+							break;
+						case '}':
+						case ']':
+
+							depth--;
+
+							if (depth == 1 && b == '}') {
+
+								if (resourceCount == resourceStarts.length) {
+
+									resourceStarts = Arrays.copyOf(resourceStarts, resourceCount * 2);
+									resourceEnds = Arrays.copyOf(resourceEnds, resourceCount * 2);
+								}
+
+								resourceStarts[resourceCount] = resourceStart;
+								resourceEnds[resourceCount] = windowStart + i + 1;
+								resourceCount++;
+							} else if (depth < 0) {
+
+								throw new IOException(String.format("GDM model file '%s' has unbalanced brackets (at byte '%d')", gdmModelFile,
+										windowStart + i));
+							}
+
+							break;
+						default:
+
+							// whitespace, commas + scalar values
+					}
+				}
+			}
+		}
+
+		if (depth != 0 || inString) {
+
+			throw new IOException(String.format("GDM model file '%s' seems to be truncated", gdmModelFile));
+		}
+
+		LOG.info("indexed '{}' resources of GDM model file '{}' ('{}' bytes) in '{}' ms", resourceCount, gdmModelFile, fileSize,
+				System.currentTimeMillis() - start);
+
+		return new GDMModelIndex(fileSize, lastModified, resourceCount, resourceStarts, resourceEnds);
+	}
+
+	public static Path indexFile(final Path gdmModelFile) {
+
+		return Paths.get(gdmModelFile.toString() + INDEX_FILE_POSTFIX);
+	}
+
+	private void persist(final Path indexFile) throws IOException {
+
+		try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile), IO_BUFFER_SIZE))) {
+
+			out.writeLong(INDEX_FILE_MAGIC);
+			out.writeLong(fileSize);
+			out.writeLong(lastModified);
+			out.writeInt(resourceCount);
+
+			for (int i = 0; i < resourceCount; i++) {
+
+				out.writeLong(resourceStarts[i]);
+				out.writeLong(resourceEnds[i]);
+			}
+		}
+
+		LOG.debug("persisted GDM model index to '{}'", indexFile);
+	}
+
+	private static GDMModelIndex load(final Path indexFile) throws IOException {
+
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), IO_BUFFER_SIZE))) {
+
+			if (in.readLong() != INDEX_FILE_MAGIC) {
+
+				throw new IOException(String.format("'%s' is not a GDM model index file", indexFile));
+			}
+
+			final long fileSize = in.readLong();
+			final long lastModified = in.readLong();
+			final int resourceCount = in.readInt();
+
+			final long[] resourceStarts = new long[resourceCount];
+			final long[] resourceEnds = new long[resourceCount];
+
+			for (int i = 0; i < resourceCount; i++) {
+
+				resourceStarts[i] = in.readLong();
+				resourceEnds[i] = in.readLong();
+			}
+
+			return new GDMModelIndex(fileSize, lastModified, resourceCount, resourceStarts, resourceEnds);
+		}
+	}
+}
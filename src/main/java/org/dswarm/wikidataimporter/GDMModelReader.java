@@ -0,0 +1,598 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+
+import org.dswarm.graph.json.Resource;
+import org.dswarm.graph.json.stream.ModelParser;
+
+/**
+ * Reads GDM model files. By default, a GDM model file will be parsed sequentially by a single {@link ModelParser}. With a parse
+ * parallelism > 1, the GDM model file will be indexed (see {@link GDMModelIndex}) and split into disjoint byte ranges of complete
+ * resources, which will be parsed in parallel (each by its own {@link ModelParser}). The resources will be emitted in the order of the GDM
+ * model file anyway. Furthermore, a start resource can be given to resume an interrupted import, i.e., all resources before this resource
+ * (ordinal) will be skipped without parsing them. Resource records (see {@link #readRecords(String)}) can alternatively be read by the
+ * {@link GDMStreamReader}, i.e., without creating a GDM object graph at all. Compressed GDM model files (gzip, zstd, bzip2) are
+ * decompressed transparently (see {@link GDMModelCompression}). Binary GDM models (see {@link GDMBinaryModelWriter}) are read via memory-mapped
+ * buffers with random access, i.e., without parsing.
+ *
+ * @author tgaengler
+ */
+public class GDMModelReader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMModelReader.class);
+
+	private static final String DSWARM_GDM_MODEL_PARSER_THREAD_NAMING_PATTERN = "dswarm-gdm-model-parser-%d";
+
+	/**
+	 * a range (chunk) will be closed, when it reaches one of these limits
+	 */
+	private static final long CHUNK_MAX_BYTES     = 8L * 1024 * 1024;
+	private static final int  CHUNK_MAX_RESOURCES = 10000;
+
+	/**
+	 * the maximum number of parsed ranges (per parser thread) that are held in memory
+	 */
+	private static final int PARSED_CHUNKS_PER_PARSER = 2;
+
+	private static final byte[] JSON_ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] JSON_ARRAY_END   = "]".getBytes(StandardCharsets.UTF_8);
+
+	private final int        parseParallelism;
+	private final int        startResource;
+	private final ParserType parserType;
+
+	public GDMModelReader() {
+
+		this(1, 0);
+	}
+
+	public GDMModelReader(final int parseParallelism, final int startResource) {
+
+		this(parseParallelism, startResource, ParserType.MODEL_PARSER);
+	}
+
+	/**
+	 * @param parseParallelism the number of threads that parse a GDM model file
+	 * @param startResource    the ordinal of the first resource (of a GDM model file) that should be read (starting with 0)
+	 * @param parserType       the parser that should be utilised to read resource records
+	 */
+	public GDMModelReader(final int parseParallelism, final int startResource, final ParserType parserType) {
+
+		if (parseParallelism < 1) {
+
+			throw new IllegalArgumentException(String.format("parse parallelism must be at least 1 (was '%d')", parseParallelism));
+		}
+
+		if (startResource < 0) {
+
+			throw new IllegalArgumentException(String.format("start resource must not be negative (was '%d')", startResource));
+		}
+
+		this.parseParallelism = parseParallelism;
+		this.startResource = startResource;
+		this.parserType = parserType;
+	}
+
+	public int getParseParallelism() {
+
+		return parseParallelism;
+	}
+
+	public int getStartResource() {
+
+		return startResource;
+	}
+
+	public ParserType getParserType() {
+
+		return parserType;
+	}
+
+	/**
+	 * Reads the GDM model with the {@link ModelParser}, i.e., as GDM object graph (independent of the parser type).
+	 *
+	 * @param filePath the path of the GDM model file
+	 * @return the resources of the GDM model
+	 * @throws IOException
+	 */
+	public Observable<Resource> read(final String filePath) throws IOException {
+
+		return read(filePath, new ImportProgress());
+	}
+
+	private Observable<Resource> read(final String filePath, final ImportProgress importProgress) throws IOException {
+
+		final Path path = Paths.get(filePath);
+
+		if (GDMBinaryModelReader.isBinaryModel(path)) {
+
+			throw new IOException(String.format("binary GDM model file '%s' can only be read as resource records", path));
+		}
+
+		if (!isSequential() && isIndexable(path)) {
+
+			final GDMModelIndex gdmModelIndex = GDMModelIndex.loadOrBuild(path);
+
+			importProgress.setTotalResources(Math.max(0, gdmModelIndex.getResourceCount() - startResource));
+
+			return read(path, gdmModelIndex, GDMModelReader::parseResources);
+		}
+
+		final InputStream gdmModelStream = getGDMModelStream(filePath, importProgress);
+
+		final ModelParser modelParser = new ModelParser(gdmModelStream);
+
+		return skipToStartResource(modelParser.parse());
+	}
+
+	/**
+	 * Reads the GDM model as resource records with the configured parser type. Binary GDM models (see {@link GDMBinaryModelWriter}) are
+	 * always read via {@link GDMBinaryModelReader} (independent of the parser type). Note: the records that are emitted by a sequential
+	 * streaming parser or the binary model reader are re-used, i.e., they need to be processed (or copied) before the next record is
+	 * requested.
+	 *
+	 * @param filePath the path of the GDM model file
+	 * @return the resource records of the GDM model
+	 * @throws IOException
+	 */
+	public Observable<GDMResourceRecord> readRecords(final String filePath) throws IOException {
+
+		return readRecords(filePath, new ImportProgress());
+	}
+
+	/**
+	 * Reads the GDM model as resource records (see {@link #readRecords(String)}) and provides the basis for the completion estimate of the
+	 * given import progress, i.e., the total number of resources (if it is known upfront, i.e., from the header of a binary GDM model or from
+	 * the index of a GDM model file that is parsed in parallel) or the read position in the GDM model file (otherwise, i.e., no extra pass is
+	 * needed for sequentially parsed (or compressed) GDM model files).
+	 *
+	 * @param filePath       the path of the GDM model file
+	 * @param importProgress the progress of the import of the GDM model
+	 * @return the resource records of the GDM model
+	 * @throws IOException
+	 */
+	public Observable<GDMResourceRecord> readRecords(final String filePath, final ImportProgress importProgress) throws IOException {
+
+		final Path path = Paths.get(filePath);
+
+		if (GDMBinaryModelReader.isBinaryModel(path)) {
+
+			return readBinaryModel(path, importProgress);
+		}
+
+		if (parserType == ParserType.MODEL_PARSER) {
+
+			return read(filePath, importProgress).map(GDMResourceRecord::of);
+		}
+
+		if (!isSequential() && isIndexable(path)) {
+
+			final GDMModelIndex gdmModelIndex = GDMModelIndex.loadOrBuild(path);
+
+			importProgress.setTotalResources(Math.max(0, gdmModelIndex.getResourceCount() - startResource));
+
+			return read(path, gdmModelIndex, GDMModelReader::parseResourceRecords);
+		}
+
+		return skipToStartResource(streamRecords(() -> getGDMModelStream(filePath, importProgress), filePath));
+	}
+
+	/**
+	 * Reads the given GDM model stream (e.g. a GDM model that is streamed via HTTP) sequentially as resource records with the configured
+	 * parser type (whereby a (compressed) GDM model stream is decompressed on the fly). Note: the records that are emitted by the streaming
+	 * parser are re-used, i.e., they need to be processed (or copied) before the next record is requested.
+	 *
+	 * @param gdmModelStream the GDM model stream (should be closed by the caller, when the model was read)
+	 * @param modelName      the name of the GDM model (for logging)
+	 * @return the resource records of the GDM model
+	 * @throws IOException
+	 */
+	public Observable<GDMResourceRecord> readRecords(final InputStream gdmModelStream, final String modelName) throws IOException {
+
+		if (parserType == ParserType.MODEL_PARSER) {
+
+			final ModelParser modelParser = new ModelParser(GDMModelCompression.open(gdmModelStream));
+
+			return skipToStartResource(modelParser.parse()).map(GDMResourceRecord::of);
+		}
+
+		return skipToStartResource(streamRecords(() -> GDMModelCompression.open(gdmModelStream), modelName));
+	}
+
+	private static Observable<GDMResourceRecord> streamRecords(final GDMModelStreamSupplier gdmModelStreamSupplier, final String modelName) {
+
+		return Observable.create(subscriber -> {
+
+			try (final InputStream gdmModelStream = gdmModelStreamSupplier.open()) {
+
+				new GDMStreamReader().read(gdmModelStream, resourceRecord -> {
+
+					if (subscriber.isUnsubscribed()) {
+
+						throw new CancellationException();
+					}
+
+					subscriber.onNext(resourceRecord);
+				});
+
+				subscriber.onCompleted();
+			} catch (final CancellationException e) {
+
+				LOG.debug("stopped reading GDM model '{}', because there is no subscriber anymore", modelName);
+			} catch (final IOException | WikidataImporterException | RuntimeException e) {
+
+				subscriber.onError(e);
+			}
+		});
+	}
+
+	private Observable<GDMResourceRecord> readBinaryModel(final Path path, final ImportProgress importProgress) {
+
+		return Observable.create(subscriber -> {
+
+			// note: the binary model supports random access, i.e., the start resource can be accessed directly
+			try (final GDMBinaryModelReader binaryModelReader = new GDMBinaryModelReader(path)) {
+
+				final int resourceCount = Math.max(0, binaryModelReader.getResourceCount() - startResource);
+
+				importProgress.setTotalResources(resourceCount);
+
+				LOG.info("read '{}' resources of binary GDM model file '{}' (start resource = '{}')", resourceCount, path, startResource);
+
+				binaryModelReader.read(startResource, resourceRecord -> {
+
+					if (subscriber.isUnsubscribed()) {
+
+						throw new CancellationException();
+					}
+
+					subscriber.onNext(resourceRecord);
+				});
+
+				subscriber.onCompleted();
+			} catch (final CancellationException e) {
+
+				LOG.debug("stopped reading binary GDM model file '{}', because there is no subscriber anymore", path);
+			} catch (final IOException | WikidataImporterException | RuntimeException e) {
+
+				subscriber.onError(e);
+			}
+		});
+	}
+
+	private boolean isSequential() {
+
+		return parseParallelism == 1 && startResource == 0;
+	}
+
+	/**
+	 * note: compressed GDM model files cannot be indexed, i.e., they'll be parsed sequentially
+	 */
+	private static boolean isIndexable(final Path path) throws IOException {
+
+		final GDMModelCompression compression = GDMModelCompression.detect(path);
+
+		if (compression != GDMModelCompression.NONE) {
+
+			LOG.warn("GDM model file '{}' is '{}' compressed, i.e., it cannot be indexed and will be parsed sequentially", path, compression);
+
+			return false;
+		}
+
+		return true;
+	}
+
+	private <T> Observable<T> skipToStartResource(final Observable<T> gdmModel) {
+
+		if (startResource == 0) {
+
+			return gdmModel;
+		}
+
+		return gdmModel.skip(startResource);
+	}
+
+	private <T> Observable<T> read(final Path path, final GDMModelIndex gdmModelIndex, final RangeParser<T> rangeParser) {
+
+		final List<int[]> chunks = determineChunks(gdmModelIndex);
+
+		LOG.info("parse '{}' resources of GDM model file '{}' in '{}' range(s) with '{}' parser(s) (start resource = '{}')",
+				Math.max(0, gdmModelIndex.getResourceCount() - startResource), path, chunks.size(), parseParallelism, startResource);
+
+		return Observable.create(subscriber -> {
+
+			final ExecutorService executorService = Executors.newFixedThreadPool(parseParallelism,
+					new BasicThreadFactory.Builder().daemon(true).namingPattern(DSWARM_GDM_MODEL_PARSER_THREAD_NAMING_PATTERN).build());
+
+			try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+				final Deque<Future<List<T>>> parsedChunks = new ArrayDeque<>();
+				final int maxParsedChunks = parseParallelism * PARSED_CHUNKS_PER_PARSER;
+				int nextChunk = 0;
+
+				while (nextChunk < chunks.size() || !parsedChunks.isEmpty()) {
+
+					while (nextChunk < chunks.size() && parsedChunks.size() < maxParsedChunks) {
+
+						final int[] chunk = chunks.get(nextChunk++);
+
+						parsedChunks.add(executorService.submit(() -> parseChunk(channel, gdmModelIndex, chunk[0], chunk[1], rangeParser)));
+					}
+
+					// emit in file order
+					final List<T> resources = parsedChunks.poll().get();
+
+					for (final T resource : resources) {
+
+						if (subscriber.isUnsubscribed()) {
+
+							return;
+						}
+
+						subscriber.onNext(resource);
+					}
+				}
+
+				subscriber.onCompleted();
+			} catch (final ExecutionException e) {
+
+				subscriber.onError(e.getCause());
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				subscriber.onError(e);
+			} catch (final IOException | RuntimeException e) {
+
+				subscriber.onError(e);
+			} finally {
+
+				executorService.shutdownNow();
+			}
+		});
+	}
+
+	/**
+	 * @return chunks of consecutive resources as [first resource, last resource] (inclusive)
+	 */
+	private List<int[]> determineChunks(final GDMModelIndex gdmModelIndex) {
+
+		final List<int[]> chunks = new ArrayList<>();
+		final int resourceCount = gdmModelIndex.getResourceCount();
+
+		int chunkStart = startResource;
+
+		while (chunkStart < resourceCount) {
+
+			int chunkEnd = chunkStart;
+
+			while (chunkEnd + 1 < resourceCount
+					&& chunkEnd + 1 - chunkStart < CHUNK_MAX_RESOURCES
+					&& gdmModelIndex.getResourceEnd(chunkEnd + 1) - gdmModelIndex.getResourceStart(chunkStart) <= CHUNK_MAX_BYTES) {
+
+				chunkEnd++;
+			}
+
+			chunks.add(new int[] { chunkStart, chunkEnd });
+
+			chunkStart = chunkEnd + 1;
+		}
+
+		return chunks;
+	}
+
+	private static <T> List<T> parseChunk(final FileChannel channel, final GDMModelIndex gdmModelIndex, final int firstResource,
+			final int lastResource, final RangeParser<T> rangeParser) throws IOException, WikidataImporterException {
+
+		final long start = gdmModelIndex.getResourceStart(firstResource);
+		final long end = gdmModelIndex.getResourceEnd(lastResource);
+
+		// note: the bytes between two resources are only whitespace + commas, i.e., the range can be wrapped as JSON array
+		final ByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+		final Enumeration<InputStream> rangeStreams = Collections.enumeration(
+				Arrays.asList(new ByteArrayInputStream(JSON_ARRAY_START), new ByteBufferInputStream(range),
+						new ByteArrayInputStream(JSON_ARRAY_END)));
+
+		try (final InputStream rangeStream = new SequenceInputStream(rangeStreams)) {
+
+			return rangeParser.parse(rangeStream, lastResource - firstResource + 1);
+		}
+	}
+
+	private static List<Resource> parseResources(final InputStream rangeStream, final int resourceCount) {
+
+		final List<Resource> resources = new ArrayList<>(resourceCount);
+
+		new ModelParser(rangeStream).parse().toBlocking().forEach(resources::add);
+
+		return resources;
+	}
+
+	private static List<GDMResourceRecord> parseResourceRecords(final InputStream rangeStream, final int resourceCount)
+			throws IOException, WikidataImporterException {
+
+		final List<GDMResourceRecord> resourceRecords = new ArrayList<>(resourceCount);
+
+		// note: the records need to be copied, since they are handed over to another thread
+		new GDMStreamReader().read(rangeStream, resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+
+		return resourceRecords;
+	}
+
+	private static InputStream getGDMModelStream(final String filePath, final ImportProgress importProgress) throws IOException {
+
+		LOG.debug("try to open input file @ '{}'", filePath);
+
+		final Path path = Paths.get(filePath);
+
+		importProgress.setInputSize(Files.size(path));
+
+		// note: compressed GDM model files are decompressed on the fly (on a separate thread), i.e., the read position is tracked in front of
+		// the decompression (the file size is the compressed size as well)
+		return GDMModelCompression.open(new PositionTrackingInputStream(Files.newInputStream(path), importProgress));
+	}
+
+	/**
+	 * the available parsers for GDM models
+	 */
+	public enum ParserType {
+
+		/**
+		 * the {@link ModelParser} of the GDM object model (default)
+		 */
+		MODEL_PARSER,
+
+		/**
+		 * the {@link GDMStreamReader}, which produces compact resource records without GDM object graph
+		 */
+		STREAMING
+	}
+
+	@FunctionalInterface
+	private interface GDMModelStreamSupplier {
+
+		InputStream open() throws IOException;
+	}
+
+	private interface RangeParser<T> {
+
+		List<T> parse(final InputStream rangeStream, final int resourceCount) throws IOException, WikidataImporterException;
+	}
+
+	/**
+	 * reports the read bytes to the import progress (per read call, i.e., usually per buffer of the reading stream)
+	 */
+	private static final class PositionTrackingInputStream extends FilterInputStream {
+
+		private final ImportProgress importProgress;
+
+		private PositionTrackingInputStream(final InputStream inputStream, final ImportProgress importProgress) {
+
+			super(inputStream);
+
+			this.importProgress = importProgress;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			final int read = super.read();
+
+			if (read != -1) {
+
+				importProgress.inputRead(1);
+			}
+
+			return read;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+
+			final int read = super.read(bytes, offset, length);
+
+			if (read > 0) {
+
+				importProgress.inputRead(read);
+			}
+
+			return read;
+		}
+
+		@Override
+		public long skip(final long length) throws IOException {
+
+			final long skipped = super.skip(length);
+
+			importProgress.inputRead(skipped);
+
+			return skipped;
+		}
+	}
+
+	private static final class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(final ByteBuffer buffer) {
+
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length) {
+
+			if (length == 0) {
+
+				return 0;
+			}
+
+			if (!buffer.hasRemaining()) {
+
+				return -1;
+			}
+
+			final int readLength = Math.min(length, buffer.remaining());
+
+			buffer.get(bytes, offset, readLength);
+
+			return readLength;
+		}
+
+		@Override
+		public int available() {
+
+			return buffer.remaining();
+		}
+	}
+}
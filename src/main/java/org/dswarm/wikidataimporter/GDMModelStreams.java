@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Opens GDM model streams, i.e., GDM models that are consumed while they are produced (e.g. by a D:SWARM export) instead of being staged to
+ * disk first: '-' (stdin) or an HTTP(S) URL (e.g. a chunked export endpoint). The streams are read sequentially as the import proceeds,
+ * i.e., only a bounded number of resources is held in memory (see the resource buffers of {@link WikidataDswarmMultiTargetImporter}) and a
+ * slow import blocks the reading, which in turn blocks the producer (via the pipe or TCP flow control).
+ *
+ * @author tgaengler
+ */
+public final class GDMModelStreams {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GDMModelStreams.class);
+
+	public static final String STDIN_INPUT = "-";
+
+	private static final String HTTP_SCHEME  = "http://";
+	private static final String HTTPS_SCHEME = "https://";
+	private static final String GET_METHOD   = "GET";
+
+	private static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(60);
+
+	private GDMModelStreams() {
+
+	}
+
+	/**
+	 * @param input a commandline input
+	 * @return true, if the input is a GDM model stream (stdin or an HTTP(S) URL), otherwise it's a file, directory or glob pattern (see
+	 * {@link GDMModelFiles})
+	 */
+	public static boolean isStream(final String input) {
+
+		return STDIN_INPUT.equals(input) || input.startsWith(HTTP_SCHEME) || input.startsWith(HTTPS_SCHEME);
+	}
+
+	/**
+	 * @param input '-' (stdin) or an HTTP(S) URL
+	 * @return the (optionally compressed) GDM model stream
+	 * @throws IOException if the stream couldn't be opened, e.g., if the HTTP response status is not 200
+	 */
+	public static InputStream open(final String input) throws IOException {
+
+		if (STDIN_INPUT.equals(input)) {
+
+			LOG.info("read GDM model from stdin");
+
+			return System.in;
+		}
+
+		LOG.info("read GDM model from '{}'", input);
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(input).openConnection();
+
+		connection.setRequestMethod(GET_METHOD);
+		connection.setConnectTimeout(CONNECT_TIMEOUT);
+		// note: no read timeout, since the producer might pause (e.g. while the export is computed) and the reading might be paused by the import (backpressure)
+		connection.setReadTimeout(0);
+
+		final int status = connection.getResponseCode();
+
+		if (status != HttpURLConnection.HTTP_OK) {
+
+			connection.disconnect();
+
+			throw new IOException(String.format("couldn't read GDM model from '%s' (HTTP status = '%d')", input, status));
+		}
+
+		return new FilterInputStream(connection.getInputStream()) {
+
+			@Override
+			public void close() throws IOException {
+
+				try {
+
+					super.close();
+				} finally {
+
+					connection.disconnect();
+				}
+			}
+		};
+	}
+}
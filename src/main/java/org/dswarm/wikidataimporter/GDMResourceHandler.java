@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+
+/**
+ * Consumes the resource records of a {@link GDMStreamReader}.
+ *
+ * @author tgaengler
+ */
+@FunctionalInterface
+public interface GDMResourceHandler {
+
+	/**
+	 * note: the resource record will be re-used for the next resource, i.e., it is only valid during this call
+	 *
+	 * @param resourceRecord the current resource record
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	void handle(final GDMResourceRecord resourceRecord) throws IOException, WikidataImporterException;
+}
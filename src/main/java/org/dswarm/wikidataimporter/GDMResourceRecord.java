@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.dswarm.graph.json.Resource;
+import org.dswarm.graph.json.Statement;
+
+/**
+ * A compact GDM resource, i.e., the resource URI and its statement records. Resource records (incl. their statement records) are
+ * flyweights, i.e., they'll be re-used by the {@link GDMStreamReader} for the next resources. Hence, utilise {@link #copy()}, if a resource
+ * record should be kept (e.g. to hand it over to another thread).
+ *
+ * @author tgaengler
+ */
+public final class GDMResourceRecord {
+
+	private static final int INITIAL_STATEMENT_CAPACITY = 32;
+
+	private String resourceURI;
+
+	private GDMStatementRecord[] statements;
+	private int                  statementCount;
+
+	public GDMResourceRecord() {
+
+		this(INITIAL_STATEMENT_CAPACITY);
+	}
+
+	private GDMResourceRecord(final int statementCapacity) {
+
+		statements = new GDMStatementRecord[Math.max(1, statementCapacity)];
+	}
+
+	public String getResourceURI() {
+
+		return resourceURI;
+	}
+
+	public int getStatementCount() {
+
+		return statementCount;
+	}
+
+	public GDMStatementRecord getStatement(final int index) {
+
+		if (index >= statementCount) {
+
+			throw new IndexOutOfBoundsException(String.format("statement index '%d' is out of bounds (statement count = '%d')", index,
+					statementCount));
+		}
+
+		return statements[index];
+	}
+
+	/**
+	 * resets this record for the next resource
+	 */
+	void reset(final String resourceURI) {
+
+		this.resourceURI = resourceURI;
+		statementCount = 0;
+	}
+
+	/**
+	 * @return a cleared (re-used) statement record, which is appended to the statements of this resource record
+	 */
+	GDMStatementRecord nextStatement() {
+
+		if (statementCount == statements.length) {
+
+			statements = Arrays.copyOf(statements, statementCount * 2);
+		}
+
+		GDMStatementRecord statement = statements[statementCount];
+
+		if (statement == null) {
+
+			statement = new GDMStatementRecord();
+			statements[statementCount] = statement;
+		} else {
+
+			statement.clear();
+		}
+
+		statementCount++;
+
+		return statement;
+	}
+
+	/**
+	 * @return a deep copy of this record (with exactly sized statements)
+	 */
+	public GDMResourceRecord copy() {
+
+		final GDMResourceRecord copy = new GDMResourceRecord(statementCount);
+
+		copy.reset(resourceURI);
+
+		for (int i = 0; i < statementCount; i++) {
+
+			copy.nextStatement().copyFrom(statements[i]);
+		}
+
+		return copy;
+	}
+
+	/**
+	 * adapts a GDM resource (of the {@link org.dswarm.graph.json.stream.ModelParser} object graph)
+	 *
+	 * @param resource a GDM resource
+	 * @return a new resource record
+	 */
+	public static GDMResourceRecord of(final Resource resource) {
+
+		final Set<Statement> statements = resource.getStatements();
+
+		final GDMResourceRecord resourceRecord = new GDMResourceRecord(statements != null ? statements.size() : 0);
+
+		resourceRecord.reset(resource.getUri());
+
+		if (statements != null) {
+
+			for (final Statement statement : statements) {
+
+				resourceRecord.nextStatement().copyFrom(statement);
+			}
+		}
+
+		return resourceRecord;
+	}
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import org.dswarm.graph.json.LiteralNode;
+import org.dswarm.graph.json.Node;
+import org.dswarm.graph.json.NodeType;
+import org.dswarm.graph.json.ResourceNode;
+import org.dswarm.graph.json.Statement;
+
+/**
+ * A compact GDM statement, i.e., only the parts of a GDM statement that are relevant for the import (predicate URI, object type + value
+ * and the qualified attributes). Statement records are flyweights, i.e., they'll be re-used by the {@link GDMStreamReader} for the next
+ * statements. Hence, utilise {@link #copy()}, if a statement record should be kept.
+ *
+ * @author tgaengler
+ */
+public final class GDMStatementRecord {
+
+	private String   predicateURI;
+	private NodeType objectType;
+
+	/**
+	 * the URI of a resource object or the value of a literal object
+	 */
+	private String objectValue;
+
+	private String uuid;
+	private String confidence;
+	private String evidence;
+	private String order;
+
+	GDMStatementRecord() {
+
+	}
+
+	public String getPredicateURI() {
+
+		return predicateURI;
+	}
+
+	public NodeType getObjectType() {
+
+		return objectType;
+	}
+
+	public String getObjectValue() {
+
+		return objectValue;
+	}
+
+	public String getUUID() {
+
+		return uuid;
+	}
+
+	public String getConfidence() {
+
+		return confidence;
+	}
+
+	public String getEvidence() {
+
+		return evidence;
+	}
+
+	public String getOrder() {
+
+		return order;
+	}
+
+	void setPredicateURI(final String predicateURI) {
+
+		this.predicateURI = predicateURI;
+	}
+
+	void setObject(final NodeType objectType, final String objectValue) {
+
+		this.objectType = objectType;
+		this.objectValue = objectValue;
+	}
+
+	void setUUID(final String uuid) {
+
+		this.uuid = uuid;
+	}
+
+	void setConfidence(final String confidence) {
+
+		this.confidence = confidence;
+	}
+
+	void setEvidence(final String evidence) {
+
+		this.evidence = evidence;
+	}
+
+	void setOrder(final String order) {
+
+		this.order = order;
+	}
+
+	void clear() {
+
+		predicateURI = null;
+		objectType = null;
+		objectValue = null;
+		uuid = null;
+		confidence = null;
+		evidence = null;
+		order = null;
+	}
+
+	public GDMStatementRecord copy() {
+
+		final GDMStatementRecord copy = new GDMStatementRecord();
+
+		copy.copyFrom(this);
+
+		return copy;
+	}
+
+	void copyFrom(final GDMStatementRecord statementRecord) {
+
+		predicateURI = statementRecord.predicateURI;
+		objectType = statementRecord.objectType;
+		objectValue = statementRecord.objectValue;
+		uuid = statementRecord.uuid;
+		confidence = statementRecord.confidence;
+		evidence = statementRecord.evidence;
+		order = statementRecord.order;
+	}
+
+	/**
+	 * adapts a GDM statement (of the {@link org.dswarm.graph.json.stream.ModelParser} object graph)
+	 */
+	void copyFrom(final Statement statement) {
+
+		clear();
+
+		predicateURI = statement.getPredicate().getUri();
+
+		final Node object = statement.getObject();
+
+		objectType = object.getType();
+
+		switch (objectType) {
+
+			case Literal:
+
+				objectValue = ((LiteralNode) object).getValue();
+
+				break;
+			case Resource:
+
+				objectValue = ((ResourceNode) object).getUri();
+
+				break;
+			default:
+
+				final Long objectId = object.getId();
+
+				objectValue = objectId != null ? objectId.toString() : null;
+		}
+
+		uuid = statement.getUUID();
+		confidence = statement.getConfidence();
+		evidence = statement.getEvidence();
+
+		final Long statementOrder = statement.getOrder();
+
+		order = statementOrder != null ? statementOrder.toString() : null;
+	}
+
+	@Override
+	public String toString() {
+
+		return "{statement: uuid = '" + (uuid != null ? uuid : "no uuid available") + "' :: predicate = '" + predicateURI + "' :: object = '"
+				+ objectValue + "' :: type = '" + objectType + "'}";
+	}
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.dswarm.graph.json.NodeType;
+
+/**
+ * Reads GDM models (i.e. a JSON array of resource objects) with the Jackson streaming API and hands flyweight resource records (see
+ * {@link GDMResourceRecord}) directly to a {@link GDMResourceHandler}, i.e., no GDM object graph (resources, statements, nodes, predicates)
+ * will be created. Only the parts of a statement that are relevant for the import will be kept; everything else (e.g. subjects, ids) will
+ * be skipped.
+ *
+ * @author tgaengler
+ */
+public class GDMStreamReader {
+
+	private static final String PREDICATE_FIELD  = "p";
+	private static final String OBJECT_FIELD     = "o";
+	private static final String URI_FIELD        = "uri";
+	private static final String VALUE_FIELD      = "v";
+	private static final String ID_FIELD         = "id";
+	private static final String UUID_FIELD       = "uuid";
+	private static final String CONFIDENCE_FIELD = "confidence";
+	private static final String EVIDENCE_FIELD   = "evidence";
+	private static final String ORDER_FIELD      = "order";
+
+	/**
+	 * note: the resource URIs are field names, i.e., field name canonicalization would only bloat the symbol table
+	 */
+	private static final JsonFactory JSON_FACTORY = new JsonFactory()
+			.disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES)
+			.disable(JsonFactory.Feature.INTERN_FIELD_NAMES);
+
+	/**
+	 * Reads all resources of the given GDM model stream. The resource record that is handed over to the handler will be re-used for every
+	 * resource.
+	 *
+	 * @param gdmModelStream the GDM model (will be closed afterwards)
+	 * @param handler        the consumer of the resource records
+	 * @return the number of read resources
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	public long read(final InputStream gdmModelStream, final GDMResourceHandler handler) throws IOException, WikidataImporterException {
+
+		final GDMResourceRecord resourceRecord = new GDMResourceRecord();
+
+		long resourceCount = 0;
+
+		try (final JsonParser parser = JSON_FACTORY.createParser(gdmModelStream)) {
+
+			final JsonToken firstToken = parser.nextToken();
+
+			if (firstToken == null) {
+
+				// empty GDM model
+				return resourceCount;
+			}
+
+			expect(parser, firstToken, JsonToken.START_ARRAY);
+
+			JsonToken token;
+
+			while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+
+				// note: usually, one resource per object
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+					resourceRecord.reset(parser.getCurrentName());
+
+					readStatements(parser, resourceRecord);
+
+					handler.handle(resourceRecord);
+
+					resourceCount++;
+				}
+			}
+
+			expect(parser, token, JsonToken.END_ARRAY);
+		}
+
+		return resourceCount;
+	}
+
+	private static void readStatements(final JsonParser parser, final GDMResourceRecord resourceRecord) throws IOException {
+
+		final JsonToken token = parser.nextToken();
+
+		if (token == JsonToken.VALUE_NULL) {
+
+			return;
+		}
+
+		expect(parser, token, JsonToken.START_ARRAY);
+
+		JsonToken statementToken;
+
+		while ((statementToken = parser.nextToken()) == JsonToken.START_OBJECT) {
+
+			readStatement(parser, resourceRecord.nextStatement());
+		}
+
+		expect(parser, statementToken, JsonToken.END_ARRAY);
+	}
+
+	private static void readStatement(final JsonParser parser, final GDMStatementRecord statementRecord) throws IOException {
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			final String fieldName = parser.getCurrentName();
+			final JsonToken valueToken = parser.nextToken();
+
+			switch (fieldName) {
+
+				case PREDICATE_FIELD:
+
+					statementRecord.setPredicateURI(valueToken == JsonToken.START_OBJECT ? readURI(parser) : parser.getText());
+
+					break;
+				case OBJECT_FIELD:
+
+					readObject(parser, valueToken, statementRecord);
+
+					break;
+				case UUID_FIELD:
+
+					statementRecord.setUUID(readText(parser, valueToken));
+
+					break;
+				case CONFIDENCE_FIELD:
+
+					statementRecord.setConfidence(readText(parser, valueToken));
+
+					break;
+				case EVIDENCE_FIELD:
+
+					statementRecord.setEvidence(readText(parser, valueToken));
+
+					break;
+				case ORDER_FIELD:
+
+					statementRecord.setOrder(readText(parser, valueToken));
+
+					break;
+				default:
+
+					// e.g. subject or statement id
+					parser.skipChildren();
+			}
+		}
+
+		if (statementRecord.getPredicateURI() == null || statementRecord.getObjectType() == null) {
+
+			throw new JsonParseException(String.format("found an incomplete GDM statement %s", statementRecord), parser.getCurrentLocation());
+		}
+	}
+
+	private static void readObject(final JsonParser parser, final JsonToken token, final GDMStatementRecord statementRecord) throws IOException {
+
+		expect(parser, token, JsonToken.START_OBJECT);
+
+		String uri = null;
+		String value = null;
+		String id = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			final String fieldName = parser.getCurrentName();
+			final JsonToken valueToken = parser.nextToken();
+
+			switch (fieldName) {
+
+				case URI_FIELD:
+
+					uri = readText(parser, valueToken);
+
+					break;
+				case VALUE_FIELD:
+
+					value = readText(parser, valueToken);
+
+					break;
+				case ID_FIELD:
+
+					id = readText(parser, valueToken);
+
+					break;
+				default:
+
+					parser.skipChildren();
+			}
+		}
+
+		if (uri != null) {
+
+			statementRecord.setObject(NodeType.Resource, uri);
+		} else if (value != null) {
+
+			statementRecord.setObject(NodeType.Literal, value);
+		} else {
+
+			statementRecord.setObject(NodeType.BNode, id);
+		}
+	}
+
+	private static String readURI(final JsonParser parser) throws IOException {
+
+		String uri = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+			final String fieldName = parser.getCurrentName();
+			final JsonToken valueToken = parser.nextToken();
+
+			if (URI_FIELD.equals(fieldName)) {
+
+				uri = readText(parser, valueToken);
+			} else {
+
+				parser.skipChildren();
+			}
+		}
+
+		return uri;
+	}
+
+	private static String readText(final JsonParser parser, final JsonToken token) throws IOException {
+
+		if (token == JsonToken.VALUE_NULL) {
+
+			return null;
+		}
+
+		if (token.isStructStart()) {
+
+			parser.skipChildren();
+
+			return null;
+		}
+
+		return parser.getText();
+	}
+
+	private static void expect(final JsonParser parser, final JsonToken token, final JsonToken expectedToken) throws JsonParseException {
+
+		if (token != expectedToken) {
+
+			throw new JsonParseException(String.format("expected '%s' but found '%s' in GDM model", expectedToken, token),
+					parser.getCurrentLocation());
+		}
+	}
+}
@@ -0,0 +1,470 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Aggregates the import costs of the resources of a target with bounded memory, i.e., the statement count, conversion time, value bytes
+ * (UTF-8 size of the statement objects), edit latency and failure count per predicate URI and per statement count bucket of the resources
+ * (powers of two), plus the top N slowest resources. Conversion time + value bytes are measured per statement; edit latency + failures per
+ * resource, whereby the edit latency of a resource is apportioned to its predicates by their statement shares. At most
+ * {@link #MAX_PREDICATES} predicates are tracked separately, all further ones are aggregated as {@link #OTHER_PREDICATES}.
+ *
+ * @author tgaengler
+ */
+public class ImportCostProfile {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	public static final int    DEFAULT_TOP_RESOURCES = 20;
+	public static final int    MAX_PREDICATES        = 10000;
+	public static final String OTHER_PREDICATES      = "(other predicates)";
+
+	/**
+	 * 0, 1, 2-3, 4-7, ..., 512-1023, >= 1024 statements
+	 */
+	private static final int BUCKET_COUNT = 12;
+
+	private static final double NANOS_PER_MILLI = 1000000.0;
+	private static final double NANOS_PER_MICRO = 1000.0;
+
+	private final ConcurrentMap<String, Costs> predicateCosts      = new ConcurrentHashMap<>();
+	private final Costs                        otherPredicateCosts = new Costs();
+	private final Costs[]                      bucketCosts         = new Costs[BUCKET_COUNT];
+	private final Costs                        totalCosts          = new Costs();
+
+	private final int                         topResources;
+	private final PriorityQueue<SlowResource> slowestResources;
+	private final ThreadLocal<ResourceCosts>  currentResourceCosts = ThreadLocal.withInitial(ResourceCosts::new);
+
+	/**
+	 * the total duration of the fastest of the top N slowest resources (once there are N), i.e., faster resources can be skipped without
+	 * locking
+	 */
+	private volatile long slowestResourcesThreshold;
+
+	public ImportCostProfile() {
+
+		this(DEFAULT_TOP_RESOURCES);
+	}
+
+	/**
+	 * @param topResources the number of the slowest resources that should be reported
+	 */
+	public ImportCostProfile(final int topResources) {
+
+		this.topResources = Math.max(0, topResources);
+		slowestResources = new PriorityQueue<>(Math.max(1, this.topResources), Comparator.comparingLong(SlowResource::getTotalNanos));
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+
+			bucketCosts[i] = new Costs();
+		}
+	}
+
+	/**
+	 * @param resourceURI the URI of the resource whose import starts (on the current thread)
+	 * @return the (re-used) costs of the resource on the current thread
+	 */
+	ResourceCosts startResource(final String resourceURI) {
+
+		final ResourceCosts resourceCosts = currentResourceCosts.get();
+
+		resourceCosts.reset(resourceURI);
+
+		return resourceCosts;
+	}
+
+	/**
+	 * Adds the costs of the given resource to the profile.
+	 *
+	 * @param resourceCosts    the costs of the statements of the resource
+	 * @param editLatencyNanos the duration of the creation of the item (0, if it wasn't created)
+	 * @param failed           true, if the import of the resource failed
+	 */
+	void finishResource(final ResourceCosts resourceCosts, final long editLatencyNanos, final boolean failed) {
+
+		final int failure = failed ? 1 : 0;
+
+		for (int i = 0; i < resourceCosts.predicateCount; i++) {
+
+			final long predicateEditLatencyNanos = resourceCosts.statementCount > 0 ?
+					editLatencyNanos * resourceCosts.statements[i] / resourceCosts.statementCount :
+					0;
+
+			costsOf(resourceCosts.predicates[i]).add(1, resourceCosts.statements[i], resourceCosts.skippedStatements[i],
+					resourceCosts.conversionNanos[i], resourceCosts.valueBytes[i], predicateEditLatencyNanos, failure);
+		}
+
+		bucketCosts[bucket(resourceCosts.statementCount)].add(resourceCosts, editLatencyNanos, failure);
+		totalCosts.add(resourceCosts, editLatencyNanos, failure);
+
+		final long totalNanos = resourceCosts.totalConversionNanos + editLatencyNanos;
+
+		if (topResources > 0 && totalNanos > slowestResourcesThreshold) {
+
+			addSlowResource(new SlowResource(resourceCosts, editLatencyNanos, failed));
+		}
+	}
+
+	/**
+	 * @return the report of the profile, i.e., the predicates (sorted by their conversion time + edit latency, descending), the statement
+	 * count buckets and the top N slowest resources (descending)
+	 */
+	public ObjectNode toJSON() {
+
+		final ObjectNode report = MAPPER.createObjectNode();
+
+		totalCosts.toJSON(report.putObject("total"));
+
+		final List<Map.Entry<String, Costs>> predicates = new ArrayList<>(predicateCosts.entrySet());
+
+		if (otherPredicateCosts.resources.sum() > 0) {
+
+			predicates.add(new AbstractMap.SimpleImmutableEntry<>(OTHER_PREDICATES, otherPredicateCosts));
+		}
+
+		predicates.sort(Comparator.comparingLong((Map.Entry<String, Costs> entry) -> entry.getValue().getTotalNanos()).reversed());
+
+		final ArrayNode predicatesJSON = report.putArray("predicates");
+
+		for (final Map.Entry<String, Costs> predicate : predicates) {
+
+			predicate.getValue().toJSON(predicatesJSON.addObject().put("predicate", predicate.getKey()));
+		}
+
+		final ArrayNode bucketsJSON = report.putArray("statement_count_buckets");
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+
+			if (bucketCosts[i].resources.sum() == 0) {
+
+				continue;
+			}
+
+			final ObjectNode bucketJSON = bucketsJSON.addObject()
+					.put("min_statements", i == 0 ? 0 : 1L << (i - 1));
+
+			if (i < BUCKET_COUNT - 1) {
+
+				bucketJSON.put("max_statements", i == 0 ? 0 : (1L << i) - 1);
+			}
+
+			bucketCosts[i].toJSON(bucketJSON);
+		}
+
+		final ArrayNode slowestResourcesJSON = report.putArray("slowest_resources");
+
+		for (final SlowResource slowResource : getSlowestResources()) {
+
+			slowestResourcesJSON.addObject()
+					.put("resource_uri", slowResource.resourceURI)
+					.put("statements", slowResource.statements)
+					.put("conversion_millis", slowResource.conversionNanos / NANOS_PER_MILLI)
+					.put("edit_latency_millis", slowResource.editLatencyNanos / NANOS_PER_MILLI)
+					.put("total_millis", slowResource.getTotalNanos() / NANOS_PER_MILLI)
+					.put("value_bytes", slowResource.valueBytes)
+					.put("failed", slowResource.failed);
+		}
+
+		return report;
+	}
+
+	/**
+	 * @return the top N slowest resources (descending)
+	 */
+	List<SlowResource> getSlowestResources() {
+
+		final SlowResource[] resources;
+
+		synchronized (slowestResources) {
+
+			resources = slowestResources.toArray(new SlowResource[slowestResources.size()]);
+		}
+
+		Arrays.sort(resources, Comparator.comparingLong(SlowResource::getTotalNanos).reversed());
+
+		return Arrays.asList(resources);
+	}
+
+	/**
+	 * @param value a statement object value
+	 * @return the UTF-8 size of the value (without encoding it)
+	 */
+	static long utf8Length(final String value) {
+
+		if (value == null) {
+
+			return 0;
+		}
+
+		final int length = value.length();
+
+		long utf8Length = length;
+
+		for (int i = 0; i < length; i++) {
+
+			final char c = value.charAt(i);
+
+			if (c >= 0x800) {
+
+				// note: a surrogate pair (4 bytes) consists of two chars with 2 bytes each
+				utf8Length += Character.isSurrogate(c) ? 1 : 2;
+			} else if (c >= 0x80) {
+
+				utf8Length++;
+			}
+		}
+
+		return utf8Length;
+	}
+
+	private Costs costsOf(final String predicateURI) {
+
+		final Costs costs = predicateCosts.get(predicateURI);
+
+		if (costs != null) {
+
+			return costs;
+		}
+
+		// note: the bound might be exceeded slightly by concurrent insertions
+		if (predicateCosts.size() >= MAX_PREDICATES) {
+
+			return otherPredicateCosts;
+		}
+
+		return predicateCosts.computeIfAbsent(predicateURI, predicateURI1 -> new Costs());
+	}
+
+	private void addSlowResource(final SlowResource slowResource) {
+
+		synchronized (slowestResources) {
+
+			if (slowestResources.size() < topResources) {
+
+				slowestResources.add(slowResource);
+			} else if (slowResource.getTotalNanos() > slowestResources.peek().getTotalNanos()) {
+
+				slowestResources.poll();
+				slowestResources.add(slowResource);
+			}
+
+			if (slowestResources.size() == topResources) {
+
+				slowestResourcesThreshold = slowestResources.peek().getTotalNanos();
+			}
+		}
+	}
+
+	private static int bucket(final int statementCount) {
+
+		if (statementCount <= 0) {
+
+			return 0;
+		}
+
+		return Math.min(BUCKET_COUNT - 1, 32 - Integer.numberOfLeadingZeros(statementCount));
+	}
+
+	/**
+	 * the costs of the statements of a resource that is imported on the current thread (grouped by predicate); re-used per thread, i.e., it
+	 * doesn't allocate per resource (once its arrays are large enough for the predicates of a resource)
+	 */
+	static final class ResourceCosts {
+
+		private static final int INITIAL_CAPACITY = 16;
+
+		private String resourceURI;
+		private int    predicateCount;
+		private int    statementCount;
+		private int    skippedStatementCount;
+		private long   totalConversionNanos;
+		private long   totalValueBytes;
+
+		private String[] predicates        = new String[INITIAL_CAPACITY];
+		private int[]    statements        = new int[INITIAL_CAPACITY];
+		private int[]    skippedStatements = new int[INITIAL_CAPACITY];
+		private long[]   conversionNanos   = new long[INITIAL_CAPACITY];
+		private long[]   valueBytes        = new long[INITIAL_CAPACITY];
+
+		private void reset(final String resourceURI) {
+
+			this.resourceURI = resourceURI;
+
+			// note: release the predicate URIs of the previous resource
+			Arrays.fill(predicates, 0, predicateCount, null);
+
+			predicateCount = 0;
+			statementCount = 0;
+			skippedStatementCount = 0;
+			totalConversionNanos = 0;
+			totalValueBytes = 0;
+		}
+
+		/**
+		 * @param predicateURI       the predicate of the statement
+		 * @param statementNanos     the conversion time of the statement
+		 * @param statementValueSize the UTF-8 size of the object value of the statement
+		 * @param skipped            true, if the statement couldn't be converted
+		 */
+		void statement(final String predicateURI, final long statementNanos, final long statementValueSize, final boolean skipped) {
+
+			final int index = indexOf(predicateURI);
+
+			statements[index]++;
+			conversionNanos[index] += statementNanos;
+			valueBytes[index] += statementValueSize;
+
+			statementCount++;
+			totalConversionNanos += statementNanos;
+			totalValueBytes += statementValueSize;
+
+			if (skipped) {
+
+				skippedStatements[index]++;
+				skippedStatementCount++;
+			}
+		}
+
+		private int indexOf(final String predicateURI) {
+
+			// note: resources have only a few distinct predicates usually, i.e., a linear search is cheaper than hashing
+			for (int i = 0; i < predicateCount; i++) {
+
+				if (predicates[i].equals(predicateURI)) {
+
+					return i;
+				}
+			}
+
+			if (predicateCount == predicates.length) {
+
+				final int capacity = predicateCount * 2;
+
+				predicates = Arrays.copyOf(predicates, capacity);
+				statements = Arrays.copyOf(statements, capacity);
+				skippedStatements = Arrays.copyOf(skippedStatements, capacity);
+				conversionNanos = Arrays.copyOf(conversionNanos, capacity);
+				valueBytes = Arrays.copyOf(valueBytes, capacity);
+			}
+
+			final int index = predicateCount++;
+
+			predicates[index] = predicateURI;
+			statements[index] = 0;
+			skippedStatements[index] = 0;
+			conversionNanos[index] = 0;
+			valueBytes[index] = 0;
+
+			return index;
+		}
+	}
+
+	/**
+	 * a resource of the top N slowest resources
+	 */
+	static final class SlowResource {
+
+		private final String  resourceURI;
+		private final int     statements;
+		private final long    conversionNanos;
+		private final long    editLatencyNanos;
+		private final long    valueBytes;
+		private final boolean failed;
+
+		private SlowResource(final ResourceCosts resourceCosts, final long editLatencyNanos, final boolean failed) {
+
+			resourceURI = resourceCosts.resourceURI;
+			statements = resourceCosts.statementCount;
+			conversionNanos = resourceCosts.totalConversionNanos;
+			valueBytes = resourceCosts.totalValueBytes;
+			this.editLatencyNanos = editLatencyNanos;
+			this.failed = failed;
+		}
+
+		long getTotalNanos() {
+
+			return conversionNanos + editLatencyNanos;
+		}
+	}
+
+	/**
+	 * the aggregated costs of a predicate, statement count bucket or of all resources
+	 */
+	private static final class Costs {
+
+		private final LongAdder resources         = new LongAdder();
+		private final LongAdder statements        = new LongAdder();
+		private final LongAdder skippedStatements = new LongAdder();
+		private final LongAdder conversionNanos   = new LongAdder();
+		private final LongAdder valueBytes        = new LongAdder();
+		private final LongAdder editLatencyNanos  = new LongAdder();
+		private final LongAdder failures          = new LongAdder();
+
+		private void add(final long resourceCount, final long statementCount, final long skippedStatementCount, final long conversion,
+				final long bytes, final long editLatency, final long failureCount) {
+
+			resources.add(resourceCount);
+			statements.add(statementCount);
+			skippedStatements.add(skippedStatementCount);
+			conversionNanos.add(conversion);
+			valueBytes.add(bytes);
+			editLatencyNanos.add(editLatency);
+			failures.add(failureCount);
+		}
+
+		private void add(final ResourceCosts resourceCosts, final long editLatency, final long failureCount) {
+
+			add(1, resourceCosts.statementCount, resourceCosts.skippedStatementCount, resourceCosts.totalConversionNanos,
+					resourceCosts.totalValueBytes, editLatency, failureCount);
+		}
+
+		private long getTotalNanos() {
+
+			return conversionNanos.sum() + editLatencyNanos.sum();
+		}
+
+		private void toJSON(final ObjectNode json) {
+
+			final long statementCount = statements.sum();
+			final long conversion = conversionNanos.sum();
+
+			json.put("resources", resources.sum())
+					.put("statements", statementCount)
+					.put("skipped_statements", skippedStatements.sum())
+					.put("conversion_millis", conversion / NANOS_PER_MILLI)
+					.put("conversion_micros_per_statement", statementCount > 0 ? conversion / NANOS_PER_MICRO / statementCount : 0.0)
+					.put("value_bytes", valueBytes.sum())
+					.put("edit_latency_millis", editLatencyNanos.sum() / NANOS_PER_MILLI)
+					.put("failures", failures.sum());
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The Java Flight Recorder events of the import (see {@link ResourceImportEvent}, {@link PropertyResolutionEvent},
+ * {@link PlaceholderItemResolutionEvent}, {@link EditEntityRequestEvent} and {@link EditEntityResponseEvent}), e.g., to find out
+ * offline, whether the time of a slow production run goes to conversion, property resolution, placeholder creation, serialization or
+ * waiting on Wikibase. The events are recorded, when a flight recording is running, e.g., via
+ * '-XX:StartFlightRecording=filename=import.jfr,settings=profile', and can be analysed with JDK Mission Control or 'jfr print --events
+ * org.dswarm.wikidataimporter.*'. They are nearly free when no recording is running (the fields are only set, if the event should be
+ * committed).<br/>
+ * Note: the flight recorder API ('jdk.jfr') is part of OpenJDK 8u262+ and 11+, i.e., the events are only created, if it is available at
+ * runtime.
+ *
+ * @author tgaengler
+ */
+final class ImportEvents {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ImportEvents.class);
+
+	private static final String FLIGHT_RECORDER_EVENT_CLASS = "jdk.jfr.Event";
+
+	/**
+	 * true, if the flight recorder API is available, i.e., the event classes can be loaded
+	 */
+	static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+	private ImportEvents() {
+
+	}
+
+	private static boolean isFlightRecorderAvailable() {
+
+		try {
+
+			Class.forName(FLIGHT_RECORDER_EVENT_CLASS, false, ImportEvents.class.getClassLoader());
+
+			return true;
+		} catch (final ClassNotFoundException | LinkageError e) {
+
+			LOG.debug("flight recorder API is not available, i.e., no import events will be recorded", e);
+
+			return false;
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+/**
+ * An import job of the {@link ImportService}, i.e., the import of a GDM model file or of a streamed GDM model into all targets of the
+ * service.
+ *
+ * @author tgaengler
+ */
+public class ImportJob {
+
+	private final long           number;
+	private final String         source;
+	private final ImportProgress progress = new ImportProgress();
+
+	private volatile State  state = State.QUEUED;
+	private volatile String error;
+
+	ImportJob(final long number, final String source) {
+
+		this.number = number;
+		this.source = source;
+	}
+
+	public String getId() {
+
+		return String.valueOf(number);
+	}
+
+	long getNumber() {
+
+		return number;
+	}
+
+	/**
+	 * @return the GDM model file path or the name of the streamed GDM model
+	 */
+	public String getSource() {
+
+		return source;
+	}
+
+	public State getState() {
+
+		return state;
+	}
+
+	/**
+	 * @return the error message of a failed job (otherwise null)
+	 */
+	public String getError() {
+
+		return error;
+	}
+
+	public ImportProgress getProgress() {
+
+		return progress;
+	}
+
+	void running() {
+
+		state = State.RUNNING;
+	}
+
+	void finished() {
+
+		state = State.FINISHED;
+	}
+
+	void failed(final Throwable failure) {
+
+		error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getName();
+		state = State.FAILED;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("import job '%s' ('%s'; %s): %s", number, source, state, progress);
+	}
+
+	public enum State {
+
+		QUEUED,
+		RUNNING,
+		FINISHED,
+		FAILED
+	}
+}
@@ -0,0 +1,543 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The metrics of the imports into a target (counters, request latencies per API action, in-flight requests, entity id cache hit rates +
+ * transferred bytes). All counters are striped (LongAdder), i.e., updates are cheap on the hot path. The metrics are owned by their client
+ * or import target (i.e. independent importers, jobs or tests don't share counters, even if their targets have the same name). Open metrics
+ * are exported via JMX ({@value #JMX_DOMAIN}:type=ImportMetrics,target=...[,instance=...]) and in the Prometheus text format (see
+ * {@link #writePrometheus(Writer)} + {@link MetricsEndpoint}); closing them removes them from both.
+ *
+ * @author tgaengler
+ */
+public class ImportMetrics implements ImportMetricsMXBean, Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ImportMetrics.class);
+
+	public static final String JMX_DOMAIN = "org.dswarm.wikidataimporter";
+
+	private static final String   PROMETHEUS_PREFIX = "dswarm_wikidata_importer_";
+	private static final double   MICROS_PER_SECOND = 1000000.0;
+	private static final double   MICROS_PER_MILLI  = 1000.0;
+	private static final double[] QUANTILES         = { 0.5, 0.9, 0.99 };
+
+	/**
+	 * the open metrics (for the Prometheus exposition), in the order of their creation
+	 */
+	private static final Set<ImportMetrics> OPEN_METRICS     = new ConcurrentSkipListSet<>(Comparator.comparingLong(metrics -> metrics.id));
+	private static final AtomicLong         INSTANCE_COUNTER = new AtomicLong();
+
+	private final long       id = INSTANCE_COUNTER.incrementAndGet();
+	private final String     target;
+	private final String     instance;
+	private final ObjectName objectName;
+
+	private final LongAdder resources              = new LongAdder();
+	private final LongAdder statements             = new LongAdder();
+	private final LongAdder skippedStatements      = new LongAdder();
+	private final LongAdder createdItems           = new LongAdder();
+	private final LongAdder createdPlaceholders    = new LongAdder();
+	private final LongAdder createdProperties      = new LongAdder();
+	private final LongAdder conflictedItems        = new LongAdder();
+	private final LongAdder conflictedProperties   = new LongAdder();
+	private final LongAdder failedRequests         = new LongAdder();
+	private final LongAdder inFlightRequests       = new LongAdder();
+	private final LongAdder bytesSent              = new LongAdder();
+	private final LongAdder bytesReceived          = new LongAdder();
+	private final LongAdder itemIdCacheLookups     = new LongAdder();
+	private final LongAdder itemIdCacheMisses      = new LongAdder();
+	private final LongAdder propertyIdCacheLookups = new LongAdder();
+	private final LongAdder propertyIdCacheMisses  = new LongAdder();
+
+	private final ConcurrentMap<String, LatencyHistogram> requestLatencies = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the metrics of a target and registers them at the platform MBean server. Metrics of a target name, that is in use already
+	 * (e.g. by another importer of the same target), are distinguished by an additional instance key (+ label).
+	 *
+	 * @param target the name of the target
+	 */
+	public ImportMetrics(final String target) {
+
+		this.target = target;
+
+		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+		String registeredInstance = null;
+		ObjectName registeredObjectName = null;
+
+		try {
+
+			registeredObjectName = mBeanServer.registerMBean(this, objectName(target, null)).getObjectName();
+		} catch (final InstanceAlreadyExistsException e) {
+
+			try {
+
+				registeredInstance = String.valueOf(id);
+				registeredObjectName = mBeanServer.registerMBean(this, objectName(target, registeredInstance)).getObjectName();
+			} catch (final JMException e1) {
+
+				LOG.warn("couldn't register the import metrics of target '{}' at the MBean server", target, e1);
+			}
+		} catch (final JMException e) {
+
+			LOG.warn("couldn't register the import metrics of target '{}' at the MBean server", target, e);
+		}
+
+		instance = registeredInstance;
+		objectName = registeredObjectName;
+
+		OPEN_METRICS.add(this);
+	}
+
+	/**
+	 * @return the metrics that are open (i.e. that weren't closed yet)
+	 */
+	public static Collection<ImportMetrics> all() {
+
+		return new ArrayList<>(OPEN_METRICS);
+	}
+
+	private static ObjectName objectName(final String target, final String instance) throws JMException {
+
+		return new ObjectName(JMX_DOMAIN + ":type=ImportMetrics,target=" + ObjectName.quote(target) + (instance != null ?
+				",instance=" + instance :
+				""));
+	}
+
+	/**
+	 * @return the JMX object name of these metrics, or null, if they couldn't be registered (or they are closed)
+	 */
+	public ObjectName getObjectName() {
+
+		return OPEN_METRICS.contains(this) ? objectName : null;
+	}
+
+	/**
+	 * Unregisters these metrics from the platform MBean server + the Prometheus exposition. Note: the counters can still be read afterwards.
+	 */
+	@Override
+	public void close() {
+
+		if (!OPEN_METRICS.remove(this) || objectName == null) {
+
+			return;
+		}
+
+		try {
+
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (final JMException e) {
+
+			LOG.warn("couldn't unregister the import metrics of target '{}' from the MBean server", target, e);
+		}
+	}
+
+	public void resourceProcessed() {
+
+		resources.increment();
+	}
+
+	public void statementProcessed() {
+
+		statements.increment();
+	}
+
+	public void statementSkipped() {
+
+		skippedStatements.increment();
+	}
+
+	public void itemCreated() {
+
+		createdItems.increment();
+	}
+
+	public void placeholderItemCreated() {
+
+		createdPlaceholders.increment();
+	}
+
+	public void propertyCreated() {
+
+		createdProperties.increment();
+	}
+
+	/**
+	 * an item exists already, i.e., its creation ran into a label (+ description) conflict
+	 */
+	public void itemConflicted() {
+
+		conflictedItems.increment();
+	}
+
+	/**
+	 * a property exists already, i.e., its creation ran into a label conflict
+	 */
+	public void propertyConflicted() {
+
+		conflictedProperties.increment();
+	}
+
+	public void itemIdCacheLookup(final boolean hit) {
+
+		itemIdCacheLookups.increment();
+
+		if (!hit) {
+
+			itemIdCacheMisses.increment();
+		}
+	}
+
+	public void propertyIdCacheLookup(final boolean hit) {
+
+		propertyIdCacheLookups.increment();
+
+		if (!hit) {
+
+			propertyIdCacheMisses.increment();
+		}
+	}
+
+	/**
+	 * @return the start time of the request (for {@link #requestFinished(String, long, boolean)})
+	 */
+	public long requestStarted() {
+
+		inFlightRequests.increment();
+
+		return System.nanoTime();
+	}
+
+	/**
+	 * @param action     the API action of the request, e.g., 'wbeditentity'
+	 * @param startNanos the start time of the request (see {@link #requestStarted()})
+	 * @param success    true, if the request was successful
+	 */
+	public void requestFinished(final String action, final long startNanos, final boolean success) {
+
+		inFlightRequests.decrement();
+
+		requestLatencies(action).record(System.nanoTime() - startNanos);
+
+		if (!success) {
+
+			failedRequests.increment();
+		}
+	}
+
+	public void bytesSent(final long bytes) {
+
+		bytesSent.add(bytes);
+	}
+
+	public void bytesReceived(final long bytes) {
+
+		bytesReceived.add(bytes);
+	}
+
+	/**
+	 * @param action the API action, e.g., 'wbeditentity'
+	 * @return the latencies of the requests of the given API action
+	 */
+	public LatencyHistogram requestLatencies(final String action) {
+
+		final LatencyHistogram latencies = requestLatencies.get(action);
+
+		if (latencies != null) {
+
+			return latencies;
+		}
+
+		return requestLatencies.computeIfAbsent(action, action1 -> new LatencyHistogram());
+	}
+
+	@Override
+	public String getTarget() {
+
+		return target;
+	}
+
+	@Override
+	public long getResources() {
+
+		return resources.sum();
+	}
+
+	@Override
+	public long getStatements() {
+
+		return statements.sum();
+	}
+
+	@Override
+	public long getSkippedStatements() {
+
+		return skippedStatements.sum();
+	}
+
+	@Override
+	public long getCreatedItems() {
+
+		return createdItems.sum();
+	}
+
+	@Override
+	public long getCreatedPlaceholderItems() {
+
+		return createdPlaceholders.sum();
+	}
+
+	@Override
+	public long getCreatedProperties() {
+
+		return createdProperties.sum();
+	}
+
+	@Override
+	public long getConflictedItems() {
+
+		return conflictedItems.sum();
+	}
+
+	@Override
+	public long getConflictedProperties() {
+
+		return conflictedProperties.sum();
+	}
+
+	@Override
+	public long getRequests() {
+
+		long requests = 0;
+
+		for (final LatencyHistogram latencies : requestLatencies.values()) {
+
+			requests += latencies.getCount();
+		}
+
+		return requests;
+	}
+
+	@Override
+	public long getFailedRequests() {
+
+		return failedRequests.sum();
+	}
+
+	@Override
+	public long getInFlightRequests() {
+
+		return inFlightRequests.sum();
+	}
+
+	@Override
+	public long getBytesSent() {
+
+		return bytesSent.sum();
+	}
+
+	@Override
+	public long getBytesReceived() {
+
+		return bytesReceived.sum();
+	}
+
+	@Override
+	public double getItemIdCacheHitRate() {
+
+		return hitRate(itemIdCacheLookups.sum(), itemIdCacheMisses.sum());
+	}
+
+	@Override
+	public double getPropertyIdCacheHitRate() {
+
+		return hitRate(propertyIdCacheLookups.sum(), propertyIdCacheMisses.sum());
+	}
+
+	@Override
+	public Map<String, Long> getRequestCounts() {
+
+		final Map<String, Long> requestCounts = new TreeMap<>();
+
+		requestLatencies.forEach((action, latencies) -> requestCounts.put(action, latencies.getCount()));
+
+		return requestCounts;
+	}
+
+	@Override
+	public Map<String, Double> getRequestLatencyP50Millis() {
+
+		return requestLatencyMillis(latencies -> latencies.getPercentileMicros(0.5));
+	}
+
+	@Override
+	public Map<String, Double> getRequestLatencyP99Millis() {
+
+		return requestLatencyMillis(latencies -> latencies.getPercentileMicros(0.99));
+	}
+
+	/**
+	 * Writes the metrics of all targets in the Prometheus text exposition format (version 0.0.4).
+	 *
+	 * @param writer the writer of the metrics (will not be closed)
+	 * @throws IOException
+	 */
+	public static void writePrometheus(final Writer writer) throws IOException {
+
+		final Collection<ImportMetrics> allMetrics = all();
+
+		writeCounter(writer, allMetrics, "resources_total", "processed GDM resources", ImportMetrics::getResources);
+		writeCounter(writer, allMetrics, "statements_total", "processed GDM statements (incl. skipped ones)", ImportMetrics::getStatements);
+		writeCounter(writer, allMetrics, "skipped_statements_total", "GDM statements that couldn't be converted",
+				ImportMetrics::getSkippedStatements);
+		writeCounter(writer, allMetrics, "created_items_total", "created items", ImportMetrics::getCreatedItems);
+		writeCounter(writer, allMetrics, "created_placeholder_items_total", "created placeholder items",
+				ImportMetrics::getCreatedPlaceholderItems);
+		writeCounter(writer, allMetrics, "created_properties_total", "created properties", ImportMetrics::getCreatedProperties);
+		writeCounter(writer, allMetrics, "conflicted_items_total", "items that existed already (label + description conflict)",
+				ImportMetrics::getConflictedItems);
+		writeCounter(writer, allMetrics, "conflicted_properties_total", "properties that existed already (label conflict)",
+				ImportMetrics::getConflictedProperties);
+		writeCounter(writer, allMetrics, "failed_requests_total", "failed API requests", ImportMetrics::getFailedRequests);
+		writeCounter(writer, allMetrics, "sent_bytes_total", "bytes sent to the API", ImportMetrics::getBytesSent);
+		writeCounter(writer, allMetrics, "received_bytes_total", "bytes received from the API", ImportMetrics::getBytesReceived);
+
+		writeHeader(writer, "in_flight_requests", "API requests in flight", "gauge");
+
+		for (final ImportMetrics metrics : allMetrics) {
+
+			writeSample(writer, "in_flight_requests", metrics.labels(), metrics.getInFlightRequests());
+		}
+
+		writeHeader(writer, "entity_id_cache_hit_ratio", "hit ratio of the entity id caches", "gauge");
+
+		for (final ImportMetrics metrics : allMetrics) {
+
+			writeSample(writer, "entity_id_cache_hit_ratio", metrics.labels() + ",cache=\"item\"", metrics.getItemIdCacheHitRate());
+			writeSample(writer, "entity_id_cache_hit_ratio", metrics.labels() + ",cache=\"property\"", metrics.getPropertyIdCacheHitRate());
+		}
+
+		writeHeader(writer, "request_latency_seconds", "latency of the API requests per action", "summary");
+
+		for (final ImportMetrics metrics : allMetrics) {
+
+			for (final Map.Entry<String, LatencyHistogram> actionLatencies : new TreeMap<>(metrics.requestLatencies).entrySet()) {
+
+				final String labels = metrics.labels() + ",action=\"" + escape(actionLatencies.getKey()) + '"';
+				final LatencyHistogram latencies = actionLatencies.getValue();
+
+				for (final double quantile : QUANTILES) {
+
+					writeSample(writer, "request_latency_seconds", labels + ",quantile=\"" + quantile + '"',
+							latencies.getPercentileMicros(quantile) / MICROS_PER_SECOND);
+				}
+
+				writeSample(writer, "request_latency_seconds_sum", labels, latencies.getSumMicros() / MICROS_PER_SECOND);
+				writeSample(writer, "request_latency_seconds_count", labels, latencies.getCount());
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("target '%s': '%d' resources, '%d' statements ('%d' skipped), '%d' + '%d' created items + placeholders, '%d' "
+						+ "created properties, '%d' + '%d' conflicted items + properties, '%d' requests ('%d' failed, '%d' in flight)", target,
+				getResources(), getStatements(), getSkippedStatements(), getCreatedItems(), getCreatedPlaceholderItems(),
+				getCreatedProperties(), getConflictedItems(), getConflictedProperties(), getRequests(), getFailedRequests(),
+				getInFlightRequests());
+	}
+
+	private Map<String, Double> requestLatencyMillis(final ToDoubleFunction<LatencyHistogram> latencyMicros) {
+
+		final Map<String, Double> requestLatencyMillis = new TreeMap<>();
+
+		requestLatencies.forEach(
+				(action, latencies) -> requestLatencyMillis.put(action, latencyMicros.applyAsDouble(latencies) / MICROS_PER_MILLI));
+
+		return requestLatencyMillis;
+	}
+
+	private String labels() {
+
+		return "target=\"" + escape(target) + '"' + (instance != null ? ",instance=\"" + instance + '"' : "");
+	}
+
+	private static double hitRate(final long lookups, final long misses) {
+
+		return lookups > 0 ? (double) (lookups - misses) / lookups : 0.0;
+	}
+
+	private static void writeCounter(final Writer writer, final Collection<ImportMetrics> allMetrics, final String name, final String help,
+			final ToLongFunction<ImportMetrics> value) throws IOException {
+
+		writeHeader(writer, name, help, "counter");
+
+		for (final ImportMetrics metrics : allMetrics) {
+
+			writeSample(writer, name, metrics.labels(), value.applyAsLong(metrics));
+		}
+	}
+
+	private static void writeHeader(final Writer writer, final String name, final String help, final String type) throws IOException {
+
+		writer.write("# HELP " + PROMETHEUS_PREFIX + name + ' ' + help + '\n');
+		writer.write("# TYPE " + PROMETHEUS_PREFIX + name + ' ' + type + '\n');
+	}
+
+	private static void writeSample(final Writer writer, final String name, final String labels, final long value) throws IOException {
+
+		writer.write(PROMETHEUS_PREFIX + name + '{' + labels + "} " + value + '\n');
+	}
+
+	private static void writeSample(final Writer writer, final String name, final String labels, final double value) throws IOException {
+
+		writer.write(PROMETHEUS_PREFIX + name + '{' + labels + "} " + value + '\n');
+	}
+
+	private static String escape(final String labelValue) {
+
+		return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the {@link ImportMetrics} of a target.
+ *
+ * @author tgaengler
+ */
+public interface ImportMetricsMXBean {
+
+	String getTarget();
+
+	long getResources();
+
+	long getStatements();
+
+	long getSkippedStatements();
+
+	long getCreatedItems();
+
+	long getCreatedPlaceholderItems();
+
+	long getCreatedProperties();
+
+	long getConflictedItems();
+
+	long getConflictedProperties();
+
+	long getRequests();
+
+	long getFailedRequests();
+
+	long getInFlightRequests();
+
+	long getBytesSent();
+
+	long getBytesReceived();
+
+	double getItemIdCacheHitRate();
+
+	double getPropertyIdCacheHitRate();
+
+	/**
+	 * @return the number of requests per API action
+	 */
+	Map<String, Long> getRequestCounts();
+
+	/**
+	 * @return the median request latency (in milliseconds) per API action
+	 */
+	Map<String, Double> getRequestLatencyP50Millis();
+
+	/**
+	 * @return the 99th percentile of the request latency (in milliseconds) per API action
+	 */
+	Map<String, Double> getRequestLatencyP99Millis();
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The progress + throughput of the import of a GDM model (e.g. of an import job, see {@link ImportService}). Note: resources are counted
+ * per target, i.e., a resource that is imported into two targets counts twice. The completion of the import is estimated from the total
+ * number of resources of the GDM model (if the reader knows it upfront, e.g., from the index of the GDM model file) or from the read position
+ * in the GDM model file (see {@link GDMModelReader#readRecords(String, ImportProgress)}). The counters are plain (striped) counters, i.e.,
+ * the import threads don't do any further progress bookkeeping; rates + ETA are computed by the readers of the progress (see
+ * {@link ProgressReporter}).
+ *
+ * @author tgaengler
+ */
+public class ImportProgress {
+
+	private static final long UNKNOWN = -1;
+
+	private final LongAdder  scannedResources  = new LongAdder();
+	private final LongAdder  readResources     = new LongAdder();
+	private final LongAdder  importedResources = new LongAdder();
+	private final LongAdder  failedResources   = new LongAdder();
+	private final AtomicLong inputPosition     = new AtomicLong();
+
+	private volatile long startTime;
+	private volatile long endTime;
+	private volatile long totalResources = UNKNOWN;
+	private volatile long inputSize      = UNKNOWN;
+
+	public void start() {
+
+		startTime = System.nanoTime();
+	}
+
+	public void finish() {
+
+		endTime = System.nanoTime();
+	}
+
+	/**
+	 * counts a resource of the GDM model (of any shard, see {@link #resourceRead()} for the resources of the shard of the importer)
+	 */
+	public void resourceScanned() {
+
+		scannedResources.increment();
+	}
+
+	public void resourceRead() {
+
+		readResources.increment();
+	}
+
+	public void resourceImported() {
+
+		importedResources.increment();
+	}
+
+	public void resourceFailed() {
+
+		failedResources.increment();
+	}
+
+	/**
+	 * @param totalResources the number of resources of the GDM model (of all shards), e.g., from a pre-scan or an index of the GDM model
+	 */
+	public void setTotalResources(final long totalResources) {
+
+		this.totalResources = totalResources;
+	}
+
+	/**
+	 * @param inputSize the size of the (optionally compressed) GDM model file in bytes
+	 */
+	public void setInputSize(final long inputSize) {
+
+		this.inputSize = inputSize;
+	}
+
+	/**
+	 * @param bytes the number of bytes that were read from the (optionally compressed) GDM model file
+	 */
+	public void inputRead(final long bytes) {
+
+		inputPosition.addAndGet(bytes);
+	}
+
+	/**
+	 * @return the number of resources of the GDM model (of all shards) that were read so far
+	 */
+	public long getScannedResources() {
+
+		return scannedResources.sum();
+	}
+
+	/**
+	 * @return the number of read resources (of the shard of the importer)
+	 */
+	public long getReadResources() {
+
+		return readResources.sum();
+	}
+
+	/**
+	 * @return the number of imported resources (per target)
+	 */
+	public long getImportedResources() {
+
+		return importedResources.sum();
+	}
+
+	/**
+	 * @return the number of resources (per target) that couldn't be imported
+	 */
+	public long getFailedResources() {
+
+		return failedResources.sum();
+	}
+
+	/**
+	 * @return the duration of the import so far (or of the whole import, if it is finished) in milliseconds
+	 */
+	public long getElapsedMillis() {
+
+		final long start = startTime;
+
+		if (start == 0) {
+
+			return 0;
+		}
+
+		final long end = endTime;
+
+		return TimeUnit.NANOSECONDS.toMillis((end != 0 ? end : System.nanoTime()) - start);
+	}
+
+	/**
+	 * @return the number of imported resources per second
+	 */
+	public double getThroughput() {
+
+		final long elapsedMillis = getElapsedMillis();
+
+		return elapsedMillis > 0 ? importedResources.sum() * 1000.0 / elapsedMillis : 0.0;
+	}
+
+	/**
+	 * @return the completed share of the import (between 0 and 1), i.e., the share of the read resources (if the total number of resources is
+	 * known) or of the read bytes (if the size of the GDM model file is known), or -1, if it cannot be estimated (e.g. for a GDM model stream)
+	 */
+	public double getCompletion() {
+
+		if (endTime != 0) {
+
+			return 1.0;
+		}
+
+		final long total = totalResources;
+
+		if (total > 0) {
+
+			return Math.min(1.0, (double) scannedResources.sum() / total);
+		}
+
+		final long size = inputSize;
+
+		if (size > 0) {
+
+			return Math.min(1.0, (double) inputPosition.get() / size);
+		}
+
+		return UNKNOWN;
+	}
+
+	/**
+	 * @return the estimated remaining duration of the import in milliseconds (extrapolated from the completed share and the elapsed time),
+	 * or -1, if it cannot be estimated (yet)
+	 */
+	public long getEstimatedRemainingMillis() {
+
+		final double completion = getCompletion();
+
+		if (completion <= 0.0) {
+
+			return UNKNOWN;
+		}
+
+		return (long) (getElapsedMillis() * (1.0 - completion) / completion);
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("'%d' read + '%d' imported + '%d' failed resources in '%d' ms ('%.1f' resources/s)", readResources.sum(),
+				importedResources.sum(), failedResources.sum(), getElapsedMillis(), getThroughput());
+	}
+}
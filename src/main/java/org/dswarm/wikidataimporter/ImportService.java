@@ -0,0 +1,421 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-running (local) HTTP import service, i.e., the API sessions + entity id caches of the targets are shared by all import jobs (and
+ * stay warm between them). Import jobs are executed concurrently; every job tracks its own progress + failures. API:
+ * <ul>
+ * <li>POST /jobs?path=&lt;GDM model file&gt; - enqueues an import job for the given GDM model file (response: 202 + job)</li>
+ * <li>POST /jobs[?name=&lt;model name&gt;] with a (optionally compressed) GDM model as body - imports the streamed GDM model (response: 200
+ * + job, when the import is finished)</li>
+ * <li>GET /jobs - all jobs</li>
+ * <li>GET /jobs/&lt;id&gt; - the state, progress and throughput of a job</li>
+ * </ul>
+ *
+ * @author tgaengler
+ */
+public class ImportService implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ImportService.class);
+
+	public static final String JOBS_PATH = "/jobs";
+
+	private static final String JOB_PATH_PREFIX           = JOBS_PATH + '/';
+	private static final String PATH_PARAMETER            = "path";
+	private static final String NAME_PARAMETER            = "name";
+	private static final String DEFAULT_STREAMED_MODEL    = "streamed GDM model";
+	private static final String GET_METHOD                = "GET";
+	private static final String POST_METHOD               = "POST";
+	private static final String CONTENT_TYPE_HEADER       = "Content-Type";
+	private static final String JSON_CONTENT_TYPE         = "application/json; charset=utf-8";
+	private static final String QUERY_PARAMETER_SEPARATOR = "&";
+	private static final char   QUERY_VALUE_SEPARATOR     = '=';
+
+	private static final String DSWARM_IMPORT_SERVICE_THREAD_NAMING_PATTERN = "dswarm-import-service-%d";
+	private static final String DSWARM_IMPORT_JOB_THREAD_NAMING_PATTERN     = "dswarm-import-job-%d";
+
+	private static final long TERMINATION_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * the number of finished (or failed) jobs that are kept for their state requests; older ones are evicted
+	 */
+	public static final int DEFAULT_MAX_COMPLETED_JOBS = 1000;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final WikidataDswarmMultiTargetImporter importer;
+	private final GDMModelReader                    gdmModelReader;
+	private final HttpServer                        server;
+	private final ExecutorService                   requestExecutor;
+	private final ExecutorService                   jobExecutor;
+
+	private final Map<String, ImportJob> jobs          = new ConcurrentHashMap<>();
+	private final AtomicLong             jobCounter    = new AtomicLong();
+	private final Deque<ImportJob>       completedJobs = new ArrayDeque<>();
+	private final int                    maxCompletedJobs;
+
+	/**
+	 * Starts the service.
+	 *
+	 * @param importer       the importer of all jobs (won't be closed by the service)
+	 * @param gdmModelReader the reader that should be utilised to parse the GDM models
+	 * @param address        the address of the service, e.g., localhost:8087
+	 * @param parallelJobs   the number of GDM model files that are imported in parallel (streamed GDM models are imported by the request
+	 *                       threads)
+	 * @throws IOException
+	 */
+	public ImportService(final WikidataDswarmMultiTargetImporter importer, final GDMModelReader gdmModelReader,
+			final InetSocketAddress address, final int parallelJobs) throws IOException {
+
+		this(importer, gdmModelReader, address, parallelJobs, DEFAULT_MAX_COMPLETED_JOBS);
+	}
+
+	/**
+	 * Starts the service.
+	 *
+	 * @param importer         the importer of all jobs (won't be closed by the service)
+	 * @param gdmModelReader   the reader that should be utilised to parse the GDM models
+	 * @param address          the address of the service, e.g., localhost:8087
+	 * @param parallelJobs     the number of GDM model files that are imported in parallel (streamed GDM models are imported by the request
+	 *                         threads)
+	 * @param maxCompletedJobs the number of finished (or failed) jobs that are kept; older ones are evicted (queued + running jobs are
+	 *                         always kept)
+	 * @throws IOException
+	 */
+	public ImportService(final WikidataDswarmMultiTargetImporter importer, final GDMModelReader gdmModelReader,
+			final InetSocketAddress address, final int parallelJobs, final int maxCompletedJobs) throws IOException {
+
+		this.importer = importer;
+		this.gdmModelReader = gdmModelReader;
+		this.maxCompletedJobs = Math.max(0, maxCompletedJobs);
+
+		requestExecutor = Executors.newCachedThreadPool(
+				new BasicThreadFactory.Builder().daemon(false).namingPattern(DSWARM_IMPORT_SERVICE_THREAD_NAMING_PATTERN).build());
+		jobExecutor = Executors.newFixedThreadPool(Math.max(1, parallelJobs),
+				new BasicThreadFactory.Builder().daemon(false).namingPattern(DSWARM_IMPORT_JOB_THREAD_NAMING_PATTERN).build());
+
+		try {
+
+			server = HttpServer.create(address, 0);
+		} catch (final IOException e) {
+
+			requestExecutor.shutdown();
+			jobExecutor.shutdown();
+
+			throw e;
+		}
+
+		server.createContext(JOBS_PATH, this::handle);
+		server.setExecutor(requestExecutor);
+		server.start();
+
+		LOG.info("started import service @ '{}' ('{}' parallel jobs)", getAddress(), parallelJobs);
+	}
+
+	public InetSocketAddress getAddress() {
+
+		return server.getAddress();
+	}
+
+	/**
+	 * Enqueues an import job for the given GDM model file.
+	 *
+	 * @param filePath the path of the GDM model file
+	 * @return the job
+	 */
+	public ImportJob submit(final String filePath) {
+
+		final ImportJob job = createJob(filePath);
+
+		jobExecutor.execute(() -> {
+
+			job.running();
+
+			try {
+
+				importer.importGDMModel(filePath, gdmModelReader, job.getProgress());
+
+				job.finished();
+			} catch (final Exception e) {
+
+				LOG.error("{} failed", job, e);
+
+				job.failed(e);
+			}
+
+			LOG.info("{}", job);
+
+			jobCompleted(job);
+		});
+
+		return job;
+	}
+
+	/**
+	 * Imports the given GDM model stream (in the calling thread).
+	 *
+	 * @param gdmModelStream the (optionally compressed) GDM model stream
+	 * @param modelName      the name of the GDM model
+	 * @return the finished (or failed) job
+	 */
+	public ImportJob importStream(final InputStream gdmModelStream, final String modelName) {
+
+		final ImportJob job = createJob(modelName);
+
+		job.running();
+
+		try {
+
+			importer.importGDMModel(gdmModelStream, modelName, gdmModelReader, job.getProgress());
+
+			job.finished();
+		} catch (final Exception e) {
+
+			LOG.error("{} failed", job, e);
+
+			job.failed(e);
+		}
+
+		LOG.info("{}", job);
+
+		jobCompleted(job);
+
+		return job;
+	}
+
+	public Optional<ImportJob> getJob(final String id) {
+
+		return Optional.ofNullable(jobs.get(id));
+	}
+
+	/**
+	 * @return all jobs (in the order of their submission)
+	 */
+	public List<ImportJob> getJobs() {
+
+		final List<ImportJob> allJobs = new ArrayList<>(jobs.values());
+
+		allJobs.sort(Comparator.comparingLong(ImportJob::getNumber));
+
+		return allJobs;
+	}
+
+	@Override
+	public void close() {
+
+		LOG.info("stop import service @ '{}'", getAddress());
+
+		server.stop(0);
+		jobExecutor.shutdown();
+		requestExecutor.shutdown();
+
+		try {
+
+			if (!jobExecutor.awaitTermination(TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+
+				LOG.warn("import jobs didn't terminate in time");
+			}
+		} catch (final InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ImportJob createJob(final String source) {
+
+		final ImportJob job = new ImportJob(jobCounter.incrementAndGet(), source);
+
+		jobs.put(job.getId(), job);
+
+		return job;
+	}
+
+	/**
+	 * keeps the given (finished or failed) job for its state requests and evicts the oldest completed jobs beyond the limit, i.e., the jobs
+	 * of a long-running service don't accumulate
+	 */
+	private void jobCompleted(final ImportJob job) {
+
+		synchronized (completedJobs) {
+
+			completedJobs.addLast(job);
+
+			while (completedJobs.size() > maxCompletedJobs) {
+
+				jobs.remove(completedJobs.removeFirst().getId());
+			}
+		}
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+
+		try {
+
+			final String path = exchange.getRequestURI().getPath();
+			final String method = exchange.getRequestMethod();
+
+			if (JOBS_PATH.equals(path) && GET_METHOD.equals(method)) {
+
+				final ArrayNode jobsJSON = MAPPER.createArrayNode();
+
+				for (final ImportJob job : getJobs()) {
+
+					jobsJSON.add(toJSON(job));
+				}
+
+				sendJSON(exchange, HttpURLConnection.HTTP_OK, jobsJSON);
+			} else if (JOBS_PATH.equals(path) && POST_METHOD.equals(method)) {
+
+				final Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+				final String filePath = parameters.get(PATH_PARAMETER);
+
+				if (filePath != null) {
+
+					sendJSON(exchange, HttpURLConnection.HTTP_ACCEPTED, toJSON(submit(filePath)));
+				} else {
+
+					try (final InputStream gdmModelStream = exchange.getRequestBody()) {
+
+						final ImportJob job = importStream(gdmModelStream, parameters.getOrDefault(NAME_PARAMETER, DEFAULT_STREAMED_MODEL));
+
+						sendJSON(exchange, HttpURLConnection.HTTP_OK, toJSON(job));
+					}
+				}
+			} else if (path.startsWith(JOB_PATH_PREFIX) && GET_METHOD.equals(method)) {
+
+				final Optional<ImportJob> optionalJob = getJob(path.substring(JOB_PATH_PREFIX.length()));
+
+				if (optionalJob.isPresent()) {
+
+					sendJSON(exchange, HttpURLConnection.HTTP_OK, toJSON(optionalJob.get()));
+				} else {
+
+					sendError(exchange, HttpURLConnection.HTTP_NOT_FOUND, String.format("couldn't find job '%s'", path));
+				}
+			} else if (JOBS_PATH.equals(path) || path.startsWith(JOB_PATH_PREFIX)) {
+
+				sendError(exchange, HttpURLConnection.HTTP_BAD_METHOD, String.format("method '%s' is not supported for '%s'", method, path));
+			} else {
+
+				sendError(exchange, HttpURLConnection.HTTP_NOT_FOUND, String.format("couldn't find '%s'", path));
+			}
+		} catch (final IOException | RuntimeException e) {
+
+			LOG.error("something went wrong while handling request '{} {}'", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+
+			throw e;
+		} finally {
+
+			exchange.close();
+		}
+	}
+
+	private static ObjectNode toJSON(final ImportJob job) {
+
+		final ImportProgress progress = job.getProgress();
+
+		final ObjectNode jobJSON = MAPPER.createObjectNode()
+				.put("id", job.getId())
+				.put("source", job.getSource())
+				.put("state", job.getState().name())
+				.put("read_resources", progress.getReadResources())
+				.put("imported_resources", progress.getImportedResources())
+				.put("failed_resources", progress.getFailedResources())
+				.put("elapsed_millis", progress.getElapsedMillis())
+				.put("resources_per_second", progress.getThroughput());
+
+		if (job.getError() != null) {
+
+			jobJSON.put("error", job.getError());
+		}
+
+		return jobJSON;
+	}
+
+	private static void sendError(final HttpExchange exchange, final int status, final String message) throws IOException {
+
+		sendJSON(exchange, status, MAPPER.createObjectNode().put("error", message));
+	}
+
+	private static void sendJSON(final HttpExchange exchange, final int status, final Object json) throws IOException {
+
+		final byte[] body = MAPPER.writeValueAsBytes(json);
+
+		exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (final OutputStream responseStream = exchange.getResponseBody()) {
+
+			responseStream.write(body);
+		}
+	}
+
+	private static Map<String, String> parseQuery(final String rawQuery) throws UnsupportedEncodingException {
+
+		final Map<String, String> parameters = new HashMap<>();
+
+		if (rawQuery == null || rawQuery.isEmpty()) {
+
+			return parameters;
+		}
+
+		for (final String parameter : rawQuery.split(QUERY_PARAMETER_SEPARATOR)) {
+
+			final int separatorIndex = parameter.indexOf(QUERY_VALUE_SEPARATOR);
+
+			if (separatorIndex > 0) {
+
+				parameters.put(URLDecoder.decode(parameter.substring(0, separatorIndex), StandardCharsets.UTF_8.name()),
+						URLDecoder.decode(parameter.substring(separatorIndex + 1), StandardCharsets.UTF_8.name()));
+			}
+		}
+
+		return parameters;
+	}
+}
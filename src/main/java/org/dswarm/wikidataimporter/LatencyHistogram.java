@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets (16 sub-buckets per power of two, i.e., a relative error of ≤ 6.25 %) of
+ * microseconds. Recording doesn't create any garbage and the totals are striped (LongAdder), i.e., it can be utilised on hot paths.
+ *
+ * @author tgaengler
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS  = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT     = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder       count   = new LongAdder();
+	private final LongAdder       sum     = new LongAdder();
+	private final LongAccumulator max     = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param latencyNanos a latency in nanoseconds
+	 */
+	public void record(final long latencyNanos) {
+
+		final long latencyMicros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+
+		buckets.incrementAndGet(bucket(latencyMicros));
+		count.increment();
+		sum.add(latencyMicros);
+		max.accumulate(latencyMicros);
+	}
+
+	public long getCount() {
+
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of all latencies in microseconds
+	 */
+	public long getSumMicros() {
+
+		return sum.sum();
+	}
+
+	/**
+	 * @return the mean latency in microseconds
+	 */
+	public double getMeanMicros() {
+
+		final long currentCount = count.sum();
+
+		return currentCount > 0 ? (double) sum.sum() / currentCount : 0.0;
+	}
+
+	/**
+	 * @return the maximum latency in microseconds
+	 */
+	public long getMaxMicros() {
+
+		return max.get();
+	}
+
+	/**
+	 * @param percentile the percentile, e.g., 0.99
+	 * @return the (upper bound of the bucket of the) latency of the given percentile in microseconds
+	 */
+	public long getPercentileMicros(final double percentile) {
+
+		final long currentCount = count.sum();
+
+		if (currentCount == 0) {
+
+			return 0;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(percentile * currentCount));
+
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+
+			seen += buckets.get(i);
+
+			if (seen >= rank) {
+
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+
+		return max.get();
+	}
+
+	/**
+	 * @return the counts of the non-empty buckets (upper bound in microseconds → count) in ascending order
+	 */
+	public Map<Long, Long> getBuckets() {
+
+		final Map<Long, Long> nonEmptyBuckets = new LinkedHashMap<>();
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+
+			final long bucketCount = buckets.get(i);
+
+			if (bucketCount > 0) {
+
+				nonEmptyBuckets.put(upperBound(i), bucketCount);
+			}
+		}
+
+		return nonEmptyBuckets;
+	}
+
+	@Override
+	public String toString() {
+
+		return String.format("'%d' requests (mean = '%.1f' µs; p50 = '%d' µs; p99 = '%d' µs; max = '%d' µs)", getCount(), getMeanMicros(),
+				getPercentileMicros(0.5), getPercentileMicros(0.99), getMaxMicros());
+	}
+
+	private static int bucket(final long value) {
+
+		if (value < SUB_BUCKET_COUNT) {
+
+			return (int) value;
+		}
+
+		final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+		return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	private static long upperBound(final int bucket) {
+
+		if (bucket < SUB_BUCKET_COUNT) {
+
+			return bucket;
+		}
+
+		final int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+		final int subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+
+		return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * Samples the debug messages of a hot path (e.g. per statement or per API response), i.e., only the first and then every n-th occurrence
+ * is formatted + logged; all occurrences are logged, if the trace level is enabled for the logger. Nothing is counted (or formatted), if the
+ * debug level isn't enabled for the logger.
+ *
+ * @author tgaengler
+ */
+final class LogSampler {
+
+	static final long DEFAULT_RATE = 1000;
+
+	private final Logger     logger;
+	private final long       rate;
+	private final AtomicLong occurrences = new AtomicLong();
+
+	/**
+	 * @param logger the logger of the debug messages
+	 * @param rate   every n-th occurrence is logged (1 = all occurrences)
+	 */
+	LogSampler(final Logger logger, final long rate) {
+
+		this.logger = logger;
+		this.rate = Math.max(1, rate);
+	}
+
+	/**
+	 * @return true, if the current occurrence should be logged at debug level, i.e., it's the first or every n-th one (or trace is enabled)
+	 */
+	boolean isDebugEnabled() {
+
+		return logger.isDebugEnabled() && (occurrences.getAndIncrement() % rate == 0 || logger.isTraceEnabled());
+	}
+
+	/**
+	 * @param format   the message format (slf4j style) with two placeholders: the argument + the occurrence count so far
+	 * @param argument the argument of the message (formatted only, if the occurrence is logged)
+	 */
+	void debug(final String format, final Object argument) {
+
+		if (isDebugEnabled()) {
+
+			logger.debug(format, argument, occurrences.get());
+		}
+	}
+
+	/**
+	 * @param format    the message format (slf4j style) with three placeholders: the arguments + the occurrence count so far
+	 * @param argument1 the first argument of the message (formatted only, if the occurrence is logged)
+	 * @param argument2 the second argument of the message (formatted only, if the occurrence is logged)
+	 */
+	void debug(final String format, final Object argument1, final Object argument2) {
+
+		if (isDebugEnabled()) {
+
+			logger.debug(format, argument1, argument2, occurrences.get());
+		}
+	}
+}
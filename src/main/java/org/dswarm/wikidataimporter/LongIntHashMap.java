@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * An open addressing (linear probing) hash map with primitive long keys and int values, i.e., without boxing and without entry objects.
+ * Keys and values are held in (optionally off-heap) buffers; 12 bytes per slot, i.e., ~16 - 24 bytes per entry (depending on the load).
+ * Note: this map is not thread-safe; {@link Long#MIN_VALUE} cannot be utilised as key.
+ *
+ * @author tgaengler
+ */
+public final class LongIntHashMap {
+
+	private static final long  EMPTY_KEY       = Long.MIN_VALUE;
+	private static final int   MIN_CAPACITY    = 16;
+	private static final float MAX_LOAD_FACTOR = 0.7f;
+	private static final long  HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	private final boolean offHeap;
+
+	private LongBuffer keys;
+	private IntBuffer  values;
+	private int        capacityBits;
+	private int        size;
+	private int        resizeThreshold;
+
+	public LongIntHashMap() {
+
+		this(MIN_CAPACITY, false);
+	}
+
+	/**
+	 * @param expectedSize the expected number of entries
+	 * @param offHeap      true, if keys and values should be held in direct (off-heap) buffers
+	 */
+	public LongIntHashMap(final int expectedSize, final boolean offHeap) {
+
+		this.offHeap = offHeap;
+
+		int capacity = MIN_CAPACITY;
+
+		while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+
+			capacity <<= 1;
+		}
+
+		allocate(capacity);
+	}
+
+	/**
+	 * @param key          the key
+	 * @param defaultValue the value that should be returned, if there is no entry for the key
+	 * @return the value of the key or the default value
+	 */
+	public int get(final long key, final int defaultValue) {
+
+		final int mask = keys.capacity() - 1;
+
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+
+			final long slotKey = keys.get(slot);
+
+			if (slotKey == key) {
+
+				return values.get(slot);
+			}
+
+			if (slotKey == EMPTY_KEY) {
+
+				return defaultValue;
+			}
+		}
+	}
+
+	/**
+	 * @param key   the key (must not be {@link Long#MIN_VALUE})
+	 * @param value the value
+	 */
+	public void put(final long key, final int value) {
+
+		if (key == EMPTY_KEY) {
+
+			throw new IllegalArgumentException("Long.MIN_VALUE is reserved as empty key");
+		}
+
+		final int mask = keys.capacity() - 1;
+
+		for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+
+			final long slotKey = keys.get(slot);
+
+			if (slotKey == key) {
+
+				values.put(slot, value);
+
+				return;
+			}
+
+			if (slotKey == EMPTY_KEY) {
+
+				keys.put(slot, key);
+				values.put(slot, value);
+
+				if (++size > resizeThreshold) {
+
+					resize();
+				}
+
+				return;
+			}
+		}
+	}
+
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * @return the size of the key + value buffers in bytes
+	 */
+	public long getMemoryUsage() {
+
+		return (long) keys.capacity() * (Long.BYTES + Integer.BYTES);
+	}
+
+	private int slot(final long key) {
+
+		return (int) ((key * HASH_MULTIPLIER) >>> (Long.SIZE - capacityBits));
+	}
+
+	private void allocate(final int capacity) {
+
+		capacityBits = Integer.numberOfTrailingZeros(capacity);
+		resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+
+		if (offHeap) {
+
+			keys = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+			values = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+		} else {
+
+			keys = LongBuffer.allocate(capacity);
+			values = IntBuffer.allocate(capacity);
+		}
+
+		for (int i = 0; i < capacity; i++) {
+
+			keys.put(i, EMPTY_KEY);
+		}
+	}
+
+	private void resize() {
+
+		final LongBuffer oldKeys = keys;
+		final IntBuffer oldValues = values;
+
+		allocate(oldKeys.capacity() << 1);
+
+		final int mask = keys.capacity() - 1;
+
+		for (int i = 0; i < oldKeys.capacity(); i++) {
+
+			final long key = oldKeys.get(i);
+
+			if (key == EMPTY_KEY) {
+
+				continue;
+			}
+
+			int slot = slot(key);
+
+			while (keys.get(slot) != EMPTY_KEY) {
+
+				slot = (slot + 1) & mask;
+			}
+
+			keys.put(slot, key);
+			values.put(slot, oldValues.get(i));
+		}
+	}
+}
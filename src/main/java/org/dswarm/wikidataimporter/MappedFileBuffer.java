@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only, memory-mapped view of a (potentially > 2 GB) file, which is mapped in windows of 1 GB. Values that span two windows are
+ * read byte-wise.
+ *
+ * @author tgaengler
+ */
+final class MappedFileBuffer {
+
+	private static final int  WINDOW_SHIFT = 30;
+	private static final long WINDOW_SIZE  = 1L << WINDOW_SHIFT;
+	private static final long WINDOW_MASK  = WINDOW_SIZE - 1;
+
+	private final MappedByteBuffer[] windows;
+	private final long               size;
+
+	MappedFileBuffer(final FileChannel channel) throws IOException {
+
+		size = channel.size();
+
+		final int windowCount = (int) ((size + WINDOW_SIZE - 1) >>> WINDOW_SHIFT);
+
+		windows = new MappedByteBuffer[windowCount];
+
+		for (int i = 0; i < windowCount; i++) {
+
+			final long windowStart = (long) i << WINDOW_SHIFT;
+
+			windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+		}
+	}
+
+	long size() {
+
+		return size;
+	}
+
+	byte get(final long position) {
+
+		return windows[(int) (position >>> WINDOW_SHIFT)].get((int) (position & WINDOW_MASK));
+	}
+
+	int getInt(final long position) {
+
+		final int offset = (int) (position & WINDOW_MASK);
+
+		if (offset + Integer.BYTES <= WINDOW_SIZE) {
+
+			return windows[(int) (position >>> WINDOW_SHIFT)].getInt(offset);
+		}
+
+		int value = 0;
+
+		for (int i = 0; i < Integer.BYTES; i++) {
+
+			value = (value << 8) | (get(position + i) & 0xFF);
+		}
+
+		return value;
+	}
+
+	long getLong(final long position) {
+
+		final int offset = (int) (position & WINDOW_MASK);
+
+		if (offset + Long.BYTES <= WINDOW_SIZE) {
+
+			return windows[(int) (position >>> WINDOW_SHIFT)].getLong(offset);
+		}
+
+		long value = 0;
+
+		for (int i = 0; i < Long.BYTES; i++) {
+
+			value = (value << 8) | (get(position + i) & 0xFF);
+		}
+
+		return value;
+	}
+
+	void get(final long position, final byte[] bytes, final int offset, final int length) {
+
+		int copied = 0;
+
+		while (copied < length) {
+
+			final long currentPosition = position + copied;
+			final int windowOffset = (int) (currentPosition & WINDOW_MASK);
+			final MappedByteBuffer window = windows[(int) (currentPosition >>> WINDOW_SHIFT)];
+			final int copyLength = (int) Math.min(length - copied, WINDOW_SIZE - windowOffset);
+
+			// note: absolute bulk gets are not available in Java 8, i.e., utilise a duplicate for thread-safety
+			final ByteBuffer windowView = window.duplicate();
+
+			windowView.position(windowOffset);
+			windowView.get(bytes, offset + copied, copyLength);
+
+			copied += copyLength;
+		}
+	}
+}
@@ -0,0 +1,685 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.implementation.PropertyDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DataObjectFactory;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.json.jackson.JacksonObjectFactory;
+import org.wikidata.wdtk.datamodel.json.jackson.JacksonPropertyDocument;
+
+/**
+ * Writes all entities into a MediaWiki XML dump (one page with one revision per item or property), which can be loaded into a fresh
+ * Wikibase via 'php maintenance/importDump.php' (afterwards, the Wikibase id counters and secondary tables need to be rebuild, e.g., via
+ * 'php maintenance/rebuildall.php'). The content of each revision is the Wikibase entity JSON.<br/>
+ * The entity identifiers are pre-assigned deterministically (in order of appearance, continuing the given URI -> identifier mapping), i.e.,
+ * no API request is necessary. The dump is written in a streaming fashion; placeholder items (i.e. items that are referenced but not (yet)
+ * written) are kept until they are written at the end of the dump (the oldest ones are spilled to a temporary file, if there are more than
+ * a given maximum).<br/>
+ * The page id of an entity is derived from its identifier (items: 2n, properties: 2n - 1), i.e., it is stable over subsequent dumps; the
+ * revision ids continue over subsequent dumps (the last one is persisted next to the entity id mapping file).<br/>
+ * note: the entity creation is synchronized, i.e., this target can be utilised by concurrent imports, but writes sequentially
+ *
+ * @author tgaengler
+ */
+public class MediaWikiXMLDumpImportTarget implements WikibaseImportTarget {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MediaWikiXMLDumpImportTarget.class);
+
+	private static final LogSampler PAGE_LOG = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
+
+	private static final String MEDIAWIKI_EXPORT_NAMESPACE = "http://www.mediawiki.org/xml/export-0.10/";
+	private static final String MEDIAWIKI_EXPORT_VERSION   = "0.10";
+	private static final String XML_ENCODING               = "UTF-8";
+
+	private static final String MEDIAWIKI_ELEMENT       = "mediawiki";
+	private static final String PAGE_ELEMENT            = "page";
+	private static final String TITLE_ELEMENT           = "title";
+	private static final String NS_ELEMENT              = "ns";
+	private static final String ID_ELEMENT              = "id";
+	private static final String REVISION_ELEMENT        = "revision";
+	private static final String TIMESTAMP_ELEMENT       = "timestamp";
+	private static final String CONTRIBUTOR_ELEMENT     = "contributor";
+	private static final String USERNAME_ELEMENT        = "username";
+	private static final String COMMENT_ELEMENT         = "comment";
+	private static final String MODEL_ELEMENT           = "model";
+	private static final String FORMAT_ELEMENT          = "format";
+	private static final String TEXT_ELEMENT            = "text";
+	private static final String VERSION_ATTRIBUTE       = "version";
+	private static final String XML_LANG_ATTRIBUTE      = "xml:lang";
+	private static final String XML_SPACE_ATTRIBUTE     = "xml:space";
+	private static final String XML_SPACE_PRESERVE      = "preserve";
+	private static final String LANGUAGE_CODE_EN        = "en";
+	private static final String WIKIBASE_ITEM_MODEL     = "wikibase-item";
+	private static final String WIKIBASE_PROPERTY_MODEL = "wikibase-property";
+	private static final String JSON_FORMAT             = "application/json";
+	private static final String REVISION_COMMENT        = "D:SWARM GDM import";
+
+	public static final String DEFAULT_ITEM_NAMESPACE_NAME     = "Item";
+	public static final int    DEFAULT_ITEM_NAMESPACE_ID       = 120;
+	public static final String DEFAULT_PROPERTY_NAMESPACE_NAME = "Property";
+	public static final int    DEFAULT_PROPERTY_NAMESPACE_ID   = 122;
+	public static final String DEFAULT_CONTRIBUTOR             = "DMP 2000";
+
+	public static final int DEFAULT_MAX_PENDING_PLACEHOLDER_ITEMS = 100000;
+
+	/**
+	 * the target name of the metrics (+ cost profiles) of the dump
+	 */
+	public static final String TARGET_NAME = "xml-dump";
+
+	private static final String REVISION_ID_FILE_POSTFIX = ".revision-id";
+	private static final String SPILL_FILE_PREFIX        = "pending-placeholder-items-";
+	private static final String SPILL_FILE_POSTFIX       = ".tsv";
+	private static final String WRITTEN_ITEMS_PREFIX     = "written-items-";
+	private static final String WRITTEN_ITEMS_POSTFIX    = ".log";
+	private static final char   SPILL_FILE_SEPARATOR     = '\t';
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+
+	private static final DataObjectFactory  jsonObjectFactory  = new JacksonObjectFactory();
+	private static final DatamodelConverter datamodelConverter = new DatamodelConverter(jsonObjectFactory);
+
+	private final OutputStream    dumpStream;
+	private final XMLStreamWriter dumpWriter;
+	private final EntityIdMapping entityIdMapping;
+	private final String          timestamp;
+	private final String          contributor;
+
+	private final String itemNamespaceName;
+	private final int    itemNamespaceId;
+	private final String propertyNamespaceName;
+	private final int    propertyNamespaceId;
+
+	/**
+	 * placeholder items, which are not written yet (resource URI -> item id)
+	 */
+	private final Map<String, String> pendingPlaceholderItems = new LinkedHashMap<>();
+	private final int                 maxPendingPlaceholderItems;
+	private final Path                spillDirectory;
+	private final Path                revisionIdFile;
+	private final ImportMetrics       metrics;
+
+	/**
+	 * the spilled placeholder items (resource URI + item id lines) and the (full) items that were written after their placeholder items
+	 * had been spilled; both are created on first spill
+	 */
+	private Path              spillFile;
+	private BufferedWriter    spillWriter;
+	private Path              writtenItemsFile;
+	private DiskEntityIdStore writtenItems;
+	private long              spilledPlaceholderItemCount;
+
+	private long nextItemId;
+	private long nextPropertyId;
+	private long lastRevisionId;
+	private long pageCount;
+
+	public MediaWikiXMLDumpImportTarget(final Path dumpFile, final Path entityIdMappingFile) throws IOException, WikidataImporterException {
+
+		this(dumpFile, entityIdMappingFile, DEFAULT_ITEM_NAMESPACE_NAME, DEFAULT_ITEM_NAMESPACE_ID, DEFAULT_PROPERTY_NAMESPACE_NAME,
+				DEFAULT_PROPERTY_NAMESPACE_ID, DEFAULT_CONTRIBUTOR, Instant.now());
+	}
+
+	public MediaWikiXMLDumpImportTarget(final Path dumpFile, final Path entityIdMappingFile, final String itemNamespaceName,
+			final int itemNamespaceId, final String propertyNamespaceName, final int propertyNamespaceId, final String contributor,
+			final Instant timestamp) throws IOException, WikidataImporterException {
+
+		this(dumpFile, entityIdMappingFile, itemNamespaceName, itemNamespaceId, propertyNamespaceName, propertyNamespaceId, contributor,
+				timestamp, DEFAULT_MAX_PENDING_PLACEHOLDER_ITEMS);
+	}
+
+	/**
+	 * @param maxPendingPlaceholderItems the maximum number of placeholder items that are kept in memory (until the end of the dump); further
+	 *                                   ones are spilled to a temporary file next to the dump file
+	 */
+	public MediaWikiXMLDumpImportTarget(final Path dumpFile, final Path entityIdMappingFile, final String itemNamespaceName,
+			final int itemNamespaceId, final String propertyNamespaceName, final int propertyNamespaceId, final String contributor,
+			final Instant timestamp, final int maxPendingPlaceholderItems) throws IOException, WikidataImporterException {
+
+		this.maxPendingPlaceholderItems = maxPendingPlaceholderItems;
+		this.itemNamespaceName = itemNamespaceName;
+		this.itemNamespaceId = itemNamespaceId;
+		this.propertyNamespaceName = propertyNamespaceName;
+		this.propertyNamespaceId = propertyNamespaceId;
+		this.contributor = contributor;
+		this.timestamp = timestamp.truncatedTo(ChronoUnit.SECONDS).toString();
+
+		spillDirectory = dumpFile.toAbsolutePath().getParent();
+		revisionIdFile = entityIdMappingFile.resolveSibling(entityIdMappingFile.getFileName() + REVISION_ID_FILE_POSTFIX);
+
+		entityIdMapping = new EntityIdMapping(entityIdMappingFile);
+		nextItemId = entityIdMapping.getMaxItemId() + 1;
+		nextPropertyId = entityIdMapping.getMaxPropertyId() + 1;
+
+		try {
+
+			lastRevisionId = readLastRevisionId();
+		} catch (final IOException | RuntimeException e) {
+
+			entityIdMapping.close();
+
+			throw e;
+		}
+
+		LOG.info("write MediaWiki XML dump to '{}' (entity id mapping = '{}'; next item id = '{}{}'; next property id = '{}{}'; "
+						+ "next revision id = '{}')", dumpFile, entityIdMappingFile, EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX, nextItemId,
+				EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX, nextPropertyId, lastRevisionId + 1);
+
+		dumpStream = new BufferedOutputStream(Files.newOutputStream(dumpFile));
+
+		try {
+
+			dumpWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(dumpStream, XML_ENCODING);
+
+			dumpWriter.writeStartDocument(XML_ENCODING, "1.0");
+			dumpWriter.writeCharacters("\n");
+			dumpWriter.writeStartElement(MEDIAWIKI_ELEMENT);
+			dumpWriter.writeDefaultNamespace(MEDIAWIKI_EXPORT_NAMESPACE);
+			dumpWriter.writeAttribute(VERSION_ATTRIBUTE, MEDIAWIKI_EXPORT_VERSION);
+			dumpWriter.writeAttribute(XML_LANG_ATTRIBUTE, LANGUAGE_CODE_EN);
+			dumpWriter.writeCharacters("\n");
+		} catch (final XMLStreamException e) {
+
+			dumpStream.close();
+			entityIdMapping.close();
+
+			final String message = String.format("couldn't initialise MediaWiki XML dump at '%s'", dumpFile);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+
+		metrics = new ImportMetrics(TARGET_NAME);
+	}
+
+	@Override
+	public synchronized PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty) throws WikidataImporterException {
+
+		final Optional<String> optionalPropertyId = entityIdMapping.getEntityId(propertyIdentifier);
+
+		if (optionalPropertyId.isPresent()) {
+
+			// property was already created in a previous run (i.e. it should be part of a previous dump)
+			return Datamodel.makePropertyIdValue(optionalPropertyId.get(), null);
+		}
+
+		final String propertyId = EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX + nextPropertyId++;
+		final PropertyIdValue propertyIdValue = Datamodel.makePropertyIdValue(propertyId, null);
+
+		putEntityId(propertyIdentifier, propertyId);
+
+		// note: list of descriptions cannot be null
+		// note: list of aliases cannot be null
+		final PropertyDocument identifiedProperty = Datamodel.makePropertyDocument(propertyIdValue, values(wikidataProperty.getLabels()),
+				values(wikidataProperty.getDescriptions()), aliases(wikidataProperty.getAliases()), wikidataProperty.getDatatype());
+
+		final JacksonPropertyDocument jacksonProperty = JacksonPropertyDocument
+				.fromPropertyDocumentImpl((PropertyDocumentImpl) identifiedProperty);
+
+		writePage(propertyIdentifier, propertyId, propertyNamespaceName, propertyNamespaceId, WIKIBASE_PROPERTY_MODEL, serialize(jacksonProperty));
+
+		return propertyIdValue;
+	}
+
+	@Override
+	public synchronized ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		final Optional<String> optionalItemId = entityIdMapping.getEntityId(resourceURI);
+
+		if (optionalItemId.isPresent()) {
+
+			return Datamodel.makeItemIdValue(optionalItemId.get(), null);
+		}
+
+		final String itemId = assignItemId(resourceURI);
+
+		// the placeholder item will only be written, if the full item won't be written until the end of the dump
+		addPendingPlaceholderItem(resourceURI, itemId);
+
+		return Datamodel.makeItemIdValue(itemId, null);
+	}
+
+	@Override
+	public synchronized ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		final String itemId;
+
+		final Optional<String> optionalItemId = entityIdMapping.getEntityId(resourceURI);
+
+		if (optionalItemId.isPresent()) {
+
+			itemId = optionalItemId.get();
+
+			removePendingPlaceholderItem(resourceURI, itemId);
+		} else {
+
+			itemId = assignItemId(resourceURI);
+		}
+
+		writeItem(resourceURI, itemId, wikidataItem);
+
+		return Datamodel.makeItemIdValue(itemId, null);
+	}
+
+	/**
+	 * Writes a new revision of the already existing item, i.e., the full item always replaces the (placeholder) item.
+	 */
+	@Override
+	public synchronized ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem,
+			final boolean placeholder) throws WikidataImporterException {
+
+		if (!entityIdMapping.getEntityId(resourceURI).isPresent()) {
+
+			putEntityId(resourceURI, itemId.getId());
+		}
+
+		// note: the full item replaces a pending placeholder item
+		removePendingPlaceholderItem(resourceURI, itemId.getId());
+
+		writeItem(resourceURI, itemId.getId(), wikidataItem);
+
+		return itemId;
+	}
+
+	@Override
+	public ImportMetrics getMetrics() {
+
+		return metrics;
+	}
+
+	/**
+	 * Writes the remaining placeholder items and finishes the dump.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+
+		try {
+
+			for (final Map.Entry<String, String> pendingPlaceholderItemEntry : pendingPlaceholderItems.entrySet()) {
+
+				writePlaceholderItem(pendingPlaceholderItemEntry.getKey(), pendingPlaceholderItemEntry.getValue());
+			}
+
+			pendingPlaceholderItems.clear();
+
+			writeSpilledPlaceholderItems();
+
+			dumpWriter.writeEndElement();
+			dumpWriter.writeCharacters("\n");
+			dumpWriter.writeEndDocument();
+			dumpWriter.close();
+
+			writeLastRevisionId();
+
+			LOG.info("wrote '{}' pages to MediaWiki XML dump (last revision id = '{}'; spilled placeholder items = '{}')", pageCount,
+					lastRevisionId, spilledPlaceholderItemCount);
+		} catch (final XMLStreamException | WikidataImporterException e) {
+
+			throw new IOException("couldn't finish MediaWiki XML dump", e);
+		} finally {
+
+			try {
+
+				dumpStream.close();
+				entityIdMapping.close();
+			} finally {
+
+				removeSpillFiles();
+				metrics.close();
+			}
+		}
+	}
+
+	private void addPendingPlaceholderItem(final String resourceURI, final String itemId) throws WikidataImporterException {
+
+		pendingPlaceholderItems.put(resourceURI, itemId);
+
+		if (pendingPlaceholderItems.size() <= maxPendingPlaceholderItems) {
+
+			return;
+		}
+
+		final Iterator<Map.Entry<String, String>> pendingPlaceholderItemIterator = pendingPlaceholderItems.entrySet().iterator();
+		final Map.Entry<String, String> eldestPendingPlaceholderItem = pendingPlaceholderItemIterator.next();
+
+		try {
+
+			if (spillWriter == null) {
+
+				spillFile = Files.createTempFile(spillDirectory, SPILL_FILE_PREFIX, SPILL_FILE_POSTFIX);
+				spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+				writtenItemsFile = Files.createTempFile(spillDirectory, WRITTEN_ITEMS_PREFIX, WRITTEN_ITEMS_POSTFIX);
+				writtenItems = new DiskEntityIdStore(writtenItemsFile, uri -> {
+
+					// note: a new (empty) log, i.e., there are no existing URIs
+				});
+
+				LOG.info("more than '{}' pending placeholder items; spill the oldest ones to '{}'", maxPendingPlaceholderItems, spillFile);
+			}
+
+			spillWriter.append(eldestPendingPlaceholderItem.getKey()).append(SPILL_FILE_SEPARATOR).append(eldestPendingPlaceholderItem.getValue());
+			spillWriter.newLine();
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't spill placeholder item of '%s'", eldestPendingPlaceholderItem.getKey());
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+
+		pendingPlaceholderItemIterator.remove();
+
+		spilledPlaceholderItemCount++;
+	}
+
+	/**
+	 * a full item was written, i.e., its (pending or spilled) placeholder item must not be written anymore
+	 */
+	private void removePendingPlaceholderItem(final String resourceURI, final String itemId) throws WikidataImporterException {
+
+		if (pendingPlaceholderItems.remove(resourceURI) != null || writtenItems == null) {
+
+			return;
+		}
+
+		try {
+
+			writtenItems.put(resourceURI, (int) parseNumericId(itemId));
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't mark item '%s' of '%s' as written", itemId, resourceURI);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	private void writeSpilledPlaceholderItems() throws WikidataImporterException {
+
+		if (spillWriter == null) {
+
+			return;
+		}
+
+		try {
+
+			spillWriter.close();
+
+			try (final BufferedReader spillReader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+
+				String line;
+
+				while ((line = spillReader.readLine()) != null) {
+
+					final int separatorIndex = line.lastIndexOf(SPILL_FILE_SEPARATOR);
+					final String resourceURI = line.substring(0, separatorIndex);
+
+					if (writtenItems.get(resourceURI) == EntityIdCache.NO_ENTITY_ID) {
+
+						writePlaceholderItem(resourceURI, line.substring(separatorIndex + 1));
+					}
+				}
+			}
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't read spilled placeholder items from '%s'", spillFile);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	private void removeSpillFiles() throws IOException {
+
+		if (spillWriter == null) {
+
+			return;
+		}
+
+		try {
+
+			spillWriter.close();
+			writtenItems.close();
+		} finally {
+
+			Files.deleteIfExists(spillFile);
+			Files.deleteIfExists(writtenItemsFile);
+		}
+	}
+
+	/**
+	 * @return the last revision id of the previous dumps; if there is no persisted one (e.g. a mapping of an older version), the number of
+	 * mapped entities, i.e., the first revision of every entity
+	 */
+	private long readLastRevisionId() throws IOException {
+
+		if (!Files.exists(revisionIdFile)) {
+
+			return entityIdMapping.size();
+		}
+
+		final String lastRevisionIdString = new String(Files.readAllBytes(revisionIdFile), StandardCharsets.UTF_8).trim();
+
+		try {
+
+			return Long.parseLong(lastRevisionIdString);
+		} catch (final NumberFormatException e) {
+
+			throw new IOException(String.format("couldn't read last revision id from '%s' (was '%s')", revisionIdFile, lastRevisionIdString), e);
+		}
+	}
+
+	private void writeLastRevisionId() throws IOException {
+
+		Files.write(revisionIdFile, String.valueOf(lastRevisionId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void writePlaceholderItem(final String resourceURI, final String itemId) throws WikidataImporterException {
+
+		final List<MonolingualTextValue> labels = generateLabels(resourceURI);
+
+		// note: list of descriptions cannot be null
+		// note: list of aliases cannot be null
+		// note: list of statement groups cannot be null
+		final ItemDocument placeholderItem = Datamodel.makeItemDocument(null, labels, generateLabels(resourceURI), new ArrayList<>(),
+				new ArrayList<>(), new LinkedHashMap<>());
+
+		writeItem(resourceURI, itemId, placeholderItem);
+	}
+
+	private String assignItemId(final String resourceURI) throws WikidataImporterException {
+
+		final String itemId = EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + nextItemId++;
+
+		putEntityId(resourceURI, itemId);
+
+		return itemId;
+	}
+
+	private void writeItem(final String resourceURI, final String itemId, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		final ItemIdValue itemIdValue = Datamodel.makeItemIdValue(itemId, null);
+
+		// note: list of descriptions cannot be null
+		// note: list of aliases cannot be null
+		// note: list of statement groups cannot be null
+		final ItemDocument identifiedItem = Datamodel.makeItemDocument(itemIdValue, values(wikidataItem.getLabels()),
+				values(wikidataItem.getDescriptions()), aliases(wikidataItem.getAliases()), wikidataItem.getStatementGroups(),
+				wikidataItem.getSiteLinks());
+
+		final ItemDocument jacksonItem = datamodelConverter.copy(identifiedItem);
+
+		writePage(resourceURI, itemId, itemNamespaceName, itemNamespaceId, WIKIBASE_ITEM_MODEL, serialize(jacksonItem));
+	}
+
+	private void writePage(final String uri, final String entityId, final String namespaceName, final int namespaceId, final String model,
+			final String entityJSONString) throws WikidataImporterException {
+
+		// note: items + properties have their own identifier sequences, i.e., their page ids are interleaved
+		final long numericId = parseNumericId(entityId);
+		final long pageId = entityId.startsWith(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX) ? 2 * numericId : 2 * numericId - 1;
+		final long revisionId = ++lastRevisionId;
+
+		pageCount++;
+
+		try {
+
+			dumpWriter.writeStartElement(PAGE_ELEMENT);
+			writeElement(TITLE_ELEMENT, namespaceName + ':' + entityId);
+			writeElement(NS_ELEMENT, String.valueOf(namespaceId));
+			writeElement(ID_ELEMENT, String.valueOf(pageId));
+
+			dumpWriter.writeStartElement(REVISION_ELEMENT);
+			writeElement(ID_ELEMENT, String.valueOf(revisionId));
+			writeElement(TIMESTAMP_ELEMENT, timestamp);
+
+			dumpWriter.writeStartElement(CONTRIBUTOR_ELEMENT);
+			writeElement(USERNAME_ELEMENT, contributor);
+			dumpWriter.writeEndElement();
+
+			writeElement(COMMENT_ELEMENT, REVISION_COMMENT);
+			writeElement(MODEL_ELEMENT, model);
+			writeElement(FORMAT_ELEMENT, JSON_FORMAT);
+
+			dumpWriter.writeStartElement(TEXT_ELEMENT);
+			dumpWriter.writeAttribute(XML_SPACE_ATTRIBUTE, XML_SPACE_PRESERVE);
+			dumpWriter.writeCharacters(entityJSONString);
+			dumpWriter.writeEndElement();
+
+			// end revision
+			dumpWriter.writeEndElement();
+			// end page
+			dumpWriter.writeEndElement();
+			dumpWriter.writeCharacters("\n");
+		} catch (final XMLStreamException e) {
+
+			final String message = String.format("couldn't write page for '%s' ('%s') to MediaWiki XML dump", entityId, uri);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+
+		PAGE_LOG.debug("wrote page for '{}' ('{}'; '{}' pages so far)", entityId, uri);
+	}
+
+	private void writeElement(final String elementName, final String value) throws XMLStreamException {
+
+		dumpWriter.writeStartElement(elementName);
+		dumpWriter.writeCharacters(value);
+		dumpWriter.writeEndElement();
+	}
+
+	private void putEntityId(final String uri, final String entityId) throws WikidataImporterException {
+
+		try {
+
+			entityIdMapping.putEntityId(uri, entityId);
+		} catch (final IOException e) {
+
+			final String message = String.format("couldn't persist entity id mapping '%s' -> '%s'", uri, entityId);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	private static String serialize(final Object jacksonEntity) throws WikidataImporterException {
+
+		try {
+
+			return MAPPER.writeValueAsString(jacksonEntity);
+		} catch (final JsonProcessingException e) {
+
+			final String message = "couldn't serialize entity";
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	private static long parseNumericId(final String entityId) {
+
+		return Long.parseLong(entityId.substring(1));
+	}
+
+	private static List<MonolingualTextValue> values(final Map<String, MonolingualTextValue> monolingualTextValues) {
+
+		return new ArrayList<>(monolingualTextValues.values());
+	}
+
+	private static List<MonolingualTextValue> aliases(final Map<String, List<MonolingualTextValue>> aliases) {
+
+		final List<MonolingualTextValue> aliasList = new ArrayList<>();
+
+		for (final List<MonolingualTextValue> languageAliases : aliases.values()) {
+
+			aliasList.addAll(languageAliases);
+		}
+
+		return aliasList;
+	}
+
+	private static List<MonolingualTextValue> generateLabels(final String sourceLabel) {
+
+		final List<MonolingualTextValue> labels = new ArrayList<>();
+		labels.add(Datamodel.makeMonolingualTextValue(sourceLabel, LANGUAGE_CODE_EN));
+
+		return labels;
+	}
+}
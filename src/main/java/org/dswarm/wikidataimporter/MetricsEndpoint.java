@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local scrape endpoint of the {@link ImportMetrics} of all targets in the Prometheus text format, i.e., GET /metrics.
+ *
+ * @author tgaengler
+ */
+public class MetricsEndpoint implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+	public static final String METRICS_PATH = "/metrics";
+
+	private static final String GET_METHOD              = "GET";
+	private static final String CONTENT_TYPE_HEADER     = "Content-Type";
+	private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final int    METHOD_NOT_ALLOWED      = 405;
+
+	private static final String DSWARM_METRICS_ENDPOINT_THREAD_NAMING_PATTERN = "dswarm-metrics-endpoint-%d";
+
+	private final HttpServer      server;
+	private final ExecutorService executor;
+
+	/**
+	 * Starts the endpoint.
+	 *
+	 * @param address the address of the endpoint, e.g., localhost:9404
+	 * @throws IOException
+	 */
+	public MetricsEndpoint(final InetSocketAddress address) throws IOException {
+
+		executor = Executors.newSingleThreadExecutor(
+				new BasicThreadFactory.Builder().daemon(true).namingPattern(DSWARM_METRICS_ENDPOINT_THREAD_NAMING_PATTERN).build());
+
+		try {
+
+			server = HttpServer.create(address, 0);
+		} catch (final IOException e) {
+
+			executor.shutdown();
+
+			throw e;
+		}
+
+		server.createContext(METRICS_PATH, this::handle);
+		server.setExecutor(executor);
+		server.start();
+
+		LOG.info("started metrics endpoint @ 'http://{}:{}{}'", address.getHostString(), getAddress().getPort(), METRICS_PATH);
+	}
+
+	public InetSocketAddress getAddress() {
+
+		return server.getAddress();
+	}
+
+	@Override
+	public void close() {
+
+		server.stop(0);
+		executor.shutdown();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+
+		try {
+
+			if (!GET_METHOD.equals(exchange.getRequestMethod())) {
+
+				exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+
+				return;
+			}
+
+			final StringWriter metrics = new StringWriter();
+
+			ImportMetrics.writePrometheus(metrics);
+
+			final byte[] body = metrics.toString().getBytes(StandardCharsets.UTF_8);
+
+			exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, PROMETHEUS_CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+
+			try (final OutputStream responseStream = exchange.getResponseBody()) {
+
+				responseStream.write(body);
+			}
+		} catch (final IOException | RuntimeException e) {
+
+			LOG.error("something went wrong while serving the metrics", e);
+
+			throw e;
+		} finally {
+
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The resolution of a resource object that was not cached (yet), i.e., the creation of its placeholder item or the wait for its creation by
+ * another thread, see {@link ImportEvents}.
+ *
+ * @author tgaengler
+ */
+@Name("org.dswarm.wikidataimporter.PlaceholderItemResolution")
+@Label("Placeholder Item Resolution")
+@Category({ "D:SWARM", "Wikidata Importer" })
+@Description("The resolution of a resource object that was not cached")
+@StackTrace(false)
+class PlaceholderItemResolutionEvent extends Event {
+
+	@Label("Resource URI")
+	String resourceURI;
+
+	@Label("Created")
+	@Description("Whether the placeholder item was created by this thread")
+	boolean created;
+
+	PlaceholderItemResolutionEvent() {
+
+		begin();
+	}
+
+	/**
+	 * note: {@link #created} is set by the creating thread
+	 */
+	void record(final String resourceURI) {
+
+		if (shouldCommit()) {
+
+			this.resourceURI = resourceURI;
+
+			commit();
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the outbound requests of a Wikibase API client with a bounded number of threads. Waiting requests are ordered by their
+ * {@link RequestPriority}, i.e., blocking dependencies (sessions, warm-up reads, property creations, placeholder items) jump the queue of (full) item
+ * edits. Starvation protection: the queue order is earliest deadline first, whereby the deadline of a request is its submission time plus
+ * one aging step (default: {@link #DEFAULT_AGING_STEP_MILLIS}) per priority class below the highest one, i.e., a waiting request will be
+ * executed before a higher priority request that was submitted more aging steps later than the difference of their priority classes, e.g.,
+ * an item edit before a property creation that was submitted more than 2 aging steps later.
+ *
+ * @author tgaengler
+ */
+public class PriorityRequestScheduler implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PriorityRequestScheduler.class);
+
+	public static final long DEFAULT_AGING_STEP_MILLIS = 2000;
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static final String DSWARM_WIKIBASE_API_REQUEST_THREAD_NAMING_PATTERN = "dswarm-wikibase-api-request-%d";
+
+	private final ThreadPoolExecutor executor;
+	private final long               agingStepNanos;
+	private final AtomicLong         sequence = new AtomicLong();
+
+	private final Map<RequestPriority, Executor>   laneExecutors     = new EnumMap<>(RequestPriority.class);
+	private final Map<RequestPriority, AtomicLong> laneRequestCounts = new EnumMap<>(RequestPriority.class);
+	private final Map<RequestPriority, AtomicLong> laneWaitingNanos  = new EnumMap<>(RequestPriority.class);
+
+	/**
+	 * @param maxConcurrentRequests the maximum number of requests that are executed concurrently
+	 */
+	public PriorityRequestScheduler(final int maxConcurrentRequests) {
+
+		this(maxConcurrentRequests, DEFAULT_AGING_STEP_MILLIS);
+	}
+
+	/**
+	 * @param maxConcurrentRequests the maximum number of requests that are executed concurrently
+	 * @param agingStepMillis       the waiting time (in milliseconds) after which a request overtakes the requests of the next higher
+	 *                              priority class
+	 */
+	public PriorityRequestScheduler(final int maxConcurrentRequests, final long agingStepMillis) {
+
+		agingStepNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, agingStepMillis));
+
+		final int threadCount = Math.max(1, maxConcurrentRequests);
+
+		executor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+				new BasicThreadFactory.Builder().daemon(true).namingPattern(DSWARM_WIKIBASE_API_REQUEST_THREAD_NAMING_PATTERN).build());
+		executor.allowCoreThreadTimeOut(true);
+
+		for (final RequestPriority priority : RequestPriority.values()) {
+
+			laneExecutors.put(priority, task -> submit(priority, task));
+			laneRequestCounts.put(priority, new AtomicLong());
+			laneWaitingNanos.put(priority, new AtomicLong());
+		}
+	}
+
+	/**
+	 * @param priority the priority class of the requests
+	 * @return an executor that submits tasks with the given priority (e.g. for an Rx scheduler)
+	 */
+	public Executor executor(final RequestPriority priority) {
+
+		return laneExecutors.get(priority);
+	}
+
+	public void submit(final RequestPriority priority, final Runnable request) {
+
+		executor.execute(new PrioritizedRequest(priority, request));
+	}
+
+	/**
+	 * @return the number of waiting requests
+	 */
+	public int getQueuedRequestCount() {
+
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * @param priority the priority class
+	 * @return the average time (in milliseconds) that the requests of the given priority class waited for execution
+	 */
+	public double getAverageWaitingMillis(final RequestPriority priority) {
+
+		final long requestCount = laneRequestCounts.get(priority).get();
+
+		return requestCount == 0 ? 0.0 : laneWaitingNanos.get(priority).get() / (requestCount * 1000000.0);
+	}
+
+	@Override
+	public void close() {
+
+		if (LOG.isDebugEnabled()) {
+
+			for (final RequestPriority priority : RequestPriority.values()) {
+
+				LOG.debug("executed '{}' '{}' requests (average waiting time = '{}' ms)", laneRequestCounts.get(priority).get(), priority,
+						getAverageWaitingMillis(priority));
+			}
+		}
+
+		executor.shutdown();
+	}
+
+	private final class PrioritizedRequest implements Runnable, Comparable<PrioritizedRequest> {
+
+		private final RequestPriority priority;
+		private final Runnable        request;
+		private final long            submissionTime;
+		private final long            deadline;
+		private final long            sequenceNumber;
+
+		private PrioritizedRequest(final RequestPriority priority, final Runnable request) {
+
+			this.priority = priority;
+			this.request = request;
+			submissionTime = System.nanoTime();
+			deadline = submissionTime + priority.ordinal() * agingStepNanos;
+			sequenceNumber = sequence.getAndIncrement();
+		}
+
+		@Override
+		public void run() {
+
+			laneRequestCounts.get(priority).incrementAndGet();
+			laneWaitingNanos.get(priority).addAndGet(System.nanoTime() - submissionTime);
+
+			request.run();
+		}
+
+		@Override
+		public int compareTo(final PrioritizedRequest other) {
+
+			// note: nano times need to be compared by their difference (overflow)
+			final long deadlineDifference = deadline - other.deadline;
+
+			if (deadlineDifference != 0) {
+
+				return deadlineDifference < 0 ? -1 : 1;
+			}
+
+			return Long.compare(sequenceNumber, other.sequenceNumber);
+		}
+	}
+}
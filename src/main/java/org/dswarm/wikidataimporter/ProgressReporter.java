@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the progress of the import of a GDM model periodically (on its own thread), i.e., the read + imported + failed resources, the rates
+ * of resources, statements and edits (created or conflicting entities) per second and the share of failed API requests since the last
+ * report, the API requests in flight, the completion and the ETA (see {@link ImportProgress}). The reporter only samples the counters of the
+ * import progress and of the {@link ImportMetrics} of the targets, i.e., the import threads don't do any progress bookkeeping. Note: the
+ * import metrics are per target, i.e., the statement + edit rates include the imports of other GDM models into the same targets (e.g.
+ * concurrent import jobs).
+ *
+ * @author tgaengler
+ */
+public class ProgressReporter implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProgressReporter.class);
+
+	public static final long DEFAULT_INTERVAL_SECONDS = 10;
+
+	private static final String DSWARM_PROGRESS_REPORTER_THREAD_NAMING_PATTERN = "dswarm-progress-reporter-%d";
+
+	private static final double MILLIS_PER_SECOND = 1000.0;
+
+	private static final String UNKNOWN = "?";
+
+	private final String                    modelName;
+	private final ImportProgress            importProgress;
+	private final Collection<ImportMetrics> targetMetrics;
+	private final ScheduledExecutorService  scheduler;
+
+	private Sample lastSample;
+
+	/**
+	 * Starts the reporter.
+	 *
+	 * @param modelName      the name of the GDM model (for logging)
+	 * @param importProgress the progress of the import of the GDM model
+	 * @param targetMetrics  the metrics of the targets of the import
+	 * @param intervalMillis the report interval in milliseconds (0 = no periodic reports, i.e., only via {@link #report()})
+	 */
+	public ProgressReporter(final String modelName, final ImportProgress importProgress, final Collection<ImportMetrics> targetMetrics,
+			final long intervalMillis) {
+
+		this.modelName = modelName;
+		this.importProgress = importProgress;
+		this.targetMetrics = new ArrayList<>(targetMetrics);
+
+		lastSample = sample();
+
+		if (intervalMillis <= 0) {
+
+			scheduler = null;
+
+			return;
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				new BasicThreadFactory.Builder().daemon(true).namingPattern(DSWARM_PROGRESS_REPORTER_THREAD_NAMING_PATTERN).build());
+
+		scheduler.scheduleAtFixedRate(() -> {
+
+			try {
+
+				report();
+			} catch (final RuntimeException e) {
+
+				// note: an exception would cancel all further reports
+				LOG.warn("couldn't report progress of GDM model '{}'", modelName, e);
+			}
+		}, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Logs the current progress, whereby the rates refer to the period since the last report.
+	 *
+	 * @return the logged progress
+	 */
+	public synchronized String report() {
+
+		final Sample sample = sample();
+		final double seconds = Math.max(1L, sample.time - lastSample.time) / MILLIS_PER_SECOND;
+		final long requests = sample.requests - lastSample.requests;
+		final double failedRequestShare = requests > 0 ? (sample.failedRequests - lastSample.failedRequests) * 100.0 / requests : 0.0;
+
+		final double completion = importProgress.getCompletion();
+		final long remainingMillis = importProgress.getEstimatedRemainingMillis();
+
+		final String progress = String.format("progress of GDM model '%s': '%d' read + '%d' imported + '%d' failed resources, '%.1f' resources/s, "
+						+ "'%.1f' statements/s, '%.1f' edits/s, '%.2f' %% failed requests, '%d' requests in flight, '%s' done, ETA '%s'", modelName,
+				importProgress.getReadResources(), sample.importedResources, importProgress.getFailedResources(),
+				(sample.importedResources - lastSample.importedResources) / seconds, (sample.statements - lastSample.statements) / seconds,
+				(sample.edits - lastSample.edits) / seconds, failedRequestShare, sample.inFlightRequests,
+				completion >= 0.0 ? String.format("%.1f %%", completion * 100.0) : UNKNOWN,
+				remainingMillis >= 0 ? formatDuration(remainingMillis) : UNKNOWN);
+
+		lastSample = sample;
+
+		LOG.info(progress);
+
+		return progress;
+	}
+
+	@Override
+	public void close() {
+
+		if (scheduler != null) {
+
+			scheduler.shutdownNow();
+		}
+	}
+
+	private static String formatDuration(final long millis) {
+
+		final long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+
+		return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+	}
+
+	private Sample sample() {
+
+		final Sample sample = new Sample(System.currentTimeMillis(), importProgress.getImportedResources());
+
+		for (final ImportMetrics metrics : targetMetrics) {
+
+			sample.statements += metrics.getStatements();
+			sample.edits += metrics.getCreatedItems() + metrics.getCreatedPlaceholderItems() + metrics.getCreatedProperties()
+					+ metrics.getConflictedItems() + metrics.getConflictedProperties();
+			sample.requests += metrics.getRequests();
+			sample.failedRequests += metrics.getFailedRequests();
+			sample.inFlightRequests += metrics.getInFlightRequests();
+		}
+
+		return sample;
+	}
+
+	/**
+	 * the counters at a point in time
+	 */
+	private static final class Sample {
+
+		private final long time;
+		private final long importedResources;
+
+		private long statements;
+		private long edits;
+		private long requests;
+		private long failedRequests;
+		private long inFlightRequests;
+
+		private Sample(final long time, final long importedResources) {
+
+			this.time = time;
+			this.importedResources = importedResources;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The resolution of a property that was not cached (yet), i.e., its creation or the wait for its creation by another thread, see
+ * {@link ImportEvents}.
+ *
+ * @author tgaengler
+ */
+@Name("org.dswarm.wikidataimporter.PropertyResolution")
+@Label("Property Resolution")
+@Category({ "D:SWARM", "Wikidata Importer" })
+@Description("The resolution of a property that was not cached")
+@StackTrace(false)
+class PropertyResolutionEvent extends Event {
+
+	@Label("Property Identifier")
+	String propertyIdentifier;
+
+	@Label("Datatype")
+	String datatype;
+
+	@Label("Created")
+	@Description("Whether the property was created by this thread")
+	boolean created;
+
+	PropertyResolutionEvent() {
+
+		begin();
+	}
+
+	/**
+	 * note: {@link #created} is set by the creating thread
+	 */
+	void record(final String propertyIdentifier, final String datatype) {
+
+		if (shouldCommit()) {
+
+			this.propertyIdentifier = propertyIdentifier;
+			this.datatype = datatype;
+
+			commit();
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the given source stream ahead on its own thread into large buffers, i.e., an expensive source stream (e.g. decompression) overlaps
+ * with the processing of the read data (e.g. parsing) instead of adding to the critical path.
+ *
+ * @author tgaengler
+ */
+public class ReadAheadInputStream extends InputStream {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReadAheadInputStream.class);
+
+	private static final String DSWARM_READ_AHEAD_THREAD_NAMING_PATTERN = "dswarm-read-ahead-%d";
+
+	public static final int DEFAULT_BUFFER_SIZE  = 4 * 1024 * 1024;
+	public static final int DEFAULT_BUFFER_COUNT = 4;
+
+	private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+	private static final Chunk END_OF_STREAM = new Chunk(new byte[0], 0, null);
+
+	private final InputStream          source;
+	private final BlockingQueue<Chunk> chunks;
+	private final Thread               readAheadThread;
+
+	private Chunk   currentChunk;
+	private int     currentChunkPosition;
+	private boolean endOfStream;
+
+	private volatile boolean closed;
+
+	public ReadAheadInputStream(final InputStream source) {
+
+		this(source, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+	}
+
+	/**
+	 * @param source      the stream that should be read ahead
+	 * @param bufferSize  the size of a read-ahead buffer
+	 * @param bufferCount the maximum number of filled read-ahead buffers
+	 */
+	public ReadAheadInputStream(final InputStream source, final int bufferSize, final int bufferCount) {
+
+		this.source = source;
+
+		chunks = new ArrayBlockingQueue<>(bufferCount);
+
+		readAheadThread = new Thread(() -> readAhead(bufferSize),
+				String.format(DSWARM_READ_AHEAD_THREAD_NAMING_PATTERN, THREAD_COUNTER.incrementAndGet()));
+		readAheadThread.setDaemon(true);
+		readAheadThread.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+
+		if (!ensureChunk()) {
+
+			return -1;
+		}
+
+		return currentChunk.bytes[currentChunkPosition++] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+
+		if (length == 0) {
+
+			return 0;
+		}
+
+		if (!ensureChunk()) {
+
+			return -1;
+		}
+
+		final int readLength = Math.min(length, currentChunk.length - currentChunkPosition);
+
+		System.arraycopy(currentChunk.bytes, currentChunkPosition, bytes, offset, readLength);
+
+		currentChunkPosition += readLength;
+
+		return readLength;
+	}
+
+	@Override
+	public int available() {
+
+		return currentChunk != null ? currentChunk.length - currentChunkPosition : 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		if (closed) {
+
+			return;
+		}
+
+		closed = true;
+
+		readAheadThread.interrupt();
+		chunks.clear();
+
+		source.close();
+	}
+
+	/**
+	 * @return true, if the current chunk has some bytes left
+	 */
+	private boolean ensureChunk() throws IOException {
+
+		if (closed) {
+
+			throw new IOException("stream is closed");
+		}
+
+		while (!endOfStream && (currentChunk == null || currentChunkPosition == currentChunk.length)) {
+
+			try {
+
+				currentChunk = chunks.take();
+				currentChunkPosition = 0;
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				throw new IOException("interrupted while waiting for read-ahead data", e);
+			}
+
+			if (currentChunk.failure != null) {
+
+				endOfStream = true;
+
+				throw new IOException("couldn't read ahead from source stream", currentChunk.failure);
+			}
+
+			if (currentChunk == END_OF_STREAM) {
+
+				endOfStream = true;
+			}
+		}
+
+		return !endOfStream;
+	}
+
+	private void readAhead(final int bufferSize) {
+
+		try {
+
+			while (!closed) {
+
+				final byte[] buffer = new byte[bufferSize];
+
+				int length = 0;
+				int read = 0;
+
+				// fill the buffer completely (if possible), since the source may return only a few bytes at once
+				while (length < bufferSize && (read = source.read(buffer, length, bufferSize - length)) != -1) {
+
+					length += read;
+				}
+
+				if (length > 0) {
+
+					chunks.put(new Chunk(length < bufferSize ? Arrays.copyOf(buffer, length) : buffer, length, null));
+				}
+
+				if (read == -1) {
+
+					chunks.put(END_OF_STREAM);
+
+					return;
+				}
+			}
+		} catch (final InterruptedException e) {
+
+			// closed by the consumer
+			Thread.currentThread().interrupt();
+		} catch (final IOException | RuntimeException e) {
+
+			if (closed) {
+
+				return;
+			}
+
+			LOG.debug("couldn't read ahead from source stream", e);
+
+			try {
+
+				chunks.put(new Chunk(null, 0, e));
+			} catch (final InterruptedException e1) {
+
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static final class Chunk {
+
+		private final byte[]    bytes;
+		private final int       length;
+		private final Exception failure;
+
+		private Chunk(final byte[] bytes, final int length, final Exception failure) {
+
+			this.bytes = bytes;
+			this.length = length;
+			this.failure = failure;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+/**
+ * The priority classes (lanes) of the outbound Wikibase API requests, ordered from highest to lowest priority: requests that many other
+ * (queued) requests depend on, should be executed first.
+ *
+ * @author tgaengler
+ */
+public enum RequestPriority {
+
+	/**
+	 * login + token requests (every other request depends on them)
+	 */
+	SESSION,
+
+	/**
+	 * the reads of the entity id cache warm-up, i.e., page listings + label requests (the import waits for the warm-up, before it creates
+	 * any entity). Note: the warm-up reads have their own lane, since queueing them behind the (full) item edits of a running import (e.g.
+	 * another shard of the same target) would delay the start of the import, while they must not outrank the session requests they depend
+	 * on.
+	 */
+	WARM_UP,
+
+	/**
+	 * property creations (all statements with this property depend on them)
+	 */
+	PROPERTY_CREATE,
+
+	/**
+	 * placeholder item creations, i.e., items that are referenced as statement objects (the referencing items depend on them)
+	 */
+	PLACEHOLDER_ITEM,
+
+	/**
+	 * (full) item creations + edits (nothing depends on them)
+	 */
+	ITEM_EDIT
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The import of a GDM resource as item (incl. the resolution of its properties + placeholder items), see {@link ImportEvents}.
+ *
+ * @author tgaengler
+ */
+@Name("org.dswarm.wikidataimporter.ResourceImport")
+@Label("Resource Import")
+@Category({ "D:SWARM", "Wikidata Importer" })
+@Description("The import of a GDM resource as item")
+@StackTrace(false)
+class ResourceImportEvent extends Event {
+
+	@Label("Resource URI")
+	String resourceURI;
+
+	@Label("Statements")
+	int statementCount;
+
+	@Label("Conversion Duration")
+	@Description("The duration of the conversion of the resource into an item incl. property + placeholder item resolution")
+	@Timespan(Timespan.NANOSECONDS)
+	long conversionDuration;
+
+	@Label("Created")
+	@Description("Whether an item was created, i.e., false, if an item of the resource existed already")
+	boolean created;
+
+	private transient long conversionStart;
+
+	ResourceImportEvent() {
+
+		begin();
+
+		if (isEnabled()) {
+
+			conversionStart = System.nanoTime();
+		}
+	}
+
+	void converted() {
+
+		if (isEnabled()) {
+
+			conversionDuration = System.nanoTime() - conversionStart;
+		}
+	}
+
+	void record(final String resourceURI, final int statementCount, final boolean created) {
+
+		if (shouldCommit()) {
+
+			this.resourceURI = resourceURI;
+			this.statementCount = statementCount;
+			this.created = created;
+
+			commit();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A deterministic shard of the resources of GDM models, i.e., a resource belongs to shard i of K, if the (murmur3) hash of its URI modulo K
+ * is i. Hence, K importer processes (e.g. on different hosts) can import the same GDM models, whereby every resource is imported by
+ * exactly one process.
+ *
+ * @author tgaengler
+ */
+public final class ResourceShard {
+
+	/**
+	 * the only shard of an unsharded import, i.e., it contains all resources
+	 */
+	public static final ResourceShard ALL = new ResourceShard(0, 1);
+
+	private static final HashFunction RESOURCE_URI_HASH_FUNCTION = Hashing.murmur3_32();
+
+	private static final String SHARD_SEPARATOR = "/";
+
+	private final int index;
+	private final int count;
+
+	public ResourceShard(final int index, final int count) {
+
+		if (count < 1 || index < 0 || index >= count) {
+
+			throw new IllegalArgumentException(String.format("'%d/%d' is not a valid shard (expected: 0 <= index < count)", index, count));
+		}
+
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * @param shard the shard in the format 'index/count', e.g., '0/4'
+	 * @return the shard
+	 * @throws WikidataImporterException if the shard is not valid
+	 */
+	public static ResourceShard parse(final String shard) throws WikidataImporterException {
+
+		final int separatorIndex = shard.indexOf(SHARD_SEPARATOR);
+
+		try {
+
+			if (separatorIndex > 0) {
+
+				return new ResourceShard(Integer.parseInt(shard.substring(0, separatorIndex).trim()),
+						Integer.parseInt(shard.substring(separatorIndex + 1).trim()));
+			}
+		} catch (final IllegalArgumentException e) {
+
+			// note: NumberFormatException is an IllegalArgumentException as well
+			throw new WikidataImporterException(String.format("'%s' is not a valid shard (expected: '<index>/<count>')", shard), e);
+		}
+
+		throw new WikidataImporterException(String.format("'%s' is not a valid shard (expected: '<index>/<count>')", shard));
+	}
+
+	public int getIndex() {
+
+		return index;
+	}
+
+	public int getCount() {
+
+		return count;
+	}
+
+	public boolean isSharded() {
+
+		return count > 1;
+	}
+
+	/**
+	 * @param resourceURI the URI of a resource
+	 * @return true, if the resource belongs to this shard
+	 */
+	public boolean contains(final String resourceURI) {
+
+		return count == 1 || Math.floorMod(RESOURCE_URI_HASH_FUNCTION.hashString(resourceURI, StandardCharsets.UTF_8).asInt(), count) == index;
+	}
+
+	/**
+	 * @return a file name part that identifies this shard, e.g., 'shard-0-of-4'
+	 */
+	public String getFileNamePart() {
+
+		return String.format("shard-%d-of-%d", index, count);
+	}
+
+	@Override
+	public boolean equals(final Object o) {
+
+		if (this == o) {
+
+			return true;
+		}
+
+		if (!(o instanceof ResourceShard)) {
+
+			return false;
+		}
+
+		final ResourceShard other = (ResourceShard) o;
+
+		return index == other.index && count == other.count;
+	}
+
+	@Override
+	public int hashCode() {
+
+		return 31 * index + count;
+	}
+
+	@Override
+	public String toString() {
+
+		return index + SHARD_SEPARATOR + count;
+	}
+}
@@ -0,0 +1,326 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the progress of (the shard of) an import and writes it to a progress file (e.g. in the shared coordination directory of a sharded
+ * import), i.e., the progress of all shards can be aggregated into one view via {@link #aggregate(Path)}.
+ *
+ * @author tgaengler
+ */
+public class ShardProgress {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ShardProgress.class);
+
+	public static final String PROGRESS_FILE_POSTFIX = ".progress";
+
+	public static final String STATE_RUNNING  = "running";
+	public static final String STATE_FINISHED = "finished";
+
+	private static final String SHARD_KEY             = "shard";
+	private static final String STATE_KEY             = "state";
+	private static final String SHARD_RESOURCES_KEY   = "shard_resources";
+	private static final String SKIPPED_RESOURCES_KEY = "skipped_resources";
+	private static final String IMPORTED_MODELS_KEY   = "imported_models";
+	private static final String FAILED_MODELS_KEY     = "failed_models";
+	private static final String UPDATED_KEY           = "updated";
+	private static final String TEMP_FILE_POSTFIX     = ".tmp";
+	private static final String PROGRESS_FILE_GLOB    = "*" + PROGRESS_FILE_POSTFIX;
+
+	private static final long WRITE_INTERVAL = 10000;
+
+	private final ResourceShard shard;
+	private final Path          progressFile;
+
+	private final AtomicLong shardResources   = new AtomicLong();
+	private final AtomicLong skippedResources = new AtomicLong();
+	private final AtomicLong importedModels   = new AtomicLong();
+	private final AtomicLong failedModels     = new AtomicLong();
+
+	/**
+	 * @param shard             the shard of the import
+	 * @param progressDirectory the directory of the progress file ('&lt;shard&gt;.progress'), or null, if the progress should not be written
+	 */
+	public ShardProgress(final ResourceShard shard, final Path progressDirectory) {
+
+		this.shard = shard;
+		progressFile = progressDirectory != null ? progressDirectory.resolve(shard.getFileNamePart() + PROGRESS_FILE_POSTFIX) : null;
+	}
+
+	public ResourceShard getShard() {
+
+		return shard;
+	}
+
+	/**
+	 * counts a resource of this shard and writes the progress file every {@link #WRITE_INTERVAL} resources
+	 */
+	public void shardResourceRead() {
+
+		if (shardResources.incrementAndGet() % WRITE_INTERVAL == 0) {
+
+			write(STATE_RUNNING);
+		}
+	}
+
+	/**
+	 * counts a resource of another shard
+	 */
+	public void otherResourceRead() {
+
+		skippedResources.incrementAndGet();
+	}
+
+	public void modelImported() {
+
+		importedModels.incrementAndGet();
+
+		write(STATE_RUNNING);
+	}
+
+	public void modelFailed() {
+
+		failedModels.incrementAndGet();
+
+		write(STATE_RUNNING);
+	}
+
+	public void finish() {
+
+		write(STATE_FINISHED);
+	}
+
+	public Snapshot getSnapshot(final String state) {
+
+		return new Snapshot(shard.toString(), state, shardResources.get(), skippedResources.get(), importedModels.get(), failedModels.get(),
+				System.currentTimeMillis());
+	}
+
+	/**
+	 * Reads the progress files of all shards in the given directory.
+	 *
+	 * @param progressDirectory the directory of the progress files
+	 * @return the progress of all shards
+	 * @throws IOException
+	 */
+	public static List<Snapshot> read(final Path progressDirectory) throws IOException {
+
+		final List<Snapshot> snapshots = new ArrayList<>();
+
+		try (final DirectoryStream<Path> progressFiles = Files.newDirectoryStream(progressDirectory, PROGRESS_FILE_GLOB)) {
+
+			for (final Path progressFile : progressFiles) {
+
+				final Properties properties = new Properties();
+
+				try (final InputStream progressStream = Files.newInputStream(progressFile)) {
+
+					properties.load(progressStream);
+				}
+
+				snapshots.add(new Snapshot(properties.getProperty(SHARD_KEY), properties.getProperty(STATE_KEY),
+						getLong(properties, SHARD_RESOURCES_KEY), getLong(properties, SKIPPED_RESOURCES_KEY),
+						getLong(properties, IMPORTED_MODELS_KEY), getLong(properties, FAILED_MODELS_KEY), getLong(properties, UPDATED_KEY)));
+			}
+		}
+
+		snapshots.sort((snapshot1, snapshot2) -> snapshot1.getShard().compareTo(snapshot2.getShard()));
+
+		return snapshots;
+	}
+
+	/**
+	 * Aggregates the progress of all shards in the given directory into one view, i.e., the sums of the resource + model counts of all
+	 * shards; the state is {@link #STATE_FINISHED}, if all shards are finished, and the update time is the latest one.
+	 *
+	 * @param progressDirectory the directory of the progress files
+	 * @return the aggregated progress
+	 * @throws IOException
+	 */
+	public static Snapshot aggregate(final Path progressDirectory) throws IOException {
+
+		final List<Snapshot> snapshots = read(progressDirectory);
+
+		long shardResources = 0;
+		long importedModels = 0;
+		long failedModels = 0;
+		long updated = 0;
+		int finishedShards = 0;
+
+		for (final Snapshot snapshot : snapshots) {
+
+			shardResources += snapshot.getShardResources();
+			importedModels += snapshot.getImportedModels();
+			failedModels += snapshot.getFailedModels();
+			updated = Math.max(updated, snapshot.getUpdated());
+
+			if (STATE_FINISHED.equals(snapshot.getState())) {
+
+				finishedShards++;
+			}
+		}
+
+		final String state = !snapshots.isEmpty() && finishedShards == snapshots.size() ? STATE_FINISHED : STATE_RUNNING;
+
+		// note: every resource belongs to exactly one shard, i.e., the resources of the other shards are not counted again
+		return new Snapshot(String.format("%d shard(s) (%d finished)", snapshots.size(), finishedShards), state, shardResources, 0,
+				importedModels, failedModels, updated);
+	}
+
+	private synchronized void write(final String state) {
+
+		if (progressFile == null) {
+
+			return;
+		}
+
+		final Snapshot snapshot = getSnapshot(state);
+
+		final Properties properties = new Properties();
+
+		properties.setProperty(SHARD_KEY, snapshot.getShard());
+		properties.setProperty(STATE_KEY, snapshot.getState());
+		properties.setProperty(SHARD_RESOURCES_KEY, String.valueOf(snapshot.getShardResources()));
+		properties.setProperty(SKIPPED_RESOURCES_KEY, String.valueOf(snapshot.getSkippedResources()));
+		properties.setProperty(IMPORTED_MODELS_KEY, String.valueOf(snapshot.getImportedModels()));
+		properties.setProperty(FAILED_MODELS_KEY, String.valueOf(snapshot.getFailedModels()));
+		properties.setProperty(UPDATED_KEY, String.valueOf(snapshot.getUpdated()));
+
+		final Path tempFile = progressFile.resolveSibling(progressFile.getFileName() + TEMP_FILE_POSTFIX);
+
+		// note: the progress file is replaced atomically, i.e., a reader never sees a partially written file
+		try (final OutputStream progressStream = Files.newOutputStream(tempFile)) {
+
+			properties.store(progressStream, null);
+		} catch (final IOException e) {
+
+			LOG.warn("couldn't write progress of shard '{}' to '{}'", shard, tempFile, e);
+
+			return;
+		}
+
+		try {
+
+			Files.move(tempFile, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+
+			LOG.warn("couldn't write progress of shard '{}' to '{}'", shard, progressFile, e);
+		}
+	}
+
+	private static long getLong(final Properties properties, final String key) {
+
+		try {
+
+			return Long.parseLong(properties.getProperty(key, "0"));
+		} catch (final NumberFormatException e) {
+
+			return 0;
+		}
+	}
+
+	/**
+	 * the progress of a shard (or the aggregated progress of all shards) at a point in time
+	 */
+	public static final class Snapshot {
+
+		private final String shard;
+		private final String state;
+		private final long   shardResources;
+		private final long   skippedResources;
+		private final long   importedModels;
+		private final long   failedModels;
+		private final long   updated;
+
+		private Snapshot(final String shard, final String state, final long shardResources, final long skippedResources,
+				final long importedModels, final long failedModels, final long updated) {
+
+			this.shard = shard != null ? shard : "";
+			this.state = state != null ? state : STATE_RUNNING;
+			this.shardResources = shardResources;
+			this.skippedResources = skippedResources;
+			this.importedModels = importedModels;
+			this.failedModels = failedModels;
+			this.updated = updated;
+		}
+
+		public String getShard() {
+
+			return shard;
+		}
+
+		public String getState() {
+
+			return state;
+		}
+
+		/**
+		 * @return the number of read resources of the shard
+		 */
+		public long getShardResources() {
+
+			return shardResources;
+		}
+
+		/**
+		 * @return the number of read resources of the other shards
+		 */
+		public long getSkippedResources() {
+
+			return skippedResources;
+		}
+
+		public long getImportedModels() {
+
+			return importedModels;
+		}
+
+		public long getFailedModels() {
+
+			return failedModels;
+		}
+
+		/**
+		 * @return the time of the snapshot (in milliseconds since epoch)
+		 */
+		public long getUpdated() {
+
+			return updated;
+		}
+
+		@Override
+		public String toString() {
+
+			return String.format("shard '%s' (%s): '%d' resources, '%d' skipped resources of other shards, '%d' imported + '%d' failed models",
+					shard, state, shardResources, skippedResources, importedModels, failedModels);
+		}
+	}
+}
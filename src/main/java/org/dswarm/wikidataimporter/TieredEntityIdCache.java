@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link EntityIdCache} for models, whose entity ids don't fit into memory at all: a bounded on-heap hot tier (size-based eviction) in
+ * front of a {@link DiskEntityIdStore}. A Bloom filter (over all URIs of the disk tier) answers "definitely not created yet" without
+ * touching the disk, i.e., lookups of new URIs (the common case at a first import) are cheap as well.<br/>
+ * Note: the hot tier is a Guava cache (segmented LRU), since Guava is a dependency anyway; a W-TinyLFU cache (e.g. Caffeine) would be a
+ * drop-in replacement with a better hit rate for skewed access patterns.
+ *
+ * @author tgaengler
+ */
+public class TieredEntityIdCache extends AbstractEntityIdCache implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TieredEntityIdCache.class);
+
+	public static final long DEFAULT_HOT_TIER_SIZE = 1000000;
+	public static final long DEFAULT_EXPECTED_SIZE = 10000000;
+
+	private static final double BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+	private static final int    HOT_TIER_ENTRY_SIZE                     = 128;
+
+	private final Cache<String, Integer>    hotTier;
+	private final DiskEntityIdStore         diskTier;
+	private final BloomFilter<CharSequence> bloomFilter;
+	private final long                      bloomFilterSize;
+	private final ReadWriteLock             bloomFilterLock = new ReentrantReadWriteLock();
+
+	private final AtomicLong bloomFilterNegativeCount = new AtomicLong();
+	private final AtomicLong diskTierHitCount         = new AtomicLong();
+	private final AtomicLong diskTierMissCount        = new AtomicLong();
+
+	/**
+	 * @param diskTierFile the log file of the disk tier (an existing one will be continued)
+	 * @param hotTierSize  the maximum number of entries of the hot tier
+	 * @param expectedSize the expected number of entities (to dimension the Bloom filter)
+	 * @throws IOException
+	 */
+	public TieredEntityIdCache(final Path diskTierFile, final long hotTierSize, final long expectedSize) throws IOException {
+
+		hotTier = CacheBuilder.newBuilder().maximumSize(hotTierSize).recordStats().build();
+		bloomFilter = BloomFilter.create(Funnels.unencodedCharsFunnel(), Math.max(1, expectedSize), BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY);
+		bloomFilterSize = optimalBloomFilterBits(Math.max(1, expectedSize), BLOOM_FILTER_FALSE_POSITIVE_PROBABILITY) / Byte.SIZE;
+		diskTier = new DiskEntityIdStore(diskTierFile, bloomFilter::put);
+	}
+
+	@Override
+	public int get(final String uri) {
+
+		final Integer hotEntityId = hotTier.getIfPresent(uri);
+
+		if (hotEntityId != null) {
+
+			return hotEntityId;
+		}
+
+		if (!mightContain(uri)) {
+
+			bloomFilterNegativeCount.incrementAndGet();
+
+			return NO_ENTITY_ID;
+		}
+
+		final int entityId;
+
+		try {
+
+			entityId = diskTier.get(uri);
+		} catch (final IOException e) {
+
+			throw WikidataImporterError.wrap(new WikidataImporterException(String.format("couldn't read entity id of '%s' from disk", uri), e));
+		}
+
+		if (entityId == NO_ENTITY_ID) {
+
+			diskTierMissCount.incrementAndGet();
+
+			return NO_ENTITY_ID;
+		}
+
+		diskTierHitCount.incrementAndGet();
+
+		hotTier.put(uri, entityId);
+
+		return entityId;
+	}
+
+	@Override
+	public void put(final String uri, final int entityId) {
+
+		if (entityId == NO_ENTITY_ID) {
+
+			throw new IllegalArgumentException(String.format("'%s' is not a valid entity id", entityId));
+		}
+
+		try {
+
+			diskTier.put(uri, entityId);
+		} catch (final IOException e) {
+
+			throw WikidataImporterError.wrap(new WikidataImporterException(String.format("couldn't write entity id of '%s' to disk", uri), e));
+		}
+
+		bloomFilterLock.writeLock().lock();
+
+		try {
+
+			bloomFilter.put(uri);
+		} finally {
+
+			bloomFilterLock.writeLock().unlock();
+		}
+
+		hotTier.put(uri, entityId);
+	}
+
+	@Override
+	public int size() {
+
+		return (int) Math.min(Integer.MAX_VALUE, diskTier.size());
+	}
+
+	/**
+	 * @return an estimate of the heap memory of the hot tier and the Bloom filter (the disk tier is not part of it)
+	 */
+	@Override
+	public long getMemoryUsage() {
+
+		return hotTier.size() * HOT_TIER_ENTRY_SIZE + bloomFilterSize;
+	}
+
+	/**
+	 * @return the hit, miss and eviction counts (and rates) of the tiers
+	 */
+	public EntityIdCacheStats getStats() {
+
+		final CacheStats hotTierStats = hotTier.stats();
+
+		return new EntityIdCacheStats(hotTierStats.hitCount(), hotTierStats.missCount(), hotTierStats.evictionCount(),
+				bloomFilterNegativeCount.get(), diskTierHitCount.get(), diskTierMissCount.get());
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		LOG.info("close entity id cache with '{}' entities ({})", diskTier.size(), getStats());
+
+		diskTier.close();
+	}
+
+	private boolean mightContain(final String uri) {
+
+		bloomFilterLock.readLock().lock();
+
+		try {
+
+			return bloomFilter.mightContain(uri);
+		} finally {
+
+			bloomFilterLock.readLock().unlock();
+		}
+	}
+
+	private static long optimalBloomFilterBits(final long expectedSize, final double falsePositiveProbability) {
+
+		return (long) (-expectedSize * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+	}
+}
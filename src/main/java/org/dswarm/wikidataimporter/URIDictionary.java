@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact, append-only dictionary that maps URIs to long codes. URIs are split into a shared prefix (everything up to the last '/' or
+ * '#'), which is stored only once in a prefix table, and a local name, which is stored as ASCII bytes in an (optionally off-heap) arena of
+ * 1 MB pages. The code of a URI is its position in that arena. The code lookup table is an open addressing array of these positions, i.e.,
+ * a lookup ({@link #getCode(String)}) compares the URI directly against the arena bytes and doesn't create any garbage.<br/>
+ * URIs with non-ASCII characters (or overlong local names) are held in a (rarely utilised) overflow map with negative codes.<br/>
+ * Note: this dictionary is not thread-safe.
+ *
+ * @author tgaengler
+ */
+public final class URIDictionary {
+
+	/**
+	 * the code that is returned for URIs that are not part of the dictionary
+	 */
+	public static final long NO_CODE = Long.MIN_VALUE;
+
+	private static final int   PAGE_SHIFT        = 20;
+	private static final int   PAGE_SIZE         = 1 << PAGE_SHIFT;
+	private static final int   PAGE_MASK         = PAGE_SIZE - 1;
+	private static final int   MAX_ENTRY_HEADER  = 10;
+	private static final int   MAX_LOCAL_NAME    = PAGE_SIZE - MAX_ENTRY_HEADER;
+	private static final int   MAX_PREFIXES      = 1 << 16;
+	private static final int   MIN_CAPACITY      = 16;
+	private static final float MAX_LOAD_FACTOR   = 0.7f;
+	private static final int   HASH_MULTIPLIER   = 0x9E3779B9;
+	private static final long  EMPTY_SLOT        = -1L;
+	private static final int   ENTRY_OVERHEAD    = 96;
+
+	private final boolean offHeap;
+
+	private final List<ByteBuffer> pages = new ArrayList<>();
+	private       int              pageOffset = PAGE_SIZE;
+
+	private final List<String>         prefixes     = new ArrayList<>();
+	private final List<Integer>        prefixHashes = new ArrayList<>();
+	private final Map<String, Integer> prefixIds    = new HashMap<>();
+	private       long                 prefixBytes;
+
+	private final Map<String, Long> overflowCodes = new HashMap<>();
+	private final List<String>      overflowURIs  = new ArrayList<>();
+	private       long              overflowBytes;
+
+	private long[] slots;
+	private int    capacityBits;
+	private int    size;
+	private int    resizeThreshold;
+
+	public URIDictionary() {
+
+		this(MIN_CAPACITY, false);
+	}
+
+	/**
+	 * @param expectedSize the expected number of URIs
+	 * @param offHeap      true, if the arena pages should be held in direct (off-heap) buffers
+	 */
+	public URIDictionary(final int expectedSize, final boolean offHeap) {
+
+		this.offHeap = offHeap;
+
+		int capacity = MIN_CAPACITY;
+
+		while (capacity * MAX_LOAD_FACTOR < expectedSize) {
+
+			capacity <<= 1;
+		}
+
+		allocateSlots(capacity);
+		addPrefix("");
+	}
+
+	/**
+	 * @param uri the URI
+	 * @return the code of the URI or {@link #NO_CODE}, if the URI is not part of this dictionary
+	 */
+	public long getCode(final String uri) {
+
+		if (!isASCII(uri)) {
+
+			final Long overflowCode = overflowCodes.get(uri);
+
+			return overflowCode != null ? overflowCode : NO_CODE;
+		}
+
+		final int mask = slots.length - 1;
+
+		for (int slot = slot(uri.hashCode()); ; slot = (slot + 1) & mask) {
+
+			final long code = slots[slot];
+
+			if (code == EMPTY_SLOT) {
+
+				return NO_CODE;
+			}
+
+			if (matches(code, uri)) {
+
+				return code;
+			}
+		}
+	}
+
+	/**
+	 * @param uri the URI
+	 * @return the code of the URI (the URI will be added, if it is not part of this dictionary yet)
+	 */
+	public long getOrAddCode(final String uri) {
+
+		final long existingCode = getCode(uri);
+
+		if (existingCode != NO_CODE) {
+
+			return existingCode;
+		}
+
+		if (!isASCII(uri)) {
+
+			return addOverflowURI(uri);
+		}
+
+		final int prefixLength = Math.max(uri.lastIndexOf('/'), uri.lastIndexOf('#')) + 1;
+		final int prefixId = determinePrefixId(uri, prefixLength);
+		final int localNameStart = prefixId == 0 ? 0 : prefixLength;
+		final int entryLocalNameLength = uri.length() - localNameStart;
+
+		if (entryLocalNameLength > MAX_LOCAL_NAME) {
+
+			return addOverflowURI(uri);
+		}
+
+		if (pageOffset + MAX_ENTRY_HEADER + entryLocalNameLength > PAGE_SIZE) {
+
+			pages.add(offHeap ? ByteBuffer.allocateDirect(PAGE_SIZE) : ByteBuffer.allocate(PAGE_SIZE));
+			pageOffset = 0;
+		}
+
+		final ByteBuffer page = pages.get(pages.size() - 1);
+		final long code = ((long) (pages.size() - 1) << PAGE_SHIFT) | pageOffset;
+
+		int position = writeVarInt(page, pageOffset, prefixId);
+		position = writeVarInt(page, position, entryLocalNameLength);
+
+		for (int i = localNameStart; i < uri.length(); i++) {
+
+			page.put(position++, (byte) uri.charAt(i));
+		}
+
+		pageOffset = position;
+
+		insertSlot(code, uri.hashCode());
+
+		if (++size > resizeThreshold) {
+
+			resize();
+		}
+
+		return code;
+	}
+
+	/**
+	 * @param code a code of this dictionary
+	 * @return the URI of the code
+	 */
+	public String getURI(final long code) {
+
+		if (code < 0) {
+
+			return overflowURIs.get((int) (-1L - code));
+		}
+
+		final ByteBuffer page = pages.get((int) (code >>> PAGE_SHIFT));
+		int position = (int) (code & PAGE_MASK);
+
+		final int prefixId = readVarInt(page, position);
+		position += varIntLength(prefixId);
+		final int localNameLength = readVarInt(page, position);
+		position += varIntLength(localNameLength);
+
+		final StringBuilder sb = new StringBuilder(prefixes.get(prefixId));
+
+		for (int i = 0; i < localNameLength; i++) {
+
+			sb.append((char) page.get(position + i));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * @return the number of URIs in this dictionary
+	 */
+	public int size() {
+
+		return size + overflowURIs.size();
+	}
+
+	/**
+	 * @return the number of distinct shared prefixes
+	 */
+	public int getPrefixCount() {
+
+		return prefixes.size();
+	}
+
+	/**
+	 * @return an estimate of the memory (in bytes) that is occupied by this dictionary (arena pages, slot table, prefix table and overflow
+	 * map)
+	 */
+	public long getMemoryUsage() {
+
+		return (long) pages.size() * PAGE_SIZE + (long) slots.length * Long.BYTES + prefixBytes + overflowBytes;
+	}
+
+	private boolean matches(final long code, final String uri) {
+
+		final ByteBuffer page = pages.get((int) (code >>> PAGE_SHIFT));
+		int position = (int) (code & PAGE_MASK);
+
+		final int prefixId = readVarInt(page, position);
+		position += varIntLength(prefixId);
+		final int localNameLength = readVarInt(page, position);
+		position += varIntLength(localNameLength);
+
+		final String prefix = prefixes.get(prefixId);
+		final int prefixLength = prefix.length();
+
+		if (prefixLength + localNameLength != uri.length() || !uri.startsWith(prefix)) {
+
+			return false;
+		}
+
+		for (int i = 0; i < localNameLength; i++) {
+
+			if (page.get(position + i) != (byte) uri.charAt(prefixLength + i)) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * re-computes {@link String#hashCode()} of the URI of the given code, i.e., without materialising the URI
+	 */
+	private int hash(final long code) {
+
+		final ByteBuffer page = pages.get((int) (code >>> PAGE_SHIFT));
+		int position = (int) (code & PAGE_MASK);
+
+		final int prefixId = readVarInt(page, position);
+		position += varIntLength(prefixId);
+		final int localNameLength = readVarInt(page, position);
+		position += varIntLength(localNameLength);
+
+		int hash = prefixHashes.get(prefixId);
+
+		for (int i = 0; i < localNameLength; i++) {
+
+			hash = 31 * hash + page.get(position + i);
+		}
+
+		return hash;
+	}
+
+	private int determinePrefixId(final String uri, final int prefixLength) {
+
+		if (prefixLength == 0) {
+
+			return 0;
+		}
+
+		final String prefix = uri.substring(0, prefixLength);
+		final Integer prefixId = prefixIds.get(prefix);
+
+		if (prefixId != null) {
+
+			return prefixId;
+		}
+
+		if (prefixes.size() >= MAX_PREFIXES) {
+
+			// prefix table is full, i.e., store the complete URI as local name
+
+			return 0;
+		}
+
+		return addPrefix(prefix);
+	}
+
+	private int addPrefix(final String prefix) {
+
+		final int prefixId = prefixes.size();
+
+		prefixes.add(prefix);
+		prefixHashes.add(prefix.hashCode());
+		prefixIds.put(prefix, prefixId);
+		prefixBytes += ENTRY_OVERHEAD + 2L * prefix.length();
+
+		return prefixId;
+	}
+
+	private long addOverflowURI(final String uri) {
+
+		final long code = -1L - overflowURIs.size();
+
+		overflowURIs.add(uri);
+		overflowCodes.put(uri, code);
+		overflowBytes += ENTRY_OVERHEAD + 2L * uri.length();
+
+		return code;
+	}
+
+	private int slot(final int hash) {
+
+		return (hash * HASH_MULTIPLIER) >>> (Integer.SIZE - capacityBits);
+	}
+
+	private void insertSlot(final long code, final int hash) {
+
+		final int mask = slots.length - 1;
+
+		int slot = slot(hash);
+
+		while (slots[slot] != EMPTY_SLOT) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		slots[slot] = code;
+	}
+
+	private void allocateSlots(final int capacity) {
+
+		capacityBits = Integer.numberOfTrailingZeros(capacity);
+		resizeThreshold = (int) (capacity * MAX_LOAD_FACTOR);
+		slots = new long[capacity];
+
+		Arrays.fill(slots, EMPTY_SLOT);
+	}
+
+	private void resize() {
+
+		final long[] oldSlots = slots;
+
+		allocateSlots(oldSlots.length << 1);
+
+		for (final long code : oldSlots) {
+
+			if (code != EMPTY_SLOT) {
+
+				insertSlot(code, hash(code));
+			}
+		}
+	}
+
+	private static boolean isASCII(final String uri) {
+
+		for (int i = 0; i < uri.length(); i++) {
+
+			if (uri.charAt(i) >= 0x80) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static int writeVarInt(final ByteBuffer page, int position, int value) {
+
+		while ((value & ~0x7F) != 0) {
+
+			page.put(position++, (byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		page.put(position++, (byte) value);
+
+		return position;
+	}
+
+	private static int readVarInt(final ByteBuffer page, int position) {
+
+		int value = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+
+			b = page.get(position++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return value;
+	}
+
+	private static int varIntLength(final int value) {
+
+		return value < (1 << 7) ? 1 : value < (1 << 14) ? 2 : value < (1 << 21) ? 3 : value < (1 << 28) ? 4 : 5;
+	}
+}
@@ -15,13 +15,10 @@
  */
 package org.dswarm.wikidataimporter;
 
-import java.io.IOException;
-import java.net.URL;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -38,8 +35,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.io.Resources;
-import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.rx.RxInvocationBuilder;
 import org.glassfish.jersey.client.rx.RxWebTarget;
@@ -66,47 +61,15 @@ public class WikibaseAPIClient {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WikibaseAPIClient.class);
 
-	private static final Properties properties = new Properties();
+	private static final LogSampler CREATE_ENTITY_LOG = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
 
-	private static final String MEDIAWIKI_API_ENDPOINT          = "mediawiki_api_endpoint";
-	private static final String FALLBACK_MEDIAWIKI_API_ENDPOINT = "http://localhost:1234/whoknows";
-	private static final String DSWARM_USER_AGENT_IDENTIFIER    = "DMP 2000";
-	private static final String MEDIAWIKI_USERNAME              = "mediawiki_username";
-	private static final String MEDIAWIKI_PASSWORD              = "mediawiki_password";
-
-	private static final String wikibaseAPIBaseURI;
-
-	static {
-
-		final URL resource = Resources.getResource("dswarm.properties");
-
-		try {
-
-			properties.load(resource.openStream());
-		} catch (final IOException e) {
-
-			LOG.error("Could not load dswarm.properties", e);
-		}
-
-		wikibaseAPIBaseURI = properties.getProperty(MEDIAWIKI_API_ENDPOINT, FALLBACK_MEDIAWIKI_API_ENDPOINT);
-	}
+	private static final String DSWARM_USER_AGENT_IDENTIFIER = "DMP 2000";
 
 	private static final String CHUNKED = "CHUNKED";
 
 	private static final int CHUNK_SIZE      = 1024;
 	private static final int REQUEST_TIMEOUT = 20000000;
 
-	private static final String          DSWARM_WIKIDATA_GDM_IMPORTER_THREAD_NAMING_PATTERN = "dswarm-wikidata-gdm-importer-%d";
-	private static final ExecutorService EXECUTOR_SERVICE                                   = Executors.newCachedThreadPool(
-			new BasicThreadFactory.Builder().daemon(false).namingPattern(DSWARM_WIKIDATA_GDM_IMPORTER_THREAD_NAMING_PATTERN).build());
-
-	private static final ClientBuilder BUILDER = ClientBuilder.newBuilder().register(MultiPartFeature.class)
-			.property(ClientProperties.CHUNKED_ENCODING_SIZE, CHUNK_SIZE)
-			.property(ClientProperties.REQUEST_ENTITY_PROCESSING, CHUNKED)
-			.property(ClientProperties.OUTBOUND_CONTENT_LENGTH_BUFFER, CHUNK_SIZE)
-			.property(ClientProperties.CONNECT_TIMEOUT, REQUEST_TIMEOUT)
-			.property(ClientProperties.READ_TIMEOUT, REQUEST_TIMEOUT);
-
 	private static final String MEDIAWIKI_API_ACTION_IDENTIFIER = "action";
 
 	private static final String MEDIAWIKI_API_FORMAT_IDENTIFIER = "format";
@@ -120,8 +83,10 @@ public class WikibaseAPIClient {
 	private static final String MEDIAWIKI_API_META_IDENTIFIER     = "meta";
 	private static final String MEDIAWIKI_API_CONTINUE_IDENTIFIER = "continue";
 
-	private static final String WIKIBASE_API_NEW_IDENTIFIER  = "new";
-	private static final String WIKIBASE_API_DATA_IDENTIFIER = "data";
+	private static final String WIKIBASE_API_NEW_IDENTIFIER   = "new";
+	private static final String WIKIBASE_API_ID_IDENTIFIER    = "id";
+	private static final String WIKIBASE_API_DATA_IDENTIFIER  = "data";
+	private static final String WIKIBASE_API_CLEAR_IDENTIFIER = "clear";
 
 	private static final String MEDIAWIKI_API_TOKEN_IDENTIFIER = "token";
 
@@ -134,6 +99,25 @@ public class WikibaseAPIClient {
 
 	private static final String WIKIBASE_API_EDIT_ENTITY = "wbeditentity";
 
+	private static final String MEDIAWIKI_API_LIST_IDENTIFIER        = "list";
+	private static final String MEDIAWIKI_API_ALLPAGES               = "allpages";
+	private static final String MEDIAWIKI_API_APNAMESPACE_IDENTIFIER = "apnamespace";
+	private static final String MEDIAWIKI_API_APLIMIT_IDENTIFIER     = "aplimit";
+	private static final String MEDIAWIKI_API_APCONTINUE_IDENTIFIER  = "apcontinue";
+	private static final String MEDIAWIKI_API_MAX_LIMIT              = "max";
+
+	private static final String WIKIBASE_API_GET_ENTITIES          = "wbgetentities";
+	private static final String WIKIBASE_API_IDS_IDENTIFIER        = "ids";
+	private static final String WIKIBASE_API_PROPS_IDENTIFIER      = "props";
+	private static final String WIKIBASE_API_LABELS_IDENTIFIER     = "labels";
+	private static final String WIKIBASE_API_LANGUAGES_IDENTIFIER  = "languages";
+	private static final String WIKIBASE_API_MULTI_VALUE_SEPARATOR = "|";
+
+	/**
+	 * the maximum number of entities per wbgetentities request (for non-bot users)
+	 */
+	public static final int WIKIBASE_API_GET_ENTITIES_LIMIT = 50;
+
 	private static final ObjectMapper MAPPER = new ObjectMapper()
 			.setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
 			.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -141,12 +125,29 @@ public class WikibaseAPIClient {
 	private static final DataObjectFactory  jsonObjectFactory  = new JacksonObjectFactory();
 	private static final DatamodelConverter datamodelConverter = new DatamodelConverter(jsonObjectFactory);
 
-	private final String                 editToken;
-	private final Map<String, NewCookie> cookies;
+	private final String                   wikibaseAPIBaseURI;
+	private final ImportMetrics            metrics;
+	private final Client                   client;
+	private final PriorityRequestScheduler requestScheduler;
+	private final String                   editToken;
+	private final Map<String, NewCookie>   cookies;
 
 	public WikibaseAPIClient() throws WikidataImporterException {
 
-		final Map<String, Map<String, NewCookie>> result = generateEditToken();
+		this(WikibaseTargetConfiguration.defaultTarget());
+	}
+
+	public WikibaseAPIClient(final WikibaseTargetConfiguration targetConfiguration) throws WikidataImporterException {
+
+		wikibaseAPIBaseURI = targetConfiguration.getApiEndpoint();
+		// note: the metrics are owned by this client, i.e., they are unregistered, when this client is closed
+		metrics = new ImportMetrics(targetConfiguration.getName());
+		// note: every client instance has its own HTTP client + request threads, i.e., several clients (e.g. of several targets or import services) can be utilised in one JVM independently
+		client = createClient(metrics);
+		requestScheduler = new PriorityRequestScheduler(targetConfiguration.getMaxConcurrentRequests());
+
+		final Map<String, Map<String, NewCookie>> result = generateEditToken(targetConfiguration.getUsername(),
+				targetConfiguration.getPassword());
 
 		if (result == null) {
 
@@ -154,6 +155,8 @@ public class WikibaseAPIClient {
 
 			LOG.error(message);
 
+			close();
+
 			throw new WikidataImporterException(message);
 		}
 
@@ -163,13 +166,9 @@ public class WikibaseAPIClient {
 		cookies = resultEntry.getValue();
 	}
 
-	private Map<String, Map<String, NewCookie>> generateEditToken() {
+	private Map<String, Map<String, NewCookie>> generateEditToken(final String username, final String password) {
 
-		LOG.debug("try to generate edit token");
-
-		// 0. read user name + password from properties
-		final String username = getProperty(MEDIAWIKI_USERNAME);
-		final String password = getProperty(MEDIAWIKI_PASSWORD);
+		LOG.debug("try to generate edit token for '{}'", wikibaseAPIBaseURI);
 
 		// 1. login request
 		return login(username, password).flatMap(loginResponse -> {
@@ -236,7 +235,7 @@ public class WikibaseAPIClient {
 		}).toBlocking().firstOrDefault(null);
 	}
 
-	public static Observable<Response> login(final String username, final String password) {
+	public Observable<Response> login(final String username, final String password) {
 
 		LOG.debug("try to retrieve token with login credentials");
 
@@ -252,10 +251,10 @@ public class WikibaseAPIClient {
 				.field(MEDIAWIKI_API_LGPASSWORD_IDENTIFIER, password)
 				.field(MEDIAWIKI_API_FORMAT_IDENTIFIER, MEDIAWIKI_API_JSON_FORMAT);
 
-		return excutePOST(rx, form);
+		return excutePOST(rx, form, RequestPriority.SESSION, MEDIAWIKI_API_LOGIN);
 	}
 
-	public static Observable<Response> confirmLogin(final String token, final Map<String, NewCookie> cookies) {
+	public Observable<Response> confirmLogin(final String token, final Map<String, NewCookie> cookies) {
 
 		LOG.debug("try to confirm login with token and cookies");
 
@@ -265,10 +264,10 @@ public class WikibaseAPIClient {
 				.field(MEDIAWIKI_API_ACTION_IDENTIFIER, MEDIAWIKI_API_LOGIN)
 				.field(MEDIAWIKI_API_LGTOKEN_IDENTIFIER, token);
 
-		return excutePOST(rx, form);
+		return excutePOST(rx, form, RequestPriority.SESSION, MEDIAWIKI_API_LOGIN);
 	}
 
-	public static Observable<Response> retrieveEditToken(final Map<String, NewCookie> cookies) {
+	public Observable<Response> retrieveEditToken(final Map<String, NewCookie> cookies) {
 
 		LOG.debug("try to retrieve edit token with cookies");
 
@@ -280,7 +279,7 @@ public class WikibaseAPIClient {
 				.field(MEDIAWIKI_API_CONTINUE_IDENTIFIER, "")
 				.field(MEDIAWIKI_API_FORMAT_IDENTIFIER, MEDIAWIKI_API_JSON_FORMAT);
 
-		return excutePOST(rx, form);
+		return excutePOST(rx, form, RequestPriority.SESSION, MEDIAWIKI_API_QUERY);
 	}
 
 	public static String getToken(final Response loginResponse) {
@@ -395,6 +394,97 @@ public class WikibaseAPIClient {
 	public Observable<Response> createEntity(final EntityDocument entity, final String entityType)
 			throws JsonProcessingException, WikidataImporterException {
 
+		final RequestPriority priority = WIKIBASE_API_ENTITY_TYPE_PROPERTY.equals(entityType) ?
+				RequestPriority.PROPERTY_CREATE :
+				RequestPriority.ITEM_EDIT;
+
+		return createEntity(entity, entityType, priority);
+	}
+
+	/**
+	 * @param entity     the entity that should be created
+	 * @param entityType the entity type ('item' or 'property')
+	 * @param priority   the priority class of the request, i.e., blocking dependencies (e.g. placeholder items) should be created first
+	 * @return the response of the edit entity request
+	 */
+	public Observable<Response> createEntity(final EntityDocument entity, final String entityType, final RequestPriority priority)
+			throws JsonProcessingException, WikidataImporterException {
+
+		final EditEntityRequestEvent event = ImportEvents.AVAILABLE ? new EditEntityRequestEvent() : null;
+
+		final String entityJSONString = serializeEntity(entity, entityType);
+
+		if (event != null) {
+
+			event.record(entityType, priority, entityJSONString);
+		}
+
+		CREATE_ENTITY_LOG.debug("create new '{}' with '{}' ('{}' requests so far)", entityType, entityJSONString);
+
+		return editEntity(WIKIBASE_API_NEW_IDENTIFIER, entityType, entityJSONString, false, priority);
+	}
+
+	/**
+	 * Updates an already existing entity with the terms + statements of the given entity. Note: without clearing, the statements are added
+	 * to the existing ones (i.e. that is only suitable for completing a placeholder item with the statements of its resource); with clearing,
+	 * the existing entity is replaced by the given entity.
+	 *
+	 * @param entityId   the identifier of the existing entity
+	 * @param entity     the entity (without identifier) that should be merged into the existing entity or that should replace it
+	 * @param entityType the entity type ('item' or 'property')
+	 * @param clear      true, if the existing content of the entity should be replaced ('clear' of 'wbeditentity')
+	 * @param priority   the priority class of the request
+	 * @return the response of the edit entity request
+	 */
+	public Observable<Response> updateEntity(final String entityId, final EntityDocument entity, final String entityType, final boolean clear,
+			final RequestPriority priority) throws JsonProcessingException, WikidataImporterException {
+
+		final EditEntityRequestEvent event = ImportEvents.AVAILABLE ? new EditEntityRequestEvent() : null;
+
+		final String entityJSONString = serializeEntity(entity, entityType);
+
+		if (event != null) {
+
+			event.record(entityType, priority, entityJSONString);
+		}
+
+		CREATE_ENTITY_LOG.debug("update '{}' with '{}' ('{}' requests so far)", entityId, entityJSONString);
+
+		return editEntity(WIKIBASE_API_ID_IDENTIFIER, entityId, entityJSONString, clear, priority);
+	}
+
+	private Observable<Response> editEntity(final String entityParameterName, final String entityParameterValue, final String entityJSONString,
+			final boolean clear, final RequestPriority priority) {
+
+		final RxObservableInvoker rx = buildBaseRequestWithCookies(cookies);
+
+		final FormDataMultiPart form = new FormDataMultiPart()
+				.field(MEDIAWIKI_API_ACTION_IDENTIFIER, WIKIBASE_API_EDIT_ENTITY)
+				.field(entityParameterName, entityParameterValue)
+				.field(WIKIBASE_API_DATA_IDENTIFIER, entityJSONString)
+				.field(MEDIAWIKI_API_TOKEN_IDENTIFIER, editToken)
+				.field(MEDIAWIKI_API_FORMAT_IDENTIFIER, MEDIAWIKI_API_JSON_FORMAT);
+		//form.bodyPart(entityJSONString, MediaType.APPLICATION_JSON_TYPE);
+
+		if (clear) {
+
+			form.field(WIKIBASE_API_CLEAR_IDENTIFIER, Boolean.TRUE.toString());
+		}
+
+		return excutePOST(rx, form, priority, WIKIBASE_API_EDIT_ENTITY);
+	}
+
+	/**
+	 * Serializes the given entity into the JSON of the 'data' parameter of a 'wbeditentity' request. Note: package-private for the
+	 * conversion benchmarks.
+	 *
+	 * @param entity     the entity that should be created
+	 * @param entityType the entity type ('item' or 'property')
+	 * @return the Wikibase entity JSON
+	 */
+	static String serializeEntity(final EntityDocument entity, final String entityType)
+			throws JsonProcessingException, WikidataImporterException {
+
 		final EntityDocument jacksonEntity;
 
 		switch (entityType) {
@@ -419,21 +509,59 @@ public class WikibaseAPIClient {
 				throw new WikidataImporterException(message);
 		}
 
-		final String entityJSONString = MAPPER.writeValueAsString(jacksonEntity);
+		return MAPPER.writeValueAsString(jacksonEntity);
+	}
+
+	/**
+	 * Lists the pages (titles) of the given namespace, e.g., to enumerate all items or properties of a Wikibase.
+	 *
+	 * @param namespace    the namespace id
+	 * @param continueFrom the title to continue from (from the 'continue' part of the previous response) or null for the first request
+	 * @return the response of the allpages query
+	 */
+	public Observable<Response> listPages(final int namespace, final String continueFrom) {
 
-		LOG.debug("create new '{}' with '{}'", entityType, entityJSONString);
+		LOG.debug("list pages of namespace '{}' (continue from '{}')", namespace, continueFrom);
 
 		final RxObservableInvoker rx = buildBaseRequestWithCookies(cookies);
 
 		final FormDataMultiPart form = new FormDataMultiPart()
-				.field(MEDIAWIKI_API_ACTION_IDENTIFIER, WIKIBASE_API_EDIT_ENTITY)
-				.field(WIKIBASE_API_NEW_IDENTIFIER, entityType)
-				.field(WIKIBASE_API_DATA_IDENTIFIER, entityJSONString)
-				.field(MEDIAWIKI_API_TOKEN_IDENTIFIER, editToken)
+				.field(MEDIAWIKI_API_ACTION_IDENTIFIER, MEDIAWIKI_API_QUERY)
+				.field(MEDIAWIKI_API_LIST_IDENTIFIER, MEDIAWIKI_API_ALLPAGES)
+				.field(MEDIAWIKI_API_APNAMESPACE_IDENTIFIER, String.valueOf(namespace))
+				.field(MEDIAWIKI_API_APLIMIT_IDENTIFIER, MEDIAWIKI_API_MAX_LIMIT)
+				.field(MEDIAWIKI_API_CONTINUE_IDENTIFIER, "")
 				.field(MEDIAWIKI_API_FORMAT_IDENTIFIER, MEDIAWIKI_API_JSON_FORMAT);
-		//form.bodyPart(entityJSONString, MediaType.APPLICATION_JSON_TYPE);
 
-		return excutePOST(rx, form);
+		if (continueFrom != null) {
+
+			form.field(MEDIAWIKI_API_APCONTINUE_IDENTIFIER, continueFrom);
+		}
+
+		return excutePOST(rx, form, RequestPriority.WARM_UP, MEDIAWIKI_API_ALLPAGES);
+	}
+
+	/**
+	 * Retrieves the labels of the given entities (at most {@link #WIKIBASE_API_GET_ENTITIES_LIMIT}).
+	 *
+	 * @param entityIds the entity ids, e.g., 'Q42'
+	 * @param language  the language of the labels
+	 * @return the response of the wbgetentities request
+	 */
+	public Observable<Response> getEntityLabels(final Collection<String> entityIds, final String language) {
+
+		LOG.debug("get labels of '{}' entities", entityIds.size());
+
+		final RxObservableInvoker rx = buildBaseRequestWithCookies(cookies);
+
+		final FormDataMultiPart form = new FormDataMultiPart()
+				.field(MEDIAWIKI_API_ACTION_IDENTIFIER, WIKIBASE_API_GET_ENTITIES)
+				.field(WIKIBASE_API_IDS_IDENTIFIER, String.join(WIKIBASE_API_MULTI_VALUE_SEPARATOR, entityIds))
+				.field(WIKIBASE_API_PROPS_IDENTIFIER, WIKIBASE_API_LABELS_IDENTIFIER)
+				.field(WIKIBASE_API_LANGUAGES_IDENTIFIER, language)
+				.field(MEDIAWIKI_API_FORMAT_IDENTIFIER, MEDIAWIKI_API_JSON_FORMAT);
+
+		return excutePOST(rx, form, RequestPriority.WARM_UP, WIKIBASE_API_GET_ENTITIES);
 	}
 
 	public static Map<String, NewCookie> getCookies(final Response response) {
@@ -441,7 +569,7 @@ public class WikibaseAPIClient {
 		return response.getCookies();
 	}
 
-	private static RxObservableInvoker buildBaseRequestWithCookies(final Map<String, NewCookie> cookies) {
+	private RxObservableInvoker buildBaseRequestWithCookies(final Map<String, NewCookie> cookies) {
 
 		final RxWebTarget<RxObservableInvoker> rxWebTarget = rxWebTarget();
 
@@ -459,27 +587,81 @@ public class WikibaseAPIClient {
 		return request.rx();
 	}
 
-	private static Observable<Response> excutePOST(final RxObservableInvoker rx, final FormDataMultiPart form) {
+	/**
+	 * @return the metrics of the target of this client
+	 */
+	public ImportMetrics getMetrics() {
+
+		return metrics;
+	}
+
+	/**
+	 * Shuts down the request scheduler + HTTP client of this client, i.e., no further requests can be executed.
+	 */
+	public void close() {
+
+		try {
+
+			requestScheduler.close();
+		} finally {
+
+			try {
+
+				client.close();
+			} finally {
+
+				metrics.close();
+			}
+		}
+	}
+
+	private Observable<Response> excutePOST(final RxObservableInvoker rx, final FormDataMultiPart form, final RequestPriority priority,
+			final String action) {
 
 		final Entity entityBody = Entity.entity(form, MediaType.MULTIPART_FORM_DATA);
 
-		final Observable<Response> post = rx.post(entityBody).subscribeOn(Schedulers.from(EXECUTOR_SERVICE));
+		// note: a request is timed from its execution at a request thread, i.e., without the waiting time at the request scheduler
+		final Observable<Response> post = Observable.defer(() -> {
+
+			final long start = metrics.requestStarted();
+			final AtomicBoolean finished = new AtomicBoolean();
+
+			return rx.post(entityBody)
+					.doOnNext(response -> finishRequest(action, start, finished, response != null && response.getStatus() == 200))
+					.doOnError(e -> finishRequest(action, start, finished, false))
+					.doOnUnsubscribe(() -> finishRequest(action, start, finished, false));
+		}).subscribeOn(Schedulers.from(requestScheduler.executor(priority)));
 
 		return post.filter(response ->
 				response != null && response.getStatus() == 200);
 	}
 
-	private static Client client() {
+	private void finishRequest(final String action, final long start, final AtomicBoolean finished, final boolean success) {
+
+		if (finished.compareAndSet(false, true)) {
 
-		return BUILDER.build();
+			metrics.requestFinished(action, start, success);
+		}
 	}
 
-	private static WebTarget target() {
+	private static Client createClient(final ImportMetrics metrics) {
 
-		return client().target(wikibaseAPIBaseURI);
+		return ClientBuilder.newBuilder().register(MultiPartFeature.class)
+				.register(new ByteCountingInterceptor(metrics))
+				.property(ClientProperties.CHUNKED_ENCODING_SIZE, CHUNK_SIZE)
+				.property(ClientProperties.REQUEST_ENTITY_PROCESSING, CHUNKED)
+				.property(ClientProperties.OUTBOUND_CONTENT_LENGTH_BUFFER, CHUNK_SIZE)
+				.property(ClientProperties.CONNECT_TIMEOUT, REQUEST_TIMEOUT)
+				.property(ClientProperties.READ_TIMEOUT, REQUEST_TIMEOUT)
+				.build();
 	}
 
-	private static WebTarget target(final String... path) {
+	private WebTarget target() {
+
+		return client.target(wikibaseAPIBaseURI);
+	}
+
+	private WebTarget target(final String... path) {
 
 		WebTarget target = target();
 
@@ -491,29 +673,17 @@ public class WikibaseAPIClient {
 		return target;
 	}
 
-	private static RxWebTarget<RxObservableInvoker> rxWebTarget() {
+	private RxWebTarget<RxObservableInvoker> rxWebTarget() {
 
 		final WebTarget target = target();
 
 		return RxObservable.from(target);
 	}
 
-	private static RxWebTarget<RxObservableInvoker> rxWebTarget(final String... path) {
+	private RxWebTarget<RxObservableInvoker> rxWebTarget(final String... path) {
 
 		final WebTarget target = target(path);
 
 		return RxObservable.from(target);
 	}
-
-	private static String getProperty(final String propertyKey) {
-
-		final String propertyValue = properties.getProperty(propertyKey);
-
-		if (propertyValue == null || propertyValue.trim().isEmpty()) {
-
-			LOG.error("couldn't find property '{}' in properties file", propertyKey);
-		}
-
-		return propertyValue;
-	}
 }
@@ -0,0 +1,645 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.json.jackson.JacksonItemDocument;
+import org.wikidata.wdtk.datamodel.json.jackson.JacksonPropertyDocument;
+import rx.Observable;
+
+/**
+ * Creates entities via the Mediawiki/Wikibase API, i.e., every property and item is sent as a separate 'wbeditentity' request. Label
+ * (+ description) conflicts are resolved by extracting the identifier of the already existing entity from the error message.
+ *
+ * @author tgaengler
+ */
+public class WikibaseAPIImportTarget implements WikibaseImportTarget {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WikibaseAPIImportTarget.class);
+
+	private static final LogSampler RESPONSE_LOG       = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
+	private static final LogSampler ERROR_RESPONSE_LOG = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
+
+	private static final Pattern PROPERTY_PARAMETER_PATTERN = Pattern.compile("\\[\\[Property:(\\S+)\\|");
+	private static final Pattern ITEM_PARAMETER_PATTERN     = Pattern.compile("\\[\\[Item:(\\S+)\\|");
+
+	private static final String MEDIAWIKI_SUCCESS_IDENTIFIER                                          = "success";
+	private static final String MEDIAWIKI_ENTITY_IDENTIFIER                                           = "entity";
+	public static final  String MEDIAWIKI_ERROR_IDENTIFIER                                            = "error";
+	public static final  String MEDIAWIKI_CODE_IDENTIFIER                                             = "code";
+	public static final  String MEDIAWIKI_FAILED_SAVE_ERROR_CODE                                      = "failed-save";
+	public static final  String MEDIAWIKI_MODIFICATION_FAILED_ERROR_CODE                              = "modification-failed";
+	public static final  String MEDIAWIKI_MESSAGES_IDENTIFIER                                         = "messages";
+	public static final  String MEDIAWKI_NAME_IDENTIFIER                                              = "name";
+	public static final  String WIKIBASE_VALIDATOR_LABEL_CONFLICT_ERROR_MESSAGE_NAME                  = "wikibase-validator-label-conflict";
+	public static final  String WIKIBASE_VALIDATOR_LABEL_WITH_DESCRIPTION_CONFLICT_ERROR_MESSAGE_NAME = "wikibase-validator-label-with-description-conflict";
+	public static final  String MEDIAWIKI_PARAMETERS_IDENTIFIER                                       = "parameters";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * the default item + property namespaces of Wikibase
+	 */
+	private static final int[] ENTITY_NAMESPACE_IDS = { MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_ID,
+			MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_ID };
+
+	private final WikibaseAPIClient wikibaseAPIClient;
+
+	public WikibaseAPIImportTarget() throws WikidataImporterException {
+
+		this(new WikibaseAPIClient());
+	}
+
+	public WikibaseAPIImportTarget(final WikibaseAPIClient wikibaseAPIClient) {
+
+		this.wikibaseAPIClient = wikibaseAPIClient;
+	}
+
+	@Override
+	public PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty) throws WikidataImporterException {
+
+		// create Property at Wikibase (to have a generated Property identifier)
+		try {
+
+			final Observable<Response> createEntityResponse = wikibaseAPIClient.createEntity(wikidataProperty,
+					WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY, RequestPriority.PROPERTY_CREATE);
+
+			// handle duplicates, i.e., one can only create uniquely labelled properties in wikibase, otherwise "wikibase-validator-label-conflict" will be thrown
+			final JsonNode entityOrErrorJSON = processEditEntityResponse(propertyIdentifier, createEntityResponse,
+					WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY);
+
+			final JsonNode errorNode = entityOrErrorJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+
+			if (errorNode == null) {
+
+				// response JSON should be an entity
+
+				final PropertyDocument propertyDocument = MAPPER.treeToValue(entityOrErrorJSON, JacksonPropertyDocument.class);
+
+				if (propertyDocument == null) {
+
+					final String message = String
+							.format("could not create new property for '%s'; could not deserialize response body", propertyIdentifier);
+
+					LOG.error(message);
+
+					throw new WikidataImporterException(message);
+				}
+
+				final PropertyIdValue responsePropertyId = propertyDocument.getPropertyId();
+
+				if (responsePropertyId == null) {
+
+					final String message = String
+							.format("could not create new property for '%s'; response property id is not available", propertyIdentifier);
+
+					LOG.error(message);
+
+					throw new WikidataImporterException(message);
+				}
+
+				wikibaseAPIClient.getMetrics().propertyCreated();
+
+				return responsePropertyId;
+			}
+
+			// TODO: refactoring following code and that one of item creation duplicate handling into separate method
+
+			// an error occurred
+
+			final JsonNode errorCodeJSON = errorNode.get(MEDIAWIKI_CODE_IDENTIFIER);
+
+			if (errorCodeJSON == null) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an unknown error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final String errorCode = errorCodeJSON.asText();
+
+			if (!MEDIAWIKI_FAILED_SAVE_ERROR_CODE.equals(errorCode)) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode messagesJSON = errorNode.get(MEDIAWIKI_MESSAGES_IDENTIFIER);
+
+			if (messagesJSON == null || messagesJSON.size() <= 0) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode firstMessageNode = messagesJSON.get(0);
+
+			if (firstMessageNode == null) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode errorMessageNameNode = firstMessageNode.get(MEDIAWKI_NAME_IDENTIFIER);
+
+			final String errorMessageName = errorMessageNameNode.asText();
+
+			if (!WIKIBASE_VALIDATOR_LABEL_CONFLICT_ERROR_MESSAGE_NAME.equals(errorMessageName)) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode errorMessageParametersNode = firstMessageNode.get(MEDIAWIKI_PARAMETERS_IDENTIFIER);
+
+			if (errorMessageParametersNode == null || errorMessageParametersNode.size() < 3) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode thirdErrorMessageParameterNode = errorMessageParametersNode.get(2);
+
+			if (thirdErrorMessageParameterNode == null) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			// extract the property id from this value
+			final String thirdErrorMessageParameter = thirdErrorMessageParameterNode.asText();
+
+			final Optional<String> optionalPropertyId = findPropertyId(thirdErrorMessageParameter);
+
+			if (!optionalPropertyId.isPresent()) {
+
+				final String message = String
+						.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final String propertyId = optionalPropertyId.get();
+
+			wikibaseAPIClient.getMetrics().propertyConflicted();
+
+			return Datamodel.makePropertyIdValue(propertyId, null);
+		} catch (final WikidataImporterException e) {
+
+			throw e;
+		} catch (final Exception e) {
+
+			final String message = "something went wrong, while trying to create a new property";
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	@Override
+	public ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		// note: the API doesn't distinguish between placeholder items and full items, i.e., a later create attempt of the full item will run into a label (+ description) conflict and reuse the identifier of the placeholder item
+		// placeholder items block the items that reference them, i.e., they jump the queue of the full item edits
+		return createItem(resourceURI, wikidataItem, RequestPriority.PLACEHOLDER_ITEM);
+	}
+
+	@Override
+	public ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
+
+		return createItem(resourceURI, wikidataItem, RequestPriority.ITEM_EDIT);
+	}
+
+	private ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem, final RequestPriority priority)
+			throws WikidataImporterException {
+
+		// create Item at Wikibase (to have a generated Item identifier)
+		try {
+
+			final Observable<Response> createEntityResponse = wikibaseAPIClient
+					.createEntity(wikidataItem, WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM, priority);
+
+			final JsonNode entityOrErrorJSON = processEditEntityResponse(resourceURI, createEntityResponse,
+					WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
+
+			final JsonNode errorNode = entityOrErrorJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+
+			if (errorNode == null) {
+
+				// response JSON should be an entity
+
+				final ItemDocument itemDocument = MAPPER.treeToValue(entityOrErrorJSON, JacksonItemDocument.class);
+
+				if (itemDocument == null) {
+
+					final String message = String
+							.format("could not create new item for '%s'; could not deserialize response body", resourceURI);
+
+					LOG.error(message);
+
+					throw new WikidataImporterException(message);
+				}
+
+				final ItemIdValue responseItemId = itemDocument.getItemId();
+
+				if (responseItemId == null) {
+
+					final String message = String
+							.format("could not create new item for '%s'; response property id is not available", resourceURI);
+
+					LOG.error(message);
+
+					throw new WikidataImporterException(message);
+				}
+
+				if (priority == RequestPriority.PLACEHOLDER_ITEM) {
+
+					wikibaseAPIClient.getMetrics().placeholderItemCreated();
+				} else {
+
+					wikibaseAPIClient.getMetrics().itemCreated();
+				}
+
+				return responseItemId;
+			}
+
+			// TODO: refactoring following code and that one of property creation duplicate handling into separate method
+
+			// an error occurred
+
+			final JsonNode errorCodeJSON = errorNode.get(MEDIAWIKI_CODE_IDENTIFIER);
+
+			if (errorCodeJSON == null) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an unknown error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final String errorCode = errorCodeJSON.asText();
+
+			if (!MEDIAWIKI_MODIFICATION_FAILED_ERROR_CODE.equals(errorCode)) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode messagesJSON = errorNode.get(MEDIAWIKI_MESSAGES_IDENTIFIER);
+
+			if (messagesJSON == null || messagesJSON.size() <= 0) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode firstMessageNode = messagesJSON.get(0);
+
+			if (firstMessageNode == null) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode errorMessageNameNode = firstMessageNode.get(MEDIAWKI_NAME_IDENTIFIER);
+
+			final String errorMessageName = errorMessageNameNode.asText();
+
+			if (!WIKIBASE_VALIDATOR_LABEL_WITH_DESCRIPTION_CONFLICT_ERROR_MESSAGE_NAME.equals(errorMessageName)) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode errorMessageParametersNode = firstMessageNode.get(MEDIAWIKI_PARAMETERS_IDENTIFIER);
+
+			if (errorMessageParametersNode == null || errorMessageParametersNode.size() < 3) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final JsonNode thirdErrorMessageParameterNode = errorMessageParametersNode.get(2);
+
+			if (thirdErrorMessageParameterNode == null) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			// extract the item id from this value
+			final String thirdErrorMessageParameter = thirdErrorMessageParameterNode.asText();
+
+			final Optional<String> optionalItemId = findItemId(thirdErrorMessageParameter);
+
+			if (!optionalItemId.isPresent()) {
+
+				final String message = String
+						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			final String itemId = optionalItemId.get();
+
+			wikibaseAPIClient.getMetrics().itemConflicted();
+
+			final ItemIdValue itemIdValue = Datamodel.makeItemIdValue(itemId, null);
+
+			// note: label + description are generated from the resource URI, i.e., the existing item is the (placeholder or full) item of this
+			// resource; a full item replaces it (since it's unknown, whether the existing item is a placeholder item only)
+			if (priority == RequestPriority.ITEM_EDIT) {
+
+				return updateItem(resourceURI, itemIdValue, wikidataItem, false);
+			}
+
+			return itemIdValue;
+		} catch (final WikidataImporterException e) {
+
+			throw e;
+		} catch (final Exception e) {
+
+			final String message = "something went wrong, while trying to create a new item";
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	/**
+	 * Adds the statements of the given item to the placeholder item or replaces the already existing item otherwise (via 'wbeditentity' with
+	 * 'id' + 'clear').
+	 */
+	@Override
+	public ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem, final boolean placeholder)
+			throws WikidataImporterException {
+
+		if (placeholder && wikidataItem.getStatementGroups().isEmpty()) {
+
+			// nothing to add (label + description are equal anyway)
+			return itemId;
+		}
+
+		try {
+
+			final Observable<Response> updateEntityResponse = wikibaseAPIClient
+					.updateEntity(itemId.getId(), wikidataItem, WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM, !placeholder,
+							RequestPriority.ITEM_EDIT);
+
+			final JsonNode entityOrErrorJSON = processEditEntityResponse(resourceURI, updateEntityResponse,
+					WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
+
+			final JsonNode errorNode = entityOrErrorJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+
+			if (errorNode != null) {
+
+				final String message = String
+						.format("could not update item '%s' of '%s'; an error ('%s') occurred", itemId.getId(), resourceURI,
+								MAPPER.writeValueAsString(errorNode));
+
+				throw new WikidataImporterException(message);
+			}
+
+			return itemId;
+		} catch (final WikidataImporterException e) {
+
+			throw e;
+		} catch (final Exception e) {
+
+			final String message = String.format("something went wrong, while trying to update item '%s'", itemId.getId());
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		}
+	}
+
+	@Override
+	public long readEntityLabels(final EntityIdWarmUp.EntityLabelHandler handler) throws WikidataImporterException {
+
+		return EntityIdWarmUp.readAPI(wikibaseAPIClient, ENTITY_NAMESPACE_IDS, handler);
+	}
+
+	@Override
+	public ImportMetrics getMetrics() {
+
+		return wikibaseAPIClient.getMetrics();
+	}
+
+	@Override
+	public void close() {
+
+		wikibaseAPIClient.close();
+	}
+
+	private JsonNode processEditEntityResponse(final String entityIdentifier, final Observable<Response> createEntityResponse, final String type)
+			throws IOException {
+
+		final EditEntityResponseEvent event = ImportEvents.AVAILABLE ? new EditEntityResponseEvent() : null;
+
+		try {
+
+			final Response response = createEntityResponse.toBlocking().firstOrDefault(null);
+
+			if (response == null) {
+
+				final String message = String.format("could not create new %s for '%s'", type, entityIdentifier);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			final int status = response.getStatus();
+
+			if (event != null) {
+
+				event.status = status;
+				event.responseBytes = response.getLength();
+			}
+
+			if (status != 200) {
+
+				final String message = String
+						.format("could not create new %s for '%s'; response status != 200 (was '%d').", type, entityIdentifier, status);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			final String responseBody = response.readEntity(String.class);
+
+			RESPONSE_LOG.debug("response status = 200, body = {} ('{}' responses so far)", responseBody);
+
+			final ObjectNode responseJSON = MAPPER.readValue(responseBody, ObjectNode.class);
+
+			if (responseJSON == null) {
+
+				final String message = String
+						.format("could not create new %s for '%s'; could not deserialize response.", type, entityIdentifier);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			final JsonNode errorNode = responseJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+
+			if (errorNode != null) {
+
+				if (event != null) {
+
+					event.error = errorNode.path(MEDIAWIKI_CODE_IDENTIFIER).asText();
+				}
+
+				if (ERROR_RESPONSE_LOG.isDebugEnabled()) {
+
+					LOG.debug("could not create new {} for '{}'; an error occurred ('{}').", type, entityIdentifier, responseBody);
+				}
+
+				// return error so that it can be handled at the client
+				return responseJSON;
+			}
+
+			final JsonNode successNode = responseJSON.get(MEDIAWIKI_SUCCESS_IDENTIFIER);
+
+			if (successNode == null) {
+
+				final String message = String
+						.format("could not create new %s for '%s'; no 'success' node in response ('%s')", type, entityIdentifier, responseBody);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			final int success = successNode.asInt();
+
+			if (success != 1) {
+
+				final String message = String
+						.format("could not create new %s for '%s'; 'success' = '%d'", type, entityIdentifier, success);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			final JsonNode entityNode = responseJSON.get(MEDIAWIKI_ENTITY_IDENTIFIER);
+
+			if (entityNode == null) {
+
+				final String message = String
+						.format("could not create new %s for '%s'; no 'entity' node in response ('%s')", type, entityIdentifier, responseBody);
+
+				LOG.error(message);
+
+				throw new WikidataImporterError(new WikidataImporterException(message));
+			}
+
+			return entityNode;
+		} finally {
+
+			if (event != null) {
+
+				event.record(entityIdentifier, type);
+			}
+		}
+	}
+
+	private static Optional<String> findPropertyId(final String haystack) {
+
+		return findEntityId(haystack, PROPERTY_PARAMETER_PATTERN);
+	}
+
+	private static Optional<String> findItemId(final String haystack) {
+
+		return findEntityId(haystack, ITEM_PARAMETER_PATTERN);
+	}
+
+	private static Optional<String> findEntityId(final String haystack, final Pattern pattern) {
+
+		final Matcher matcher = pattern.matcher(haystack);
+		final boolean isMatch = matcher.find();
+
+		if (isMatch) {
+
+			return Optional.of(matcher.group(1));
+		}
+
+		return Optional.empty();
+	}
+}
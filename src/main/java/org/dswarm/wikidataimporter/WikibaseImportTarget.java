@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+/**
+ * A destination for the entities (properties + items) that are generated from a GDM model, e.g., a Wikibase instance (via its API) or a
+ * MediaWiki XML dump (for bulk loading).
+ *
+ * @author tgaengler
+ */
+public interface WikibaseImportTarget extends Closeable {
+
+	/**
+	 * Creates the given property (or finds the already existing one) and returns its identifier.
+	 *
+	 * @param propertyIdentifier the GDM predicate URI (or qualified attribute identifier) of the property
+	 * @param wikidataProperty   the property document (without identifier)
+	 * @return the identifier of the property
+	 * @throws WikidataImporterException
+	 */
+	PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty) throws WikidataImporterException;
+
+	/**
+	 * Creates a placeholder item, i.e., an item that is only referenced (as object) so far, and returns its identifier.
+	 *
+	 * @param resourceURI  the GDM resource URI of the item
+	 * @param wikidataItem the (label-only) item document (without identifier)
+	 * @return the identifier of the item
+	 * @throws WikidataImporterException
+	 */
+	ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException;
+
+	/**
+	 * Creates the given item (incl. its statements) and returns its identifier.
+	 *
+	 * @param resourceURI  the GDM resource URI of the item
+	 * @param wikidataItem the item document (without identifier)
+	 * @return the identifier of the item
+	 * @throws WikidataImporterException
+	 */
+	ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException;
+
+	/**
+	 * Updates the already existing item with the given item, i.e., a placeholder item (e.g. one that was created by another process) is
+	 * completed with the statements of the given item and any other item (e.g. a full item of a previous import) is replaced by the given
+	 * item. Note: merging statements into a full item would duplicate its statements, i.e., an item must only be marked as placeholder item,
+	 * if that is known for sure.
+	 *
+	 * @param resourceURI  the GDM resource URI of the item
+	 * @param itemId       the identifier of the existing item
+	 * @param wikidataItem the item document (without identifier)
+	 * @param placeholder  true, if the existing item is known to be a placeholder item
+	 * @return the identifier of the item
+	 * @throws WikidataImporterException
+	 */
+	ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem, final boolean placeholder)
+			throws WikidataImporterException;
+
+	/**
+	 * Reads the ids + labels of the entities that already exist at this target, e.g., to warm up the entity id caches of an importer (see
+	 * {@link EntityIdWarmUp}). By default, a target doesn't provide any existing entities.
+	 *
+	 * @param handler the consumer of the entity labels
+	 * @return the number of handed over entities
+	 * @throws WikidataImporterException
+	 */
+	default long readEntityLabels(final EntityIdWarmUp.EntityLabelHandler handler) throws WikidataImporterException {
+
+		return 0;
+	}
+
+	/**
+	 * @return the metrics of this target (they are owned by the target, i.e., they are closed together with it)
+	 */
+	ImportMetrics getMetrics();
+
+	@Override
+	void close() throws IOException;
+}
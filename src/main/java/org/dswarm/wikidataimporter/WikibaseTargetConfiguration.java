@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import com.google.common.io.Resources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The configuration of a Wikibase instance that should be utilised as import target, i.e., its API endpoint + credentials as well as the
+ * number of concurrent (resource) imports, the number of resources that can be buffered for this target and the (optional) disk-backed
+ * item id cache.<br/>
+ * Several targets can be configured in dswarm.properties via 'wikibase_targets' (comma-separated list of target names), whereby each
+ * target setting is prefixed with the target name, e.g., 'staging.mediawiki_api_endpoint'. Otherwise, a single target will be
+ * configured from the un-prefixed settings.
+ *
+ * @author tgaengler
+ */
+public class WikibaseTargetConfiguration {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WikibaseTargetConfiguration.class);
+
+	private static final Properties properties = new Properties();
+
+	public static final  String WIKIBASE_TARGETS                = "wikibase_targets";
+	public static final  String MEDIAWIKI_API_ENDPOINT          = "mediawiki_api_endpoint";
+	public static final  String MEDIAWIKI_USERNAME              = "mediawiki_username";
+	public static final  String MEDIAWIKI_PASSWORD              = "mediawiki_password";
+	public static final  String CONCURRENCY                     = "concurrency";
+	public static final  String BUFFER_SIZE                     = "buffer_size";
+	public static final  String ENTITY_ID_CACHE_DIRECTORY       = "entity_id_cache_directory";
+	public static final  String ENTITY_ID_CACHE_SIZE            = "entity_id_cache_size";
+	public static final  String ENTITY_ID_CACHE_EXPECTED_SIZE   = "entity_id_cache_expected_size";
+	public static final  String MAX_CONCURRENT_REQUESTS         = "max_concurrent_requests";
+	private static final String FALLBACK_MEDIAWIKI_API_ENDPOINT = "http://localhost:1234/whoknows";
+	private static final String DEFAULT_TARGET_NAME             = "default";
+	private static final String TARGET_NAME_SEPARATOR           = ",";
+	private static final char   TARGET_PROPERTY_SEPARATOR       = '.';
+	private static final int    DEFAULT_CONCURRENCY             = 1;
+	private static final int    DEFAULT_BUFFER_SIZE             = 1000;
+
+	static {
+
+		final URL resource = Resources.getResource("dswarm.properties");
+
+		try (final InputStream propertiesStream = resource.openStream()) {
+
+			properties.load(propertiesStream);
+		} catch (final IOException e) {
+
+			LOG.error("Could not load dswarm.properties", e);
+		}
+	}
+
+	private final String name;
+	private final String apiEndpoint;
+	private final String username;
+	private final String password;
+	private final int    concurrency;
+	private final int    bufferSize;
+	private final String entityIdCacheDirectory;
+	private final long   entityIdCacheSize;
+	private final long   entityIdCacheExpectedSize;
+	private final int    maxConcurrentRequests;
+
+	public WikibaseTargetConfiguration(final String name, final String apiEndpoint, final String username, final String password,
+			final int concurrency, final int bufferSize) {
+
+		this(name, apiEndpoint, username, password, concurrency, bufferSize, null, TieredEntityIdCache.DEFAULT_HOT_TIER_SIZE,
+				TieredEntityIdCache.DEFAULT_EXPECTED_SIZE, concurrency);
+	}
+
+	/**
+	 * @param entityIdCacheDirectory    the directory of the disk tier of the item id cache (or null, if all item ids should be cached in
+	 *                                  memory)
+	 * @param entityIdCacheSize         the maximum number of item ids in the hot tier of the item id cache
+	 * @param entityIdCacheExpectedSize the expected number of item ids (to dimension the Bloom filter of the item id cache)
+	 * @param maxConcurrentRequests     the maximum number of concurrently executed API requests (further requests wait in the priority
+	 *                                  lanes of the API client)
+	 */
+	public WikibaseTargetConfiguration(final String name, final String apiEndpoint, final String username, final String password,
+			final int concurrency, final int bufferSize, final String entityIdCacheDirectory, final long entityIdCacheSize,
+			final long entityIdCacheExpectedSize, final int maxConcurrentRequests) {
+
+		this.name = name;
+		this.apiEndpoint = apiEndpoint;
+		this.username = username;
+		this.password = password;
+		this.concurrency = Math.max(1, concurrency);
+		this.bufferSize = Math.max(1, bufferSize);
+		this.entityIdCacheDirectory = entityIdCacheDirectory != null && !entityIdCacheDirectory.trim().isEmpty() ?
+				entityIdCacheDirectory.trim() :
+				null;
+		this.entityIdCacheSize = Math.max(1, entityIdCacheSize);
+		this.entityIdCacheExpectedSize = Math.max(1, entityIdCacheExpectedSize);
+		this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+	}
+
+	public String getName() {
+
+		return name;
+	}
+
+	public String getApiEndpoint() {
+
+		return apiEndpoint;
+	}
+
+	public String getUsername() {
+
+		return username;
+	}
+
+	public String getPassword() {
+
+		return password;
+	}
+
+	public int getConcurrency() {
+
+		return concurrency;
+	}
+
+	public int getBufferSize() {
+
+		return bufferSize;
+	}
+
+	public Optional<String> getEntityIdCacheDirectory() {
+
+		return Optional.ofNullable(entityIdCacheDirectory);
+	}
+
+	public long getEntityIdCacheSize() {
+
+		return entityIdCacheSize;
+	}
+
+	public long getEntityIdCacheExpectedSize() {
+
+		return entityIdCacheExpectedSize;
+	}
+
+	public int getMaxConcurrentRequests() {
+
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * @return the un-prefixed target configuration of dswarm.properties
+	 */
+	public static WikibaseTargetConfiguration defaultTarget() {
+
+		return new WikibaseTargetConfiguration(DEFAULT_TARGET_NAME,
+				properties.getProperty(MEDIAWIKI_API_ENDPOINT, FALLBACK_MEDIAWIKI_API_ENDPOINT),
+				getProperty(MEDIAWIKI_USERNAME),
+				getProperty(MEDIAWIKI_PASSWORD),
+				getIntProperty(CONCURRENCY, DEFAULT_CONCURRENCY),
+				getIntProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE),
+				properties.getProperty(ENTITY_ID_CACHE_DIRECTORY),
+				getLongProperty(ENTITY_ID_CACHE_SIZE, TieredEntityIdCache.DEFAULT_HOT_TIER_SIZE),
+				getLongProperty(ENTITY_ID_CACHE_EXPECTED_SIZE, TieredEntityIdCache.DEFAULT_EXPECTED_SIZE),
+				getIntProperty(MAX_CONCURRENT_REQUESTS, getIntProperty(CONCURRENCY, DEFAULT_CONCURRENCY)));
+	}
+
+	/**
+	 * @return all target configurations of dswarm.properties (or the default target, if no targets are configured explicitly)
+	 * @throws WikidataImporterException if a configured target has no API endpoint
+	 */
+	public static List<WikibaseTargetConfiguration> targets() throws WikidataImporterException {
+
+		final String targetNames = properties.getProperty(WIKIBASE_TARGETS);
+
+		final List<WikibaseTargetConfiguration> targets = new ArrayList<>();
+
+		if (targetNames == null || targetNames.trim().isEmpty()) {
+
+			targets.add(defaultTarget());
+
+			return targets;
+		}
+
+		for (final String targetName : targetNames.split(TARGET_NAME_SEPARATOR)) {
+
+			final String trimmedTargetName = targetName.trim();
+
+			if (trimmedTargetName.isEmpty()) {
+
+				continue;
+			}
+
+			final String apiEndpoint = properties.getProperty(targetKey(trimmedTargetName, MEDIAWIKI_API_ENDPOINT));
+
+			if (apiEndpoint == null || apiEndpoint.trim().isEmpty()) {
+
+				final String message = String.format("couldn't find property '%s' for Wikibase target '%s' in properties file",
+						targetKey(trimmedTargetName, MEDIAWIKI_API_ENDPOINT), trimmedTargetName);
+
+				LOG.error(message);
+
+				throw new WikidataImporterException(message);
+			}
+
+			// note: credentials, concurrency, buffer size, entity id cache + request settings fall back to the un-prefixed settings
+			targets.add(new WikibaseTargetConfiguration(trimmedTargetName,
+					apiEndpoint.trim(),
+					getTargetProperty(trimmedTargetName, MEDIAWIKI_USERNAME),
+					getTargetProperty(trimmedTargetName, MEDIAWIKI_PASSWORD),
+					getIntProperty(targetKey(trimmedTargetName, CONCURRENCY), getIntProperty(CONCURRENCY, DEFAULT_CONCURRENCY)),
+					getIntProperty(targetKey(trimmedTargetName, BUFFER_SIZE), getIntProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE)),
+					properties.getProperty(targetKey(trimmedTargetName, ENTITY_ID_CACHE_DIRECTORY),
+							properties.getProperty(ENTITY_ID_CACHE_DIRECTORY)),
+					getLongProperty(targetKey(trimmedTargetName, ENTITY_ID_CACHE_SIZE),
+							getLongProperty(ENTITY_ID_CACHE_SIZE, TieredEntityIdCache.DEFAULT_HOT_TIER_SIZE)),
+					getLongProperty(targetKey(trimmedTargetName, ENTITY_ID_CACHE_EXPECTED_SIZE),
+							getLongProperty(ENTITY_ID_CACHE_EXPECTED_SIZE, TieredEntityIdCache.DEFAULT_EXPECTED_SIZE)),
+					getIntProperty(targetKey(trimmedTargetName, MAX_CONCURRENT_REQUESTS), getIntProperty(MAX_CONCURRENT_REQUESTS,
+							getIntProperty(targetKey(trimmedTargetName, CONCURRENCY), getIntProperty(CONCURRENCY, DEFAULT_CONCURRENCY))))));
+		}
+
+		return targets;
+	}
+
+	private static String targetKey(final String targetName, final String propertyKey) {
+
+		return targetName + TARGET_PROPERTY_SEPARATOR + propertyKey;
+	}
+
+	private static String getTargetProperty(final String targetName, final String propertyKey) {
+
+		final String targetPropertyValue = properties.getProperty(targetKey(targetName, propertyKey));
+
+		if (targetPropertyValue != null) {
+
+			return targetPropertyValue;
+		}
+
+		return getProperty(propertyKey);
+	}
+
+	private static String getProperty(final String propertyKey) {
+
+		final String propertyValue = properties.getProperty(propertyKey);
+
+		if (propertyValue == null || propertyValue.trim().isEmpty()) {
+
+			LOG.error("couldn't find property '{}' in properties file", propertyKey);
+		}
+
+		return propertyValue;
+	}
+
+	private static int getIntProperty(final String propertyKey, final int defaultValue) {
+
+		final String propertyValue = properties.getProperty(propertyKey);
+
+		if (propertyValue == null || propertyValue.trim().isEmpty()) {
+
+			return defaultValue;
+		}
+
+		try {
+
+			return Integer.parseInt(propertyValue.trim());
+		} catch (final NumberFormatException e) {
+
+			LOG.error("couldn't parse value '{}' of property '{}' as number; use default value '{}'", propertyValue, propertyKey, defaultValue);
+
+			return defaultValue;
+		}
+	}
+
+	private static long getLongProperty(final String propertyKey, final long defaultValue) {
+
+		final String propertyValue = properties.getProperty(propertyKey);
+
+		if (propertyValue == null || propertyValue.trim().isEmpty()) {
+
+			return defaultValue;
+		}
+
+		try {
+
+			return Long.parseLong(propertyValue.trim());
+		} catch (final NumberFormatException e) {
+
+			LOG.error("couldn't parse value '{}' of property '{}' as number; use default value '{}'", propertyValue, propertyKey, defaultValue);
+
+			return defaultValue;
+		}
+	}
+}
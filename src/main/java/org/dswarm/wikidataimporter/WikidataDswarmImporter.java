@@ -17,26 +17,18 @@ package org.dswarm.wikidataimporter;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import javax.ws.rs.core.Response;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
@@ -57,19 +49,10 @@ import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
 import org.wikidata.wdtk.datamodel.interfaces.Value;
 import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
-import org.wikidata.wdtk.datamodel.json.jackson.JacksonItemDocument;
 import org.wikidata.wdtk.datamodel.json.jackson.JacksonObjectFactory;
-import org.wikidata.wdtk.datamodel.json.jackson.JacksonPropertyDocument;
 import rx.Observable;
 
-import org.dswarm.graph.json.LiteralNode;
-import org.dswarm.graph.json.Node;
 import org.dswarm.graph.json.NodeType;
-import org.dswarm.graph.json.Predicate;
-import org.dswarm.graph.json.Resource;
-import org.dswarm.graph.json.ResourceNode;
-import org.dswarm.graph.json.Statement;
-import org.dswarm.graph.json.stream.ModelParser;
 
 /**
  * @author tgaengler
@@ -78,955 +61,711 @@ public class WikidataDswarmImporter {
 
 	private static final Logger LOG = LoggerFactory.getLogger(WikidataDswarmImporter.class);
 
-	private static final String TOO_LONG_VALUE_POSTFIX = "...";
-
-	private static Pattern PROPERTY_PARAMETER_PATTERN = Pattern.compile("\\[\\[Property:(\\S+)\\|");
-	private static Pattern ITEM_PARAMETER_PATTERN     = Pattern.compile("\\[\\[Item:(\\S+)\\|");
-
-	private static final String LANGUAGE_CODE_EN                                                      = "en";
-	private static final String CONFIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER                             = "confidence";
-	private static final String EVIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER                               = "evidence";
-	private static final String ORDER_QUALIFIED_ATTRIBUTE_IDENTIFIER                                  = "order";
-	private static final String STATEMENT_UUID_QUALIFIED_ATTRIBUTE_IDENTIFIER                         = "statement uuid";
-	private static final String MEDIAWIKI_PROPERTY_ID_PREFIX                                          = "P";
-	private static final String MEDIAWIKI_SUCCESS_IDENTIFIER                                          = "success";
-	private static final String MEDIAWIKI_ENTITY_IDENTIFIER                                           = "entity";
-	private static final String VALUE_WAS_EMPTY_ORIGINALLY                                            = "!!! VALUE WAS EMPTY ORIGINALLY !!!";
-	public static final  String MEDIAWIKI_ERROR_IDENTIFIER                                            = "error";
-	public static final  String MEDIAWIKI_CODE_IDENTIFIER                                             = "code";
-	public static final  String MEDIAWIKI_FAILED_SAVE_ERROR_CODE                                      = "failed-save";
-	public static final  String MEDIAWIKI_MODIFICATION_FAILED_ERROR_CODE                              = "modification-failed";
-	public static final  String MEDIAWIKI_MESSAGES_IDENTIFIER                                         = "messages";
-	public static final  String MEDIAWKI_NAME_IDENTIFIER                                              = "name";
-	public static final  String WIKIBASE_VALIDATOR_LABEL_CONFLICT_ERROR_MESSAGE_NAME                  = "wikibase-validator-label-conflict";
-	public static final  String WIKIBASE_VALIDATOR_LABEL_WITH_DESCRIPTION_CONFLICT_ERROR_MESSAGE_NAME = "wikibase-validator-label-with-description-conflict";
-	public static final  String MEDIAWIKI_PARAMETERS_IDENTIFIER                                       = "parameters";
-
-	private final AtomicLong    resourceCount           = new AtomicLong();
-	private final AtomicLong    bigResourceCount        = new AtomicLong();
-	private final AtomicLong    statementCount          = new AtomicLong();
-	private final AtomicLong    bigStatementCount       = new AtomicLong();
-	private final AtomicLong    processedStatementCount = new AtomicLong();
-	private final AtomicInteger propertyIdCounter       = new AtomicInteger(100000);
-
-	private static final Map<String, ItemIdValue>     gdmResourceURIWikidataItemMap     = new HashMap<>();
-	private static final Map<String, PropertyIdValue> gdmPropertyURIWikidataPropertyMap = new HashMap<>();
-
-	private static final DataObjectFactory  jsonOjbectFactory  = new JacksonObjectFactory();
-	private static final DatamodelConverter datamodelConverter = new DatamodelConverter(jsonOjbectFactory);
-
-	private static final ObjectMapper MAPPER = new ObjectMapper();
-
-	private final WikibaseAPIClient wikibaseAPIClient;
-
-	public WikidataDswarmImporter() throws WikidataImporterException {
+	private static final LogSampler SKIPPED_STATEMENT_LOG = new LogSampler(LOG, LogSampler.DEFAULT_RATE);
 
-		wikibaseAPIClient = new WikibaseAPIClient();
-	}
+	private static final String LANGUAGE_CODE_EN                          = "en";
+	private static final String CONFIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER     = "confidence";
+	private static final String EVIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER       = "evidence";
+	private static final String ORDER_QUALIFIED_ATTRIBUTE_IDENTIFIER          = "order";
+	private static final String STATEMENT_UUID_QUALIFIED_ATTRIBUTE_IDENTIFIER = "statement uuid";
+	private static final String VALUE_WAS_EMPTY_ORIGINALLY                    = "!!! VALUE WAS EMPTY ORIGINALLY !!!";
 
-	public void importGDMModel(final String filePath) throws IOException {
+	/**
+	 * the qualified attributes of a GDM statement that are converted into (string) qualifiers (in this order); note: the order is converted
+	 * into a string as well for now (there is no number/long specific datatype available; maybe this qualified attribute is not really
+	 * needed)
+	 */
+	private static final String[] QUALIFIED_ATTRIBUTE_IDENTIFIERS = { CONFIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER,
+			EVIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER, ORDER_QUALIFIED_ATTRIBUTE_IDENTIFIER, STATEMENT_UUID_QUALIFIED_ATTRIBUTE_IDENTIFIER };
 
-		final Observable<Resource> gdmModel = getGDMModel(filePath);
+	/**
+	 * the qualifiers of the statement that is converted on the current thread (re-used per thread, see
+	 * {@link #processGDMQualifiedAttributes(GDMStatementRecord)})
+	 */
+	private static final ThreadLocal<Snak[]> QUALIFIERS_SCRATCH = ThreadLocal.withInitial(() -> new Snak[QUALIFIED_ATTRIBUTE_IDENTIFIERS.length]);
 
-		gdmModel.map(resource -> {
+	private final AtomicInteger propertyIdCounter = new AtomicInteger(100000);
 
-			try {
+	/**
+	 * note: the entity id caches are bound to the import target, i.e., every target has its own id namespace; the item id cache is a
+	 * compact one, since there are usually (tens of) millions of items, but only a few properties
+	 */
+	private final EntityIdCache                gdmResourceURIWikidataItemIdCache;
+	private final Map<String, PropertyIdValue> gdmPropertyURIWikidataPropertyMap = new ConcurrentHashMap<>();
 
-				processGDMResource(resource);
-			} catch (final Exception e) {
+	/**
+	 * the properties of the qualified attributes (see {@link #QUALIFIED_ATTRIBUTE_IDENTIFIERS}), once they are resolved, i.e., a qualifier
+	 * doesn't need a property cache lookup (incl. the hashing of its identifier)
+	 */
+	private final AtomicReferenceArray<PropertyIdValue> qualifiedAttributeProperties = new AtomicReferenceArray<>(
+			QUALIFIED_ATTRIBUTE_IDENTIFIERS.length);
 
-				final String message = "something went wrong while processing this resource";
+	private static final DataObjectFactory  jsonOjbectFactory  = new JacksonObjectFactory();
+	private static final DatamodelConverter datamodelConverter = new DatamodelConverter(jsonOjbectFactory);
 
-				LOG.error(message, e);
+	private final WikibaseImportTarget importTarget;
+	private final ImportMetrics        metrics;
+	private final EntityValidator      entityValidator = new EntityValidator();
 
-				throw WikidataImporterError.wrap(new WikidataImporterException(message, e));
-			}
+	private volatile ImportCostProfile costProfile;
+	private volatile long              progressReportIntervalMillis = TimeUnit.SECONDS.toMillis(ProgressReporter.DEFAULT_INTERVAL_SECONDS);
 
-			return resource;
-		}).toBlocking().lastOrDefault(null);
+	public WikidataDswarmImporter() throws WikidataImporterException {
 
-		// TODO: return Observable (?)
+		this(new WikibaseAPIImportTarget());
 	}
 
-	private void processGDMResource(final Resource resource) throws JsonProcessingException, WikidataImporterException {
-
-		resourceCount.incrementAndGet();
-
-		final String resourceURI = resource.getUri();
+	public WikidataDswarmImporter(final WikibaseImportTarget importTarget) {
 
-		final List<MonolingualTextValue> labels = generateLabels(resource);
-		final List<MonolingualTextValue> descriptions = generateLabels(resourceURI);
-		final List<MonolingualTextValue> aliases = new ArrayList<>();
-
-		final Map<String, List<org.wikidata.wdtk.datamodel.interfaces.Statement>> wikidataStatementsMap = new HashMap<>();
-
-		final Set<Statement> gdmStatements = resource.getStatements();
-
-		if (gdmStatements != null) {
-
-			// write statements (if available)
-
-			for (final Statement gdmStatement : gdmStatements) {
-
-				statementCount.incrementAndGet();
-
-				final String predicateURI = gdmStatement.getPredicate().getUri();
-
-				if (!wikidataStatementsMap.containsKey(predicateURI)) {
-
-					final List<org.wikidata.wdtk.datamodel.interfaces.Statement> wikidataStatements = new ArrayList<>();
-
-					wikidataStatementsMap.put(predicateURI, wikidataStatements);
-				}
-
-				final Optional<org.wikidata.wdtk.datamodel.interfaces.Statement> optionalWikidataStmt = processGDMStatement(gdmStatement);
-
-				if (!optionalWikidataStmt.isPresent()) {
-
-					// log non-created statements
-					LOG.debug("could not process statement '{}'", printGDMStatement(gdmStatement));
-
-					continue;
-				}
-
-				final org.wikidata.wdtk.datamodel.interfaces.Statement wikidataStmt = optionalWikidataStmt.get();
-
-				wikidataStatementsMap.get(predicateURI).add(wikidataStmt);
-
-				processedStatementCount.incrementAndGet();
-
-				final boolean updated = checkAndOptionallyUpdateBigCounter(statementCount, bigStatementCount);
+		this(importTarget, new CompactEntityIdCache());
+	}
 
-				if (updated) {
+	public WikidataDswarmImporter(final WikibaseImportTarget importTarget, final EntityIdCache itemIdCache) {
 
-					final long currentStatementCount = statementCount.get();
+		this.importTarget = importTarget;
+		metrics = importTarget.getMetrics();
+		gdmResourceURIWikidataItemIdCache = itemIdCache;
+	}
 
-					LOG.info("processed '{}' from '{}' statements", processedStatementCount.get(), currentStatementCount);
-				}
-			}
-		}
+	/**
+	 * Adds the id of an already existing entity (e.g. from a warm-up, see {@link EntityIdWarmUp}) to the entity id caches. Note: items and
+	 * properties are labelled with their GDM URIs (or qualified attribute identifiers) by this importer, i.e., the label is the cache key.
+	 *
+	 * @param entityId the entity id, e.g., 'Q42' or 'P31'
+	 * @param label    the (English) label of the entity
+	 */
+	public void cacheEntityId(final String entityId, final String label) {
 
-		final List<StatementGroup> statementGroups = new ArrayList<>();
+		if (entityId.startsWith(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX)) {
 
-		// create statement groups property-wise
-		for (final Map.Entry<String, List<org.wikidata.wdtk.datamodel.interfaces.Statement>> statmentsPerPropertyEntry : wikidataStatementsMap
-				.entrySet()) {
+			final int numericItemId = toNumericItemId(entityId);
 
-			final List<org.wikidata.wdtk.datamodel.interfaces.Statement> statementsPerProperty = statmentsPerPropertyEntry.getValue();
+			gdmResourceURIWikidataItemIdCache.computeIfAbsent(label, label1 -> numericItemId);
+		} else if (entityId.startsWith(EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX)) {
 
-			final StatementGroup statementGroup = Datamodel.makeStatementGroup(statementsPerProperty);
+			gdmPropertyURIWikidataPropertyMap.putIfAbsent(label, Datamodel.makePropertyIdValue(entityId, null));
+		} else {
 
-			statementGroups.add(statementGroup);
+			LOG.debug("skip entity '{}' ('{}'), since it is neither an item nor a property", entityId, label);
 		}
+	}
 
-		final Map<String, SiteLink> siteLinkMap = new HashMap<>();
-
-		// we can also create an item with all it's statements at once, i.e., this would save some HTTP API calls
-		// TODO: check ItemIdValue in map (i.e. whether an wikidata for this gdm resource exists already, or not; because if it exists already, then we need to update the existing one, i.e., do a slightly different API call)
-		final ItemDocument wikidataItem = Datamodel.makeItemDocument(null, labels, descriptions, aliases, statementGroups, siteLinkMap);
-
-		// create item at wikibase (check whether statements are created as well - otherwise we need to create them separately)
-		final ItemIdValue itemIdValue = createWikidataItem(resourceURI, wikidataItem);
-
-		// add/update item id value at the resources items map
-		gdmResourceURIWikidataItemMap.putIfAbsent(resourceURI, itemIdValue);
+	public void importGDMModel(final String filePath) throws IOException {
 
-		final boolean updated = checkAndOptionallyUpdateBigCounter(resourceCount, bigResourceCount);
+		importGDMModel(filePath, new GDMModelReader());
+	}
 
-		if (updated) {
+	public void importGDMModel(final String filePath, final GDMModelReader gdmModelReader) throws IOException {
 
-			final long currentResourceCount = resourceCount.get();
+		final ImportProgress importProgress = new ImportProgress();
 
-			LOG.info("processed '{}' resources ('{}' from '{}' statements)", currentResourceCount, processedStatementCount.get(),
-					statementCount.get());
-		}
+		importRecords(filePath, gdmModelReader.readRecords(filePath, importProgress), importProgress);
 	}
 
 	/**
-	 * sets the resource URI as label right now
+	 * Imports the given GDM model stream (e.g. stdin or an HTTP stream, see {@link GDMModelStreams}), i.e., the resources are processed as
+	 * they arrive.
 	 *
-	 * @param resource
-	 * @return
+	 * @param gdmModelStream the (optionally compressed) GDM model stream
+	 * @param modelName      the name of the GDM model (for logging)
+	 * @param gdmModelReader the reader that should be utilised to parse the GDM model
+	 * @throws IOException
 	 */
-	private List<MonolingualTextValue> generateLabels(final Resource resource) {
-
-		final String resourceURI = resource.getUri();
+	public void importGDMModel(final InputStream gdmModelStream, final String modelName, final GDMModelReader gdmModelReader)
+			throws IOException {
 
-		return generateLabels(resourceURI);
+		importRecords(modelName, gdmModelReader.readRecords(gdmModelStream, modelName), new ImportProgress());
 	}
 
-	private Optional<org.wikidata.wdtk.datamodel.interfaces.Statement> processGDMStatement(final Statement statement) {
+	private void importRecords(final String modelName, final Observable<GDMResourceRecord> gdmModel, final ImportProgress importProgress) {
 
-		final Predicate gdmPredicate = statement.getPredicate();
-		final Node gdmObject = statement.getObject();
+		importProgress.start();
 
-		final String propertyValueDataType;
+		try (final ProgressReporter progressReporter = new ProgressReporter(modelName, importProgress, Collections.singleton(metrics),
+				progressReportIntervalMillis)) {
 
-		final NodeType gdmObjectType = gdmObject.getType();
+			gdmModel.map(resource -> {
 
-		propertyValueDataType = determineWikidataPropertyValueDataType(gdmPredicate, gdmObjectType);
+				importProgress.resourceScanned();
+				importProgress.resourceRead();
 
-		final PropertyIdValue wikidataProperty = processGDMPredicate(gdmPredicate, propertyValueDataType);
+				try {
 
-		final Optional<Value> optionalWikidataValue = processGDMObject(gdmObject);
+					processGDMResource(resource);
+				} catch (final Exception e) {
 
-		if (!optionalWikidataValue.isPresent()) {
+					importProgress.resourceFailed();
 
-			return Optional.empty();
-		}
+					final String message = "something went wrong while processing this resource";
 
-		final Value wikidataValue = optionalWikidataValue.get();
-
-		// create property value pair
-		final ValueSnak snak = Datamodel.makeValueSnak(wikidataProperty, wikidataValue);
+					LOG.error(message, e);
 
-		// process qualified attributes at GDM statement
-		final Optional<List<Snak>> wikidataQualifiers = processGDMQualifiedAttributes(statement);
-
-		final List<SnakGroup> snakGroups = new ArrayList<>();
+					throw WikidataImporterError.wrap(new WikidataImporterException(message, e));
+				}
 
-		if (wikidataQualifiers.isPresent()) {
+				importProgress.resourceImported();
 
-			final SnakGroup snakGroup = Datamodel.makeSnakGroup(wikidataQualifiers.get());
+				return resource;
+			}).toBlocking().lastOrDefault(null);
+		} finally {
 
-			snakGroups.add(snakGroup);
+			importProgress.finish();
 		}
 
-		final Claim claim = Datamodel.makeClaim(null, snak, snakGroups);
-
-		final List<Reference> references = new ArrayList<>();
-		final StatementRank rank = StatementRank.NORMAL;
-
-		// note: empty string for statement id (this should be utilised for statements that are created)
-		// note: Statement references cannot be null
-		// note: Statement rank cannot be null
-		return Optional.ofNullable(Datamodel.makeStatement(claim, references, rank, ""));
-	}
+		LOG.info("imported GDM model '{}' ({})", modelName, importProgress);
 
-	private PropertyIdValue processGDMPredicate(final Predicate predicate, final String propertyValueDataType) {
+		if (entityValidator.getViolationCount() > 0) {
 
-		final String predicateURI = predicate.getUri();
+			LOG.info("found (and fixed) '{}' violations of Wikibase constraints before sending ({})", entityValidator.getViolationCount(),
+					entityValidator);
+		}
 
-		return createOrGetWikidataProperty(predicateURI, propertyValueDataType);
+		// TODO: return Observable (?)
 	}
 
-	private PropertyIdValue createOrGetWikidataProperty(final String propertyIdentifier, final String propertyValueDataType) {
-
-		return gdmPropertyURIWikidataPropertyMap.computeIfAbsent(propertyIdentifier, propertyIdentifier1 -> {
+	/**
+	 * @param interval the interval of the progress reports of the GDM model imports (0 = no progress reports), see {@link ProgressReporter}
+	 * @param unit     the time unit of the interval
+	 */
+	public void setProgressReportInterval(final long interval, final TimeUnit unit) {
 
-			final List<MonolingualTextValue> labels = generateLabels(propertyIdentifier1);
-			final List<MonolingualTextValue> descriptions = generateLabels(propertyIdentifier1);
-			final List<MonolingualTextValue> aliases = new ArrayList<>();
+		progressReportIntervalMillis = unit.toMillis(interval);
+	}
 
-			// add datatype - e.g. all literals are strings (DatatypeIdValue#DT_STRING) and all resources are items (DatatypeIdValue#DT_ITEM)
-			final DatatypeIdValue datatypeIdValue = Datamodel.makeDatatypeIdValue(propertyValueDataType);
+	/**
+	 * @param costProfile the profile that should aggregate the import costs per predicate + resource size, or null, if the costs shouldn't
+	 *                    be measured (default)
+	 */
+	public void setCostProfile(final ImportCostProfile costProfile) {
 
-			// note: list of descriptions cannot be null
-			// note: list of aliases cannot be null
-			final PropertyDocument wikidataProperty = Datamodel.makePropertyDocument(null, labels, descriptions, aliases, datatypeIdValue);
+		this.costProfile = costProfile;
+	}
 
-			// create Property at Wikibase (to have a generated Property identifier)
-			try {
+	/**
+	 * @return the profile of the import costs, or null, if the costs aren't measured
+	 */
+	public ImportCostProfile getCostProfile() {
 
-				final Observable<Response> createEntityResponse = wikibaseAPIClient.createEntity(wikidataProperty,
-						WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY);
+		return costProfile;
+	}
 
-				// handle duplicates, i.e., one can only create uniquely labelled properties in wikibase, otherwise "wikibase-validator-label-conflict" will be thrown
-				final JsonNode entityOrErrorJSON = processEditEntityResponse(propertyIdentifier1, createEntityResponse,
-						WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY);
+	/**
+	 * @return the validator that checks (and fixes) the entities, before they are sent to the import target
+	 */
+	public EntityValidator getEntityValidator() {
 
-				final JsonNode errorNode = entityOrErrorJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+		return entityValidator;
+	}
 
-				if (errorNode == null) {
+	void processGDMResource(final GDMResourceRecord resource) throws JsonProcessingException, WikidataImporterException {
 
-					// response JSON should be an entity
+		final ResourceImportEvent event = ImportEvents.AVAILABLE ? new ResourceImportEvent() : null;
 
-					final PropertyDocument propertyDocument = MAPPER.treeToValue(entityOrErrorJSON, JacksonPropertyDocument.class);
+		final String resourceURI = resource.getResourceURI();
 
-					if (propertyDocument == null) {
+		final ImportCostProfile profile = costProfile;
+		final ImportCostProfile.ResourceCosts resourceCosts = profile != null ? profile.startResource(resourceURI) : null;
+		long editStart = 0;
+		boolean failed = true;
 
-						final String message = String
-								.format("could not create new property for '%s'; could not deserialize response body", propertyIdentifier1);
+		try {
 
-						LOG.error(message);
+			final ItemDocument wikidataItem = createItemDocument(resource, resourceCosts);
 
-						throw new WikidataImporterException(message);
-					}
+			if (event != null) {
 
-					final PropertyIdValue responsePropertyId = propertyDocument.getPropertyId();
+				event.converted();
+			}
 
-					if (responsePropertyId == null) {
+			editStart = System.nanoTime();
 
-						final String message = String
-								.format("could not create new property for '%s'; response property id is not available", propertyIdentifier1);
+			final int cachedNumericItemId = gdmResourceURIWikidataItemIdCache.get(resourceURI);
+			final boolean created = cachedNumericItemId == EntityIdCache.NO_ENTITY_ID;
 
-						LOG.error(message);
+			if (created) {
 
-						throw new WikidataImporterException(message);
-					}
+				// create item at wikibase (check whether statements are created as well - otherwise we need to create them separately)
+				// note: an item for this resource URI might exist already (e.g. an item of a previous import); the import target updates it then
+				final ItemIdValue itemIdValue = createWikidataItem(resourceURI, wikidataItem);
 
-					return responsePropertyId;
-				}
+				// add item id value to the resources item id cache (if it's not present yet)
+				final int numericItemId = toNumericItemId(itemIdValue);
 
-				// TODO: refactoring following code and that one of item creation duplicate handling into separate method
+				gdmResourceURIWikidataItemIdCache.computeIfAbsent(resourceURI, resourceURI1 -> numericItemId);
+			} else {
 
-				// an error occurred
+				// note: the cached item might be a placeholder item or a full item (e.g. of a re-import), i.e., it's replaced by the full item
+				final ItemIdValue itemIdValue = Datamodel.makeItemIdValue(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + cachedNumericItemId, null);
 
-				final JsonNode errorCodeJSON = errorNode.get(MEDIAWIKI_CODE_IDENTIFIER);
+				updateWikidataItem(resourceURI, itemIdValue, wikidataItem);
+			}
 
-				if (errorCodeJSON == null) {
+			metrics.resourceProcessed();
 
-					final String message = String
-							.format("could not create new property for '%s'; an unknown error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+			if (event != null) {
 
-					throw new WikidataImporterException(message);
-				}
+				event.record(resourceURI, resource.getStatementCount(), created);
+			}
 
-				final String errorCode = errorCodeJSON.asText();
+			failed = false;
+		} finally {
 
-				if (!MEDIAWIKI_FAILED_SAVE_ERROR_CODE.equals(errorCode)) {
+			if (resourceCosts != null) {
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+				profile.finishResource(resourceCosts, editStart != 0 ? System.nanoTime() - editStart : 0, failed);
+			}
+		}
+	}
 
-					throw new WikidataImporterException(message);
-				}
+	/**
+	 * Assembles the item of the given resource, i.e., converts its statements (whereby properties + placeholder items of resource objects
+	 * are created on demand). Note: package-private for the conversion benchmarks.
+	 *
+	 * @param resource a GDM resource
+	 * @return the item (without id) of the resource with all its statements
+	 */
+	ItemDocument createItemDocument(final GDMResourceRecord resource) {
 
-				final JsonNode messagesJSON = errorNode.get(MEDIAWIKI_MESSAGES_IDENTIFIER);
+		return createItemDocument(resource, null);
+	}
 
-				if (messagesJSON == null || messagesJSON.size() <= 0) {
+	/**
+	 * @param resource      a GDM resource
+	 * @param resourceCosts the costs of the statements of the resource (see {@link ImportCostProfile}), or null, if they shouldn't be measured
+	 * @return the item (without id) of the resource with all its statements
+	 */
+	private ItemDocument createItemDocument(final GDMResourceRecord resource, final ImportCostProfile.ResourceCosts resourceCosts) {
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+		final String resourceURI = resource.getResourceURI();
 
-					throw new WikidataImporterException(message);
-				}
+		final List<MonolingualTextValue> labels = generateLabels(resource);
 
-				final JsonNode firstMessageNode = messagesJSON.get(0);
+		// note: label + description are generated from the resource URI, i.e., they are equal
+		final List<MonolingualTextValue> descriptions = labels;
+		final List<MonolingualTextValue> aliases = Collections.emptyList();
 
-				if (firstMessageNode == null) {
+		final Map<String, List<org.wikidata.wdtk.datamodel.interfaces.Statement>> wikidataStatementsMap = new HashMap<>();
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+		final int gdmStatementCount = resource.getStatementCount();
 
-					throw new WikidataImporterException(message);
-				}
+		if (gdmStatementCount > 0) {
 
-				final JsonNode errorMessageNameNode = firstMessageNode.get(MEDIAWKI_NAME_IDENTIFIER);
+			// write statements (if available)
 
-				final String errorMessageName = errorMessageNameNode.asText();
+			for (int i = 0; i < gdmStatementCount; i++) {
 
-				if (!WIKIBASE_VALIDATOR_LABEL_CONFLICT_ERROR_MESSAGE_NAME.equals(errorMessageName)) {
+				final GDMStatementRecord gdmStatement = resource.getStatement(i);
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+				metrics.statementProcessed();
 
-					throw new WikidataImporterException(message);
-				}
+				final String predicateURI = gdmStatement.getPredicateURI();
 
-				final JsonNode errorMessageParametersNode = firstMessageNode.get(MEDIAWIKI_PARAMETERS_IDENTIFIER);
+				List<org.wikidata.wdtk.datamodel.interfaces.Statement> wikidataStatements = wikidataStatementsMap.get(predicateURI);
 
-				if (errorMessageParametersNode == null || errorMessageParametersNode.size() < 3) {
+				if (wikidataStatements == null) {
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+					wikidataStatements = new ArrayList<>();
 
-					throw new WikidataImporterException(message);
+					wikidataStatementsMap.put(predicateURI, wikidataStatements);
 				}
 
-				final JsonNode thirdErrorMessageParameterNode = errorMessageParametersNode.get(2);
+				final long statementStart = resourceCosts != null ? System.nanoTime() : 0;
 
-				if (thirdErrorMessageParameterNode == null) {
+				final org.wikidata.wdtk.datamodel.interfaces.Statement wikidataStmt = processGDMStatement(gdmStatement);
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
+				if (resourceCosts != null) {
 
-					throw new WikidataImporterException(message);
+					resourceCosts.statement(predicateURI, System.nanoTime() - statementStart,
+							ImportCostProfile.utf8Length(gdmStatement.getObjectValue()), wikidataStmt == null);
 				}
 
-				// extract the property id from this value
-				final String thirdErrorMessageParameter = thirdErrorMessageParameterNode.asText();
+				if (wikidataStmt == null) {
 
-				final Optional<String> optionalPropertyId = findPropertyId(thirdErrorMessageParameter);
+					metrics.statementSkipped();
 
-				if (!optionalPropertyId.isPresent()) {
+					// log non-created statements (sampled)
+					SKIPPED_STATEMENT_LOG.debug("could not process statement '{}' ('{}' skipped statements so far)", gdmStatement);
 
-					final String message = String
-							.format("could not create new property for '%s'; an error ('%s') occurred", propertyIdentifier1,
-									MAPPER.writeValueAsString(errorNode));
-
-					throw new WikidataImporterException(message);
+					continue;
 				}
 
-				final String propertyId = optionalPropertyId.get();
-
-				return Datamodel.makePropertyIdValue(propertyId, null);
-			} catch (final WikidataImporterException e1) {
-
-				throw WikidataImporterError.wrap(e1);
-			} catch (final Exception e) {
-
-				final String message2 = "something went wrong, while trying to create a new property";
-
-				throw WikidataImporterError.wrap(new WikidataImporterException(message2, e));
+				wikidataStatements.add(wikidataStmt);
 			}
-		});
-	}
-
-	private Optional<Value> processGDMObject(final Node object) {
-
-		final NodeType objectType = object.getType();
-
-		switch (objectType) {
-
-			case Literal:
-
-				final LiteralNode literalNode = (LiteralNode) object;
-				final String value = literalNode.getValue();
-
-				final String finalValue;
-
-				if (!value.trim().isEmpty()) {
-
-					// note: we need to trim the values; otherwise, we'll get a 'wikibase-validator-malformed-value' error
-					final String trimmedValue = value.trim();
-
-					// note: we need to cut the values, if they are longer then 400 characters; otherwise, we'll get a 'wikibase-validator-too-long' error
-					finalValue = cutLongValue(trimmedValue);
-				} else {
-
-					// empty values are not possible in Wikidata - insert placeholder for now
-
-					//finalValue = VALUE_WAS_EMPTY_ORIGINALLY;
-
-					return Optional.empty();
-				}
+		}
 
-				return Optional.ofNullable(Datamodel.makeStringValue(finalValue));
-			case Resource:
+		final List<StatementGroup> statementGroups = new ArrayList<>(wikidataStatementsMap.size());
 
-				// create ItemIdValue, i.e., create a Wikidata Item just with the Id as label
+		// create statement groups property-wise
+		for (final Map.Entry<String, List<org.wikidata.wdtk.datamodel.interfaces.Statement>> statmentsPerPropertyEntry : wikidataStatementsMap
+				.entrySet()) {
 
-				final ResourceNode resourceNode = (ResourceNode) object;
+			final List<org.wikidata.wdtk.datamodel.interfaces.Statement> statementsPerProperty = statmentsPerPropertyEntry.getValue();
 
-				return Optional.ofNullable(processGDMResourceNode(resourceNode));
-			default:
+			final StatementGroup statementGroup = Datamodel.makeStatementGroup(statementsPerProperty);
 
-				// TODO throw an exception or just skip and log (i.e. these should be bnodes)
+			statementGroups.add(statementGroup);
 		}
 
-		return Optional.empty();
+		final Map<String, SiteLink> siteLinkMap = Collections.emptyMap();
+
+		// we can also create an item with all it's statements at once, i.e., this would save some HTTP API calls
+		return Datamodel.makeItemDocument(null, labels, descriptions, aliases, statementGroups, siteLinkMap);
 	}
 
-	private Optional<List<Snak>> processGDMQualifiedAttributes(final Statement statement) {
+	/**
+	 * sets the resource URI as label right now
+	 *
+	 * @param resource
+	 * @return
+	 */
+	private void updateWikidataItem(final String resourceURI, final ItemIdValue itemIdValue, final ItemDocument wikidataItem)
+			throws WikidataImporterException {
 
-		final List<Snak> snakList = new ArrayList<>();
+		try {
 
-		final Optional<Snak> optionalConfidence = processGDMQualifiedAttribute(CONFIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER, statement.getConfidence());
-		final Optional<Snak> optionalEvidence = processGDMQualifiedAttribute(EVIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER, statement.getEvidence());
-		final Optional<Snak> optionalOrder = processGDMQualifiedAttribute(ORDER_QUALIFIED_ATTRIBUTE_IDENTIFIER, statement.getOrder());
+			importTarget.updateItem(resourceURI, itemIdValue, wikidataItem, false);
+		} catch (final WikidataImporterException e) {
 
-		// D:SWARM statement uuid
-		final Optional<Snak> optionalUUID = processGDMQualifiedAttribute(STATEMENT_UUID_QUALIFIED_ATTRIBUTE_IDENTIFIER, statement.getUUID());
+			throw e;
+		} catch (final Exception e) {
 
-		addToSnakList(optionalConfidence, snakList);
-		addToSnakList(optionalEvidence, snakList);
-		addToSnakList(optionalOrder, snakList);
-		addToSnakList(optionalUUID, snakList);
+			final String message = String.format("something went wrong, while trying to update item '%s'", itemIdValue.getId());
 
-		if (snakList.isEmpty()) {
+			LOG.error(message, e);
 
-			return Optional.empty();
+			throw new WikidataImporterException(message, e);
 		}
-
-		return Optional.of(snakList);
 	}
 
-	private Optional<Snak> processGDMQualifiedAttribute(final String qualifiedAttributeIdentifier, final Object qualifiedAttributeValue) {
-
-		if (qualifiedAttributeValue == null) {
-
-			return Optional.empty();
-		}
-
-		final PropertyIdValue wikidataProperty = createOrGetWikidataProperty(qualifiedAttributeIdentifier, DatatypeIdValue.DT_STRING);
+	private List<MonolingualTextValue> generateLabels(final GDMResourceRecord resource) {
 
-		final Value value;
+		final String resourceURI = resource.getResourceURI();
 
-		switch (qualifiedAttributeIdentifier) {
-
-			case CONFIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER:
-			case EVIDENCE_QUALIFIED_ATTRIBUTE_IDENTIFIER:
-			case STATEMENT_UUID_QUALIFIED_ATTRIBUTE_IDENTIFIER:
-
-				// string
+		return generateLabels(resourceURI);
+	}
 
-				value = Datamodel.makeStringValue((String) qualifiedAttributeValue);
+	/**
+	 * note: package-private for the conversion benchmarks
+	 *
+	 * @return the statement or null, if the GDM statement cannot be converted
+	 */
+	org.wikidata.wdtk.datamodel.interfaces.Statement processGDMStatement(final GDMStatementRecord statement) {
 
-				break;
-			case ORDER_QUALIFIED_ATTRIBUTE_IDENTIFIER:
+		final String gdmPredicateURI = statement.getPredicateURI();
 
-				// long
+		final NodeType gdmObjectType = statement.getObjectType();
 
-				// TODO: no number/long specific datatype available?
+		final String valueDataType = determineWikidataPropertyValueDataType(gdmPredicateURI, gdmObjectType);
 
-				// order as string for now (maybe this qualified attribute is not really needed)
-				value = Datamodel.makeStringValue((String) qualifiedAttributeValue);
+		final PropertyIdValue wikidataProperty = createOrGetWikidataProperty(gdmPredicateURI, valueDataType);
 
-				break;
-			default:
+		// note: a property is created with the data type of its first value, i.e., values of other data types need to be converted (if possible)
+		final String propertyValueDataType = entityValidator.resolveValueDatatypeOrNull(gdmPredicateURI, valueDataType);
 
-				LOG.debug("found an unknown qualified attribute '{}'", qualifiedAttributeIdentifier);
+		if (propertyValueDataType == null) {
 
-				return Optional.empty();
+			return null;
 		}
 
-		final Snak snak = Datamodel.makeValueSnak(wikidataProperty, value);
-
-		return Optional.of(snak);
-	}
-
-	private void addToSnakList(final Optional<Snak> optionalSnak, final List<Snak> snakList) {
+		final Value wikidataValue = processGDMObject(gdmObjectType, statement.getObjectValue(), propertyValueDataType);
 
-		if (optionalSnak.isPresent()) {
+		if (wikidataValue == null) {
 
-			snakList.add(optionalSnak.get());
+			return null;
 		}
-	}
-
-	private ItemIdValue processGDMResourceNode(final ResourceNode resourceNode) {
 
-		final String resourceURI = resourceNode.getUri();
+		// create property value pair
+		final ValueSnak snak = Datamodel.makeValueSnak(wikidataProperty, wikidataValue);
 
-		return gdmResourceURIWikidataItemMap.computeIfAbsent(resourceURI, resourceURI1 -> {
+		// process qualified attributes at GDM statement
+		final List<Snak> wikidataQualifiers = processGDMQualifiedAttributes(statement);
 
-			try {
+		final List<SnakGroup> snakGroups = wikidataQualifiers.isEmpty() ?
+				Collections.emptyList() :
+				Collections.singletonList(Datamodel.makeSnakGroup(wikidataQualifiers));
 
-				final List<MonolingualTextValue> labels = generateLabels(resourceURI);
-				final List<MonolingualTextValue> descriptions = generateLabels(resourceURI);
-				final List<MonolingualTextValue> aliases = new ArrayList<>();
-				final List<StatementGroup> statementGroups = new ArrayList<>();
-				final Map<String, SiteLink> siteLinkMap = new HashMap<>();
-
-				// note: list of descriptions cannot be null
-				// note: list of aliases cannot be null
-				// note: list of statement groups cannot be null
-				final ItemDocument wikidataItem = Datamodel.makeItemDocument(null, labels, descriptions, aliases, statementGroups, siteLinkMap);
+		final Claim claim = Datamodel.makeClaim(null, snak, snakGroups);
 
-				return createWikidataItem(resourceURI1, wikidataItem);
-			} catch (final WikidataImporterException e) {
+		final List<Reference> references = Collections.emptyList();
+		final StatementRank rank = StatementRank.NORMAL;
 
-				throw WikidataImporterError.wrap(e);
-			}
-		});
+		// note: empty string for statement id (this should be utilised for statements that are created)
+		// note: Statement references cannot be null
+		// note: Statement rank cannot be null
+		return Datamodel.makeStatement(claim, references, rank, "");
 	}
 
-	private ItemIdValue createWikidataItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
-
-		// create Item at Wikibase (to have a generated Item identifier)
-		try {
-
-			final Observable<Response> createEntityResponse = wikibaseAPIClient
-					.createEntity(wikidataItem, WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
-
-			final JsonNode entityOrErrorJSON = processEditEntityResponse(resourceURI, createEntityResponse,
-					WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
-
-			final JsonNode errorNode = entityOrErrorJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
-
-			if (errorNode == null) {
-
-				// response JSON should be an entity
-
-				final ItemDocument itemDocument = MAPPER.treeToValue(entityOrErrorJSON, JacksonItemDocument.class);
-
-				if (itemDocument == null) {
-
-					final String message = String
-							.format("could not create new item for '%s'; could not deserialize response body", resourceURI);
-
-					LOG.error(message);
-
-					throw new WikidataImporterException(message);
-				}
-
-				final ItemIdValue responseItemId = itemDocument.getItemId();
-
-				if (responseItemId == null) {
-
-					final String message = String
-							.format("could not create new item for '%s'; response property id is not available", resourceURI);
-
-					LOG.error(message);
-
-					throw new WikidataImporterException(message);
-				}
-
-				return responseItemId;
-			}
-
-			// TODO: refactoring following code and that one of property creation duplicate handling into separate method
-
-			// an error occurred
-
-			final JsonNode errorCodeJSON = errorNode.get(MEDIAWIKI_CODE_IDENTIFIER);
-
-			if (errorCodeJSON == null) {
-
-				final String message = String
-						.format("could not create new item for '%s'; an unknown error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
-
-				throw new WikidataImporterException(message);
-			}
-
-			final String errorCode = errorCodeJSON.asText();
-
-			if (!MEDIAWIKI_MODIFICATION_FAILED_ERROR_CODE.equals(errorCode)) {
-
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
-
-				throw new WikidataImporterException(message);
-			}
-
-			final JsonNode messagesJSON = errorNode.get(MEDIAWIKI_MESSAGES_IDENTIFIER);
-
-			if (messagesJSON == null || messagesJSON.size() <= 0) {
-
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
-
-				throw new WikidataImporterException(message);
-			}
-
-			final JsonNode firstMessageNode = messagesJSON.get(0);
-
-			if (firstMessageNode == null) {
-
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
-
-				throw new WikidataImporterException(message);
-			}
-
-			final JsonNode errorMessageNameNode = firstMessageNode.get(MEDIAWKI_NAME_IDENTIFIER);
+	private PropertyIdValue createOrGetWikidataProperty(final String propertyIdentifier, final String propertyValueDataType) {
 
-			final String errorMessageName = errorMessageNameNode.asText();
+		final PropertyIdValue cachedProperty = gdmPropertyURIWikidataPropertyMap.get(propertyIdentifier);
 
-			if (!WIKIBASE_VALIDATOR_LABEL_WITH_DESCRIPTION_CONFLICT_ERROR_MESSAGE_NAME.equals(errorMessageName)) {
+		metrics.propertyIdCacheLookup(cachedProperty != null);
 
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
+		if (cachedProperty != null) {
 
-				throw new WikidataImporterException(message);
-			}
+			return cachedProperty;
+		}
 
-			final JsonNode errorMessageParametersNode = firstMessageNode.get(MEDIAWIKI_PARAMETERS_IDENTIFIER);
+		final PropertyResolutionEvent event = ImportEvents.AVAILABLE ? new PropertyResolutionEvent() : null;
 
-			if (errorMessageParametersNode == null || errorMessageParametersNode.size() < 3) {
+		final PropertyIdValue property = gdmPropertyURIWikidataPropertyMap.computeIfAbsent(propertyIdentifier, propertyIdentifier1 -> {
 
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
+			if (event != null) {
 
-				throw new WikidataImporterException(message);
+				event.created = true;
 			}
 
-			final JsonNode thirdErrorMessageParameterNode = errorMessageParametersNode.get(2);
+			entityValidator.registerPropertyDatatype(propertyIdentifier1, propertyValueDataType);
 
-			if (thirdErrorMessageParameterNode == null) {
+			final List<MonolingualTextValue> labels = generateLabels(propertyIdentifier1);
+			final List<MonolingualTextValue> descriptions = generateLabels(propertyIdentifier1);
+			final List<MonolingualTextValue> aliases = Collections.emptyList();
 
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
+			// add datatype - e.g. all literals are strings (DatatypeIdValue#DT_STRING) and all resources are items (DatatypeIdValue#DT_ITEM)
+			final DatatypeIdValue datatypeIdValue = Datamodel.makeDatatypeIdValue(propertyValueDataType);
 
-				throw new WikidataImporterException(message);
-			}
+			// note: list of descriptions cannot be null
+			// note: list of aliases cannot be null
+			final PropertyDocument wikidataProperty = Datamodel.makePropertyDocument(null, labels, descriptions, aliases, datatypeIdValue);
 
-			// extract the item id from this value
-			final String thirdErrorMessageParameter = thirdErrorMessageParameterNode.asText();
+			// create Property at Wikibase (to have a generated Property identifier)
+			try {
 
-			final Optional<String> optionalItemId = findItemId(thirdErrorMessageParameter);
+				return importTarget.createProperty(propertyIdentifier1, wikidataProperty);
+			} catch (final WikidataImporterException e1) {
 
-			if (!optionalItemId.isPresent()) {
+				throw WikidataImporterError.wrap(e1);
+			} catch (final Exception e) {
 
-				final String message = String
-						.format("could not create new item for '%s'; an error ('%s') occurred", resourceURI,
-								MAPPER.writeValueAsString(errorNode));
+				final String message2 = "something went wrong, while trying to create a new property";
 
-				throw new WikidataImporterException(message);
+				throw WikidataImporterError.wrap(new WikidataImporterException(message2, e));
 			}
+		});
 
-			final String itemId = optionalItemId.get();
-
-			return Datamodel.makeItemIdValue(itemId, null);
-		} catch (final WikidataImporterException e) {
-
-			throw e;
-		} catch (final Exception e) {
-
-			final String message = "something went wrong, while trying to create a new item";
-
-			LOG.error(message, e);
+		if (event != null) {
 
-			throw new WikidataImporterException(message, e);
+			event.record(propertyIdentifier, propertyValueDataType);
 		}
-	}
-
-	private JsonNode processEditEntityResponse(final String entityIdentifier, final Observable<Response> createEntityResponse, final String type)
-			throws IOException {
-
-		final Response response = createEntityResponse.toBlocking().firstOrDefault(null);
 
-		if (response == null) {
+		return property;
+	}
 
-			final String message = String.format("could not create new %s for '%s'", type, entityIdentifier);
+	private Value processGDMObject(final NodeType objectType, final String value, final String propertyValueDataType) {
 
-			LOG.error(message);
+		switch (objectType) {
 
-			throw new WikidataImporterError(new WikidataImporterException(message));
-		}
+			case Literal:
 
-		final int status = response.getStatus();
+				// note: values need to be trimmed and cut (if they are longer than 400 characters) and empty values are not possible in Wikidata; otherwise, we'll get a 'wikibase-validator-malformed-value' or 'wikibase-validator-too-long' error
+				return makeStringValue(entityValidator.validateStringValueOrNull(value));
+			case Resource:
 
-		LOG.debug("response status = {}", status);
+				if (DatatypeIdValue.DT_STRING.equals(propertyValueDataType)) {
 
-		if (status != 200) {
+					// resource of a string property, i.e., the resource URI will be the value
+					return makeStringValue(entityValidator.validateStringValueOrNull(value));
+				}
 
-			final String message = String
-					.format("could not create new %s for '%s'; response status != 200 (was '%d').", type, entityIdentifier, status);
+				// create ItemIdValue, i.e., create a Wikidata Item just with the Id as label
 
-			LOG.error(message);
+				return processGDMResourceNode(value);
+			default:
 
-			throw new WikidataImporterError(new WikidataImporterException(message));
+				// TODO throw an exception or just skip and log (i.e. these should be bnodes)
 		}
 
-		final String responseBody = response.readEntity(String.class);
-
-		LOG.debug("response body = {}", responseBody);
-
-		final ObjectNode responseJSON = MAPPER.readValue(responseBody, ObjectNode.class);
+		return null;
+	}
 
-		if (responseJSON == null) {
+	/**
+	 * note: package-private for the conversion benchmarks
+	 *
+	 * @return the qualifiers of the GDM statement (an immutable empty list, if there are none)
+	 */
+	List<Snak> processGDMQualifiedAttributes(final GDMStatementRecord statement) {
 
-			final String message = String
-					.format("could not create new %s for '%s'; could not deserialize response.", type, entityIdentifier);
+		final Snak[] qualifiers = QUALIFIERS_SCRATCH.get();
 
-			LOG.error(message);
+		int qualifierCount = 0;
 
-			throw new WikidataImporterError(new WikidataImporterException(message));
-		}
+		// note: in the order of QUALIFIED_ATTRIBUTE_IDENTIFIERS (incl. the D:SWARM statement uuid)
+		qualifierCount = processGDMQualifiedAttribute(0, statement.getConfidence(), qualifiers, qualifierCount);
+		qualifierCount = processGDMQualifiedAttribute(1, statement.getEvidence(), qualifiers, qualifierCount);
+		qualifierCount = processGDMQualifiedAttribute(2, statement.getOrder(), qualifiers, qualifierCount);
+		qualifierCount = processGDMQualifiedAttribute(3, statement.getUUID(), qualifiers, qualifierCount);
 
-		final JsonNode errorNode = responseJSON.get(MEDIAWIKI_ERROR_IDENTIFIER);
+		switch (qualifierCount) {
 
-		if (errorNode != null) {
+			case 0:
 
-			final String message = String
-					.format("could not create new %s for '%s'; an error occurred ('%s').", type, entityIdentifier, responseBody);
+				return Collections.emptyList();
+			case 1:
 
-			LOG.debug(message);
+				return Collections.singletonList(qualifiers[0]);
+			default:
 
-			// return error so that it can be handled at the client
-			return responseJSON;
+				// note: the snaks are kept by the snak group, i.e., they need to be copied out of the scratch buffer
+				return Arrays.asList(Arrays.copyOf(qualifiers, qualifierCount));
 		}
+	}
 
-		final JsonNode successNode = responseJSON.get(MEDIAWIKI_SUCCESS_IDENTIFIER);
-
-		if (successNode == null) {
-
-			final String message = String
-					.format("could not create new %s for '%s'; no 'success' node in response ('%s')", type, entityIdentifier, responseBody);
+	/**
+	 * @param qualifiedAttribute      the index of the qualified attribute (see {@link #QUALIFIED_ATTRIBUTE_IDENTIFIERS})
+	 * @param qualifiedAttributeValue the value of the qualified attribute at the GDM statement (optional)
+	 * @param qualifiers              the qualifiers of the statement so far
+	 * @param qualifierCount          the number of the qualifiers of the statement so far
+	 * @return the number of the qualifiers of the statement incl. the qualifier of the given qualified attribute (if it's valid)
+	 */
+	private int processGDMQualifiedAttribute(final int qualifiedAttribute, final String qualifiedAttributeValue, final Snak[] qualifiers,
+			final int qualifierCount) {
 
-			LOG.error(message);
+		if (qualifiedAttributeValue == null) {
 
-			throw new WikidataImporterError(new WikidataImporterException(message));
+			return qualifierCount;
 		}
 
-		final int success = successNode.asInt();
-
-		if (success != 1) {
+		final PropertyIdValue wikidataProperty = getQualifiedAttributeProperty(qualifiedAttribute);
 
-			final String message = String
-					.format("could not create new %s for '%s'; 'success' = '%d'", type, entityIdentifier, success);
+		final String value = entityValidator.validateStringValueOrNull(qualifiedAttributeValue);
 
-			LOG.error(message);
+		if (value == null) {
 
-			throw new WikidataImporterError(new WikidataImporterException(message));
+			return qualifierCount;
 		}
 
-		final JsonNode entityNode = responseJSON.get(MEDIAWIKI_ENTITY_IDENTIFIER);
-
-		if (entityNode == null) {
+		qualifiers[qualifierCount] = Datamodel.makeValueSnak(wikidataProperty, Datamodel.makeStringValue(value));
 
-			final String message = String
-					.format("could not create new %s for '%s'; no 'entity' node in response ('%s')", type, entityIdentifier, responseBody);
-
-			LOG.error(message);
-
-			throw new WikidataImporterError(new WikidataImporterException(message));
-		}
-
-		return entityNode;
+		return qualifierCount + 1;
 	}
 
-	private static Observable<Resource> getGDMModel(final String filePath) throws IOException {
+	private PropertyIdValue getQualifiedAttributeProperty(final int qualifiedAttribute) {
 
-		final InputStream gdmModelStream = getGDMModelStream(filePath);
+		final PropertyIdValue cachedProperty = qualifiedAttributeProperties.get(qualifiedAttribute);
 
-		final ModelParser modelParser = new ModelParser(gdmModelStream);
+		if (cachedProperty != null) {
 
-		return modelParser.parse();
-	}
+			metrics.propertyIdCacheLookup(true);
 
-	private static InputStream getGDMModelStream(final String filePath) throws IOException {
+			return cachedProperty;
+		}
 
-		LOG.debug("try to open input file @ '{}'", filePath);
+		// note: the property of an identifier doesn't change, once it's resolved, i.e., concurrent resolutions store the same property
+		final PropertyIdValue property = createOrGetWikidataProperty(QUALIFIED_ATTRIBUTE_IDENTIFIERS[qualifiedAttribute],
+				DatatypeIdValue.DT_STRING);
 
-		final Path path = Paths.get(filePath);
+		qualifiedAttributeProperties.set(qualifiedAttribute, property);
 
-		return Files.newInputStream(path);
+		return property;
 	}
 
-	private List<MonolingualTextValue> generateLabels(final String sourceLabel) {
+	private static Value makeStringValue(final String validValue) {
 
-		final List<MonolingualTextValue> labels = new ArrayList<>();
-		final MonolingualTextValue label = Datamodel.makeMonolingualTextValue(sourceLabel, LANGUAGE_CODE_EN);
-
-		labels.add(label);
-
-		return labels;
+		return validValue != null ? Datamodel.makeStringValue(validValue) : null;
 	}
 
-	private static String printGDMStatement(final Statement statement) {
-
-		final StringBuilder sb = new StringBuilder();
+	private ItemIdValue processGDMResourceNode(final String resourceURI) {
 
-		final Long id = statement.getId();
+		final int cachedNumericItemId = gdmResourceURIWikidataItemIdCache.get(resourceURI);
 
-		sb.append("{statement: id ='");
+		metrics.itemIdCacheLookup(cachedNumericItemId != EntityIdCache.NO_ENTITY_ID);
 
-		if (id != null) {
+		if (cachedNumericItemId != EntityIdCache.NO_ENTITY_ID) {
 
-			sb.append(id);
-		} else {
-
-			sb.append("no statement id available");
+			return Datamodel.makeItemIdValue(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + cachedNumericItemId, null);
 		}
 
-		sb.append("' :: ");
+		final PlaceholderItemResolutionEvent event = ImportEvents.AVAILABLE ? new PlaceholderItemResolutionEvent() : null;
 
-		final String uuid = statement.getUUID();
+		final int numericItemId = gdmResourceURIWikidataItemIdCache.computeIfAbsent(resourceURI, resourceURI1 -> {
 
-		sb.append("uuid = '");
+			if (event != null) {
 
-		if (uuid != null) {
+				event.created = true;
+			}
 
-			sb.append(uuid);
-		} else {
+			try {
 
-			sb.append("no uuid available");
-		}
+				final List<MonolingualTextValue> labels = generateLabels(resourceURI);
+				final List<MonolingualTextValue> descriptions = labels;
+				final List<MonolingualTextValue> aliases = Collections.emptyList();
+				final List<StatementGroup> statementGroups = Collections.emptyList();
+				final Map<String, SiteLink> siteLinkMap = Collections.emptyMap();
 
-		sb.append("' :: ");
+				// note: list of descriptions cannot be null
+				// note: list of aliases cannot be null
+				// note: list of statement groups cannot be null
+				final ItemDocument wikidataItem = Datamodel.makeItemDocument(null, labels, descriptions, aliases, statementGroups, siteLinkMap);
 
-		final String subject = printGDMNode(statement.getSubject());
+				return toNumericItemId(importTarget.createPlaceholderItem(resourceURI1, wikidataItem));
+			} catch (final WikidataImporterException e) {
 
-		sb.append("subject = '").append(subject).append("' :: ");
+				throw WikidataImporterError.wrap(e);
+			}
+		});
 
-		final String predicateURI = statement.getPredicate().getUri();
+		if (event != null) {
 
-		sb.append("predicate = '").append(predicateURI).append("' :: ");
+			event.record(resourceURI);
+		}
 
-		final String object = printGDMNode(statement.getObject());
+		return Datamodel.makeItemIdValue(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + numericItemId, null);
+	}
 
-		sb.append("object = '").append(object).append("'}");
+	private static int toNumericItemId(final ItemIdValue itemIdValue) {
 
-		return sb.toString();
+		return toNumericItemId(itemIdValue.getId());
 	}
 
-	private static String printGDMNode(final Node node) {
+	private static int toNumericItemId(final String itemId) {
 
-		final StringBuilder sb = new StringBuilder();
+		if (itemId.startsWith(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX)) {
 
-		final Long id = node.getId();
+			try {
 
-		sb.append("id = '");
+				final int numericItemId = Integer.parseInt(itemId.substring(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX.length()));
 
-		if (id != null) {
+				if (numericItemId > 0) {
 
-			sb.append(id);
-		} else {
+					return numericItemId;
+				}
+			} catch (final NumberFormatException e) {
 
-			sb.append("no node id available");
+				LOG.debug("couldn't parse numeric part of item id '{}'", itemId);
+			}
 		}
 
-		final NodeType nodeType = node.getType();
-
-		switch (nodeType) {
+		final String message = String.format("cannot cache item id '%s', because it's not a numeric Wikibase item id", itemId);
 
-			case Literal:
-
-				sb.append("' :: ");
+		throw WikidataImporterError.wrap(new WikidataImporterException(message));
+	}
 
-				final LiteralNode literalNode = (LiteralNode) node;
-				final String value = literalNode.getValue();
+	private ItemIdValue createWikidataItem(final String resourceURI, final ItemDocument wikidataItem) throws WikidataImporterException {
 
-				sb.append("value = '").append(value);
+		// create Item at Wikibase (to have a generated Item identifier)
+		try {
 
-				break;
-			case Resource:
+			return importTarget.createItem(resourceURI, wikidataItem);
+		} catch (final WikidataImporterException e) {
 
-				sb.append("' :: ");
+			throw e;
+		} catch (final Exception e) {
 
-				final ResourceNode resourceNode = (ResourceNode) node;
-				final String resourceURI = resourceNode.getUri();
+			final String message = "something went wrong, while trying to create a new item";
 
-				sb.append("uri = '").append(resourceURI);
+			LOG.error(message, e);
 
-				break;
+			throw new WikidataImporterException(message, e);
 		}
-
-		sb.append("' :: type = '").append(nodeType).append("'}");
-
-		return sb.toString();
-	}
-
-	private static Optional<String> findPropertyId(final String haystack) {
-
-		return findEntityId(haystack, PROPERTY_PARAMETER_PATTERN);
 	}
 
-	private static Optional<String> findItemId(final String haystack) {
-
-		return findEntityId(haystack, ITEM_PARAMETER_PATTERN);
-	}
-
-	private static Optional<String> findEntityId(final String haystack, final Pattern pattern) {
-
-		final Matcher matcher = pattern.matcher(haystack);
-		final boolean isMatch = matcher.find();
-
-		if (isMatch) {
-
-			return Optional.of(matcher.group(1));
-		}
+	private List<MonolingualTextValue> generateLabels(final String sourceLabel) {
 
-		return Optional.empty();
+		// note: labels + descriptions need to be trimmed and shortened (if they are longer than 250 characters, e.g., long URIs) and must not be empty
+		return entityValidator.validateTermList(sourceLabel, LANGUAGE_CODE_EN);
 	}
 
-	private static String determineWikidataPropertyValueDataType(final Predicate gdmPredicate, final NodeType gdmObjectType) {
+	private static String determineWikidataPropertyValueDataType(final String gdmPredicateURI, final NodeType gdmObjectType) {
 
 		final String propertyValueDataType;
 
@@ -1047,44 +786,9 @@ public class WikidataDswarmImporter {
 				propertyValueDataType = DatatypeIdValue.DT_STRING;
 
 				LOG.debug("set property value data type '{}' for property '{}', because object type is '{}'", propertyValueDataType,
-						gdmPredicate.getUri(), gdmObjectType);
+						gdmPredicateURI, gdmObjectType);
 		}
 
 		return propertyValueDataType;
 	}
-
-	private static String cutLongValue(final String value) {
-
-		if (value.length() <= 400) {
-
-			return value;
-		}
-
-		final String cuttedValue = value.substring(0, 396);
-
-		return cuttedValue + TOO_LONG_VALUE_POSTFIX;
-	}
-
-	private boolean checkAndOptionallyUpdateBigCounter(final AtomicLong count, final AtomicLong bigCount) {
-
-		boolean needsUpdate = true;
-		boolean updated = false;
-
-		do {
-
-			final long currentCount = count.get();
-			final long currentBigCount = bigCount.get();
-
-			needsUpdate = currentCount / 10000 == currentBigCount;
-
-			if (needsUpdate) {
-
-				needsUpdate = !bigStatementCount.compareAndSet(currentBigCount, currentBigCount + 1);
-
-				updated = !needsUpdate;
-			}
-		} while (needsUpdate);
-
-		return updated;
-	}
 }
@@ -0,0 +1,794 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rx.Observable;
+
+/**
+ * Imports GDM models into several Wikibase targets at once, i.e., every resource is parsed only once and then handed over to all targets.
+ * Every target has its own {@link WikidataDswarmImporter} (i.e. its own entity id namespace), its own bounded resource buffer and its own
+ * pool of import workers (i.e. its own concurrency limit). Hence, a slow target can only block the other targets (by blocking the parsing),
+ * if its buffer is full.<br/>
+ * An import can be sharded over several importer processes (see {@link ResourceShard}), i.e., only the resources of the given shard are
+ * imported and the entity creations are coordinated with the other shards via entity id registries in a shared coordination directory (see
+ * {@link FileLockEntityIdCoordinator}), where the shards write their progress as well (see {@link ShardProgress}).
+ *
+ * @author tgaengler
+ */
+public class WikidataDswarmMultiTargetImporter implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WikidataDswarmMultiTargetImporter.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final String DSWARM_WIKIDATA_TARGET_IMPORTER_THREAD_NAMING_PATTERN = "dswarm-wikidata-%s-importer-%%d";
+
+	private static final long WORKER_TERMINATION_TIMEOUT_SECONDS = 60;
+
+	private static final String ITEM_ID_CACHE_FILE_POSTFIX      = ".item-ids";
+	private static final String ENTITY_ID_REGISTRY_FILE_POSTFIX = ".entity-ids.tsv";
+
+	private final List<TargetPipeline> targetPipelines = new ArrayList<>();
+	private final ResourceShard        shard;
+	private final ShardProgress        shardProgress;
+
+	private volatile long progressReportIntervalMillis = TimeUnit.SECONDS.toMillis(ProgressReporter.DEFAULT_INTERVAL_SECONDS);
+	private volatile Path costProfileReportFile;
+
+	public WikidataDswarmMultiTargetImporter(final List<WikibaseTargetConfiguration> targetConfigurations) throws WikidataImporterException {
+
+		this(targetConfigurations, ResourceShard.ALL, null);
+	}
+
+	/**
+	 * @param targetConfigurations  the Wikibase targets
+	 * @param shard                 the shard of the resources that should be imported by this importer
+	 * @param coordinationDirectory the (shared) directory of the entity id registries + progress files of the shards, or null, if the
+	 *                              entity creations don't need to be coordinated with other importer processes
+	 * @throws WikidataImporterException
+	 */
+	public WikidataDswarmMultiTargetImporter(final List<WikibaseTargetConfiguration> targetConfigurations, final ResourceShard shard,
+			final Path coordinationDirectory) throws WikidataImporterException {
+
+		this.shard = shard;
+		shardProgress = new ShardProgress(shard, coordinationDirectory);
+
+		try {
+
+			if (coordinationDirectory != null) {
+
+				Files.createDirectories(coordinationDirectory);
+			}
+
+			for (final WikibaseTargetConfiguration targetConfiguration : targetConfigurations) {
+
+				LOG.info("initialise Wikibase target '{}' @ '{}' (concurrency = '{}'; buffer size = '{}'; shard = '{}')",
+						targetConfiguration.getName(), targetConfiguration.getApiEndpoint(), targetConfiguration.getConcurrency(),
+						targetConfiguration.getBufferSize(), shard);
+
+				final WikibaseImportTarget importTarget = new WikibaseAPIImportTarget(new WikibaseAPIClient(targetConfiguration));
+
+				// note: the target isn't part of the target pipelines yet, i.e., it needs to be closed here, if its pipeline cannot be created
+				WikibaseImportTarget pipelineImportTarget = importTarget;
+
+				try {
+
+					if (coordinationDirectory != null) {
+
+						final Path entityIdRegistryFile = coordinationDirectory
+								.resolve(targetConfiguration.getName() + ENTITY_ID_REGISTRY_FILE_POSTFIX);
+
+						pipelineImportTarget = new CoordinatedImportTarget(importTarget, new FileLockEntityIdCoordinator(entityIdRegistryFile));
+					}
+
+					targetPipelines.add(new TargetPipeline(targetConfiguration, pipelineImportTarget, shard));
+				} catch (final IOException | WikidataImporterException | RuntimeException e) {
+
+					closeQuietly(pipelineImportTarget);
+
+					throw e;
+				}
+			}
+		} catch (final IOException e) {
+
+			closeQuietly();
+
+			final String message = String.format("couldn't initialise the entity id coordination @ '%s'", coordinationDirectory);
+
+			LOG.error(message, e);
+
+			throw new WikidataImporterException(message, e);
+		} catch (final WikidataImporterException | RuntimeException e) {
+
+			closeQuietly();
+
+			throw e;
+		}
+	}
+
+	public WikidataDswarmMultiTargetImporter(final Map<WikibaseTargetConfiguration, WikibaseImportTarget> importTargets)
+			throws WikidataImporterException {
+
+		shard = ResourceShard.ALL;
+		shardProgress = new ShardProgress(shard, null);
+
+		try {
+
+			for (final Map.Entry<WikibaseTargetConfiguration, WikibaseImportTarget> importTargetEntry : importTargets.entrySet()) {
+
+				targetPipelines.add(new TargetPipeline(importTargetEntry.getKey(), importTargetEntry.getValue(), shard));
+			}
+		} catch (final WikidataImporterException | RuntimeException e) {
+
+			closeQuietly();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Warms up the entity id caches of all targets with the entities that already exist at the targets (read via their APIs).
+	 *
+	 * @return the number of read entities (over all targets)
+	 * @throws WikidataImporterException
+	 */
+	public long warmUpEntityIdCaches() throws WikidataImporterException {
+
+		long entityCount = 0;
+
+		for (final TargetPipeline targetPipeline : targetPipelines) {
+
+			final long targetEntityCount = targetPipeline.importTarget.readEntityLabels(targetPipeline.importer::cacheEntityId);
+
+			LOG.info("warmed up entity id caches of target '{}' with '{}' existing entities", targetPipeline.getName(), targetEntityCount);
+
+			entityCount += targetEntityCount;
+		}
+
+		return entityCount;
+	}
+
+	/**
+	 * Warms up the entity id caches of all targets with the entities of the given Wikibase JSON dump (i.e. usually the dump of the only
+	 * target).
+	 *
+	 * @param wikibaseJSONDump the Wikibase JSON dump file
+	 * @return the number of read entities
+	 * @throws IOException
+	 * @throws WikidataImporterException
+	 */
+	public long warmUpEntityIdCaches(final Path wikibaseJSONDump) throws IOException, WikidataImporterException {
+
+		return EntityIdWarmUp.readJSONDump(wikibaseJSONDump, (entityId, label) -> {
+
+			for (final TargetPipeline targetPipeline : targetPipelines) {
+
+				targetPipeline.importer.cacheEntityId(entityId, label);
+			}
+		});
+	}
+
+	/**
+	 * @param interval the interval of the progress reports of the GDM model imports (0 = no progress reports), see {@link ProgressReporter}
+	 * @param unit     the time unit of the interval
+	 */
+	public void setProgressReportInterval(final long interval, final TimeUnit unit) {
+
+		progressReportIntervalMillis = unit.toMillis(interval);
+	}
+
+	/**
+	 * Measures the import costs per predicate + resource size of all targets (see {@link ImportCostProfile}) and writes them into the given
+	 * report file, when this importer is closed (i.e. at the end of the run).
+	 *
+	 * @param reportFile   the JSON report file (one profile per target)
+	 * @param topResources the number of the slowest resources that should be reported (per target)
+	 */
+	public void enableCostProfile(final Path reportFile, final int topResources) {
+
+		for (final TargetPipeline targetPipeline : targetPipelines) {
+
+			targetPipeline.importer.setCostProfile(new ImportCostProfile(topResources));
+		}
+
+		costProfileReportFile = reportFile;
+	}
+
+	/**
+	 * @return the import cost profiles of the targets (target name -> profile), see {@link #enableCostProfile(Path, int)}
+	 */
+	public ObjectNode getCostProfiles() {
+
+		final ObjectNode costProfiles = MAPPER.createObjectNode();
+
+		for (final TargetPipeline targetPipeline : targetPipelines) {
+
+			final ImportCostProfile costProfile = targetPipeline.importer.getCostProfile();
+
+			if (costProfile != null) {
+
+				costProfiles.set(targetPipeline.getName(), costProfile.toJSON());
+			}
+		}
+
+		return costProfiles;
+	}
+
+	/**
+	 * @return the import metrics of the targets (target name -> metrics); note: they are owned by the targets, i.e., they are unregistered,
+	 * when this importer is closed (but they can still be read)
+	 */
+	public Map<String, ImportMetrics> getTargetMetrics() {
+
+		final Map<String, ImportMetrics> targetMetrics = new LinkedHashMap<>();
+
+		for (final TargetPipeline targetPipeline : targetPipelines) {
+
+			targetMetrics.put(targetPipeline.getName(), targetPipeline.importTarget.getMetrics());
+		}
+
+		return targetMetrics;
+	}
+
+	/**
+	 * @return the progress of the import (of this shard)
+	 */
+	public ShardProgress getShardProgress() {
+
+		return shardProgress;
+	}
+
+	/**
+	 * Parses the given GDM model once and imports it into all targets (only the resources of the shard of this importer). Returns when all targets processed all resources of this model. This
+	 * method can be called concurrently (e.g. for different GDM models), whereby all imports share the buffers and workers of the targets.
+	 *
+	 * @param filePath the path of the GDM model file
+	 * @throws IOException
+	 * @throws WikidataImporterException if the import into (at least) one target failed
+	 */
+	public void importGDMModel(final String filePath) throws IOException, WikidataImporterException {
+
+		importGDMModel(filePath, new GDMModelReader());
+	}
+
+	/**
+	 * Parses the given GDM model once (with the given reader) and imports it into all targets.
+	 *
+	 * @param filePath       the path of the GDM model file
+	 * @param gdmModelReader the reader that should be utilised to parse the GDM model
+	 * @throws IOException
+	 * @throws WikidataImporterException if the import into (at least) one target failed
+	 */
+	public void importGDMModel(final String filePath, final GDMModelReader gdmModelReader) throws IOException, WikidataImporterException {
+
+		importGDMModel(filePath, gdmModelReader, new ImportProgress());
+	}
+
+	/**
+	 * Parses the given GDM model once (with the given reader) and imports it into all targets, whereby the progress of this import is
+	 * tracked separately (e.g. for an import job).
+	 *
+	 * @param filePath       the path of the GDM model file
+	 * @param gdmModelReader the reader that should be utilised to parse the GDM model
+	 * @param importProgress the progress of this import
+	 * @throws IOException
+	 * @throws WikidataImporterException if the import into (at least) one target failed
+	 */
+	public void importGDMModel(final String filePath, final GDMModelReader gdmModelReader, final ImportProgress importProgress)
+			throws IOException, WikidataImporterException {
+
+		importRecords(filePath, gdmModelReader.readRecords(filePath, importProgress), importProgress);
+	}
+
+	/**
+	 * Parses the given GDM model stream (e.g. a GDM model that is streamed via HTTP) once and imports it into all targets.
+	 *
+	 * @param gdmModelStream the (optionally compressed) GDM model stream
+	 * @param modelName      the name of the GDM model (for logging)
+	 * @param gdmModelReader the reader that should be utilised to parse the GDM model
+	 * @param importProgress the progress of this import
+	 * @throws IOException
+	 * @throws WikidataImporterException if the import into (at least) one target failed
+	 */
+	public void importGDMModel(final InputStream gdmModelStream, final String modelName, final GDMModelReader gdmModelReader,
+			final ImportProgress importProgress) throws IOException, WikidataImporterException {
+
+		importRecords(modelName, gdmModelReader.readRecords(gdmModelStream, modelName), importProgress);
+	}
+
+	private void importRecords(final String modelName, final Observable<GDMResourceRecord> resourceRecords,
+			final ImportProgress importProgress) throws WikidataImporterException {
+
+		final ModelImport modelImport = new ModelImport(modelName, importProgress);
+		final List<ImportMetrics> targetMetrics = targetPipelines.stream().map(targetPipeline -> targetPipeline.importTarget.getMetrics())
+				.collect(Collectors.toList());
+
+		importProgress.start();
+
+		final ProgressReporter progressReporter = new ProgressReporter(modelName, importProgress, targetMetrics, progressReportIntervalMillis);
+
+		try {
+
+			resourceRecords.toBlocking().forEach(resourceRecord -> {
+
+				importProgress.resourceScanned();
+
+				if (!shard.contains(resourceRecord.getResourceURI())) {
+
+					shardProgress.otherResourceRead();
+
+					return;
+				}
+
+				shardProgress.shardResourceRead();
+				importProgress.resourceRead();
+
+				// note: the record might be re-used by the reader, i.e., it needs to be copied (once for all targets)
+				final ResourceTask resourceTask = new ResourceTask(resourceRecord.copy(), modelImport, targetPipelines.size());
+
+				for (final TargetPipeline targetPipeline : targetPipelines) {
+
+					targetPipeline.submit(resourceTask);
+				}
+			});
+		} finally {
+
+			// wait for the tasks that were already submitted (also in case of a parsing error)
+			try {
+
+				modelImport.awaitCompletion();
+			} finally {
+
+				progressReporter.close();
+				importProgress.finish();
+			}
+		}
+
+		final Map<String, Throwable> failures = modelImport.getFailures();
+
+		if (!failures.isEmpty()) {
+
+			shardProgress.modelFailed();
+
+			final String message = String.format("import of GDM model '%s' failed for target(s) '%s'", modelName, failures.keySet());
+
+			LOG.error(message);
+
+			throw new WikidataImporterException(message, failures.values().iterator().next());
+		}
+
+		shardProgress.modelImported();
+
+		LOG.info("imported GDM model '{}' into '{}' target(s) ({})", modelName, targetPipelines.size(), importProgress);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		closeTargetPipelines();
+
+		shardProgress.finish();
+
+		LOG.info("finished import: {}", shardProgress.getSnapshot(ShardProgress.STATE_FINISHED));
+
+		writeCostProfiles();
+	}
+
+	private void writeCostProfiles() {
+
+		final Path reportFile = costProfileReportFile;
+
+		if (reportFile == null) {
+
+			return;
+		}
+
+		try {
+
+			MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), getCostProfiles());
+
+			LOG.info("wrote import cost profile to '{}'", reportFile);
+		} catch (final IOException e) {
+
+			LOG.error("couldn't write import cost profile to '{}'", reportFile, e);
+		}
+	}
+
+	private void closeTargetPipelines() throws IOException {
+
+		IOException closeException = null;
+
+		for (final TargetPipeline targetPipeline : targetPipelines) {
+
+			try {
+
+				targetPipeline.close();
+			} catch (final IOException e) {
+
+				LOG.error("couldn't close Wikibase target '{}'", targetPipeline.getName(), e);
+
+				closeException = e;
+			}
+		}
+
+		if (closeException != null) {
+
+			throw closeException;
+		}
+	}
+
+	private void closeQuietly() {
+
+		try {
+
+			closeTargetPipelines();
+		} catch (final IOException e) {
+
+			LOG.debug("couldn't close import targets", e);
+		}
+	}
+
+	private static void closeQuietly(final WikibaseImportTarget importTarget) {
+
+		try {
+
+			importTarget.close();
+		} catch (final IOException | RuntimeException e) {
+
+			LOG.debug("couldn't close import target", e);
+		}
+	}
+
+	/**
+	 * the resource buffer and import workers of a target
+	 */
+	private static final class TargetPipeline implements Closeable {
+
+		private static final ResourceTask END_OF_IMPORT = new ResourceTask(null, null, 0);
+
+		private final String                      name;
+		private final int                         concurrency;
+		private final WikibaseImportTarget        importTarget;
+		private final EntityIdCache               itemIdCache;
+		private final WikidataDswarmImporter      importer;
+		private final BlockingQueue<ResourceTask> buffer;
+		private final ExecutorService             workers;
+
+		private TargetPipeline(final WikibaseTargetConfiguration targetConfiguration, final WikibaseImportTarget importTarget,
+				final ResourceShard shard) throws WikidataImporterException {
+
+			name = targetConfiguration.getName();
+			concurrency = targetConfiguration.getConcurrency();
+			this.importTarget = importTarget;
+			itemIdCache = createItemIdCache(targetConfiguration, shard);
+			importer = new WikidataDswarmImporter(importTarget, itemIdCache);
+			buffer = new ArrayBlockingQueue<>(targetConfiguration.getBufferSize());
+			workers = Executors.newFixedThreadPool(concurrency, new BasicThreadFactory.Builder().daemon(false)
+					.namingPattern(String.format(DSWARM_WIKIDATA_TARGET_IMPORTER_THREAD_NAMING_PATTERN, name)).build());
+
+			for (int i = 0; i < concurrency; i++) {
+
+				workers.execute(this::work);
+			}
+		}
+
+		/**
+		 * @return a tiered (disk-backed) item id cache, if an entity id cache directory is configured for the target, otherwise a compact
+		 * in-memory one (the disk tier files of the shards of a sharded import are separated, e.g., if the shards share a directory)
+		 */
+		private static EntityIdCache createItemIdCache(final WikibaseTargetConfiguration targetConfiguration, final ResourceShard shard)
+				throws WikidataImporterException {
+
+			if (!targetConfiguration.getEntityIdCacheDirectory().isPresent()) {
+
+				return new CompactEntityIdCache();
+			}
+
+			final String diskTierFileName = shard.isSharded() ?
+					targetConfiguration.getName() + '.' + shard.getFileNamePart() + ITEM_ID_CACHE_FILE_POSTFIX :
+					targetConfiguration.getName() + ITEM_ID_CACHE_FILE_POSTFIX;
+
+			final Path diskTierFile = Paths.get(targetConfiguration.getEntityIdCacheDirectory().get(), diskTierFileName);
+
+			try {
+
+				Files.createDirectories(diskTierFile.getParent());
+
+				LOG.info("initialise item id cache of target '{}' @ '{}' (hot tier size = '{}')", targetConfiguration.getName(), diskTierFile,
+						targetConfiguration.getEntityIdCacheSize());
+
+				return new TieredEntityIdCache(diskTierFile, targetConfiguration.getEntityIdCacheSize(),
+						targetConfiguration.getEntityIdCacheExpectedSize());
+			} catch (final IOException e) {
+
+				final String message = String.format("couldn't initialise item id cache of target '%s' @ '%s'", targetConfiguration.getName(),
+						diskTierFile);
+
+				LOG.error(message, e);
+
+				throw new WikidataImporterException(message, e);
+			}
+		}
+
+		private String getName() {
+
+			return name;
+		}
+
+		private void submit(final ResourceTask resourceTask) {
+
+			resourceTask.modelImport.taskSubmitted();
+
+			try {
+
+				// note: blocks, if the buffer of this target is full
+				buffer.put(resourceTask);
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				resourceTask.taskFailed(name, e);
+			}
+		}
+
+		private void work() {
+
+			while (true) {
+
+				final ResourceTask resourceTask;
+
+				try {
+
+					resourceTask = buffer.take();
+				} catch (final InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+
+					return;
+				}
+
+				if (resourceTask == END_OF_IMPORT) {
+
+					return;
+				}
+
+				final ModelImport modelImport = resourceTask.modelImport;
+
+				if (modelImport.hasFailed(name)) {
+
+					// skip the remaining resources of a failed model import (for this target)
+					resourceTask.taskSkipped();
+
+					continue;
+				}
+
+				try {
+
+					importer.processGDMResource(resourceTask.resource);
+
+					resourceTask.taskImported();
+				} catch (final Exception e) {
+
+					LOG.error("something went wrong while processing resource '{}' for target '{}'", resourceTask.resource.getResourceURI(), name, e);
+
+					resourceTask.taskFailed(name, e);
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+
+			try {
+
+				for (int i = 0; i < concurrency; i++) {
+
+					buffer.put(END_OF_IMPORT);
+				}
+
+				workers.shutdown();
+
+				if (!workers.awaitTermination(WORKER_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+
+					LOG.warn("import workers of target '{}' didn't terminate in time", name);
+
+					workers.shutdownNow();
+				}
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+
+				workers.shutdownNow();
+			} finally {
+
+				if (importer.getEntityValidator().getViolationCount() > 0) {
+
+					LOG.info("found (and fixed) '{}' violations of Wikibase constraints for target '{}' before sending ({})",
+							importer.getEntityValidator().getViolationCount(), name, importer.getEntityValidator());
+				}
+
+				try {
+
+					importTarget.close();
+				} finally {
+
+					if (itemIdCache instanceof Closeable) {
+
+						((Closeable) itemIdCache).close();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * the import of a resource into all targets, i.e., the same task is submitted to every target pipeline; the resource is counted once
+	 * (as imported or failed), when the task of its last target completed
+	 */
+	private static final class ResourceTask {
+
+		private final GDMResourceRecord resource;
+		private final ModelImport       modelImport;
+		private final AtomicInteger     pendingTargets;
+
+		/**
+		 * true, if (at least) one target didn't import the resource
+		 */
+		private volatile boolean failed;
+
+		private ResourceTask(final GDMResourceRecord resource, final ModelImport modelImport, final int targetCount) {
+
+			this.resource = resource;
+			this.modelImport = modelImport;
+			pendingTargets = new AtomicInteger(targetCount);
+		}
+
+		private void taskImported() {
+
+			targetCompleted();
+		}
+
+		private void taskFailed(final String targetName, final Throwable failure) {
+
+			modelImport.targetFailed(targetName, failure);
+
+			failed = true;
+
+			targetCompleted();
+		}
+
+		/**
+		 * the resource was skipped by a target, since the model import already failed for it
+		 */
+		private void taskSkipped() {
+
+			failed = true;
+
+			targetCompleted();
+		}
+
+		private void targetCompleted() {
+
+			if (pendingTargets.decrementAndGet() == 0) {
+
+				modelImport.resourceCompleted(failed);
+			}
+
+			modelImport.taskCompleted();
+		}
+	}
+
+	/**
+	 * tracks the pending resource tasks (over all targets), the progress (per resource) and the failures (per target) of an import of a GDM
+	 * model
+	 */
+	private static final class ModelImport {
+
+		private final String                 modelName;
+		private final ImportProgress         importProgress;
+		private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+		private long pendingTasks;
+
+		private ModelImport(final String modelName, final ImportProgress importProgress) {
+
+			this.modelName = modelName;
+			this.importProgress = importProgress;
+		}
+
+		private synchronized void taskSubmitted() {
+
+			pendingTasks++;
+		}
+
+		private synchronized void taskCompleted() {
+
+			pendingTasks--;
+
+			if (pendingTasks <= 0) {
+
+				notifyAll();
+			}
+		}
+
+		private void resourceCompleted(final boolean failed) {
+
+			if (failed) {
+
+				importProgress.resourceFailed();
+			} else {
+
+				importProgress.resourceImported();
+			}
+		}
+
+		private void targetFailed(final String targetName, final Throwable failure) {
+
+			failures.putIfAbsent(targetName, failure);
+		}
+
+		private boolean hasFailed(final String targetName) {
+
+			return failures.containsKey(targetName);
+		}
+
+		private Map<String, Throwable> getFailures() {
+
+			return Collections.unmodifiableMap(failures);
+		}
+
+		private synchronized void awaitCompletion() throws WikidataImporterException {
+
+			while (pendingTasks > 0) {
+
+				try {
+
+					wait();
+				} catch (final InterruptedException e) {
+
+					Thread.currentThread().interrupt();
+
+					throw new WikidataImporterException(String.format("interrupted while waiting for the import of GDM model '%s'", modelName), e);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.CompactEntityIdCache;
+import org.dswarm.wikidataimporter.EntityIdCache;
+import org.dswarm.wikidataimporter.EntityIdCacheStats;
+import org.dswarm.wikidataimporter.TieredEntityIdCache;
+import org.dswarm.wikidataimporter.URIDictionary;
+
+/**
+ * @author tgaengler
+ */
+public class EntityIdCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static final int URI_COUNT = 200000;
+
+	@Test
+	public void uriDictionaryTest() {
+
+		final URIDictionary uriDictionary = new URIDictionary();
+
+		final long[] codes = new long[URI_COUNT];
+
+		for (int i = 0; i < URI_COUNT; i++) {
+
+			codes[i] = uriDictionary.getOrAddCode(uri(i));
+		}
+
+		final String longURI = "http://example.org/" + new String(new char[2 * 1024 * 1024]).replace('\0', 'x');
+		final long unicodeCode = uriDictionary.getOrAddCode("http://example.org/Dresden_äöü");
+		final long longURICode = uriDictionary.getOrAddCode(longURI);
+
+		Assert.assertEquals(URI_COUNT + 2, uriDictionary.size());
+		Assert.assertEquals(unicodeCode, uriDictionary.getOrAddCode("http://example.org/Dresden_äöü"));
+		Assert.assertEquals("http://example.org/Dresden_äöü", uriDictionary.getURI(unicodeCode));
+		Assert.assertEquals(longURI, uriDictionary.getURI(longURICode));
+		Assert.assertEquals(URIDictionary.NO_CODE, uriDictionary.getCode("http://example.org/unknown"));
+		Assert.assertEquals(URIDictionary.NO_CODE, uriDictionary.getCode(uri(URI_COUNT)));
+
+		for (int i = 0; i < URI_COUNT; i++) {
+
+			Assert.assertEquals(codes[i], uriDictionary.getCode(uri(i)));
+			Assert.assertEquals(uri(i), uriDictionary.getURI(codes[i]));
+		}
+	}
+
+	@Test
+	public void compactEntityIdCacheTest() {
+
+		final EntityIdCache entityIdCache = new CompactEntityIdCache(0, true);
+
+		for (int i = 0; i < URI_COUNT; i++) {
+
+			entityIdCache.put(uri(i), i + 1);
+		}
+
+		Assert.assertEquals(URI_COUNT, entityIdCache.size());
+		Assert.assertEquals(EntityIdCache.NO_ENTITY_ID, entityIdCache.get("http://example.org/unknown"));
+
+		for (int i = 0; i < URI_COUNT; i++) {
+
+			Assert.assertEquals(i + 1, entityIdCache.get(uri(i)));
+		}
+
+		Assert.assertEquals(1, entityIdCache.computeIfAbsent(uri(0), uri -> {
+
+			throw new IllegalStateException("entity id shouldn't be created again");
+		}));
+		Assert.assertTrue(entityIdCache.getMemoryUsage() > 0);
+	}
+
+	@Test
+	public void computeIfAbsentOnlyOnceTest() throws Exception {
+
+		final EntityIdCache entityIdCache = new CompactEntityIdCache();
+		final AtomicInteger entityIdCounter = new AtomicInteger();
+		final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		try {
+
+			final List<Future<Integer>> entityIds = new ArrayList<>();
+
+			for (int i = 0; i < 4 * 1000; i++) {
+
+				final String uri = uri(i % 1000);
+
+				entityIds.add(executorService.submit(() -> entityIdCache.computeIfAbsent(uri, uri1 -> entityIdCounter.incrementAndGet())));
+			}
+
+			for (int i = 0; i < entityIds.size(); i++) {
+
+				// wait for the computation before looking up the cache
+				final int entityId = entityIds.get(i).get();
+
+				Assert.assertEquals(entityIdCache.get(uri(i % 1000)), entityId);
+			}
+		} finally {
+
+			executorService.shutdownNow();
+		}
+
+		Assert.assertEquals(1000, entityIdCounter.get());
+		Assert.assertEquals(1000, entityIdCache.size());
+	}
+
+	@Test
+	public void tieredEntityIdCacheTest() throws Exception {
+
+		final Path diskTierFile = temporaryFolder.getRoot().toPath().resolve("test.item-ids");
+
+		try (final TieredEntityIdCache entityIdCache = new TieredEntityIdCache(diskTierFile, 100, 10000)) {
+
+			for (int i = 0; i < 1000; i++) {
+
+				entityIdCache.put(uri(i), i + 1);
+			}
+
+			for (int i = 0; i < 1000; i++) {
+
+				Assert.assertEquals(i + 1, entityIdCache.get(uri(i)));
+			}
+
+			Assert.assertEquals(EntityIdCache.NO_ENTITY_ID, entityIdCache.get("http://example.org/unknown"));
+
+			final EntityIdCacheStats stats = entityIdCache.getStats();
+
+			Assert.assertEquals(1001, stats.getRequestCount());
+			Assert.assertTrue(stats.getHotTierEvictionCount() >= 900);
+			Assert.assertTrue(stats.getDiskTierHitCount() >= 900);
+			Assert.assertEquals(1, stats.getBloomFilterNegativeCount() + stats.getDiskTierMissCount());
+		}
+
+		// the disk tier is persistent, i.e., a new cache knows all entity ids
+		try (final TieredEntityIdCache entityIdCache = new TieredEntityIdCache(diskTierFile, 100, 10000)) {
+
+			Assert.assertEquals(1000, entityIdCache.size());
+			Assert.assertEquals(501, entityIdCache.computeIfAbsent(uri(500), uri -> {
+
+				throw new IllegalStateException("entity id shouldn't be created again");
+			}));
+			Assert.assertEquals(1001, entityIdCache.computeIfAbsent(uri(1000), uri -> 1001));
+		}
+	}
+
+	private static String uri(final int i) {
+
+		// resource URIs of several data models, i.e., a few distinct prefixes
+		return String.format("http://data.slub-dresden.de/datamodels/%s/records/%08x-7f3c-4e0a-9b1d-%012d", i % 7, i, i);
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.EntityIdWarmUp;
+
+/**
+ * @author tgaengler
+ */
+public class EntityIdWarmUpTest {
+
+	private static final String WIKIBASE_JSON_DUMP = "[\n"
+			+ "{\"type\":\"item\",\"id\":\"Q1\",\"labels\":{\"de\":{\"language\":\"de\",\"value\":\"Dresden\"},"
+			+ "\"en\":{\"language\":\"en\",\"value\":\"http://example.org/r1\"}},\"claims\":{\"P1\":[{\"mainsnak\":{\"snaktype\":\"value\"}}]}},\n"
+			+ "{\"type\":\"property\",\"datatype\":\"string\",\"id\":\"P1\",\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"http://example.org/p\"}}},\n"
+			+ "{\"type\":\"item\",\"id\":\"Q2\",\"labels\":{\"de\":{\"language\":\"de\",\"value\":\"ohne englisches Label\"}}},\n"
+			+ "{\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"http://example.org/r3\"}},\"id\":\"Q3\",\"sitelinks\":{}}\n"
+			+ "]\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void readJSONDumpTest() throws Exception {
+
+		final Path dumpFile = temporaryFolder.newFile("dump.json").toPath();
+
+		Files.write(dumpFile, WIKIBASE_JSON_DUMP.getBytes(StandardCharsets.UTF_8));
+
+		checkEntityLabels(dumpFile);
+	}
+
+	@Test
+	public void readCompressedJSONDumpTest() throws Exception {
+
+		final Path dumpFile = temporaryFolder.newFile("dump.json.gz").toPath();
+
+		try (final OutputStream dumpStream = new GZIPOutputStream(Files.newOutputStream(dumpFile))) {
+
+			dumpStream.write(WIKIBASE_JSON_DUMP.getBytes(StandardCharsets.UTF_8));
+		}
+
+		checkEntityLabels(dumpFile);
+	}
+
+	private static void checkEntityLabels(final Path dumpFile) throws Exception {
+
+		final Map<String, String> entityLabels = new LinkedHashMap<>();
+
+		Assert.assertEquals(3, EntityIdWarmUp.readJSONDump(dumpFile, entityLabels::put));
+
+		final Map<String, String> expectedEntityLabels = new LinkedHashMap<>();
+
+		expectedEntityLabels.put("Q1", "http://example.org/r1");
+		expectedEntityLabels.put("P1", "http://example.org/p");
+		expectedEntityLabels.put("Q3", "http://example.org/r3");
+
+		Assert.assertEquals(expectedEntityLabels, entityLabels);
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+
+import org.dswarm.wikidataimporter.EntityValidator;
+
+/**
+ * @author tgaengler
+ */
+public class EntityValidatorTest {
+
+	@Test
+	public void validateTermTest() {
+
+		final EntityValidator entityValidator = new EntityValidator();
+
+		final String longURI = "http://data.slub-dresden.de/resources/" + repeat('a', 300);
+		final String otherLongURI = "http://data.slub-dresden.de/resources/" + repeat('a', 301);
+
+		Assert.assertEquals(Optional.of("http://example.org/r1"), entityValidator.validateTerm(" http://example.org/r1\t"));
+		Assert.assertEquals(Optional.empty(), entityValidator.validateTerm("  "));
+
+		final String shortenedTerm = entityValidator.validateTerm(longURI).get();
+		final String otherShortenedTerm = entityValidator.validateTerm(otherLongURI).get();
+
+		Assert.assertEquals(EntityValidator.MAX_TERM_LENGTH, shortenedTerm.length());
+		Assert.assertEquals(shortenedTerm, entityValidator.validateTerm(longURI).get());
+		Assert.assertNotEquals(shortenedTerm, otherShortenedTerm);
+		Assert.assertEquals(2, entityValidator.validateTerms(Arrays.asList("a", "", "b"), "en").size());
+
+		Assert.assertEquals(1, entityValidator.getViolationCount(EntityValidator.Violation.UNTRIMMED_VALUE));
+		Assert.assertEquals(2, entityValidator.getViolationCount(EntityValidator.Violation.EMPTY_TERM));
+		Assert.assertEquals(3, entityValidator.getViolationCount(EntityValidator.Violation.TOO_LONG_TERM));
+	}
+
+	@Test
+	public void validateStringValueTest() {
+
+		final EntityValidator entityValidator = new EntityValidator();
+
+		Assert.assertEquals(Optional.of("Dresden"), entityValidator.validateStringValue("Dresden"));
+		Assert.assertEquals(Optional.empty(), entityValidator.validateStringValue(""));
+
+		final String longValue = entityValidator.validateStringValue(repeat('x', 1000)).get();
+
+		Assert.assertEquals(EntityValidator.MAX_STRING_VALUE_LENGTH, longValue.length());
+		Assert.assertTrue(longValue.endsWith("..."));
+		Assert.assertEquals(2, entityValidator.getViolationCount());
+	}
+
+	@Test
+	public void resolveValueDatatypeTest() {
+
+		final EntityValidator entityValidator = new EntityValidator();
+
+		entityValidator.registerPropertyDatatype("http://example.org/title", DatatypeIdValue.DT_STRING);
+		entityValidator.registerPropertyDatatype("http://example.org/creator", DatatypeIdValue.DT_ITEM);
+		entityValidator.registerPropertyDatatype("http://example.org/title", DatatypeIdValue.DT_ITEM);
+
+		Assert.assertEquals(Optional.of(DatatypeIdValue.DT_STRING),
+				entityValidator.resolveValueDatatype("http://example.org/title", DatatypeIdValue.DT_STRING));
+		Assert.assertEquals(Optional.of(DatatypeIdValue.DT_ITEM),
+				entityValidator.resolveValueDatatype("http://example.org/unknown", DatatypeIdValue.DT_ITEM));
+		Assert.assertEquals(0, entityValidator.getViolationCount());
+
+		// resource of a string property -> coerced to string
+		Assert.assertEquals(Optional.of(DatatypeIdValue.DT_STRING),
+				entityValidator.resolveValueDatatype("http://example.org/title", DatatypeIdValue.DT_ITEM));
+
+		// literal of an item property -> dropped
+		Assert.assertEquals(Optional.empty(), entityValidator.resolveValueDatatype("http://example.org/creator", DatatypeIdValue.DT_STRING));
+		Assert.assertEquals(2, entityValidator.getViolationCount(EntityValidator.Violation.DATATYPE_MISMATCH));
+	}
+
+	@Test
+	public void allocationFreeValidationTest() {
+
+		final EntityValidator entityValidator = new EntityValidator();
+
+		final String value = "Dresden";
+
+		// valid values are not copied
+		Assert.assertSame(value, entityValidator.validateStringValueOrNull(value));
+		Assert.assertSame(value, entityValidator.validateTermOrNull(value));
+		Assert.assertNull(entityValidator.validateStringValueOrNull(" "));
+		Assert.assertNull(entityValidator.validateTermOrNull(null));
+
+		Assert.assertEquals(entityValidator.validateStringValue(repeat('x', 1000)).get(),
+				entityValidator.validateStringValueOrNull(repeat('x', 1000)));
+		Assert.assertEquals(entityValidator.validateTerm(repeat('x', 1000)).get(), entityValidator.validateTermOrNull(repeat('x', 1000)));
+
+		Assert.assertEquals(1, entityValidator.validateTermList(" http://example.org/r1", "en").size());
+		Assert.assertTrue(entityValidator.validateTermList("", "en").isEmpty());
+
+		entityValidator.registerPropertyDatatype("http://example.org/creator", DatatypeIdValue.DT_ITEM);
+
+		Assert.assertNull(entityValidator.resolveValueDatatypeOrNull("http://example.org/creator", DatatypeIdValue.DT_STRING));
+		Assert.assertEquals(DatatypeIdValue.DT_ITEM,
+				entityValidator.resolveValueDatatypeOrNull("http://example.org/creator", DatatypeIdValue.DT_ITEM));
+	}
+
+	private static String repeat(final char c, final int count) {
+
+		final char[] chars = new char[count];
+
+		Arrays.fill(chars, c);
+
+		return new String(chars);
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.GDMBinaryModelReader;
+import org.dswarm.wikidataimporter.GDMBinaryModelWriter;
+import org.dswarm.wikidataimporter.GDMResourceRecord;
+import org.dswarm.wikidataimporter.GDMStatementRecord;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+
+/**
+ * @author tgaengler
+ */
+public class GDMBinaryModelTest {
+
+	private static final String GDM_MODEL = "[{\"http://example.org/r1\":[{\"uuid\":\"u1\",\"s\":{\"uri\":\"http://example.org/r1\"},"
+			+ "\"p\":\"http://example.org/p\",\"o\":{\"v\":\"Dresden äöü\"},\"order\":3,\"evidence\":\"e\"},"
+			+ "{\"s\":{\"uri\":\"http://example.org/r1\"},\"p\":\"http://example.org/q\",\"o\":{\"uri\":\"http://example.org/r2\"}},"
+			+ "{\"s\":{\"uri\":\"http://example.org/r1\"},\"p\":\"http://example.org/q\",\"o\":{\"id\":4}}]},"
+			+ "{\"http://example.org/r2\":[]},"
+			+ "{\"http://example.org/r3\":[{\"s\":{\"uri\":\"http://example.org/r3\"},\"p\":\"http://example.org/p\",\"o\":{\"v\":\"\"}}]}]";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void roundTripTest() throws Exception {
+
+		final Path gdmModelFile = temporaryFolder.newFile("model.gson").toPath();
+
+		Files.write(gdmModelFile, GDM_MODEL.getBytes(StandardCharsets.UTF_8));
+
+		final List<GDMResourceRecord> expectedResourceRecords = readGDMModel(gdmModelFile);
+		final Path binaryModelFile = GDMBinaryModelWriter.binaryModelFile(gdmModelFile);
+
+		Assert.assertEquals(3, GDMBinaryModelWriter.convert(gdmModelFile, binaryModelFile));
+		Assert.assertTrue(GDMBinaryModelReader.isBinaryModel(binaryModelFile));
+		Assert.assertFalse(GDMBinaryModelReader.isBinaryModel(gdmModelFile));
+
+		try (final GDMBinaryModelReader binaryModelReader = new GDMBinaryModelReader(binaryModelFile)) {
+
+			Assert.assertEquals(3, binaryModelReader.getResourceCount());
+
+			// resource URIs + resource object URIs (r2 only once)
+			Assert.assertEquals(3, binaryModelReader.getURICount());
+
+			final List<GDMResourceRecord> resourceRecords = new ArrayList<>();
+
+			binaryModelReader.read(0, resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+
+			Assert.assertEquals(expectedResourceRecords.size(), resourceRecords.size());
+
+			for (int i = 0; i < resourceRecords.size(); i++) {
+
+				assertResourceRecord(expectedResourceRecords.get(i), resourceRecords.get(i));
+			}
+
+			// random access
+			final GDMResourceRecord resourceRecord = new GDMResourceRecord();
+
+			binaryModelReader.read(2, resourceRecord);
+
+			assertResourceRecord(expectedResourceRecords.get(2), resourceRecord);
+		}
+	}
+
+	@Test
+	public void licRoundTripTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+		final Path gdmModelFile = Paths.get(resourceURL.toURI());
+		final Path binaryModelFile = temporaryFolder.getRoot().toPath().resolve("lic_dmp_01_v1.csv.gson.gdmb");
+
+		GDMBinaryModelWriter.convert(gdmModelFile, binaryModelFile);
+
+		final List<GDMResourceRecord> expectedResourceRecords = readGDMModel(gdmModelFile);
+
+		try (final GDMBinaryModelReader binaryModelReader = new GDMBinaryModelReader(binaryModelFile)) {
+
+			Assert.assertEquals(1, binaryModelReader.getResourceCount());
+
+			binaryModelReader.read(0, resourceRecord -> assertResourceRecord(expectedResourceRecords.get(0), resourceRecord));
+		}
+
+		Assert.assertTrue(Files.size(binaryModelFile) < Files.size(gdmModelFile));
+	}
+
+	private static List<GDMResourceRecord> readGDMModel(final Path gdmModelFile) throws Exception {
+
+		final List<GDMResourceRecord> resourceRecords = new ArrayList<>();
+
+		try (final InputStream gdmModelStream = Files.newInputStream(gdmModelFile)) {
+
+			new GDMStreamReader().read(gdmModelStream, resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+		}
+
+		return resourceRecords;
+	}
+
+	private static void assertResourceRecord(final GDMResourceRecord expected, final GDMResourceRecord actual) {
+
+		Assert.assertEquals(expected.getResourceURI(), actual.getResourceURI());
+		Assert.assertEquals(expected.getStatementCount(), actual.getStatementCount());
+
+		for (int i = 0; i < expected.getStatementCount(); i++) {
+
+			final GDMStatementRecord expectedStatement = expected.getStatement(i);
+			final GDMStatementRecord actualStatement = actual.getStatement(i);
+
+			Assert.assertEquals(expectedStatement.getPredicateURI(), actualStatement.getPredicateURI());
+			Assert.assertEquals(expectedStatement.getObjectType(), actualStatement.getObjectType());
+			Assert.assertEquals(expectedStatement.getObjectValue(), actualStatement.getObjectValue());
+			Assert.assertEquals(expectedStatement.getUUID(), actualStatement.getUUID());
+			Assert.assertEquals(expectedStatement.getConfidence(), actualStatement.getConfidence());
+			Assert.assertEquals(expectedStatement.getEvidence(), actualStatement.getEvidence());
+			Assert.assertEquals(expectedStatement.getOrder(), actualStatement.getOrder());
+		}
+	}
+}
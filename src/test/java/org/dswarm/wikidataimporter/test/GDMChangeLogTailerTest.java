@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.GDMChangeLogTailer;
+import org.dswarm.wikidataimporter.GDMModelReader;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+import org.dswarm.wikidataimporter.WikibaseAPIClient;
+import org.dswarm.wikidataimporter.WikibaseAPIImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
+import org.dswarm.wikidataimporter.WikidataImporterException;
+
+/**
+ * @author tgaengler
+ */
+public class GDMChangeLogTailerTest {
+
+	private static final String FIRST_LOG_FILE  = "changes-000001.ndjson";
+	private static final String SECOND_LOG_FILE = "changes-000002.ndjson";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<List<String>> batches = new ArrayList<>();
+
+	private boolean failing;
+
+	@Test
+	public void tailTest() throws Exception {
+
+		final Path logDirectory = temporaryFolder.getRoot().toPath();
+		final Path offsetFile = GDMChangeLogTailer.defaultOffsetFile(logDirectory);
+
+		append(logDirectory, FIRST_LOG_FILE, resource(1) + "\n" + resource(2) + "\n\n" + resource(3) + "\n" + resource(4).substring(0, 10));
+
+		final GDMChangeLogTailer tailer = new GDMChangeLogTailer(logDirectory, offsetFile, 2, 0, this::importBatch);
+
+		// a full batch + the remaining resource (max. latency = 0), the incomplete line is not read yet
+		Assert.assertEquals(3, tailer.poll());
+		Assert.assertEquals(2, batches.size());
+		Assert.assertEquals(resourceURIs(1, 2), batches.get(0));
+		Assert.assertEquals(resourceURIs(3), batches.get(1));
+		Assert.assertEquals(0, tailer.poll());
+
+		append(logDirectory, FIRST_LOG_FILE, resource(4).substring(10) + "\n");
+
+		Assert.assertEquals(1, tailer.poll());
+		Assert.assertEquals(resourceURIs(4), batches.get(2));
+
+		// a restarted tailer continues at the persisted offset (+ the last line of a rotated file doesn't need a line separator)
+		append(logDirectory, FIRST_LOG_FILE, resource(5));
+		append(logDirectory, SECOND_LOG_FILE, resource(6) + "\n");
+
+		final GDMChangeLogTailer restartedTailer = new GDMChangeLogTailer(logDirectory, offsetFile, 10, 0, this::importBatch);
+
+		Assert.assertEquals(2, restartedTailer.poll());
+		Assert.assertEquals(resourceURIs(5, 6), batches.get(3));
+		Assert.assertEquals(SECOND_LOG_FILE, restartedTailer.getCommittedFile());
+		Assert.assertEquals(Files.size(logDirectory.resolve(SECOND_LOG_FILE)), restartedTailer.getCommittedOffset());
+	}
+
+	@Test
+	public void retryTest() throws Exception {
+
+		final Path logDirectory = temporaryFolder.getRoot().toPath();
+		final Path offsetFile = GDMChangeLogTailer.defaultOffsetFile(logDirectory);
+
+		append(logDirectory, FIRST_LOG_FILE, resource(1) + "\n");
+
+		final GDMChangeLogTailer tailer = new GDMChangeLogTailer(logDirectory, offsetFile, 10, 0, this::importBatch);
+
+		failing = true;
+
+		Assert.assertEquals(0, tailer.poll());
+		Assert.assertFalse(Files.exists(offsetFile));
+
+		failing = false;
+
+		append(logDirectory, FIRST_LOG_FILE, resource(2) + "\n");
+
+		// the failed batch is retried (+ extended by the new resources)
+		Assert.assertEquals(2, tailer.poll());
+		Assert.assertEquals(resourceURIs(1, 2), batches.get(0));
+		Assert.assertTrue(Files.exists(offsetFile));
+	}
+
+	@Test
+	public void changedResourceTest() throws Exception {
+
+		final Path logDirectory = temporaryFolder.getRoot().toPath();
+		final Path offsetFile = GDMChangeLogTailer.defaultOffsetFile(logDirectory);
+
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub();
+				final WikibaseImportTarget importTarget = new WikibaseAPIImportTarget(
+						new WikibaseAPIClient(stub.targetConfiguration("stub", 1, 100)))) {
+
+			final WikidataDswarmImporter importer = new WikidataDswarmImporter(importTarget);
+			final GDMModelReader gdmModelReader = new GDMModelReader();
+
+			final GDMChangeLogTailer tailer = new GDMChangeLogTailer(logDirectory, offsetFile, 10, 0,
+					(batch, batchName) -> importer.importGDMModel(batch, batchName, gdmModelReader));
+
+			append(logDirectory, FIRST_LOG_FILE, resource(1, "1", "2") + "\n" + resource(2, "1") + "\n");
+
+			Assert.assertEquals(2, tailer.poll());
+			Assert.assertEquals(Arrays.asList("1", "2"), itemValues(stub, 1));
+
+			// the changed resource replaces the item, i.e., removed values disappear + unchanged values are not duplicated
+			append(logDirectory, FIRST_LOG_FILE, resource(1, "2", "3") + "\n");
+
+			Assert.assertEquals(1, tailer.poll());
+			Assert.assertEquals(Arrays.asList("2", "3"), itemValues(stub, 1));
+
+			// a replayed batch (at-least-once) doesn't duplicate any statement
+			Files.delete(offsetFile);
+
+			final GDMChangeLogTailer restartedTailer = new GDMChangeLogTailer(logDirectory, offsetFile, 10, 0,
+					(batch, batchName) -> importer.importGDMModel(batch, batchName, gdmModelReader));
+
+			Assert.assertEquals(3, restartedTailer.poll());
+			Assert.assertEquals(Arrays.asList("2", "3"), itemValues(stub, 1));
+			Assert.assertEquals(Arrays.asList("1"), itemValues(stub, 2));
+			Assert.assertEquals(3, stub.getItemStatements());
+		}
+	}
+
+	private void importBatch(final InputStream batch, final String batchName) throws IOException, WikidataImporterException {
+
+		if (failing) {
+
+			throw new WikidataImporterException("target not available");
+		}
+
+		final List<String> resourceURIs = new ArrayList<>();
+
+		new GDMStreamReader().read(batch, resourceRecord -> resourceURIs.add(resourceRecord.getResourceURI()));
+
+		batches.add(resourceURIs);
+	}
+
+	private static void append(final Path logDirectory, final String logFile, final String content) throws IOException {
+
+		Files.write(logDirectory.resolve(logFile), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	private static String resource(final int i) {
+
+		return String.format("{\"http://example.org/r%d\":[{\"s\":{\"uri\":\"http://example.org/r%d\"},\"p\":\"http://example.org/p\",\"o\":{\"v\":\"%d\"}}]}",
+				i, i, i);
+	}
+
+	private static String resource(final int i, final String... values) {
+
+		final StringBuilder resource = new StringBuilder();
+
+		for (final String value : values) {
+
+			resource.append(resource.length() == 0 ? "" : ",").append(
+					String.format("{\"s\":{\"uri\":\"http://example.org/r%d\"},\"p\":\"http://example.org/p\",\"o\":{\"v\":\"%s\"}}", i, value));
+		}
+
+		return String.format("{\"http://example.org/r%d\":[%s]}", i, resource);
+	}
+
+	/**
+	 * @return the values of the statements of the item of the given resource
+	 */
+	private static List<String> itemValues(final WikibaseAPIStub stub, final int i) {
+
+		final ObjectNode item = stub.getItem("http://example.org/r" + i);
+
+		Assert.assertNotNull(item);
+
+		final List<String> values = new ArrayList<>();
+
+		for (final JsonNode propertyStatements : item.path("claims")) {
+
+			for (final JsonNode statement : propertyStatements) {
+
+				values.add(statement.path("mainsnak").path("datavalue").path("value").asText());
+			}
+		}
+
+		return values;
+	}
+
+	private static List<String> resourceURIs(final int... resources) {
+
+		final List<String> resourceURIs = new ArrayList<>();
+
+		for (final int i : resources) {
+
+			resourceURIs.add("http://example.org/r" + i);
+		}
+
+		return resourceURIs;
+	}
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.GDMModelCompression;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+
+/**
+ * @author tgaengler
+ */
+public class GDMModelCompressionTest {
+
+	@Test
+	public void detectTest() throws Exception {
+
+		final byte[] gdmModel = readGDMModel();
+
+		for (final GDMModelCompression compression : GDMModelCompression.values()) {
+
+			final byte[] compressedGDMModel = compress(gdmModel, compression);
+			final InputStream stream = new BufferedInputStream(new ByteArrayInputStream(compressedGDMModel));
+
+			Assert.assertEquals(compression, GDMModelCompression.detect(stream));
+
+			// the stream is reset to its beginning
+			Assert.assertArrayEquals(compressedGDMModel, ByteStreams.toByteArray(stream));
+		}
+
+		// too short for any magic bytes
+		for (final byte[] shortStream : new byte[][] { {}, { 0x1f }, { 'B', 'Z' } }) {
+
+			Assert.assertEquals(GDMModelCompression.NONE,
+					GDMModelCompression.detect(new BufferedInputStream(new ByteArrayInputStream(shortStream))));
+		}
+	}
+
+	@Test
+	public void roundTripTest() throws Exception {
+
+		final byte[] gdmModel = readGDMModel();
+
+		for (final GDMModelCompression compression : GDMModelCompression.values()) {
+
+			try (final InputStream gdmModelStream = GDMModelCompression.open(new ByteArrayInputStream(compress(gdmModel, compression)))) {
+
+				Assert.assertArrayEquals(String.format("round trip of '%s' failed", compression), gdmModel, ByteStreams.toByteArray(gdmModelStream));
+			}
+
+			try (final InputStream gdmModelStream = GDMModelCompression.open(new ByteArrayInputStream(compress(gdmModel, compression)))) {
+
+				Assert.assertEquals(1, new GDMStreamReader().read(gdmModelStream, resourceRecord -> {
+
+				}));
+			}
+		}
+	}
+
+	/**
+	 * concatenated gzip members (e.g. from pigz or concatenated exports) are read completely
+	 */
+	@Test
+	public void multiMemberGzipTest() throws Exception {
+
+		final byte[] firstMember = compress("[{\"http://example.org/r1\":[]},".getBytes(StandardCharsets.UTF_8), GDMModelCompression.GZIP);
+		final byte[] secondMember = compress("{\"http://example.org/r2\":[]}]".getBytes(StandardCharsets.UTF_8), GDMModelCompression.GZIP);
+
+		final ByteArrayOutputStream multiMemberGzip = new ByteArrayOutputStream();
+
+		multiMemberGzip.write(firstMember);
+		multiMemberGzip.write(secondMember);
+
+		try (final InputStream gdmModelStream = GDMModelCompression.open(new ByteArrayInputStream(multiMemberGzip.toByteArray()))) {
+
+			Assert.assertEquals("[{\"http://example.org/r1\":[]},{\"http://example.org/r2\":[]}]",
+					new String(ByteStreams.toByteArray(gdmModelStream), StandardCharsets.UTF_8));
+		}
+	}
+
+	private static byte[] readGDMModel() throws IOException {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		return Resources.toByteArray(resourceURL);
+	}
+
+	private static byte[] compress(final byte[] bytes, final GDMModelCompression compression) throws IOException {
+
+		final ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
+
+		try (final OutputStream compressedStream = compressionStream(compressedBytes, compression)) {
+
+			compressedStream.write(bytes);
+		}
+
+		return compressedBytes.toByteArray();
+	}
+
+	private static OutputStream compressionStream(final OutputStream stream, final GDMModelCompression compression) throws IOException {
+
+		switch (compression) {
+
+			case GZIP:
+
+				return new GzipCompressorOutputStream(stream);
+			case ZSTD:
+
+				return new ZstdCompressorOutputStream(stream);
+			case BZIP2:
+
+				return new BZip2CompressorOutputStream(stream);
+			default:
+
+				return stream;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.GDMModelIndex;
+
+/**
+ * @author tgaengler
+ */
+public class GDMModelIndexTest {
+
+	private static final String TRICKY_GDM_MODEL = "[ {\"http://example.org/r1\":[{\"s\":{\"uri\":\"http://example.org/r1\"},"
+			+ "\"p\":\"http://example.org/p\",\"o\":{\"v\":\"{ [ \\\"}\\\" ] }\"}}]},\n"
+			+ "{\"http://example.org/r2\":[{\"s\":{\"uri\":\"http://example.org/r2\"},\"p\":\"http://example.org/p\",\"o\":{\"v\":\"\\\\\"}}]}"
+			+ " ,{\"http://example.org/r3\":[]}]";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void indexTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+		final Path gdmModelFile = temporaryFolder.getRoot().toPath().resolve("lic_dmp_01_v1.csv.gson");
+
+		Files.copy(Paths.get(resourceURL.toURI()), gdmModelFile);
+
+		final GDMModelIndex index = GDMModelIndex.loadOrBuild(gdmModelFile);
+
+		Assert.assertEquals(1, index.getResourceCount());
+
+		final byte[] bytes = Files.readAllBytes(gdmModelFile);
+
+		Assert.assertEquals('{', bytes[(int) index.getResourceStart(0)]);
+		Assert.assertEquals('}', bytes[(int) index.getResourceEnd(0) - 1]);
+		Assert.assertTrue(Files.exists(GDMModelIndex.indexFile(gdmModelFile)));
+
+		// the persisted index should be re-used
+		final GDMModelIndex persistedIndex = GDMModelIndex.loadOrBuild(gdmModelFile);
+
+		Assert.assertEquals(index.getResourceCount(), persistedIndex.getResourceCount());
+		Assert.assertEquals(index.getResourceStart(0), persistedIndex.getResourceStart(0));
+		Assert.assertEquals(index.getResourceEnd(0), persistedIndex.getResourceEnd(0));
+	}
+
+	@Test
+	public void bracesInStringsTest() throws Exception {
+
+		final Path gdmModelFile = temporaryFolder.newFile("tricky.gson").toPath();
+
+		Files.write(gdmModelFile, TRICKY_GDM_MODEL.getBytes(StandardCharsets.UTF_8));
+
+		final GDMModelIndex index = GDMModelIndex.build(gdmModelFile);
+
+		Assert.assertEquals(3, index.getResourceCount());
+
+		for (int i = 0; i < index.getResourceCount(); i++) {
+
+			final String resource = TRICKY_GDM_MODEL.substring((int) index.getResourceStart(i), (int) index.getResourceEnd(i));
+
+			Assert.assertTrue(resource, resource.startsWith("{\"http://example.org/r" + (i + 1) + "\""));
+			Assert.assertTrue(resource, resource.endsWith("]}"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void truncatedGDMModelTest() throws Exception {
+
+		final Path gdmModelFile = temporaryFolder.newFile("truncated.gson").toPath();
+
+		Files.write(gdmModelFile, TRICKY_GDM_MODEL.substring(0, TRICKY_GDM_MODEL.length() / 2).getBytes(StandardCharsets.UTF_8));
+
+		GDMModelIndex.build(gdmModelFile);
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.GDMModelReader;
+import org.dswarm.wikidataimporter.GDMModelStreams;
+
+/**
+ * @author tgaengler
+ */
+public class GDMModelStreamsTest {
+
+	private static final String FIRST_PART  = "[{\"http://example.org/r1\":[{\"s\":{\"uri\":\"http://example.org/r1\"},\"p\":\"http://example.org/p\","
+			+ "\"o\":{\"v\":\"a\"}}]},";
+	private static final String SECOND_PART = "{\"http://example.org/r2\":[{\"s\":{\"uri\":\"http://example.org/r2\"},\"p\":\"http://example.org/p\","
+			+ "\"o\":{\"v\":\"b\"}}]}]";
+
+	private static final String STREAM_PATH  = "/stream";
+	private static final String MISSING_PATH = "/missing";
+
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private final CountDownLatch firstRecordReceived   = new CountDownLatch(1);
+	private final AtomicBoolean  streamedIncrementally = new AtomicBoolean();
+
+	private HttpServer server;
+
+	@Before
+	public void startServer() throws IOException {
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+		// a chunked GDM model stream (like a D:SWARM export), which only continues, when the first resource was consumed
+		server.createContext(STREAM_PATH, exchange -> {
+
+			exchange.sendResponseHeaders(200, 0);
+
+			try (final OutputStream responseBody = exchange.getResponseBody()) {
+
+				responseBody.write(FIRST_PART.getBytes(StandardCharsets.UTF_8));
+				responseBody.flush();
+
+				streamedIncrementally.set(firstRecordReceived.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+				responseBody.write(SECOND_PART.getBytes(StandardCharsets.UTF_8));
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+			}
+		});
+		server.createContext(MISSING_PATH, exchange -> {
+
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+
+		server.stop(0);
+	}
+
+	@Test
+	public void httpStreamTest() throws Exception {
+
+		final String url = baseURL() + STREAM_PATH;
+
+		Assert.assertTrue(GDMModelStreams.isStream(url));
+
+		final List<String> resourceURIs = new ArrayList<>();
+
+		try (final InputStream gdmModelStream = GDMModelStreams.open(url)) {
+
+			new GDMModelReader(1, 0, GDMModelReader.ParserType.STREAMING).readRecords(gdmModelStream, url).toBlocking().forEach(resourceRecord -> {
+
+				resourceURIs.add(resourceRecord.getResourceURI());
+
+				firstRecordReceived.countDown();
+			});
+		}
+
+		Assert.assertEquals(2, resourceURIs.size());
+		Assert.assertEquals("http://example.org/r1", resourceURIs.get(0));
+		Assert.assertEquals("http://example.org/r2", resourceURIs.get(1));
+		// i.e., the first resource was processed before the end of the stream was produced
+		Assert.assertTrue(streamedIncrementally.get());
+	}
+
+	@Test(expected = IOException.class)
+	public void httpErrorTest() throws Exception {
+
+		GDMModelStreams.open(baseURL() + MISSING_PATH);
+	}
+
+	@Test
+	public void isStreamTest() {
+
+		Assert.assertTrue(GDMModelStreams.isStream(GDMModelStreams.STDIN_INPUT));
+		Assert.assertTrue(GDMModelStreams.isStream("https://example.org/export"));
+		Assert.assertFalse(GDMModelStreams.isStream("/data/model.gson"));
+		Assert.assertFalse(GDMModelStreams.isStream("data/*.gson.gz"));
+	}
+
+	private String baseURL() {
+
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+}
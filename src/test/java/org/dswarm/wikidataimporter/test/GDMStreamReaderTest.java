@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.graph.json.NodeType;
+import org.dswarm.wikidataimporter.GDMResourceRecord;
+import org.dswarm.wikidataimporter.GDMStatementRecord;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+
+/**
+ * @author tgaengler
+ */
+public class GDMStreamReaderTest {
+
+	private static final String RECORD_URI = "http://data.slub-dresden.de/datamodels/4/records/76a95e69-5153-46a8-877c-44789e87bac8";
+
+	private static final String QUALIFIED_GDM_MODEL = "[{\"http://example.org/r1\":[{\"id\":1,\"uuid\":\"u1\",\"s\":{\"uri\":\"http://example.org/r1\"},"
+			+ "\"p\":\"http://example.org/p\",\"o\":{\"v\":\"a\",\"id\":2},\"order\":3,\"confidence\":\"0.5\"},"
+			+ "{\"s\":{\"uri\":\"http://example.org/r1\"},\"p\":\"http://example.org/q\",\"o\":{\"id\":4}}]},"
+			+ "{\"http://example.org/r2\":[]}]";
+
+	@Test
+	public void readTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		final List<GDMResourceRecord> resourceRecords = new ArrayList<>();
+
+		try (final InputStream gdmModelStream = resourceURL.openStream()) {
+
+			final long resourceCount = new GDMStreamReader().read(gdmModelStream, resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+
+			Assert.assertEquals(1, resourceCount);
+		}
+
+		final GDMResourceRecord resourceRecord = resourceRecords.get(0);
+
+		Assert.assertEquals(RECORD_URI, resourceRecord.getResourceURI());
+		Assert.assertEquals(23, resourceRecord.getStatementCount());
+
+		final Set<String> predicateURIs = new HashSet<>();
+
+		for (int i = 0; i < resourceRecord.getStatementCount(); i++) {
+
+			predicateURIs.add(resourceRecord.getStatement(i).getPredicateURI());
+		}
+
+		Assert.assertEquals(23, predicateURIs.size());
+
+		final GDMStatementRecord typeStatement = resourceRecord.getStatement(0);
+
+		Assert.assertEquals("http://www.w3.org/1999/02/22-rdf-syntax-ns#type", typeStatement.getPredicateURI());
+		Assert.assertEquals(NodeType.Resource, typeStatement.getObjectType());
+		Assert.assertEquals("http://data.slub-dresden.de/resources/1/schema#RecordType", typeStatement.getObjectValue());
+
+		final GDMStatementRecord literalStatement = resourceRecord.getStatement(1);
+
+		Assert.assertEquals(NodeType.Literal, literalStatement.getObjectType());
+		Assert.assertEquals("26", literalStatement.getObjectValue());
+	}
+
+	@Test
+	public void qualifiedAttributesTest() throws Exception {
+
+		final List<GDMResourceRecord> resourceRecords = new ArrayList<>();
+
+		new GDMStreamReader().read(new ByteArrayInputStream(QUALIFIED_GDM_MODEL.getBytes(StandardCharsets.UTF_8)),
+				resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+
+		Assert.assertEquals(2, resourceRecords.size());
+		Assert.assertEquals(2, resourceRecords.get(0).getStatementCount());
+		Assert.assertEquals(0, resourceRecords.get(1).getStatementCount());
+
+		final GDMStatementRecord qualifiedStatement = resourceRecords.get(0).getStatement(0);
+
+		Assert.assertEquals("u1", qualifiedStatement.getUUID());
+		Assert.assertEquals("3", qualifiedStatement.getOrder());
+		Assert.assertEquals("0.5", qualifiedStatement.getConfidence());
+		Assert.assertNull(qualifiedStatement.getEvidence());
+		Assert.assertEquals("a", qualifiedStatement.getObjectValue());
+
+		Assert.assertEquals(NodeType.BNode, resourceRecords.get(0).getStatement(1).getObjectType());
+	}
+}
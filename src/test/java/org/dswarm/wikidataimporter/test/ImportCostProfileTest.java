@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.net.URL;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.ImportCostProfile;
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
+
+/**
+ * @author tgaengler
+ */
+public class ImportCostProfileTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void importCostProfileTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		final Path xmlDump = temporaryFolder.getRoot().toPath().resolve("dump.xml");
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+
+		final ImportCostProfile costProfile = new ImportCostProfile(5);
+
+		try (final WikibaseImportTarget importTarget = new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping)) {
+
+			final WikidataDswarmImporter wikidataDswarmImporter = new WikidataDswarmImporter(importTarget);
+			wikidataDswarmImporter.setCostProfile(costProfile);
+			wikidataDswarmImporter.importGDMModel(resourceURL.getPath());
+		}
+
+		final ObjectNode report = costProfile.toJSON();
+
+		final JsonNode total = report.get("total");
+
+		Assert.assertEquals(1, total.get("resources").asLong());
+		Assert.assertEquals(0, total.get("failures").asLong());
+
+		final long statements = total.get("statements").asLong();
+
+		Assert.assertTrue(statements > 0);
+		Assert.assertTrue(total.get("value_bytes").asLong() > 0);
+
+		// note: the statements of the resource are grouped by predicate
+		long predicateStatements = 0;
+
+		for (final JsonNode predicate : report.get("predicates")) {
+
+			Assert.assertEquals(1, predicate.get("resources").asLong());
+
+			predicateStatements += predicate.get("statements").asLong();
+		}
+
+		Assert.assertEquals(statements, predicateStatements);
+
+		Assert.assertEquals(1, report.get("statement_count_buckets").size());
+		Assert.assertEquals(statements, report.get("statement_count_buckets").get(0).get("statements").asLong());
+
+		final JsonNode slowestResources = report.get("slowest_resources");
+
+		Assert.assertEquals(1, slowestResources.size());
+		Assert.assertEquals(statements, slowestResources.get(0).get("statements").asLong());
+		Assert.assertFalse(slowestResources.get(0).get("failed").asBoolean());
+	}
+
+	@Test
+	public void emptyImportCostProfileTest() {
+
+		final ObjectNode report = new ImportCostProfile().toJSON();
+
+		Assert.assertEquals(0, report.get("total").get("resources").asLong());
+		Assert.assertEquals(0, report.get("predicates").size());
+		Assert.assertEquals(0, report.get("statement_count_buckets").size());
+		Assert.assertEquals(0, report.get("slowest_resources").size());
+	}
+}
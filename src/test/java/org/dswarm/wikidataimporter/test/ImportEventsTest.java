@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.io.Resources;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
+
+/**
+ * @author tgaengler
+ */
+public class ImportEventsTest {
+
+	private static final String RESOURCE_IMPORT_EVENT             = "org.dswarm.wikidataimporter.ResourceImport";
+	private static final String PROPERTY_RESOLUTION_EVENT         = "org.dswarm.wikidataimporter.PropertyResolution";
+	private static final String PLACEHOLDER_ITEM_RESOLUTION_EVENT = "org.dswarm.wikidataimporter.PlaceholderItemResolution";
+
+	/**
+	 * see {@link MediaWikiXMLDumpImportTargetTest}
+	 */
+	private static final int EXPECTED_PROPERTY_COUNT = 23;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void importEventsTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		final Path xmlDump = temporaryFolder.getRoot().toPath().resolve("dump.xml");
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+		final Path recordingFile = temporaryFolder.getRoot().toPath().resolve("import.jfr");
+
+		try (final Recording recording = new Recording()) {
+
+			recording.enable(RESOURCE_IMPORT_EVENT);
+			recording.enable(PROPERTY_RESOLUTION_EVENT);
+			recording.enable(PLACEHOLDER_ITEM_RESOLUTION_EVENT);
+			recording.start();
+
+			try (final WikibaseImportTarget importTarget = new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping)) {
+
+				new WikidataDswarmImporter(importTarget).importGDMModel(resourceURL.getPath());
+			}
+
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+
+		final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+		final List<RecordedEvent> resourceImports = events(events, RESOURCE_IMPORT_EVENT);
+
+		Assert.assertEquals(1, resourceImports.size());
+		Assert.assertTrue(resourceImports.get(0).getBoolean("created"));
+		Assert.assertTrue(resourceImports.get(0).getInt("statementCount") > 0);
+		Assert.assertTrue(resourceImports.get(0).getLong("conversionDuration") <= resourceImports.get(0).getDuration().toNanos());
+
+		final List<RecordedEvent> propertyResolutions = events(events, PROPERTY_RESOLUTION_EVENT);
+
+		Assert.assertEquals(EXPECTED_PROPERTY_COUNT, propertyResolutions.size());
+		Assert.assertTrue(propertyResolutions.stream().allMatch(event -> event.getBoolean("created")));
+
+		final List<RecordedEvent> placeholderItemResolutions = events(events, PLACEHOLDER_ITEM_RESOLUTION_EVENT);
+
+		Assert.assertEquals(1, placeholderItemResolutions.size());
+		Assert.assertNotNull(placeholderItemResolutions.get(0).getString("resourceURI"));
+	}
+
+	private static List<RecordedEvent> events(final List<RecordedEvent> events, final String eventName) {
+
+		return events.stream().filter(event -> eventName.equals(event.getEventType().getName())).collect(Collectors.toList());
+	}
+}
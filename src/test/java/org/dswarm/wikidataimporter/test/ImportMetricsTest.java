@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.ImportMetrics;
+import org.dswarm.wikidataimporter.MetricsEndpoint;
+
+/**
+ * @author tgaengler
+ */
+public class ImportMetricsTest {
+
+	private static final String TARGET = "metrics-test";
+
+	@Test
+	public void importMetricsTest() throws Exception {
+
+		final ObjectName objectName = new ObjectName(ImportMetrics.JMX_DOMAIN + ":type=ImportMetrics,target=" + ObjectName.quote(TARGET));
+
+		final ImportMetrics metrics = new ImportMetrics(TARGET);
+
+		Assert.assertTrue(ImportMetrics.all().contains(metrics));
+		Assert.assertEquals(objectName, metrics.getObjectName());
+		Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+
+		recordMetrics(metrics);
+
+		metrics.close();
+
+		// the metrics are unregistered on close (but they can still be read)
+		Assert.assertFalse(ImportMetrics.all().contains(metrics));
+		Assert.assertNull(metrics.getObjectName());
+		Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+		Assert.assertEquals(1, metrics.getResources());
+	}
+
+	/**
+	 * independent importers (e.g. jobs or tests) of targets with the same name don't share their metrics
+	 */
+	@Test
+	public void independentMetricsTest() throws Exception {
+
+		try (final ImportMetrics metrics1 = new ImportMetrics(TARGET);
+				final ImportMetrics metrics2 = new ImportMetrics(TARGET)) {
+
+			metrics1.resourceProcessed();
+
+			Assert.assertEquals(1, metrics1.getResources());
+			Assert.assertEquals(0, metrics2.getResources());
+			Assert.assertNotEquals(metrics1.getObjectName(), metrics2.getObjectName());
+			Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics2.getObjectName()));
+
+			final StringWriter writer = new StringWriter();
+
+			ImportMetrics.writePrometheus(writer);
+
+			final String exposition = writer.toString();
+			final String instance = metrics2.getObjectName().getKeyProperty("instance");
+
+			Assert.assertTrue(exposition.contains("dswarm_wikidata_importer_resources_total{target=\"" + TARGET + "\"} 1\n"));
+			Assert.assertTrue(exposition.contains("dswarm_wikidata_importer_resources_total{target=\"" + TARGET + "\",instance=\"" + instance
+					+ "\"} 0\n"));
+		}
+	}
+
+	private static void recordMetrics(final ImportMetrics metrics) throws IOException {
+
+		metrics.resourceProcessed();
+		metrics.statementProcessed();
+		metrics.statementProcessed();
+		metrics.statementSkipped();
+		metrics.itemIdCacheLookup(true);
+		metrics.itemIdCacheLookup(true);
+		metrics.itemIdCacheLookup(true);
+		metrics.itemIdCacheLookup(false);
+		metrics.bytesSent(1024);
+		metrics.bytesReceived(256);
+
+		final long successfulStart = metrics.requestStarted();
+
+		Assert.assertEquals(1, metrics.getInFlightRequests());
+
+		metrics.requestFinished("wbeditentity", successfulStart, true);
+		metrics.requestFinished("wbeditentity", metrics.requestStarted(), false);
+
+		Assert.assertEquals(1, metrics.getResources());
+		Assert.assertEquals(2, metrics.getStatements());
+		Assert.assertEquals(1, metrics.getSkippedStatements());
+		Assert.assertEquals(0.75, metrics.getItemIdCacheHitRate(), 0.0);
+		Assert.assertEquals(0.0, metrics.getPropertyIdCacheHitRate(), 0.0);
+		Assert.assertEquals(1024, metrics.getBytesSent());
+		Assert.assertEquals(256, metrics.getBytesReceived());
+		Assert.assertEquals(2, metrics.getRequests());
+		Assert.assertEquals(1, metrics.getFailedRequests());
+		Assert.assertEquals(0, metrics.getInFlightRequests());
+		Assert.assertEquals(Long.valueOf(2), metrics.getRequestCounts().get("wbeditentity"));
+
+		final StringWriter writer = new StringWriter();
+
+		ImportMetrics.writePrometheus(writer);
+
+		final String exposition = writer.toString();
+
+		Assert.assertTrue(exposition.contains("# TYPE dswarm_wikidata_importer_statements_total counter\n"));
+		Assert.assertTrue(exposition.contains("dswarm_wikidata_importer_statements_total{target=\"" + TARGET + "\"} 2\n"));
+		Assert.assertTrue(exposition.contains("dswarm_wikidata_importer_entity_id_cache_hit_ratio{target=\"" + TARGET + "\",cache=\"item\"} 0.75\n"));
+		Assert.assertTrue(exposition.contains("dswarm_wikidata_importer_request_latency_seconds_count{target=\"" + TARGET
+				+ "\",action=\"wbeditentity\"} 2\n"));
+	}
+
+	@Test
+	public void metricsEndpointTest() throws IOException {
+
+		try (final ImportMetrics metrics = new ImportMetrics(TARGET);
+				final MetricsEndpoint metricsEndpoint = new MetricsEndpoint(new InetSocketAddress("localhost", 0))) {
+
+			metrics.resourceProcessed();
+
+
+			final URL url = new URL("http", "localhost", metricsEndpoint.getAddress().getPort(), MetricsEndpoint.METRICS_PATH);
+			final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+			Assert.assertEquals(200, connection.getResponseCode());
+			Assert.assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+
+			try (final InputStream inputStream = connection.getInputStream();
+					final Scanner scanner = new Scanner(inputStream, StandardCharsets.UTF_8.name()).useDelimiter("\\A")) {
+
+				Assert.assertTrue(scanner.next().contains("dswarm_wikidata_importer_resources_total{target=\"" + TARGET + "\"}"));
+			}
+
+			final HttpURLConnection postConnection = (HttpURLConnection) url.openConnection();
+			postConnection.setRequestMethod("POST");
+
+			Assert.assertEquals(405, postConnection.getResponseCode());
+		}
+	}
+}
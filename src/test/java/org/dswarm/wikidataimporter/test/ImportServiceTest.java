@@ -0,0 +1,196 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.dswarm.wikidataimporter.GDMModelReader;
+import org.dswarm.wikidataimporter.ImportJob;
+import org.dswarm.wikidataimporter.ImportService;
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikibaseTargetConfiguration;
+import org.dswarm.wikidataimporter.WikidataDswarmMultiTargetImporter;
+
+/**
+ * @author tgaengler
+ */
+public class ImportServiceTest {
+
+	/**
+	 * the number of resources of the test GDM model
+	 */
+	private static final int EXPECTED_RESOURCE_COUNT = 1;
+
+	private static final long JOB_TIMEOUT_MILLIS = 30000;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void importServiceTest() throws Exception {
+
+		final Path gdmModelFile = Paths.get(Resources.getResource("lic_dmp_01_v1.csv.gson").toURI());
+		final Path xmlDump = temporaryFolder.getRoot().toPath().resolve("dump.xml");
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+
+		final WikibaseTargetConfiguration targetConfiguration = new WikibaseTargetConfiguration("dump", xmlDump.toUri().toString(), null, null,
+				2, 100);
+
+		try (final WikidataDswarmMultiTargetImporter importer = new WikidataDswarmMultiTargetImporter(
+				Collections.singletonMap(targetConfiguration, new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping)));
+				final ImportService importService = new ImportService(importer,
+						new GDMModelReader(1, 0, GDMModelReader.ParserType.STREAMING), new InetSocketAddress("localhost", 0), 2)) {
+
+			final String jobsURL = "http://localhost:" + importService.getAddress().getPort() + ImportService.JOBS_PATH;
+
+			// 1. file job (asynchronous)
+			final JsonNode fileJob = request(jobsURL + "?path=" + URLEncoder.encode(gdmModelFile.toString(), StandardCharsets.UTF_8.name()),
+					"POST", null, HttpURLConnection.HTTP_ACCEPTED);
+
+			final String fileJobURL = jobsURL + '/' + fileJob.get("id").asText();
+
+			final long deadline = System.currentTimeMillis() + JOB_TIMEOUT_MILLIS;
+
+			JsonNode fileJobState = request(fileJobURL, "GET", null, HttpURLConnection.HTTP_OK);
+
+			while (!ImportJob.State.FINISHED.name().equals(fileJobState.get("state").asText()) && System.currentTimeMillis() < deadline) {
+
+				Assert.assertFalse(fileJobState.toString(), ImportJob.State.FAILED.name().equals(fileJobState.get("state").asText()));
+
+				Thread.sleep(50);
+
+				fileJobState = request(fileJobURL, "GET", null, HttpURLConnection.HTTP_OK);
+			}
+
+			Assert.assertEquals(ImportJob.State.FINISHED.name(), fileJobState.get("state").asText());
+			Assert.assertEquals(EXPECTED_RESOURCE_COUNT, fileJobState.get("read_resources").asLong());
+			Assert.assertEquals(EXPECTED_RESOURCE_COUNT, fileJobState.get("imported_resources").asLong());
+
+			// 2. streamed job (synchronous) - shares the entity id caches with the first job
+			final JsonNode streamedJob = request(jobsURL + "?name=streamed", "POST", Files.readAllBytes(gdmModelFile),
+					HttpURLConnection.HTTP_OK);
+
+			Assert.assertEquals(ImportJob.State.FINISHED.name(), streamedJob.get("state").asText());
+			Assert.assertEquals("streamed", streamedJob.get("source").asText());
+			Assert.assertEquals(EXPECTED_RESOURCE_COUNT, streamedJob.get("imported_resources").asLong());
+
+			// 3. broken streamed job - doesn't affect the other jobs
+			final JsonNode brokenJob = request(jobsURL, "POST", "[{\"broken".getBytes(StandardCharsets.UTF_8), HttpURLConnection.HTTP_OK);
+
+			Assert.assertEquals(ImportJob.State.FAILED.name(), brokenJob.get("state").asText());
+
+			final JsonNode jobs = request(jobsURL, "GET", null, HttpURLConnection.HTTP_OK);
+
+			Assert.assertEquals(3, jobs.size());
+			Assert.assertEquals(fileJob.get("id"), jobs.get(0).get("id"));
+
+			request(jobsURL + "/unknown", "GET", null, HttpURLConnection.HTTP_NOT_FOUND);
+			request(jobsURL, "DELETE", null, HttpURLConnection.HTTP_BAD_METHOD);
+		}
+	}
+
+	@Test
+	public void multiTargetImportServiceTest() throws Exception {
+
+		final Path gdmModelFile = Paths.get(Resources.getResource("lic_dmp_01_v1.csv.gson").toURI());
+
+		final Map<WikibaseTargetConfiguration, WikibaseImportTarget> importTargets = new LinkedHashMap<>();
+
+		for (final String targetName : new String[] { "dump1", "dump2" }) {
+
+			final Path xmlDump = temporaryFolder.getRoot().toPath().resolve(targetName + ".xml");
+			final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve(targetName + ".entity-id-mapping.tsv");
+
+			importTargets.put(new WikibaseTargetConfiguration(targetName, xmlDump.toUri().toString(), null, null, 2, 100),
+					new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping));
+		}
+
+		try (final WikidataDswarmMultiTargetImporter importer = new WikidataDswarmMultiTargetImporter(importTargets);
+				final ImportService importService = new ImportService(importer,
+						new GDMModelReader(1, 0, GDMModelReader.ParserType.STREAMING), new InetSocketAddress("localhost", 0), 1, 2)) {
+
+			// a resource is counted once (not once per target)
+			final ImportJob job = importService.importStream(Files.newInputStream(gdmModelFile), "streamed");
+
+			Assert.assertEquals(ImportJob.State.FINISHED, job.getState());
+			Assert.assertEquals(EXPECTED_RESOURCE_COUNT, job.getProgress().getReadResources());
+			Assert.assertEquals(EXPECTED_RESOURCE_COUNT, job.getProgress().getImportedResources());
+			Assert.assertEquals(0, job.getProgress().getFailedResources());
+
+			// only the 2 latest completed jobs are kept
+			for (int i = 0; i < 3; i++) {
+
+				importService.importStream(new ByteArrayInputStream("[{\"broken".getBytes(StandardCharsets.UTF_8)), "broken");
+			}
+
+			Assert.assertEquals(2, importService.getJobs().size());
+			Assert.assertFalse(importService.getJob(job.getId()).isPresent());
+		}
+	}
+
+	private static JsonNode request(final String url, final String method, final byte[] body, final int expectedStatus) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+		connection.setRequestMethod(method);
+
+		if (body != null) {
+
+			connection.setDoOutput(true);
+			connection.setChunkedStreamingMode(1024);
+
+			try (final OutputStream requestStream = connection.getOutputStream()) {
+
+				requestStream.write(body);
+			}
+		}
+
+		Assert.assertEquals(url, expectedStatus, connection.getResponseCode());
+
+		try (final InputStream responseStream = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+
+			return MAPPER.readTree(responseStream);
+		} finally {
+
+			connection.disconnect();
+		}
+	}
+}
@@ -0,0 +1,484 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.dswarm.wikidataimporter.GDMModelReader;
+import org.dswarm.wikidataimporter.ImportCostProfile;
+import org.dswarm.wikidataimporter.ImportMetrics;
+import org.dswarm.wikidataimporter.ImportProgress;
+import org.dswarm.wikidataimporter.LatencyHistogram;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
+import org.dswarm.wikidataimporter.WikidataDswarmMultiTargetImporter;
+import org.dswarm.wikidataimporter.WikidataImporterException;
+
+/**
+ * An end-to-end load test: imports a synthetic GDM model (see {@link SyntheticGDMModel}) or a given GDM model file into an embedded Wikibase
+ * API stub (see {@link WikibaseAPIStub}; with optional latency, error, maxlag + rate limit injection) and writes a machine-readable (JSON)
+ * report of the run (throughput, edit latency histogram, heap high-water mark, peak thread count, GC), e.g., for comparing configurations
+ * and builds. Run with 'mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test -Dexec.args="-Xmx2g -cp %classpath
+ * org.dswarm.wikidataimporter.test.LoadTestHarness --resources=10000 --latency=lognormal:50:0.5 --report=load-test-report.json"'.<br/>
+ * Note: the stub runs in the same JVM, i.e., its threads + heap are part of the measured thread count + heap high-water mark.
+ *
+ * @author tgaengler
+ */
+public class LoadTestHarness {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadTestHarness.class);
+
+	private static final String LOGGING_CONFIGURATION_PROPERTY = "logback.configurationFile";
+	private static final String DEFAULT_LOGGING_CONFIGURATION  = "logback.xml";
+
+	public static final String RESOURCES_OPTION            = "resources";
+	public static final String STATEMENTS_OPTION           = "statements";
+	public static final String REFERENCE_FAN_OUT_OPTION    = "reference-fan-out";
+	public static final String LITERAL_SIZE_OPTION         = "literal-size";
+	public static final String PREDICATES_OPTION           = "predicates";
+	public static final String REFERENCED_RESOURCES_OPTION = "referenced-resources";
+	public static final String GDM_MODEL_OPTION            = "gdm-model";
+	public static final String LATENCY_OPTION              = "latency";
+	public static final String ERROR_RATE_OPTION           = "error-rate";
+	public static final String MAXLAG_RATE_OPTION          = "maxlag-rate";
+	public static final String EDIT_RATE_LIMIT_OPTION      = "edit-rate-limit";
+	public static final String CONCURRENCY_OPTION          = "concurrency";
+	public static final String BUFFER_SIZE_OPTION          = "buffer-size";
+	public static final String LABEL_OPTION                = "label";
+	public static final String REPORT_OPTION               = "report";
+	public static final String COST_PROFILE_OPTION         = "cost-profile";
+
+	private static final String OPTION_PREFIX       = "--";
+	private static final String TARGET_NAME         = "load-test";
+	private static final String DEFAULT_REPORT_FILE = "load-test-report.json";
+	private static final String LATENCY_SEPARATOR   = ":";
+	private static final int    MAXLAG_SECONDS      = 1;
+	private static final double MICROS_PER_MILLI    = 1000.0;
+
+	private static final double[] REPORTED_PERCENTILES      = { 0.5, 0.9, 0.99, 0.999 };
+	private static final String[] REPORTED_PERCENTILE_NAMES = { "p50_millis", "p90_millis", "p99_millis", "p999_millis" };
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Map<String, String> options;
+	private final SyntheticGDMModel   syntheticGDMModel;
+	private final String              latency;
+	private final double              errorRate;
+	private final double              maxlagRate;
+	private final double              editRateLimit;
+	private final int                 concurrency;
+	private final int                 bufferSize;
+
+	/**
+	 * @param options the options of the load test (option name → value), see the *_OPTION constants
+	 */
+	public LoadTestHarness(final Map<String, String> options) {
+
+		this.options = options;
+
+		syntheticGDMModel = new SyntheticGDMModel(intOption(RESOURCES_OPTION, 1000), intOption(STATEMENTS_OPTION, 20))
+				.withReferenceFanOut(intOption(REFERENCE_FAN_OUT_OPTION, 2))
+				.withLiteralSize(intOption(LITERAL_SIZE_OPTION, 32))
+				.withPredicateCount(intOption(PREDICATES_OPTION, 50));
+
+		if (options.containsKey(REFERENCED_RESOURCES_OPTION)) {
+
+			syntheticGDMModel.withReferencedResourceCount(intOption(REFERENCED_RESOURCES_OPTION, 0));
+		}
+
+		latency = options.getOrDefault(LATENCY_OPTION, "none");
+		errorRate = doubleOption(ERROR_RATE_OPTION, 0.0);
+		maxlagRate = doubleOption(MAXLAG_RATE_OPTION, 0.0);
+		editRateLimit = doubleOption(EDIT_RATE_LIMIT_OPTION, 0.0);
+		concurrency = intOption(CONCURRENCY_OPTION, 4);
+		bufferSize = intOption(BUFFER_SIZE_OPTION, 100);
+	}
+
+	public static void main(final String[] args) throws IOException {
+
+		final Map<String, String> options = new HashMap<>();
+
+		for (final String arg : args) {
+
+			if (!arg.startsWith(OPTION_PREFIX)) {
+
+				throw new IllegalArgumentException(String.format("'%s' is not an option (--<name>=<value>)", arg));
+			}
+
+			final int separator = arg.indexOf('=');
+
+			if (separator < 0) {
+
+				options.put(arg.substring(OPTION_PREFIX.length()), "");
+			} else {
+
+				options.put(arg.substring(OPTION_PREFIX.length(), separator), arg.substring(separator + 1));
+			}
+		}
+
+		final LoadTestHarness loadTestHarness = new LoadTestHarness(options);
+		final Path reportFile = Paths.get(options.getOrDefault(REPORT_OPTION, DEFAULT_REPORT_FILE));
+
+		final ObjectNode report = loadTestHarness.run();
+
+		MAPPER.writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+
+		LOG.info("wrote load test report to '{}'", reportFile.toAbsolutePath());
+	}
+
+	/**
+	 * Runs the load test.
+	 *
+	 * @return the report of the load test
+	 * @throws IOException
+	 */
+	public ObjectNode run() throws IOException {
+
+		final String gdmModelOption = options.get(GDM_MODEL_OPTION);
+		final Path gdmModelFile;
+
+		if (gdmModelOption != null) {
+
+			gdmModelFile = Paths.get(gdmModelOption);
+		} else {
+
+			gdmModelFile = syntheticGDMModel.write(Files.createTempFile("gdm-model-load-test-", ".gson"));
+
+			LOG.info("generated synthetic GDM model with '{}' resources + '{}' statements ('{}' bytes) @ '{}'",
+					syntheticGDMModel.getResourceCount(), syntheticGDMModel.getStatementCount(), Files.size(gdmModelFile), gdmModelFile);
+		}
+
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub()) {
+
+			stub.withLatency(latencyDistribution(latency))
+					.withErrorRate(errorRate)
+					.withMaxlag(maxlagRate, MAXLAG_SECONDS)
+					.withEditRateLimit(editRateLimit);
+
+			return run(stub, gdmModelFile);
+		} finally {
+
+			if (gdmModelOption == null) {
+
+				Files.deleteIfExists(gdmModelFile);
+			}
+		}
+	}
+
+	private ObjectNode run(final WikibaseAPIStub stub, final Path gdmModelFile) throws IOException {
+
+		final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+		System.gc();
+
+		for (final MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+
+			memoryPool.resetPeakUsage();
+		}
+
+		threadMXBean.resetPeakThreadCount();
+
+		final long gcCountBefore = gcCount();
+		final long gcTimeBefore = gcTimeMillis();
+		final ImportProgress importProgress = new ImportProgress();
+
+		String failure = null;
+
+		// note: the label is the target name, i.e., the importer metrics of the run
+		final String label = options.getOrDefault(LABEL_OPTION, TARGET_NAME);
+
+		// note: the cost profile (option value = number of the slowest resources) is part of the report only
+		final boolean costProfile = options.containsKey(COST_PROFILE_OPTION);
+		JsonNode costProfiles = null;
+		ImportMetrics metrics = null;
+
+		final long start = System.nanoTime();
+
+		try (final WikidataDswarmMultiTargetImporter importer = new WikidataDswarmMultiTargetImporter(
+				Collections.singletonList(stub.targetConfiguration(label, concurrency, bufferSize)))) {
+
+			if (costProfile) {
+
+				importer.enableCostProfile(null, options.get(COST_PROFILE_OPTION).isEmpty() ?
+						ImportCostProfile.DEFAULT_TOP_RESOURCES :
+						intOption(COST_PROFILE_OPTION, ImportCostProfile.DEFAULT_TOP_RESOURCES));
+			}
+
+			metrics = importer.getTargetMetrics().get(label);
+
+			importer.importGDMModel(gdmModelFile.toString(), new GDMModelReader(), importProgress);
+
+			if (costProfile) {
+
+				costProfiles = importer.getCostProfiles().get(label);
+			}
+		} catch (final WikidataImporterException e) {
+
+			LOG.error("load test import failed", e);
+
+			failure = e.getMessage();
+		}
+
+		final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		final long importMillis = Math.max(1, importProgress.getElapsedMillis());
+
+		final ObjectNode report = MAPPER.createObjectNode()
+				.put("label", label)
+				.put("timestamp", Instant.now().toString());
+
+		report.putObject("environment")
+				.put("java_version", System.getProperty("java.version"))
+				.put("java_vm", System.getProperty("java.vm.name"))
+				.put("available_processors", Runtime.getRuntime().availableProcessors())
+				.put("max_heap_bytes", Runtime.getRuntime().maxMemory())
+				.put("importer_version", WikidataDswarmImporter.class.getPackage().getImplementationVersion())
+				// i.e., runs with different logging profiles can be compared (e.g. -Dlogback.configurationFile=logback-production.xml)
+				.put("logging_configuration", System.getProperty(LOGGING_CONFIGURATION_PROPERTY, DEFAULT_LOGGING_CONFIGURATION));
+
+		final ObjectNode configuration = report.putObject("configuration")
+				.put("gdm_model", gdmModelFile.toString())
+				.put("synthetic", !options.containsKey(GDM_MODEL_OPTION))
+				.put("latency", latency)
+				.put("error_rate", errorRate)
+				.put("maxlag_rate", maxlagRate)
+				.put("edit_rate_limit", editRateLimit)
+				.put("concurrency", concurrency)
+				.put("buffer_size", bufferSize);
+
+		if (!options.containsKey(GDM_MODEL_OPTION)) {
+
+			configuration.put("resources", syntheticGDMModel.getResourceCount())
+					.put("statements_per_resource", syntheticGDMModel.getStatementsPerResource())
+					.put("reference_fan_out", syntheticGDMModel.getReferenceFanOut())
+					.put("literal_size", syntheticGDMModel.getLiteralSize())
+					.put("predicates", syntheticGDMModel.getPredicateCount())
+					.put("referenced_resources", syntheticGDMModel.getReferencedResourceCount());
+		}
+
+		final ObjectNode result = report.putObject("result")
+				.put("success", failure == null)
+				.put("failure", failure)
+				.put("duration_millis", durationMillis)
+				.put("import_millis", importMillis)
+				.put("read_resources", importProgress.getReadResources())
+				.put("imported_resources", importProgress.getImportedResources())
+				.put("failed_resources", importProgress.getFailedResources())
+				.put("resources_per_second", importProgress.getImportedResources() * 1000.0 / importMillis)
+				.put("edits_per_second", stub.getEditRequests() * 1000.0 / importMillis);
+
+		if (!options.containsKey(GDM_MODEL_OPTION)) {
+
+			result.put("statements_per_second", syntheticGDMModel.getStatementCount() * 1000.0 / importMillis);
+		}
+
+		report.putObject("wikibase")
+				.put("requests", stub.getRequests())
+				.put("edit_requests", stub.getEditRequests())
+				.put("created_items", stub.getCreatedItems())
+				.put("created_properties", stub.getCreatedProperties())
+				.put("label_conflicts", stub.getLabelConflicts())
+				.put("injected_errors", stub.getInjectedErrors())
+				.put("maxlag_errors", stub.getMaxlagErrors())
+				.put("rate_limited_edits", stub.getRateLimitedEdits());
+
+		report.set("edit_latency", latencyReport(stub.getEditLatencies()));
+
+		if (metrics == null) {
+
+			// note: the importer couldn't be created, i.e., the report contains empty metrics
+			metrics = new ImportMetrics(label);
+
+			metrics.close();
+		}
+
+		final ObjectNode importer = report.putObject("importer")
+				.put("statements", metrics.getStatements())
+				.put("skipped_statements", metrics.getSkippedStatements())
+				.put("created_items", metrics.getCreatedItems())
+				.put("created_placeholder_items", metrics.getCreatedPlaceholderItems())
+				.put("created_properties", metrics.getCreatedProperties())
+				.put("conflicted_items", metrics.getConflictedItems())
+				.put("conflicted_properties", metrics.getConflictedProperties())
+				.put("failed_requests", metrics.getFailedRequests())
+				.put("sent_bytes", metrics.getBytesSent())
+				.put("received_bytes", metrics.getBytesReceived())
+				.put("item_id_cache_hit_rate", metrics.getItemIdCacheHitRate())
+				.put("property_id_cache_hit_rate", metrics.getPropertyIdCacheHitRate());
+		final ObjectNode requestLatencies = importer.putObject("request_latency");
+
+		for (final String action : metrics.getRequestCounts().keySet()) {
+
+			// client-side, i.e., incl. the transfer + (de-)serialization of the requests
+			requestLatencies.set(action, latencyReport(metrics.requestLatencies(action)));
+		}
+
+		if (costProfiles != null) {
+
+			report.set("cost_profile", costProfiles);
+		}
+
+		report.putObject("jvm")
+				.put("heap_high_water_mark_bytes", heapHighWaterMark())
+				.put("peak_thread_count", threadMXBean.getPeakThreadCount())
+				.put("gc_count", gcCount() - gcCountBefore)
+				.put("gc_millis", gcTimeMillis() - gcTimeBefore);
+
+		LOG.info("load test finished in '{}' ms ({}; edit latency: {})", durationMillis, importProgress, stub.getEditLatencies());
+
+		return report;
+	}
+
+	private static ObjectNode latencyReport(final LatencyHistogram latencies) {
+
+		final ObjectNode latencyReport = MAPPER.createObjectNode()
+				.put("count", latencies.getCount())
+				.put("mean_millis", latencies.getMeanMicros() / MICROS_PER_MILLI)
+				.put("max_millis", latencies.getMaxMicros() / MICROS_PER_MILLI);
+
+		for (int i = 0; i < REPORTED_PERCENTILES.length; i++) {
+
+			latencyReport.put(REPORTED_PERCENTILE_NAMES[i], latencies.getPercentileMicros(REPORTED_PERCENTILES[i]) / MICROS_PER_MILLI);
+		}
+
+		final ArrayNode histogram = latencyReport.putArray("histogram");
+
+		latencies.getBuckets().forEach((upperBoundMicros, count) -> histogram.addObject()
+				.put("le_millis", upperBoundMicros / MICROS_PER_MILLI)
+				.put("count", count));
+
+		return latencyReport;
+	}
+
+	/**
+	 * @return the sum of the peak usages of the heap memory pools (since the start of the import), i.e., an upper bound of the heap
+	 * high-water mark
+	 */
+	private static long heapHighWaterMark() {
+
+		long heapHighWaterMark = 0;
+
+		for (final MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+
+			if (memoryPool.getType() == MemoryType.HEAP && memoryPool.getPeakUsage() != null) {
+
+				heapHighWaterMark += memoryPool.getPeakUsage().getUsed();
+			}
+		}
+
+		return heapHighWaterMark;
+	}
+
+	private static long gcCount() {
+
+		long gcCount = 0;
+
+		for (final GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+
+			gcCount += Math.max(0, garbageCollector.getCollectionCount());
+		}
+
+		return gcCount;
+	}
+
+	private static long gcTimeMillis() {
+
+		long gcTime = 0;
+
+		for (final GarbageCollectorMXBean garbageCollector : ManagementFactory.getGarbageCollectorMXBeans()) {
+
+			gcTime += Math.max(0, garbageCollector.getCollectionTime());
+		}
+
+		return gcTime;
+	}
+
+	/**
+	 * @param latency 'none', 'constant:&lt;ms&gt;', 'uniform:&lt;min ms&gt;:&lt;max ms&gt;' or 'lognormal:&lt;median ms&gt;:&lt;sigma&gt;'
+	 * @return the latency distribution
+	 */
+	static WikibaseAPIStub.LatencyDistribution latencyDistribution(final String latency) {
+
+		final String[] parts = latency.split(LATENCY_SEPARATOR);
+
+		try {
+
+			switch (parts[0]) {
+
+				case "none":
+
+					return WikibaseAPIStub.LatencyDistribution.NONE;
+				case "constant":
+
+					return WikibaseAPIStub.LatencyDistribution.constant(Long.parseLong(parts[1]));
+				case "uniform":
+
+					return WikibaseAPIStub.LatencyDistribution.uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+				case "lognormal":
+
+					return WikibaseAPIStub.LatencyDistribution.logNormal(Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+				default:
+
+					break;
+			}
+		} catch (final NumberFormatException | ArrayIndexOutOfBoundsException e) {
+
+			throw new IllegalArgumentException(String.format("'%s' is not a valid latency distribution", latency), e);
+		}
+
+		throw new IllegalArgumentException(String.format("'%s' is not a valid latency distribution", latency));
+	}
+
+	private int intOption(final String option, final int defaultValue) {
+
+		try {
+
+			return options.containsKey(option) ? Integer.parseInt(options.get(option)) : defaultValue;
+		} catch (final NumberFormatException e) {
+
+			throw new IllegalArgumentException(String.format("'%s' is not a valid value of option '%s'", options.get(option), option), e);
+		}
+	}
+
+	private double doubleOption(final String option, final double defaultValue) {
+
+		try {
+
+			return options.containsKey(option) ? Double.parseDouble(options.get(option)) : defaultValue;
+		} catch (final NumberFormatException e) {
+
+			throw new IllegalArgumentException(String.format("'%s' is not a valid value of option '%s'", options.get(option), option), e);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.graph.json.NodeType;
+import org.dswarm.wikidataimporter.GDMResourceRecord;
+import org.dswarm.wikidataimporter.GDMStatementRecord;
+import org.dswarm.wikidataimporter.GDMStreamReader;
+import org.dswarm.wikidataimporter.LatencyHistogram;
+
+/**
+ * @author tgaengler
+ */
+public class LoadTestHarnessTest {
+
+	@Test
+	public void syntheticGDMModelTest() throws Exception {
+
+		final SyntheticGDMModel syntheticGDMModel = new SyntheticGDMModel(100, 10).withReferenceFanOut(3).withLiteralSize(64)
+				.withReferencedResourceCount(5);
+		final StringWriter gdmModel = new StringWriter();
+
+		syntheticGDMModel.write(gdmModel);
+
+		final List<GDMResourceRecord> resourceRecords = new ArrayList<>();
+
+		new GDMStreamReader().read(new ByteArrayInputStream(gdmModel.toString().getBytes(StandardCharsets.UTF_8)),
+				resourceRecord -> resourceRecords.add(resourceRecord.copy()));
+
+		Assert.assertEquals(100, resourceRecords.size());
+		Assert.assertEquals(SyntheticGDMModel.resourceURI(42), resourceRecords.get(42).getResourceURI());
+
+		final Set<String> referencedResources = new HashSet<>();
+
+		for (final GDMResourceRecord resourceRecord : resourceRecords) {
+
+			Assert.assertEquals(10, resourceRecord.getStatementCount());
+
+			for (int i = 1; i < resourceRecord.getStatementCount(); i++) {
+
+				final GDMStatementRecord statement = resourceRecord.getStatement(i);
+
+				if (i <= 3) {
+
+					Assert.assertEquals(NodeType.Resource, statement.getObjectType());
+
+					referencedResources.add(statement.getObjectValue());
+				} else {
+
+					Assert.assertEquals(NodeType.Literal, statement.getObjectType());
+					Assert.assertEquals(64, statement.getObjectValue().length());
+				}
+			}
+		}
+
+		Assert.assertEquals(5, referencedResources.size());
+	}
+
+	@Test
+	public void latencyHistogramTest() throws Exception {
+
+		final LatencyHistogram latencies = new LatencyHistogram();
+
+		for (int i = 1; i <= 1000; i++) {
+
+			latencies.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		Assert.assertEquals(1000, latencies.getCount());
+		Assert.assertEquals(500500.0, latencies.getMeanMicros(), 0.1);
+		Assert.assertEquals(1000000, latencies.getMaxMicros());
+
+		// log-linear buckets, i.e., a relative error of ≤ 6.25 %
+		Assert.assertEquals(500000, latencies.getPercentileMicros(0.5), 500000 * 0.0625);
+		Assert.assertEquals(990000, latencies.getPercentileMicros(0.99), 990000 * 0.0625);
+		Assert.assertEquals(1000000, latencies.getPercentileMicros(1.0));
+
+		long count = 0;
+
+		for (final long bucketCount : latencies.getBuckets().values()) {
+
+			count += bucketCount;
+		}
+
+		Assert.assertEquals(1000, count);
+	}
+
+	@Test
+	public void loadTest() throws Exception {
+
+		final Map<String, String> options = new HashMap<>();
+
+		options.put(LoadTestHarness.RESOURCES_OPTION, "20");
+		options.put(LoadTestHarness.STATEMENTS_OPTION, "10");
+		options.put(LoadTestHarness.REFERENCE_FAN_OUT_OPTION, "2");
+		options.put(LoadTestHarness.REFERENCED_RESOURCES_OPTION, "5");
+		options.put(LoadTestHarness.PREDICATES_OPTION, "5");
+		options.put(LoadTestHarness.LATENCY_OPTION, "uniform:1:5");
+		options.put(LoadTestHarness.CONCURRENCY_OPTION, "2");
+
+		final ObjectNode report = new LoadTestHarness(options).run();
+
+		final JsonNode result = report.path("result");
+
+		Assert.assertTrue(result.path("success").asBoolean());
+		Assert.assertEquals(20, result.path("imported_resources").asLong());
+		Assert.assertEquals(0, result.path("failed_resources").asLong());
+		Assert.assertTrue(result.path("resources_per_second").asDouble() > 0);
+
+		// 20 resources + 5 referenced resources + the record type
+		Assert.assertEquals(26, report.path("wikibase").path("created_items").asInt());
+
+		final JsonNode editLatency = report.path("edit_latency");
+
+		Assert.assertTrue(editLatency.path("count").asLong() > 0);
+		Assert.assertTrue(editLatency.path("p50_millis").asDouble() >= 1);
+		Assert.assertTrue(editLatency.path("histogram").size() > 0);
+		Assert.assertTrue(report.path("jvm").path("heap_high_water_mark_bytes").asLong() > 0);
+		Assert.assertTrue(report.path("jvm").path("peak_thread_count").asInt() > 0);
+	}
+}
@@ -0,0 +1,267 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import com.google.common.io.Resources;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
+
+/**
+ * @author tgaengler
+ */
+public class MediaWikiXMLDumpImportTargetTest {
+
+	/**
+	 * 23 properties + 1 item + 1 placeholder item (for the record type)
+	 */
+	private static final int EXPECTED_PAGE_COUNT = 25;
+
+	private static final String RESOURCE_URI_PREFIX = "http://data.slub-dresden.de/resources/";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void mediaWikiXMLDumpExportTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		final Path xmlDump = temporaryFolder.getRoot().toPath().resolve("dump.xml");
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+
+		try (final WikibaseImportTarget importTarget = new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping)) {
+
+			new WikidataDswarmImporter(importTarget).importGDMModel(resourceURL.getPath());
+		}
+
+		int pageCount = 0;
+		int itemPageCount = 0;
+
+		try (final InputStream dumpStream = Files.newInputStream(xmlDump)) {
+
+			final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(dumpStream);
+
+			while (reader.hasNext()) {
+
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && "title".equals(reader.getLocalName())) {
+
+					pageCount++;
+
+					if (reader.getElementText().startsWith(MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_NAME + ":Q")) {
+
+						itemPageCount++;
+					}
+				}
+			}
+		}
+
+		Assert.assertEquals(EXPECTED_PAGE_COUNT, pageCount);
+		Assert.assertEquals(2, itemPageCount);
+
+		final List<String> entityIdMappingLines = Files.readAllLines(entityIdMapping, StandardCharsets.UTF_8);
+
+		Assert.assertEquals(EXPECTED_PAGE_COUNT, entityIdMappingLines.size());
+	}
+
+	/**
+	 * a resource that is referenced (i.e. gets a placeholder item), before it is imported itself, is written as full item (incl. its
+	 * statements)
+	 */
+	@Test
+	public void placeholderItemReplacedByFullItemTest() throws Exception {
+
+		final String referencingResourceURI = "http://data.slub-dresden.de/records/a";
+		final String referencedResourceURI = "http://data.slub-dresden.de/records/b";
+		final String referencedResourceValue = "a value of the referenced resource";
+
+		final Path gdmModelFile = temporaryFolder.getRoot().toPath().resolve("model.gson");
+
+		Files.write(gdmModelFile, ("[{\"" + referencingResourceURI + "\":[{\"s\":{\"uri\":\"" + referencingResourceURI
+				+ "\"},\"p\":\"http://data.slub-dresden.de/resources/1/schema#reference\",\"o\":{\"uri\":\"" + referencedResourceURI + "\"}}]},"
+				+ "{\"" + referencedResourceURI + "\":[{\"s\":{\"uri\":\"" + referencedResourceURI
+				+ "\"},\"p\":\"http://data.slub-dresden.de/resources/1/schema#value\",\"o\":{\"v\":\"" + referencedResourceValue + "\"}}]}]")
+				.getBytes(StandardCharsets.UTF_8));
+
+		final Path xmlDump = temporaryFolder.getRoot().toPath().resolve("dump.xml");
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+
+		try (final WikibaseImportTarget importTarget = new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping)) {
+
+			new WikidataDswarmImporter(importTarget).importGDMModel(gdmModelFile.toString());
+		}
+
+		final List<String> referencedResourcePages = new ArrayList<>();
+
+		try (final InputStream dumpStream = Files.newInputStream(xmlDump)) {
+
+			final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(dumpStream);
+
+			while (reader.hasNext()) {
+
+				if (reader.next() == XMLStreamConstants.START_ELEMENT && "text".equals(reader.getLocalName())) {
+
+					final String pageText = reader.getElementText();
+
+					if (pageText.contains("\"" + referencedResourceURI + "\"")) {
+
+						referencedResourcePages.add(pageText);
+					}
+				}
+			}
+		}
+
+		Assert.assertEquals(1, referencedResourcePages.size());
+		Assert.assertTrue(referencedResourcePages.get(0).contains(referencedResourceValue));
+	}
+
+	/**
+	 * placeholder items are spilled (max. 1 pending placeholder item in memory); page ids are stable and revision ids continue over
+	 * consecutive dumps
+	 */
+	@Test
+	public void consecutiveDumpsTest() throws Exception {
+
+		final Path entityIdMapping = temporaryFolder.getRoot().toPath().resolve("entity-id-mapping.tsv");
+		final Path xmlDump1 = temporaryFolder.getRoot().toPath().resolve("dump1.xml");
+		final Path xmlDump2 = temporaryFolder.getRoot().toPath().resolve("dump2.xml");
+
+		final ItemDocument item = Datamodel.makeItemDocument(null, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyMap());
+
+		try (final WikibaseImportTarget importTarget = createImportTarget(xmlDump1, entityIdMapping)) {
+
+			Assert.assertEquals("Q1", importTarget.createPlaceholderItem(RESOURCE_URI_PREFIX + "a", item).getId());
+			// spills the placeholder item of 'a'
+			Assert.assertEquals("Q2", importTarget.createPlaceholderItem(RESOURCE_URI_PREFIX + "b", item).getId());
+			Assert.assertEquals("Q1", importTarget.createItem(RESOURCE_URI_PREFIX + "a", item).getId());
+			Assert.assertEquals("Q3", importTarget.createItem(RESOURCE_URI_PREFIX + "c", item).getId());
+		}
+
+		try (final WikibaseImportTarget importTarget = createImportTarget(xmlDump2, entityIdMapping)) {
+
+			Assert.assertEquals("Q1", importTarget.createItem(RESOURCE_URI_PREFIX + "a", item).getId());
+			Assert.assertEquals("Q4", importTarget.createItem(RESOURCE_URI_PREFIX + "d", item).getId());
+		}
+
+		final Map<String, Long> pageIds = new HashMap<>();
+		final Set<Long> revisionIds = new HashSet<>();
+		int pageCount = 0;
+
+		for (final Path xmlDump : new Path[] { xmlDump1, xmlDump2 }) {
+
+			try (final InputStream dumpStream = Files.newInputStream(xmlDump)) {
+
+				final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(dumpStream);
+
+				String title = null;
+				boolean revision = false;
+
+				while (reader.hasNext()) {
+
+					if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+
+						continue;
+					}
+
+					switch (reader.getLocalName()) {
+
+						case "title":
+
+							title = reader.getElementText();
+							revision = false;
+							pageCount++;
+
+							break;
+						case "revision":
+
+							revision = true;
+
+							break;
+						case "id":
+
+							final long id = Long.parseLong(reader.getElementText());
+
+							if (revision) {
+
+								Assert.assertTrue(String.format("revision id '%d' is not unique", id), revisionIds.add(id));
+							} else {
+
+								final Long previousPageId = pageIds.putIfAbsent(title, id);
+
+								Assert.assertTrue(previousPageId == null || previousPageId == id);
+							}
+
+							break;
+					}
+				}
+			}
+		}
+
+		// 'a' is written once per dump (no placeholder page), 'b' as placeholder item
+		Assert.assertEquals(5, pageCount);
+		Assert.assertEquals(4, pageIds.size());
+		Assert.assertEquals(5, revisionIds.size());
+		Assert.assertEquals(Long.valueOf(2), pageIds.get(MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_NAME + ":Q1"));
+
+		// no spill files are left
+		try (final DirectoryStream<Path> files = Files.newDirectoryStream(temporaryFolder.getRoot().toPath())) {
+
+			int fileCount = 0;
+
+			for (final Path ignored : files) {
+
+				fileCount++;
+			}
+
+			// dumps + entity id mapping + revision id
+			Assert.assertEquals(4, fileCount);
+		}
+	}
+
+	private static WikibaseImportTarget createImportTarget(final Path xmlDump, final Path entityIdMapping) throws Exception {
+
+		return new MediaWikiXMLDumpImportTarget(xmlDump, entityIdMapping, MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_NAME,
+				MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_ID, MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_NAME,
+				MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_ID, MediaWikiXMLDumpImportTarget.DEFAULT_CONTRIBUTOR, Instant.now(), 1);
+	}
+}
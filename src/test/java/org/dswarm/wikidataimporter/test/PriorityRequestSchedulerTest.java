@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.PriorityRequestScheduler;
+import org.dswarm.wikidataimporter.RequestPriority;
+
+/**
+ * @author tgaengler
+ */
+public class PriorityRequestSchedulerTest {
+
+	@Test
+	public void priorityLanesTest() throws InterruptedException {
+
+		final List<RequestPriority> executionOrder = new CopyOnWriteArrayList<>();
+
+		try (final PriorityRequestScheduler scheduler = new PriorityRequestScheduler(1)) {
+
+			final CountDownLatch blocker = block(scheduler);
+			final CountDownLatch done = new CountDownLatch(6);
+
+			for (final RequestPriority priority : Arrays.asList(RequestPriority.ITEM_EDIT, RequestPriority.ITEM_EDIT,
+					RequestPriority.PLACEHOLDER_ITEM, RequestPriority.PROPERTY_CREATE, RequestPriority.WARM_UP, RequestPriority.SESSION)) {
+
+				scheduler.executor(priority).execute(() -> {
+
+					executionOrder.add(priority);
+					done.countDown();
+				});
+			}
+
+			Assert.assertEquals(6, scheduler.getQueuedRequestCount());
+
+			blocker.countDown();
+
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+
+		Assert.assertEquals(Arrays.asList(RequestPriority.SESSION, RequestPriority.WARM_UP, RequestPriority.PROPERTY_CREATE,
+				RequestPriority.PLACEHOLDER_ITEM, RequestPriority.ITEM_EDIT, RequestPriority.ITEM_EDIT), executionOrder);
+	}
+
+	@Test
+	public void starvationProtectionTest() throws InterruptedException {
+
+		final List<RequestPriority> executionOrder = new CopyOnWriteArrayList<>();
+
+		try (final PriorityRequestScheduler scheduler = new PriorityRequestScheduler(1, 10)) {
+
+			final CountDownLatch blocker = block(scheduler);
+			final CountDownLatch done = new CountDownLatch(2);
+
+			scheduler.submit(RequestPriority.ITEM_EDIT, () -> {
+
+				executionOrder.add(RequestPriority.ITEM_EDIT);
+				done.countDown();
+			});
+
+			// the waiting item edit is older than 4 aging steps, i.e., it overtakes the later session request
+			Thread.sleep(100);
+
+			scheduler.submit(RequestPriority.SESSION, () -> {
+
+				executionOrder.add(RequestPriority.SESSION);
+				done.countDown();
+			});
+
+			blocker.countDown();
+
+			Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+
+		Assert.assertEquals(Arrays.asList(RequestPriority.ITEM_EDIT, RequestPriority.SESSION), executionOrder);
+	}
+
+	/**
+	 * occupies the only request thread of the given scheduler until the returned latch is released
+	 */
+	private static CountDownLatch block(final PriorityRequestScheduler scheduler) throws InterruptedException {
+
+		final CountDownLatch blocker = new CountDownLatch(1);
+		final CountDownLatch started = new CountDownLatch(1);
+
+		scheduler.submit(RequestPriority.SESSION, () -> {
+
+			started.countDown();
+
+			try {
+
+				blocker.await();
+			} catch (final InterruptedException e) {
+
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		return blocker;
+	}
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.GDMModelReader;
+import org.dswarm.wikidataimporter.ImportMetrics;
+import org.dswarm.wikidataimporter.ImportProgress;
+import org.dswarm.wikidataimporter.ProgressReporter;
+
+/**
+ * @author tgaengler
+ */
+public class ProgressReporterTest {
+
+	private static final String GDM_MODEL_FILE = "lic_dmp_01_v1.csv.gson";
+
+	@Test
+	public void completionTest() throws InterruptedException {
+
+		final ImportProgress importProgress = new ImportProgress();
+
+		Assert.assertEquals(-1.0, importProgress.getCompletion(), 0.0);
+		Assert.assertEquals(-1, importProgress.getEstimatedRemainingMillis());
+
+		importProgress.start();
+		importProgress.setInputSize(1000);
+		importProgress.inputRead(250);
+
+		Assert.assertEquals(0.25, importProgress.getCompletion(), 0.0);
+
+		// note: a known total number of resources takes precedence over the read position
+		importProgress.setTotalResources(8);
+
+		for (int i = 0; i < 4; i++) {
+
+			importProgress.resourceScanned();
+		}
+
+		Assert.assertEquals(0.5, importProgress.getCompletion(), 0.0);
+
+		Thread.sleep(20);
+
+		final long remainingMillis = importProgress.getEstimatedRemainingMillis();
+
+		Assert.assertTrue(remainingMillis >= 0 && remainingMillis <= importProgress.getElapsedMillis());
+
+		importProgress.finish();
+
+		Assert.assertEquals(1.0, importProgress.getCompletion(), 0.0);
+		Assert.assertEquals(0, importProgress.getEstimatedRemainingMillis());
+	}
+
+	@Test
+	public void reportTest() {
+
+		final ImportProgress importProgress = new ImportProgress();
+
+		importProgress.start();
+		importProgress.setTotalResources(4);
+
+		// note: no periodic reports, i.e., only the explicit ones
+		try (final ImportMetrics metrics = new ImportMetrics("progress-reporter-test");
+				final ProgressReporter progressReporter = new ProgressReporter("test-model", importProgress, Collections.singleton(metrics), 0)) {
+
+			importProgress.resourceScanned();
+			importProgress.resourceRead();
+			importProgress.resourceImported();
+			metrics.itemCreated();
+			metrics.requestFinished("wbeditentity", metrics.requestStarted(), true);
+			metrics.requestFinished("wbeditentity", metrics.requestStarted(), false);
+
+			final String progress = progressReporter.report();
+
+			Assert.assertTrue(progress, progress.contains("'1' read + '1' imported + '0' failed resources"));
+			Assert.assertTrue(progress, progress.contains("'50.00' % failed requests"));
+			Assert.assertTrue(progress, progress.contains("'0' requests in flight"));
+			Assert.assertTrue(progress, progress.contains("'25.0 %' done"));
+			Assert.assertFalse(progress, progress.contains("ETA '?'"));
+
+			// note: the rates + failed request share refer to the period since the last report
+			final String nextProgress = progressReporter.report();
+
+			Assert.assertTrue(nextProgress, nextProgress.contains("'0.0' resources/s"));
+			Assert.assertTrue(nextProgress, nextProgress.contains("'0.00' % failed requests"));
+		}
+	}
+
+	@Test
+	public void readPositionTest() throws Exception {
+
+		final URL gdmModelURL = ProgressReporterTest.class.getClassLoader().getResource(GDM_MODEL_FILE);
+		final Path gdmModelFile = Paths.get(gdmModelURL.toURI());
+
+		final ImportProgress importProgress = new ImportProgress();
+		final AtomicLong resourceCount = new AtomicLong();
+
+		new GDMModelReader(1, 0, GDMModelReader.ParserType.STREAMING).readRecords(gdmModelFile.toString(), importProgress).toBlocking()
+				.forEach(resourceRecord -> {
+
+					importProgress.resourceScanned();
+					resourceCount.incrementAndGet();
+				});
+
+		Assert.assertTrue(resourceCount.get() > 0);
+		Assert.assertEquals(resourceCount.get(), importProgress.getScannedResources());
+
+		// note: the sequentially parsed GDM model file is completely read, i.e., the completion is estimated from the read position
+		Assert.assertEquals(1.0, importProgress.getCompletion(), 0.0);
+	}
+}
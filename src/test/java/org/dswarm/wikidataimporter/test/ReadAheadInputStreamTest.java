@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.ReadAheadInputStream;
+
+/**
+ * @author tgaengler
+ */
+public class ReadAheadInputStreamTest {
+
+	private static final int BUFFER_SIZE  = 1024;
+	private static final int BUFFER_COUNT = 2;
+
+	/**
+	 * the read-ahead buffers are filled completely, even if the source returns only a few bytes at once
+	 */
+	@Test
+	public void chunkingTest() throws Exception {
+
+		final byte[] bytes = new byte[10 * BUFFER_SIZE + 17];
+
+		new Random(42).nextBytes(bytes);
+
+		final ByteArrayOutputStream readBytes = new ByteArrayOutputStream();
+
+		int maxReadLength = 0;
+
+		try (final InputStream stream = new ReadAheadInputStream(new TestSource(bytes, 7, -1), BUFFER_SIZE, BUFFER_COUNT)) {
+
+			// single byte reads + bulk reads can be mixed
+			readBytes.write(stream.read());
+
+			final byte[] buffer = new byte[3 * BUFFER_SIZE];
+
+			int read;
+
+			while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+
+				readBytes.write(buffer, 0, read);
+
+				maxReadLength = Math.max(maxReadLength, read);
+			}
+
+			Assert.assertEquals(-1, stream.read());
+		}
+
+		Assert.assertArrayEquals(bytes, readBytes.toByteArray());
+
+		// a read doesn't span chunks
+		Assert.assertEquals(BUFFER_SIZE, maxReadLength);
+	}
+
+	/**
+	 * a failure of the source stream (on the read-ahead thread) is thrown at the consumer, after the data that was read before
+	 */
+	@Test
+	public void errorPropagationTest() throws Exception {
+
+		final byte[] bytes = new byte[3 * BUFFER_SIZE];
+
+		long readLength = 0;
+
+		try (final InputStream stream = new ReadAheadInputStream(new TestSource(bytes, BUFFER_SIZE, bytes.length), BUFFER_SIZE, BUFFER_COUNT)) {
+
+			final byte[] buffer = new byte[BUFFER_SIZE];
+
+			try {
+
+				int read;
+
+				while ((read = stream.read(buffer, 0, buffer.length)) != -1) {
+
+					readLength += read;
+				}
+
+				Assert.fail("the failure of the source stream should be propagated");
+			} catch (final IOException e) {
+
+				Assert.assertNotNull(e.getCause());
+				Assert.assertEquals(TestSource.FAILURE_MESSAGE, e.getCause().getMessage());
+			}
+		}
+
+		Assert.assertEquals(bytes.length, readLength);
+	}
+
+	/**
+	 * closing the stream stops the read-ahead thread, although it is blocked (all buffers are filled)
+	 */
+	@Test
+	public void closeWhileProducerBlockedTest() throws Exception {
+
+		// an endless source
+		final TestSource source = new TestSource(null, BUFFER_SIZE, -1);
+		final InputStream stream = new ReadAheadInputStream(source, BUFFER_SIZE, BUFFER_COUNT);
+
+		Assert.assertNotEquals(-1, stream.read());
+
+		// the read-ahead thread fills all buffers and blocks then
+		Assert.assertTrue(source.blocked.await(10, TimeUnit.SECONDS));
+
+		stream.close();
+
+		source.readerThread.join(TimeUnit.SECONDS.toMillis(10));
+
+		Assert.assertFalse(source.readerThread.isAlive());
+		Assert.assertTrue(source.closed);
+
+		try {
+
+			stream.read();
+
+			Assert.fail("a closed stream shouldn't be readable");
+		} catch (final IOException e) {
+
+			// expected
+		}
+
+		// a second close is a no-op
+		stream.close();
+	}
+
+	/**
+	 * a source that returns at most the given number of bytes per read and fails at the given position (or -1)
+	 */
+	private static final class TestSource extends InputStream {
+
+		private static final String FAILURE_MESSAGE = "source failure";
+
+		private final byte[] bytes;
+		private final int    maxReadLength;
+		private final long   failurePosition;
+
+		private final CountDownLatch blocked = new CountDownLatch(1);
+
+		private long position;
+		private int  reads;
+
+		private volatile Thread  readerThread;
+		private volatile boolean closed;
+
+		private TestSource(final byte[] bytes, final int maxReadLength, final long failurePosition) {
+
+			this.bytes = bytes;
+			this.maxReadLength = maxReadLength;
+			this.failurePosition = failurePosition;
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			final byte[] singleByte = new byte[1];
+
+			return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+
+			readerThread = Thread.currentThread();
+
+			if (position == failurePosition) {
+
+				throw new IOException(FAILURE_MESSAGE);
+			}
+
+			// the consumer took one chunk, i.e., the read-ahead thread blocks after this read (all buffers are filled)
+			if (++reads >= BUFFER_COUNT + 2) {
+
+				blocked.countDown();
+			}
+
+			if (bytes == null) {
+
+				position += Math.min(length, maxReadLength);
+
+				return Math.min(length, maxReadLength);
+			}
+
+			if (position >= bytes.length) {
+
+				return -1;
+			}
+
+			final int readLength = (int) Math.min(Math.min(length, maxReadLength), bytes.length - position);
+
+			System.arraycopy(bytes, (int) position, buffer, offset, readLength);
+
+			position += readLength;
+
+			return readLength;
+		}
+
+		@Override
+		public void close() {
+
+			closed = true;
+		}
+	}
+}
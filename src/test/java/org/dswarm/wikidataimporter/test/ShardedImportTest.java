@@ -0,0 +1,391 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+
+import org.dswarm.wikidataimporter.CoordinatedImportTarget;
+import org.dswarm.wikidataimporter.EntityIdMapping;
+import org.dswarm.wikidataimporter.FileLockEntityIdCoordinator;
+import org.dswarm.wikidataimporter.ImportMetrics;
+import org.dswarm.wikidataimporter.ResourceShard;
+import org.dswarm.wikidataimporter.ShardProgress;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataImporterException;
+
+/**
+ * @author tgaengler
+ */
+public class ShardedImportTest {
+
+	private static final String RESOURCE_URI_PREFIX = "http://data.slub-dresden.de/resources/";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void resourceShardTest() throws WikidataImporterException {
+
+		final int shardCount = 4;
+
+		final List<ResourceShard> shards = new ArrayList<>();
+
+		for (int i = 0; i < shardCount; i++) {
+
+			shards.add(ResourceShard.parse(i + "/" + shardCount));
+		}
+
+		final int[] shardSizes = new int[shardCount];
+
+		for (int i = 0; i < 10000; i++) {
+
+			final String resourceURI = RESOURCE_URI_PREFIX + i;
+
+			int containingShards = 0;
+
+			for (final ResourceShard shard : shards) {
+
+				if (shard.contains(resourceURI)) {
+
+					containingShards++;
+					shardSizes[shard.getIndex()]++;
+				}
+			}
+
+			Assert.assertEquals(1, containingShards);
+			Assert.assertTrue(ResourceShard.ALL.contains(resourceURI));
+		}
+
+		for (final int shardSize : shardSizes) {
+
+			Assert.assertTrue(shardSize > 2000);
+		}
+
+		Assert.assertEquals(new ResourceShard(1, 4), ResourceShard.parse(" 1 / 4"));
+		Assert.assertEquals("shard-1-of-4", ResourceShard.parse("1/4").getFileNamePart());
+
+		for (final String invalidShard : new String[] { "4/4", "-1/4", "1/0", "1", "a/b" }) {
+
+			try {
+
+				ResourceShard.parse(invalidShard);
+
+				Assert.fail(String.format("'%s' should be an invalid shard", invalidShard));
+			} catch (final WikidataImporterException e) {
+
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void fileLockEntityIdCoordinatorTest() throws Exception {
+
+		final Path registryFile = temporaryFolder.getRoot().toPath().resolve("target.entity-ids.tsv");
+
+		final int uriCount = 200;
+
+		final AtomicInteger entityIdCounter = new AtomicInteger();
+		final Map<String, String> entityIds = new ConcurrentHashMap<>();
+
+		// two coordinators on the same registry, i.e., two "processes" with several threads, that try to create the same entities
+		try (final FileLockEntityIdCoordinator coordinator1 = new FileLockEntityIdCoordinator(registryFile);
+				final FileLockEntityIdCoordinator coordinator2 = new FileLockEntityIdCoordinator(registryFile)) {
+
+			final ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+			final List<Future<?>> futures = new ArrayList<>();
+
+			for (int thread = 0; thread < 8; thread++) {
+
+				final FileLockEntityIdCoordinator coordinator = thread % 2 == 0 ? coordinator1 : coordinator2;
+
+				futures.add(executorService.submit(() -> {
+
+					for (int i = 0; i < uriCount; i++) {
+
+						final String uri = RESOURCE_URI_PREFIX + i;
+
+						final String entityId = coordinator.getOrCreateEntityId(uri, EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX,
+								() -> EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + entityIdCounter.incrementAndGet());
+
+						final String previousEntityId = entityIds.putIfAbsent(uri, entityId);
+
+						Assert.assertTrue(previousEntityId == null || previousEntityId.equals(entityId));
+					}
+
+					return null;
+				}));
+			}
+
+			for (final Future<?> future : futures) {
+
+				future.get();
+			}
+
+			executorService.shutdown();
+
+			Assert.assertEquals(uriCount, entityIdCounter.get());
+			Assert.assertEquals(uriCount, coordinator1.getCreatedEntityCount() + coordinator2.getCreatedEntityCount());
+
+			// properties have their own namespace
+			Assert.assertEquals("P1", coordinator1.getOrCreateEntityId(RESOURCE_URI_PREFIX + 0, EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX,
+					() -> "P1"));
+		}
+
+		// simulate a crashed process (incomplete last line)
+		Files.write(registryFile, (RESOURCE_URI_PREFIX + "crashed\tQ12").getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+		try (final FileLockEntityIdCoordinator coordinator = new FileLockEntityIdCoordinator(registryFile)) {
+
+			for (final Map.Entry<String, String> entityIdEntry : entityIds.entrySet()) {
+
+				Assert.assertEquals(entityIdEntry.getValue(),
+						coordinator.getOrCreateEntityId(entityIdEntry.getKey(), EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX, () -> {
+
+							throw new WikidataImporterException("entity shouldn't be created again");
+						}));
+			}
+
+			Assert.assertEquals("Q1000", coordinator.getOrCreateEntityId(RESOURCE_URI_PREFIX + "crashed", EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX,
+					() -> "Q1000"));
+		}
+
+		final List<String> lines = Files.readAllLines(registryFile, StandardCharsets.UTF_8);
+
+		Assert.assertEquals(uriCount + 2, lines.size());
+		Assert.assertEquals(RESOURCE_URI_PREFIX + "crashed\tQ1000", lines.get(lines.size() - 1));
+	}
+
+	/**
+	 * shard A references a resource of shard B (i.e. creates its placeholder item), B's full item completes the placeholder item
+	 */
+	@Test
+	public void crossShardPlaceholderItemTest() throws Exception {
+
+		final Path registryFile = temporaryFolder.getRoot().toPath().resolve("target.entity-ids.tsv");
+
+		final String resourceURI = RESOURCE_URI_PREFIX + "b";
+
+		final RecordingImportTarget importTargetA = new RecordingImportTarget();
+		final RecordingImportTarget importTargetB = new RecordingImportTarget();
+
+		try (final CoordinatedImportTarget shardA = new CoordinatedImportTarget(importTargetA, new FileLockEntityIdCoordinator(registryFile));
+				final CoordinatedImportTarget shardB = new CoordinatedImportTarget(importTargetB, new FileLockEntityIdCoordinator(registryFile))) {
+
+			final ItemDocument placeholderItem = Datamodel.makeItemDocument(null, Collections.emptyList(), Collections.emptyList(),
+					Collections.emptyList(), Collections.emptyList(), Collections.emptyMap());
+
+			final ItemIdValue placeholderItemId = shardA.createPlaceholderItem(resourceURI, placeholderItem);
+
+			final ItemDocument fullItem = fullItem();
+
+			final ItemIdValue itemId = shardB.createItem(resourceURI, fullItem);
+
+			Assert.assertEquals(placeholderItemId.getId(), itemId.getId());
+			Assert.assertEquals(1, importTargetA.createdItems.get());
+			Assert.assertEquals(0, importTargetB.createdItems.get());
+
+			// B's statements arrive at the existing item (merged into the placeholder item)
+			Assert.assertSame(fullItem, importTargetB.updatedItems.get(placeholderItemId.getId()));
+			Assert.assertTrue(importTargetB.mergedItems.contains(placeholderItemId.getId()));
+		}
+
+		// a restarted shard B (e.g. a re-run) replaces its full item, i.e., its statements aren't merged (+ duplicated) again
+		final RecordingImportTarget restartedImportTargetB = new RecordingImportTarget();
+
+		try (final CoordinatedImportTarget restartedShardB = new CoordinatedImportTarget(restartedImportTargetB,
+				new FileLockEntityIdCoordinator(registryFile))) {
+
+			final ItemIdValue itemId = restartedShardB.createItem(resourceURI, fullItem());
+
+			Assert.assertEquals(0, restartedImportTargetB.createdItems.get());
+			Assert.assertTrue(restartedImportTargetB.updatedItems.containsKey(itemId.getId()));
+			Assert.assertTrue(restartedImportTargetB.mergedItems.isEmpty());
+		}
+	}
+
+	/**
+	 * a placeholder item, whose completion was interrupted (i.e. the item was registered as full item already), is replaced by its full item
+	 */
+	@Test
+	public void placeholderItemRegistryTest() throws Exception {
+
+		final Path registryFile = temporaryFolder.getRoot().toPath().resolve("target.entity-ids.tsv");
+
+		final String resourceURI = RESOURCE_URI_PREFIX + "c";
+
+		try (final FileLockEntityIdCoordinator coordinator = new FileLockEntityIdCoordinator(registryFile)) {
+
+			Assert.assertEquals("Q1", coordinator.getOrCreatePlaceholderItemId(resourceURI, () -> "Q1"));
+			Assert.assertEquals("Q2", coordinator.getOrCreateEntityId(RESOURCE_URI_PREFIX + "d", EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX,
+					() -> "Q2"));
+			Assert.assertFalse(coordinator.completeItem(RESOURCE_URI_PREFIX + "d"));
+		}
+
+		try (final FileLockEntityIdCoordinator coordinator = new FileLockEntityIdCoordinator(registryFile)) {
+
+			// the placeholder item is completed exactly once
+			Assert.assertTrue(coordinator.completeItem(resourceURI));
+			Assert.assertFalse(coordinator.completeItem(resourceURI));
+		}
+
+		try (final FileLockEntityIdCoordinator coordinator = new FileLockEntityIdCoordinator(registryFile)) {
+
+			Assert.assertFalse(coordinator.completeItem(resourceURI));
+			Assert.assertEquals("Q1", coordinator.getOrCreatePlaceholderItemId(resourceURI, () -> {
+
+				throw new WikidataImporterException("item shouldn't be created again");
+			}));
+		}
+
+		Assert.assertEquals(Arrays.asList(resourceURI + "\tQ1\t" + FileLockEntityIdCoordinator.PLACEHOLDER_ITEM_MARKER,
+				RESOURCE_URI_PREFIX + "d\tQ2", resourceURI + "\tQ1"), Files.readAllLines(registryFile, StandardCharsets.UTF_8));
+	}
+
+	private static ItemDocument fullItem() {
+
+		final Statement statement = Datamodel.makeStatement(
+				Datamodel.makeClaim(null, Datamodel.makeValueSnak(Datamodel.makePropertyIdValue("P1", null), Datamodel.makeStringValue("b")),
+						Collections.emptyList()), Collections.emptyList(), StatementRank.NORMAL, "");
+
+		return Datamodel.makeItemDocument(null, Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+				Collections.singletonList(Datamodel.makeStatementGroup(Collections.singletonList(statement))), Collections.emptyMap());
+	}
+
+	@Test
+	public void shardProgressTest() throws Exception {
+
+		final Path coordinationDirectory = temporaryFolder.getRoot().toPath();
+
+		final ShardProgress shardProgress0 = new ShardProgress(new ResourceShard(0, 2), coordinationDirectory);
+		final ShardProgress shardProgress1 = new ShardProgress(new ResourceShard(1, 2), coordinationDirectory);
+
+		for (int i = 0; i < 3; i++) {
+
+			shardProgress0.shardResourceRead();
+			shardProgress1.otherResourceRead();
+		}
+
+		shardProgress1.shardResourceRead();
+		shardProgress0.otherResourceRead();
+
+		shardProgress0.modelImported();
+		shardProgress1.modelImported();
+
+		final List<ShardProgress.Snapshot> snapshots = ShardProgress.read(coordinationDirectory);
+
+		Assert.assertEquals(2, snapshots.size());
+		Assert.assertEquals("0/2", snapshots.get(0).getShard());
+		Assert.assertEquals(3, snapshots.get(0).getShardResources());
+		Assert.assertEquals(1, snapshots.get(0).getSkippedResources());
+		Assert.assertEquals(ShardProgress.STATE_RUNNING, ShardProgress.aggregate(coordinationDirectory).getState());
+
+		shardProgress0.finish();
+		shardProgress1.finish();
+
+		final ShardProgress.Snapshot aggregatedProgress = ShardProgress.aggregate(coordinationDirectory);
+
+		Assert.assertEquals(ShardProgress.STATE_FINISHED, aggregatedProgress.getState());
+		Assert.assertEquals(4, aggregatedProgress.getShardResources());
+		Assert.assertEquals(2, aggregatedProgress.getImportedModels());
+	}
+
+	/**
+	 * records the created + updated (+ merged) items (the item ids are unique over all instances, like the ids of a shared Wikibase)
+	 */
+	private static final class RecordingImportTarget implements WikibaseImportTarget {
+
+		private static final AtomicInteger ENTITY_ID_COUNTER = new AtomicInteger();
+
+		private final AtomicInteger             createdItems = new AtomicInteger();
+		private final Map<String, ItemDocument> updatedItems = new ConcurrentHashMap<>();
+		private final Set<String>               mergedItems  = ConcurrentHashMap.newKeySet();
+		private final ImportMetrics             metrics      = new ImportMetrics("recording");
+
+		@Override
+		public PropertyIdValue createProperty(final String propertyIdentifier, final PropertyDocument wikidataProperty) {
+
+			return Datamodel.makePropertyIdValue(EntityIdMapping.MEDIAWIKI_PROPERTY_ID_PREFIX + ENTITY_ID_COUNTER.incrementAndGet(), null);
+		}
+
+		@Override
+		public ItemIdValue createPlaceholderItem(final String resourceURI, final ItemDocument wikidataItem) {
+
+			return createItem(resourceURI, wikidataItem);
+		}
+
+		@Override
+		public ItemIdValue createItem(final String resourceURI, final ItemDocument wikidataItem) {
+
+			createdItems.incrementAndGet();
+
+			return Datamodel.makeItemIdValue(EntityIdMapping.MEDIAWIKI_ITEM_ID_PREFIX + ENTITY_ID_COUNTER.incrementAndGet(), null);
+		}
+
+		@Override
+		public ItemIdValue updateItem(final String resourceURI, final ItemIdValue itemId, final ItemDocument wikidataItem,
+				final boolean placeholder) {
+
+			updatedItems.put(itemId.getId(), wikidataItem);
+
+			if (placeholder) {
+
+				mergedItems.add(itemId.getId());
+			}
+
+			return itemId;
+		}
+
+		@Override
+		public ImportMetrics getMetrics() {
+
+			return metrics;
+		}
+
+		@Override
+		public void close() {
+
+			metrics.close();
+		}
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates synthetic GDM models of a given shape for load tests (see {@link LoadTestHarness}). Every resource has a record type statement,
+ * a number of statements that refer to other (shared) resources, e.g., authority records (→ placeholder items + entity id cache hits), and
+ * literal statements of a given size. Every statement has a statement uuid and an order. The model is written in a streaming fashion, i.e.,
+ * arbitrary large models can be generated.
+ *
+ * @author tgaengler
+ */
+public class SyntheticGDMModel {
+
+	private static final String RDF_TYPE                        = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+	private static final String RECORD_TYPE                     = "http://data.slub-dresden.de/resources/1/schema#RecordType";
+	private static final String PREDICATE_NAMESPACE             = "http://data.slub-dresden.de/resources/1/schema#loadtest";
+	private static final String RESOURCE_URI_PATTERN            = "http://data.slub-dresden.de/datamodels/loadtest/records/%08x-0000-4000-8000-%012x";
+	private static final String REFERENCED_RESOURCE_URI_PATTERN = "http://data.slub-dresden.de/resources/loadtest/authorities/%d";
+	private static final String FILLER                          = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod. ";
+
+	private final int resourceCount;
+	private final int statementsPerResource;
+
+	private int  referenceFanOut;
+	private int  literalSize             = 32;
+	private int  predicateCount          = 50;
+	private int  referencedResourceCount = -1;
+	private long seed                    = 42;
+
+	/**
+	 * @param resourceCount         the number of resources
+	 * @param statementsPerResource the number of statements per resource (incl. the record type statement)
+	 */
+	public SyntheticGDMModel(final int resourceCount, final int statementsPerResource) {
+
+		this.resourceCount = resourceCount;
+		this.statementsPerResource = Math.max(1, statementsPerResource);
+	}
+
+	/**
+	 * @param referenceFanOut the number of statements per resource that refer to other resources
+	 */
+	public SyntheticGDMModel withReferenceFanOut(final int referenceFanOut) {
+
+		this.referenceFanOut = Math.max(0, Math.min(referenceFanOut, statementsPerResource - 1));
+
+		return this;
+	}
+
+	/**
+	 * @param literalSize the size of the literal values (in characters)
+	 */
+	public SyntheticGDMModel withLiteralSize(final int literalSize) {
+
+		this.literalSize = Math.max(1, literalSize);
+
+		return this;
+	}
+
+	/**
+	 * @param predicateCount the number of distinct predicates (i.e. Wikibase properties)
+	 */
+	public SyntheticGDMModel withPredicateCount(final int predicateCount) {
+
+		this.predicateCount = Math.max(1, predicateCount);
+
+		return this;
+	}
+
+	/**
+	 * @param referencedResourceCount the number of distinct referenced resources (default: a tenth of the resources)
+	 */
+	public SyntheticGDMModel withReferencedResourceCount(final int referencedResourceCount) {
+
+		this.referencedResourceCount = Math.max(1, referencedResourceCount);
+
+		return this;
+	}
+
+	/**
+	 * @param seed the seed of the choice of the referenced resources
+	 */
+	public SyntheticGDMModel withSeed(final long seed) {
+
+		this.seed = seed;
+
+		return this;
+	}
+
+	public int getResourceCount() {
+
+		return resourceCount;
+	}
+
+	public int getStatementsPerResource() {
+
+		return statementsPerResource;
+	}
+
+	public int getReferenceFanOut() {
+
+		return referenceFanOut;
+	}
+
+	public int getLiteralSize() {
+
+		return literalSize;
+	}
+
+	public int getPredicateCount() {
+
+		return predicateCount;
+	}
+
+	public int getReferencedResourceCount() {
+
+		return referencedResourceCount > 0 ? referencedResourceCount : Math.max(1, resourceCount / 10);
+	}
+
+	public long getStatementCount() {
+
+		return (long) resourceCount * statementsPerResource;
+	}
+
+	/**
+	 * @param gdmModelFile the file of the GDM model
+	 * @return the file of the GDM model
+	 * @throws IOException
+	 */
+	public Path write(final Path gdmModelFile) throws IOException {
+
+		try (final BufferedWriter writer = Files.newBufferedWriter(gdmModelFile, StandardCharsets.UTF_8)) {
+
+			write(writer);
+		}
+
+		return gdmModelFile;
+	}
+
+	/**
+	 * @param writer the writer of the GDM model (will not be closed)
+	 * @throws IOException
+	 */
+	public void write(final Writer writer) throws IOException {
+
+		final Random random = new Random(seed);
+		final int referencedResources = getReferencedResourceCount();
+		final StringBuilder literal = new StringBuilder(literalSize);
+
+		writer.write('[');
+
+		for (int i = 0; i < resourceCount; i++) {
+
+			if (i > 0) {
+
+				writer.write(",\n");
+			}
+
+			final String resourceURI = resourceURI(i);
+
+			writer.write("{\"");
+			writer.write(resourceURI);
+			writer.write("\":[");
+
+			for (int j = 0; j < statementsPerResource; j++) {
+
+				if (j > 0) {
+
+					writer.write(',');
+				}
+
+				writer.write("{\"s\":{\"uri\":\"");
+				writer.write(resourceURI);
+				writer.write("\"},\"p\":\"");
+
+				if (j == 0) {
+
+					writer.write(RDF_TYPE);
+					writer.write("\",\"o\":{\"uri\":\"");
+					writer.write(RECORD_TYPE);
+					writer.write("\"}");
+				} else if (j <= referenceFanOut) {
+
+					writer.write(PREDICATE_NAMESPACE);
+					writer.write("Reference");
+					writer.write(Integer.toString(j % predicateCount));
+					writer.write("\",\"o\":{\"uri\":\"");
+					writer.write(String.format(REFERENCED_RESOURCE_URI_PATTERN, random.nextInt(referencedResources)));
+					writer.write("\"}");
+				} else {
+
+					writer.write(PREDICATE_NAMESPACE);
+					writer.write("Literal");
+					writer.write(Integer.toString(j % predicateCount));
+					writer.write("\",\"o\":{\"v\":\"");
+					writer.append(literal(literal, i, j));
+					writer.write("\"}");
+				}
+
+				writer.write(",\"uuid\":\"");
+				writer.write(String.format("%08x-%04x-4000-8000-%012x", i, j & 0xFFFF, (long) i * statementsPerResource + j));
+				writer.write("\",\"order\":");
+				writer.write(Integer.toString(j + 1));
+				writer.write('}');
+			}
+
+			writer.write("]}");
+		}
+
+		writer.write(']');
+	}
+
+	/**
+	 * @param i the number of the resource
+	 * @return the URI of the resource
+	 */
+	public static String resourceURI(final int i) {
+
+		return String.format(RESOURCE_URI_PATTERN, i, (long) i);
+	}
+
+	private StringBuilder literal(final StringBuilder literal, final int i, final int j) {
+
+		literal.setLength(0);
+		literal.append(i).append('-').append(j).append(' ');
+
+		while (literal.length() < literalSize) {
+
+			literal.append(FILLER, 0, Math.min(FILLER.length(), literalSize - literal.length()));
+		}
+
+		literal.setLength(literalSize);
+
+		return literal;
+	}
+}
@@ -0,0 +1,946 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.dswarm.wikidataimporter.LatencyHistogram;
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+import org.dswarm.wikidataimporter.WikibaseAPIClient;
+import org.dswarm.wikidataimporter.WikibaseAPIImportTarget;
+import org.dswarm.wikidataimporter.WikibaseTargetConfiguration;
+
+/**
+ * An embedded, in-process stub of the Mediawiki/Wikibase API endpoints that are utilised by {@link WikibaseAPIClient}: login (+ login
+ * confirmation), edit token query, 'wbeditentity' (new items + properties with generated identifiers and label (+ description) conflicts
+ * that are shaped like the ones of Wikibase; updates of existing entities are merged or - with 'clear' - replaced), 'allpages' and
+ * 'wbgetentities' (for the cache warm-up). The parameters are read from multipart or url-encoded form bodies (or the query string).
+ * <p/>
+ * Latency (of all requests), server errors (HTTP 503), maxlag errors and rate limit errors (of the edit requests) can be injected, i.e.,
+ * throughput + resilience of the import can be tested and benchmarked offline. Note: real Wikibase instances only answer with a maxlag
+ * error, when the request carries a 'maxlag' parameter; the stub injects maxlag errors independent of this parameter.
+ *
+ * @author tgaengler
+ */
+public class WikibaseAPIStub implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WikibaseAPIStub.class);
+
+	public static final String API_PATH = "/w/api.php";
+
+	private static final String HOST                     = "localhost";
+	private static final String SESSION_COOKIE           = "wikidb_session";
+	private static final String USER_NAME_COOKIE         = "wikidbUserName";
+	private static final String USER_ID_COOKIE           = "wikidbUserID";
+	private static final String COOKIE_ATTRIBUTES        = "; path=/; HttpOnly";
+	private static final String JSON_CONTENT_TYPE        = "application/json; charset=utf-8";
+	private static final String MULTIPART_CONTENT_TYPE   = "multipart/form-data";
+	private static final String URL_ENCODED_CONTENT_TYPE = "application/x-www-form-urlencoded";
+	private static final String CONTENT_TYPE_HEADER      = "Content-Type";
+	private static final String SET_COOKIE_HEADER        = "Set-Cookie";
+	private static final String RETRY_AFTER_HEADER       = "Retry-After";
+	private static final String DATABASE_LAG_HEADER      = "X-Database-Lag";
+	private static final String ACTION_PARAMETER         = "action";
+
+	private static final String LOGIN_ACTION        = "login";
+	private static final String QUERY_ACTION        = "query";
+	private static final String EDIT_ENTITY_ACTION  = "wbeditentity";
+	private static final String GET_ENTITIES_ACTION = "wbgetentities";
+	private static final String ITEM_ID_PREFIX      = "Q";
+	private static final String PROPERTY_ID_PREFIX  = "P";
+	private static final int    ALLPAGES_MAX_LIMIT  = 500;
+
+	private static final String DSWARM_WIKIBASE_API_STUB_THREAD_NAMING_PATTERN = "dswarm-wikibase-api-stub-%d";
+
+	private static final Pattern BOUNDARY_PATTERN  = Pattern.compile("boundary=\"?([^\";]+)\"?");
+	private static final Pattern PART_NAME_PATTERN = Pattern.compile("name=\"([^\"]*)\"");
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final HttpServer      server;
+	private final ExecutorService executor;
+	private final Random          random;
+
+	private final String loginToken = randomToken();
+	private final String csrfToken  = randomToken() + "+\\";
+
+	/**
+	 * the created entities (id -> entity JSON) + the label (+ description) indices for the conflict detection
+	 */
+	private final NavigableMap<String, ObjectNode> items                 = new TreeMap<>();
+	private final NavigableMap<String, ObjectNode> properties            = new TreeMap<>();
+	private final Map<String, String>              propertyLabels        = new HashMap<>();
+	private final Map<String, String>              itemLabelDescriptions = new HashMap<>();
+
+	private final AtomicLong requests         = new AtomicLong();
+	private final AtomicLong editRequests     = new AtomicLong();
+	private final AtomicLong labelConflicts   = new AtomicLong();
+	private final AtomicLong injectedErrors   = new AtomicLong();
+	private final AtomicLong maxlagErrors     = new AtomicLong();
+	private final AtomicLong rateLimitedEdits = new AtomicLong();
+
+	private final LatencyHistogram editLatencies = new LatencyHistogram();
+
+	private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+	private volatile double              errorRate;
+	private volatile double              maxlagRate;
+	private volatile int                 lagSeconds = 5;
+	private volatile double              editsPerSecond;
+
+	private double editPermits;
+	private long   editPermitsRefillNanos = System.nanoTime();
+
+	/**
+	 * Starts the stub on a free local port (with a fixed seed of the injected latencies + errors).
+	 */
+	public WikibaseAPIStub() throws IOException {
+
+		this(0, 42);
+	}
+
+	/**
+	 * @param port the local port (or 0 for a free port)
+	 * @param seed the seed of the injected latencies + errors
+	 */
+	public WikibaseAPIStub(final int port, final long seed) throws IOException {
+
+		random = new Random(seed);
+		executor = Executors.newCachedThreadPool(
+				new BasicThreadFactory.Builder().daemon(true).namingPattern(DSWARM_WIKIBASE_API_STUB_THREAD_NAMING_PATTERN).build());
+
+		server = HttpServer.create(new InetSocketAddress(HOST, port), 0);
+		server.createContext(API_PATH, this::handle);
+		server.setExecutor(executor);
+		server.start();
+
+		LOG.debug("started Wikibase API stub @ '{}'", getApiEndpoint());
+	}
+
+	/**
+	 * @param latency the latency distribution of all requests
+	 */
+	public WikibaseAPIStub withLatency(final LatencyDistribution latency) {
+
+		this.latency = latency;
+
+		return this;
+	}
+
+	/**
+	 * @param errorRate the share of edit requests that fail with HTTP status 503
+	 */
+	public WikibaseAPIStub withErrorRate(final double errorRate) {
+
+		this.errorRate = errorRate;
+
+		return this;
+	}
+
+	/**
+	 * @param maxlagRate the share of edit requests that fail with a 'maxlag' error
+	 * @param lagSeconds the replication lag that is reported by a 'maxlag' error (+ its 'Retry-After' header)
+	 */
+	public WikibaseAPIStub withMaxlag(final double maxlagRate, final int lagSeconds) {
+
+		this.maxlagRate = maxlagRate;
+		this.lagSeconds = lagSeconds;
+
+		return this;
+	}
+
+	/**
+	 * @param editsPerSecond the maximum number of edits per second (with a burst of one second), further edits fail with a 'ratelimited'
+	 *                       error; 0 = unlimited
+	 */
+	public WikibaseAPIStub withEditRateLimit(final double editsPerSecond) {
+
+		synchronized (this) {
+
+			this.editsPerSecond = editsPerSecond;
+			editPermits = editsPerSecond;
+			editPermitsRefillNanos = System.nanoTime();
+		}
+
+		return this;
+	}
+
+	public String getApiEndpoint() {
+
+		return "http://" + HOST + ':' + server.getAddress().getPort() + API_PATH;
+	}
+
+	/**
+	 * @return a target configuration of this stub
+	 */
+	public WikibaseTargetConfiguration targetConfiguration(final String name, final int concurrency, final int bufferSize) {
+
+		return new WikibaseTargetConfiguration(name, getApiEndpoint(), "dswarm", "dswarm", concurrency, bufferSize);
+	}
+
+	public long getRequests() {
+
+		return requests.get();
+	}
+
+	public long getEditRequests() {
+
+		return editRequests.get();
+	}
+
+	public synchronized int getCreatedItems() {
+
+		return items.size();
+	}
+
+	public synchronized int getCreatedProperties() {
+
+		return properties.size();
+	}
+
+	/**
+	 * @return the number of statements of all items (e.g. to detect duplicated statements)
+	 */
+	public synchronized int getItemStatements() {
+
+		int itemStatements = 0;
+
+		for (final ObjectNode item : items.values()) {
+
+			for (final JsonNode propertyStatements : item.path("claims")) {
+
+				itemStatements += propertyStatements.size();
+			}
+		}
+
+		return itemStatements;
+	}
+
+	/**
+	 * @param label the (English) label of the item
+	 * @return a copy of the item with the given label, or null, if there is no such item
+	 */
+	public synchronized ObjectNode getItem(final String label) {
+
+		for (final ObjectNode item : items.values()) {
+
+			if (label.equals(item.path("labels").path("en").path("value").asText())) {
+
+				return item.deepCopy();
+			}
+		}
+
+		return null;
+	}
+
+	public long getLabelConflicts() {
+
+		return labelConflicts.get();
+	}
+
+	public long getInjectedErrors() {
+
+		return injectedErrors.get();
+	}
+
+	public long getMaxlagErrors() {
+
+		return maxlagErrors.get();
+	}
+
+	public long getRateLimitedEdits() {
+
+		return rateLimitedEdits.get();
+	}
+
+	/**
+	 * @return the latencies of the edit requests as observed by the stub, i.e., from the receipt of the request until the response was
+	 * sent (incl. the injected latency)
+	 */
+	public LatencyHistogram getEditLatencies() {
+
+		return editLatencies;
+	}
+
+	@Override
+	public void close() {
+
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(final HttpExchange exchange) throws IOException {
+
+		requests.incrementAndGet();
+
+		final long start = System.nanoTime();
+
+		String action = null;
+
+		try {
+
+			final Map<String, String> parameters = readParameters(exchange);
+
+			final long latencyMillis = latency.nextLatencyMillis(random);
+
+			if (latencyMillis > 0) {
+
+				TimeUnit.MILLISECONDS.sleep(latencyMillis);
+			}
+
+			action = parameters.get(ACTION_PARAMETER);
+
+			if (LOGIN_ACTION.equals(action)) {
+
+				login(exchange, parameters);
+			} else if (QUERY_ACTION.equals(action)) {
+
+				query(exchange, parameters);
+			} else if (EDIT_ENTITY_ACTION.equals(action)) {
+
+				editEntity(exchange, parameters);
+			} else if (GET_ENTITIES_ACTION.equals(action)) {
+
+				getEntities(exchange, parameters);
+			} else {
+
+				respond(exchange, error("unknown_action", String.format("Unrecognized value for parameter \"action\": %s.", action)));
+			}
+		} catch (final InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+		} catch (final IOException | RuntimeException e) {
+
+			LOG.error("something went wrong at Wikibase API stub request", e);
+
+			respond(exchange, 500, null);
+		} finally {
+
+			exchange.close();
+
+			if (EDIT_ENTITY_ACTION.equals(action)) {
+
+				editLatencies.record(System.nanoTime() - start);
+			}
+		}
+	}
+
+	private void login(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+
+		final ObjectNode loginJSON = MAPPER.createObjectNode();
+		final ObjectNode responseJSON = MAPPER.createObjectNode().set(LOGIN_ACTION, loginJSON);
+
+		loginJSON.put("cookieprefix", "wikidb");
+
+		final String token = parameters.get("lgtoken");
+
+		if (token == null) {
+
+			// 1. login request
+			final String sessionId = randomToken();
+
+			loginJSON.put("result", "NeedToken");
+			loginJSON.put("token", loginToken);
+			loginJSON.put("sessionid", sessionId);
+
+			exchange.getResponseHeaders().add(SET_COOKIE_HEADER, SESSION_COOKIE + '=' + sessionId + COOKIE_ATTRIBUTES);
+		} else if (loginToken.equals(token)) {
+
+			// 2. login confirmation
+			loginJSON.put("result", "Success");
+			loginJSON.put("lguserid", 1);
+			loginJSON.put("lgusername", "dswarm");
+
+			exchange.getResponseHeaders().add(SET_COOKIE_HEADER, USER_NAME_COOKIE + "=dswarm" + COOKIE_ATTRIBUTES);
+			exchange.getResponseHeaders().add(SET_COOKIE_HEADER, USER_ID_COOKIE + "=1" + COOKIE_ATTRIBUTES);
+		} else {
+
+			loginJSON.put("result", "WrongToken");
+		}
+
+		respond(exchange, responseJSON);
+	}
+
+	private void query(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+
+		if ("tokens".equals(parameters.get("meta"))) {
+
+			final ObjectNode responseJSON = MAPPER.createObjectNode().put("batchcomplete", "");
+
+			responseJSON.putObject(QUERY_ACTION).putObject("tokens").put("csrftoken", csrfToken);
+
+			respond(exchange, responseJSON);
+
+			return;
+		}
+
+		if ("allpages".equals(parameters.get("list"))) {
+
+			listPages(exchange, parameters);
+
+			return;
+		}
+
+		respond(exchange, error("badvalue", "Unsupported query."));
+	}
+
+	private void listPages(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+
+		final int namespace = Integer.parseInt(parameters.getOrDefault("apnamespace", "0"));
+		final String limitParameter = parameters.getOrDefault("aplimit", "10");
+		final int limit = "max".equals(limitParameter) ? ALLPAGES_MAX_LIMIT : Math.min(ALLPAGES_MAX_LIMIT, Integer.parseInt(limitParameter));
+		final String continueFrom = parameters.get("apcontinue");
+
+		final String namespaceName;
+		final NavigableMap<String, ObjectNode> entities;
+
+		if (namespace == MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_ID) {
+
+			namespaceName = MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_NAME;
+			entities = items;
+		} else if (namespace == MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_ID) {
+
+			namespaceName = MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_NAME;
+			entities = properties;
+		} else {
+
+			namespaceName = null;
+			entities = new TreeMap<>();
+		}
+
+		final ObjectNode responseJSON = MAPPER.createObjectNode();
+		final ArrayNode pagesJSON = responseJSON.putObject(QUERY_ACTION).putArray("allpages");
+
+		synchronized (this) {
+
+			final Iterator<String> entityIds = (continueFrom != null ? entities.tailMap(continueFrom, true) : entities).keySet().iterator();
+
+			while (entityIds.hasNext() && pagesJSON.size() < limit) {
+
+				final String entityId = entityIds.next();
+
+				pagesJSON.addObject().put("ns", namespace).put("title", namespaceName + ':' + entityId);
+			}
+
+			if (entityIds.hasNext()) {
+
+				responseJSON.putObject("continue").put("apcontinue", entityIds.next()).put("continue", "-||");
+			} else {
+
+				responseJSON.put("batchcomplete", "");
+			}
+		}
+
+		respond(exchange, responseJSON);
+	}
+
+	private void getEntities(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+
+		final String language = parameters.get("languages");
+
+		final ObjectNode responseJSON = MAPPER.createObjectNode();
+		final ObjectNode entitiesJSON = responseJSON.putObject("entities");
+
+		synchronized (this) {
+
+			for (final String entityId : parameters.getOrDefault("ids", "").split("\\|")) {
+
+				final ObjectNode entity = entityId.startsWith(PROPERTY_ID_PREFIX) ? properties.get(entityId) : items.get(entityId);
+
+				if (entity == null) {
+
+					entitiesJSON.putObject(entityId).put("id", entityId).put("missing", "");
+
+					continue;
+				}
+
+				final ObjectNode entityJSON = entitiesJSON.putObject(entityId).put("id", entityId).put("type", entity.path("type").asText());
+				final ObjectNode labelsJSON = entityJSON.putObject("labels");
+				final JsonNode labelJSON = entity.path("labels").path(language);
+
+				if (labelJSON.isObject()) {
+
+					labelsJSON.set(language, labelJSON);
+				}
+			}
+		}
+
+		responseJSON.put("success", 1);
+
+		respond(exchange, responseJSON);
+	}
+
+	private void editEntity(final HttpExchange exchange, final Map<String, String> parameters) throws IOException {
+
+		editRequests.incrementAndGet();
+
+		if (!csrfToken.equals(parameters.get("token"))) {
+
+			respond(exchange, error("badtoken", "Invalid CSRF token."));
+
+			return;
+		}
+
+		if (nextDouble() < errorRate) {
+
+			injectedErrors.incrementAndGet();
+
+			respond(exchange, 503, null);
+
+			return;
+		}
+
+		if (nextDouble() < maxlagRate) {
+
+			maxlagErrors.incrementAndGet();
+
+			final ObjectNode responseJSON = error("maxlag", String.format("Waiting for a database server: %d seconds lagged.", lagSeconds));
+
+			((ObjectNode) responseJSON.get("error")).put("host", "db1").put("lag", lagSeconds);
+
+			exchange.getResponseHeaders().add(RETRY_AFTER_HEADER, String.valueOf(lagSeconds));
+			exchange.getResponseHeaders().add(DATABASE_LAG_HEADER, String.valueOf(lagSeconds));
+
+			respond(exchange, responseJSON);
+
+			return;
+		}
+
+		if (!acquireEditPermit()) {
+
+			rateLimitedEdits.incrementAndGet();
+
+			respond(exchange, error("ratelimited", "As an anti-abuse measure, you are limited from performing this action too many times in a "
+					+ "short space of time, and you have exceeded this limit. Please try again in a few minutes."));
+
+			return;
+		}
+
+		final ObjectNode entity = (ObjectNode) MAPPER.readTree(parameters.getOrDefault("data", "{}"));
+		final String entityId = parameters.get("id");
+
+		if (entityId != null) {
+
+			respond(exchange, updateEntity(entityId, entity, parameters.containsKey("clear")));
+
+			return;
+		}
+
+		final String entityType = parameters.get("new");
+
+		if (!WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM.equals(entityType) && !WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY
+				.equals(entityType)) {
+
+			respond(exchange, error("param-illegal", "The stub can only create new items or properties or update existing entities."));
+
+			return;
+		}
+
+		respond(exchange, createEntity(entity, WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY.equals(entityType)));
+	}
+
+	private synchronized ObjectNode createEntity(final ObjectNode entity, final boolean property) {
+
+		final NavigableMap<String, ObjectNode> entities = property ? properties : items;
+		final Map<String, String> labelIndex = property ? propertyLabels : itemLabelDescriptions;
+
+		final ObjectNode labelConflict = findLabelConflict(entity, null, labelIndex, property);
+
+		if (labelConflict != null) {
+
+			return labelConflict;
+		}
+
+		final String entityId = (property ? PROPERTY_ID_PREFIX : ITEM_ID_PREFIX) + (entities.size() + 1);
+
+		entity.put("id", entityId);
+		entity.put("type", property ? WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_PROPERTY : WikibaseAPIClient.WIKIBASE_API_ENTITY_TYPE_ITEM);
+
+		entities.put(entityId, entity);
+
+		indexLabels(entity, entityId, labelIndex, property, true);
+
+		return success(entity);
+	}
+
+	/**
+	 * note: like Wikibase, the terms + statements of the given entity are added to the existing ones (statements are appended, even if they
+	 * are equal to existing ones) or - with 'clear' - the existing entity is replaced by the given entity
+	 */
+	private synchronized ObjectNode updateEntity(final String entityId, final ObjectNode entity, final boolean clear) {
+
+		final boolean property = entityId.startsWith(PROPERTY_ID_PREFIX);
+		final NavigableMap<String, ObjectNode> entities = property ? properties : items;
+		final Map<String, String> labelIndex = property ? propertyLabels : itemLabelDescriptions;
+		final ObjectNode existingEntity = entities.get(entityId);
+
+		if (existingEntity == null) {
+
+			return error("no-such-entity", String.format("Could not find an entity with the ID \"%s\".", entityId));
+		}
+
+		final ObjectNode updatedEntity = clear ? entity : existingEntity.deepCopy();
+
+		if (!clear) {
+
+			for (final String terms : new String[] { "labels", "descriptions" }) {
+
+				final Iterator<Map.Entry<String, JsonNode>> termJSONs = entity.path(terms).fields();
+
+				while (termJSONs.hasNext()) {
+
+					final Map.Entry<String, JsonNode> termJSON = termJSONs.next();
+
+					updatedEntity.with(terms).set(termJSON.getKey(), termJSON.getValue());
+				}
+			}
+
+			final Iterator<Map.Entry<String, JsonNode>> propertyStatementsJSONs = entity.path("claims").fields();
+
+			while (propertyStatementsJSONs.hasNext()) {
+
+				final Map.Entry<String, JsonNode> propertyStatementsJSON = propertyStatementsJSONs.next();
+
+				updatedEntity.with("claims").withArray(propertyStatementsJSON.getKey()).addAll((ArrayNode) propertyStatementsJSON.getValue());
+			}
+		}
+
+		final ObjectNode labelConflict = findLabelConflict(updatedEntity, entityId, labelIndex, property);
+
+		if (labelConflict != null) {
+
+			return labelConflict;
+		}
+
+		updatedEntity.put("id", entityId);
+		updatedEntity.put("type", existingEntity.path("type").asText());
+
+		indexLabels(existingEntity, entityId, labelIndex, property, false);
+
+		entities.put(entityId, updatedEntity);
+
+		indexLabels(updatedEntity, entityId, labelIndex, property, true);
+
+		return success(updatedEntity);
+	}
+
+	/**
+	 * @return the label conflict of the given entity with another entity, or null, if there is no conflict
+	 */
+	private ObjectNode findLabelConflict(final ObjectNode entity, final String entityId, final Map<String, String> labelIndex,
+			final boolean property) {
+
+		final Iterator<Map.Entry<String, JsonNode>> labelJSONs = entity.path("labels").fields();
+
+		while (labelJSONs.hasNext()) {
+
+			final Map.Entry<String, JsonNode> labelJSON = labelJSONs.next();
+			final String language = labelJSON.getKey();
+			final String label = labelJSON.getValue().path("value").asText();
+			final String existingEntityId = labelIndex.get(labelKey(entity, language, label, property));
+
+			if (existingEntityId != null && !existingEntityId.equals(entityId)) {
+
+				labelConflicts.incrementAndGet();
+
+				return labelConflict(existingEntityId, language, label, property);
+			}
+		}
+
+		return null;
+	}
+
+	private static void indexLabels(final ObjectNode entity, final String entityId, final Map<String, String> labelIndex, final boolean property,
+			final boolean add) {
+
+		final Iterator<Map.Entry<String, JsonNode>> labelJSONs = entity.path("labels").fields();
+
+		while (labelJSONs.hasNext()) {
+
+			final Map.Entry<String, JsonNode> labelJSON = labelJSONs.next();
+			final String labelKey = labelKey(entity, labelJSON.getKey(), labelJSON.getValue().path("value").asText(), property);
+
+			if (add) {
+
+				labelIndex.put(labelKey, entityId);
+			} else {
+
+				labelIndex.remove(labelKey, entityId);
+			}
+		}
+	}
+
+	private static ObjectNode success(final ObjectNode entity) {
+
+		final ObjectNode responseJSON = MAPPER.createObjectNode();
+
+		responseJSON.set("entity", entity.deepCopy());
+		responseJSON.put("success", 1);
+
+		return responseJSON;
+	}
+
+	/**
+	 * note: property labels are unique per language, item labels are unique in combination with the description (per language)
+	 */
+	private static String labelKey(final ObjectNode entity, final String language, final String label, final boolean property) {
+
+		if (property) {
+
+			return language + '\u0000' + label;
+		}
+
+		return language + '\u0000' + label + '\u0000' + entity.path("descriptions").path(language).path("value").asText();
+	}
+
+	/**
+	 * @return an error that is shaped like the label (+ description) conflict errors of Wikibase (see {@link WikibaseAPIImportTarget})
+	 */
+	private static ObjectNode labelConflict(final String existingEntityId, final String language, final String label, final boolean property) {
+
+		final String code;
+		final String messageName;
+		final String namespaceName;
+
+		if (property) {
+
+			code = WikibaseAPIImportTarget.MEDIAWIKI_FAILED_SAVE_ERROR_CODE;
+			messageName = WikibaseAPIImportTarget.WIKIBASE_VALIDATOR_LABEL_CONFLICT_ERROR_MESSAGE_NAME;
+			namespaceName = MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_NAME;
+		} else {
+
+			code = WikibaseAPIImportTarget.MEDIAWIKI_MODIFICATION_FAILED_ERROR_CODE;
+			messageName = WikibaseAPIImportTarget.WIKIBASE_VALIDATOR_LABEL_WITH_DESCRIPTION_CONFLICT_ERROR_MESSAGE_NAME;
+			namespaceName = MediaWikiXMLDumpImportTarget.DEFAULT_ITEM_NAMESPACE_NAME;
+		}
+
+		final ObjectNode responseJSON = error(code, "The save has failed.");
+		final ObjectNode messageJSON = ((ObjectNode) responseJSON.get("error")).putArray(WikibaseAPIImportTarget.MEDIAWIKI_MESSAGES_IDENTIFIER)
+				.addObject();
+
+		messageJSON.put(WikibaseAPIImportTarget.MEDIAWKI_NAME_IDENTIFIER, messageName);
+		messageJSON.putArray(WikibaseAPIImportTarget.MEDIAWIKI_PARAMETERS_IDENTIFIER)
+				.add(label)
+				.add(language)
+				.add(String.format("[[%s:%s|%s]]", namespaceName, existingEntityId, existingEntityId));
+
+		return responseJSON;
+	}
+
+	private static ObjectNode error(final String code, final String info) {
+
+		final ObjectNode responseJSON = MAPPER.createObjectNode();
+
+		responseJSON.putObject(WikibaseAPIImportTarget.MEDIAWIKI_ERROR_IDENTIFIER)
+				.put(WikibaseAPIImportTarget.MEDIAWIKI_CODE_IDENTIFIER, code)
+				.put("info", info);
+		responseJSON.put("servedby", "wikibase-api-stub");
+
+		return responseJSON;
+	}
+
+	private synchronized boolean acquireEditPermit() {
+
+		if (editsPerSecond <= 0) {
+
+			return true;
+		}
+
+		final long now = System.nanoTime();
+
+		editPermits = Math.min(editsPerSecond, editPermits + (now - editPermitsRefillNanos) * editsPerSecond / TimeUnit.SECONDS.toNanos(1));
+		editPermitsRefillNanos = now;
+
+		if (editPermits < 1) {
+
+			return false;
+		}
+
+		editPermits--;
+
+		return true;
+	}
+
+	private double nextDouble() {
+
+		return random.nextDouble();
+	}
+
+	private static Map<String, String> readParameters(final HttpExchange exchange) throws IOException {
+
+		final Map<String, String> parameters = new HashMap<>();
+
+		readURLEncoded(exchange.getRequestURI().getRawQuery(), parameters);
+
+		final byte[] body = ByteStreams.toByteArray(exchange.getRequestBody());
+		final String contentType = exchange.getRequestHeaders().getFirst(CONTENT_TYPE_HEADER);
+
+		if (contentType == null || body.length == 0) {
+
+			return parameters;
+		}
+
+		if (contentType.startsWith(MULTIPART_CONTENT_TYPE)) {
+
+			final Matcher boundaryMatcher = BOUNDARY_PATTERN.matcher(contentType);
+
+			if (boundaryMatcher.find()) {
+
+				readMultipart(body, boundaryMatcher.group(1), parameters);
+			}
+		} else if (contentType.startsWith(URL_ENCODED_CONTENT_TYPE)) {
+
+			readURLEncoded(new String(body, StandardCharsets.UTF_8), parameters);
+		}
+
+		return parameters;
+	}
+
+	private static void readMultipart(final byte[] body, final String boundary, final Map<String, String> parameters) {
+
+		// note: ISO-8859-1 maps every byte to one char, i.e., the part values can be decoded as UTF-8 afterwards
+		final String multipart = new String(body, StandardCharsets.ISO_8859_1);
+
+		for (final String part : multipart.split(Pattern.quote("--" + boundary))) {
+
+			final int headerEnd = part.indexOf("\r\n\r\n");
+
+			if (headerEnd < 0) {
+
+				continue;
+			}
+
+			final Matcher nameMatcher = PART_NAME_PATTERN.matcher(part.substring(0, headerEnd));
+
+			if (!nameMatcher.find()) {
+
+				continue;
+			}
+
+			final String value = part.substring(headerEnd + 4, part.endsWith("\r\n") ? part.length() - 2 : part.length());
+
+			parameters.put(nameMatcher.group(1), new String(value.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8));
+		}
+	}
+
+	private static void readURLEncoded(final String urlEncoded, final Map<String, String> parameters) throws UnsupportedEncodingException {
+
+		if (urlEncoded == null || urlEncoded.isEmpty()) {
+
+			return;
+		}
+
+		for (final String parameter : urlEncoded.split("&")) {
+
+			final int separator = parameter.indexOf('=');
+			final String name = separator < 0 ? parameter : parameter.substring(0, separator);
+			final String value = separator < 0 ? "" : parameter.substring(separator + 1);
+
+			parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8.name()), URLDecoder.decode(value, StandardCharsets.UTF_8.name()));
+		}
+	}
+
+	private static void respond(final HttpExchange exchange, final ObjectNode responseJSON) throws IOException {
+
+		respond(exchange, 200, MAPPER.writeValueAsBytes(responseJSON));
+	}
+
+	private static void respond(final HttpExchange exchange, final int status, final byte[] body) throws IOException {
+
+		if (body == null) {
+
+			exchange.sendResponseHeaders(status, -1);
+
+			return;
+		}
+
+		exchange.getResponseHeaders().set(CONTENT_TYPE_HEADER, JSON_CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (final OutputStream responseBody = exchange.getResponseBody()) {
+
+			responseBody.write(body);
+		}
+	}
+
+	private static String randomToken() {
+
+		return UUID.randomUUID().toString().replace("-", "");
+	}
+
+	/**
+	 * The latency distribution of the stub requests.
+	 */
+	@FunctionalInterface
+	public interface LatencyDistribution {
+
+		LatencyDistribution NONE = random -> 0;
+
+		/**
+		 * @param random the random generator of the stub
+		 * @return the latency of the next request in milliseconds
+		 */
+		long nextLatencyMillis(final Random random);
+
+		static LatencyDistribution constant(final long latencyMillis) {
+
+			return random -> latencyMillis;
+		}
+
+		static LatencyDistribution uniform(final long minLatencyMillis, final long maxLatencyMillis) {
+
+			return random -> minLatencyMillis + (long) (random.nextDouble() * (maxLatencyMillis - minLatencyMillis));
+		}
+
+		/**
+		 * @param medianLatencyMillis the median latency
+		 * @param sigma               the shape of the long tail (e.g. 0.5 -> p99 ~ 3.2 * median)
+		 */
+		static LatencyDistribution logNormal(final long medianLatencyMillis, final double sigma) {
+
+			return random -> Math.round(medianLatencyMillis * Math.exp(sigma * random.nextGaussian()));
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2013 – 2015 SLUB Dresden & Avantgarde Labs GmbH (<code@dswarm.org>)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dswarm.wikidataimporter.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.dswarm.wikidataimporter.MediaWikiXMLDumpImportTarget;
+
+/**
+ * @author tgaengler
+ */
+public class WikibaseAPIStubTest {
+
+	private static final String PROPERTY_DATA = "{\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"EZB-Id\"}},\"datatype\":\"string\"}";
+	private static final String ITEM_DATA     = "{\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"record\"}},"
+			+ "\"descriptions\":{\"en\":{\"language\":\"en\",\"value\":\"http://example.org/r1\"}}}";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Test
+	public void editEntityTest() throws Exception {
+
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub()) {
+
+			final String csrfToken = csrfToken(stub);
+
+			final JsonNode propertyJSON = post(stub, "action=wbeditentity&new=property&data=" + encode(PROPERTY_DATA) + "&token=" + encode(csrfToken));
+
+			Assert.assertEquals(1, propertyJSON.path("success").asInt());
+			Assert.assertEquals("P1", propertyJSON.path("entity").path("id").asText());
+
+			// property label conflict (as parsed by WikibaseAPIImportTarget)
+			final JsonNode propertyConflictJSON = post(stub,
+					"action=wbeditentity&new=property&data=" + encode(PROPERTY_DATA) + "&token=" + encode(csrfToken)).path("error");
+
+			Assert.assertEquals("failed-save", propertyConflictJSON.path("code").asText());
+			Assert.assertEquals("wikibase-validator-label-conflict", propertyConflictJSON.path("messages").path(0).path("name").asText());
+			Assert.assertEquals("[[Property:P1|P1]]", propertyConflictJSON.path("messages").path(0).path("parameters").path(2).asText());
+
+			Assert.assertEquals("Q1",
+					post(stub, "action=wbeditentity&new=item&data=" + encode(ITEM_DATA) + "&token=" + encode(csrfToken)).path("entity").path("id")
+							.asText());
+
+			// item label + description conflict
+			final JsonNode itemConflictJSON = post(stub,
+					"action=wbeditentity&new=item&data=" + encode(ITEM_DATA) + "&token=" + encode(csrfToken)).path("error");
+
+			Assert.assertEquals("modification-failed", itemConflictJSON.path("code").asText());
+			Assert.assertEquals("wikibase-validator-label-with-description-conflict",
+					itemConflictJSON.path("messages").path(0).path("name").asText());
+			Assert.assertEquals("[[Item:Q1|Q1]]", itemConflictJSON.path("messages").path(0).path("parameters").path(2).asText());
+
+			Assert.assertEquals("badtoken", post(stub, "action=wbeditentity&new=item&data=" + encode(ITEM_DATA) + "&token=wrong").path("error")
+					.path("code").asText());
+
+			// cache warm-up requests
+			final JsonNode pagesJSON = post(stub,
+					"action=query&list=allpages&aplimit=max&apnamespace=" + MediaWikiXMLDumpImportTarget.DEFAULT_PROPERTY_NAMESPACE_ID);
+
+			Assert.assertEquals("Property:P1", pagesJSON.path("query").path("allpages").path(0).path("title").asText());
+			Assert.assertEquals("EZB-Id", post(stub, "action=wbgetentities&ids=P1&props=labels&languages=en").path("entities").path("P1")
+					.path("labels").path("en").path("value").asText());
+
+			Assert.assertEquals(1, stub.getCreatedProperties());
+			Assert.assertEquals(1, stub.getCreatedItems());
+			Assert.assertEquals(2, stub.getLabelConflicts());
+		}
+	}
+
+	@Test
+	public void injectionTest() throws Exception {
+
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub()) {
+
+			final String csrfToken = csrfToken(stub);
+			final String edit = "action=wbeditentity&new=property&data=" + encode(PROPERTY_DATA) + "&token=" + encode(csrfToken);
+
+			stub.withErrorRate(1);
+
+			Assert.assertEquals(503, status(stub, edit));
+
+			stub.withErrorRate(0).withMaxlag(1, 3);
+
+			final JsonNode maxlagJSON = post(stub, edit).path("error");
+
+			Assert.assertEquals("maxlag", maxlagJSON.path("code").asText());
+			Assert.assertEquals(3, maxlagJSON.path("lag").asInt());
+
+			stub.withMaxlag(0, 0).withEditRateLimit(1);
+
+			Assert.assertEquals(1, post(stub, edit).path("success").asInt());
+			Assert.assertEquals("ratelimited", post(stub, edit).path("error").path("code").asText());
+
+			stub.withEditRateLimit(0).withLatency(WikibaseAPIStub.LatencyDistribution.constant(100));
+
+			final long start = System.nanoTime();
+
+			post(stub, "action=query&meta=tokens");
+
+			Assert.assertTrue(System.nanoTime() - start >= 100000000L);
+
+			Assert.assertEquals(1, stub.getInjectedErrors());
+			Assert.assertEquals(1, stub.getMaxlagErrors());
+			Assert.assertEquals(1, stub.getRateLimitedEdits());
+		}
+	}
+
+	private static String csrfToken(final WikibaseAPIStub stub) throws IOException {
+
+		return post(stub, "action=query&meta=tokens").path("query").path("tokens").path("csrftoken").asText();
+	}
+
+	private static JsonNode post(final WikibaseAPIStub stub, final String form) throws IOException {
+
+		final HttpURLConnection connection = open(stub, form);
+
+		Assert.assertEquals(200, connection.getResponseCode());
+
+		try (final InputStream responseBody = connection.getInputStream()) {
+
+			return MAPPER.readTree(responseBody);
+		}
+	}
+
+	private static int status(final WikibaseAPIStub stub, final String form) throws IOException {
+
+		final HttpURLConnection connection = open(stub, form);
+
+		try {
+
+			return connection.getResponseCode();
+		} finally {
+
+			connection.disconnect();
+		}
+	}
+
+	private static HttpURLConnection open(final WikibaseAPIStub stub, final String form) throws IOException {
+
+		final HttpURLConnection connection = (HttpURLConnection) new URL(stub.getApiEndpoint()).openConnection();
+
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+		try (final OutputStream requestBody = connection.getOutputStream()) {
+
+			requestBody.write((form + "&format=json").getBytes(StandardCharsets.UTF_8));
+		}
+
+		return connection;
+	}
+
+	private static String encode(final String value) throws IOException {
+
+		return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+	}
+}
@@ -18,25 +18,94 @@ package org.dswarm.wikidataimporter.test;
 import java.net.URL;
 
 import com.google.common.io.Resources;
+import org.junit.Assert;
 import org.junit.Test;
 
-import org.dswarm.wikidataimporter.Executer;
+import org.dswarm.wikidataimporter.WikibaseAPIClient;
+import org.dswarm.wikidataimporter.WikibaseAPIImportTarget;
+import org.dswarm.wikidataimporter.WikibaseImportTarget;
+import org.dswarm.wikidataimporter.WikidataDswarmImporter;
 
 /**
+ * Imports the test GDM model via the API client into an embedded Wikibase API stub (see {@link WikibaseAPIStub}), i.e., no live
+ * Mediawiki/Wikibase is required.
+ *
  * @author tgaengler
  */
 public class WikidataDswarmImporterTest {
 
+	private static final int EXPECTED_PROPERTY_COUNT = 23;
+
+	/**
+	 * 1 item + 1 placeholder item (for the record type)
+	 */
+	private static final int EXPECTED_ITEM_COUNT = 2;
+
 	@Test
-	public void wikidataDswarmImporterTest() {
+	public void wikidataDswarmImporterTest() throws Exception {
 
 		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
 
-		final String[] args = new String[] {
-				resourceURL.getPath()
-		};
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub()) {
+
+			importGDMModel(stub, resourceURL);
+
+			Assert.assertEquals(EXPECTED_PROPERTY_COUNT, stub.getCreatedProperties());
+			Assert.assertEquals(EXPECTED_ITEM_COUNT, stub.getCreatedItems());
+
+			final int itemStatements = stub.getItemStatements();
+
+			Assert.assertTrue(itemStatements > 0);
 
-		Executer.main(args);
+			// a second import (with empty entity id caches) re-uses all existing entities via the label (+ description) conflicts
+			final long labelConflicts = stub.getLabelConflicts();
+
+			importGDMModel(stub, resourceURL);
+
+			Assert.assertEquals(EXPECTED_PROPERTY_COUNT, stub.getCreatedProperties());
+			Assert.assertEquals(EXPECTED_ITEM_COUNT, stub.getCreatedItems());
+			Assert.assertTrue(stub.getLabelConflicts() >= labelConflicts + EXPECTED_PROPERTY_COUNT + EXPECTED_ITEM_COUNT);
+
+			// the existing items are replaced, i.e., their statements are not duplicated
+			Assert.assertEquals(itemStatements, stub.getItemStatements());
+		}
 	}
 
+	@Test
+	public void reImportTest() throws Exception {
+
+		final URL resourceURL = Resources.getResource("lic_dmp_01_v1.csv.gson");
+
+		try (final WikibaseAPIStub stub = new WikibaseAPIStub();
+				final WikibaseImportTarget importTarget = createImportTarget(stub)) {
+
+			final WikidataDswarmImporter importer = new WikidataDswarmImporter(importTarget);
+
+			importer.importGDMModel(resourceURL.getPath());
+
+			final int itemStatements = stub.getItemStatements();
+			final long labelConflicts = stub.getLabelConflicts();
+
+			// the cached items are updated directly (i.e. without failing creations) + replaced (i.e. without duplicated statements)
+			importer.importGDMModel(resourceURL.getPath());
+
+			Assert.assertEquals(EXPECTED_PROPERTY_COUNT, stub.getCreatedProperties());
+			Assert.assertEquals(EXPECTED_ITEM_COUNT, stub.getCreatedItems());
+			Assert.assertEquals(labelConflicts, stub.getLabelConflicts());
+			Assert.assertEquals(itemStatements, stub.getItemStatements());
+		}
+	}
+
+	private static void importGDMModel(final WikibaseAPIStub stub, final URL resourceURL) throws Exception {
+
+		try (final WikibaseImportTarget importTarget = createImportTarget(stub)) {
+
+			new WikidataDswarmImporter(importTarget).importGDMModel(resourceURL.getPath());
+		}
+	}
+
+	private static WikibaseImportTarget createImportTarget(final WikibaseAPIStub stub) throws Exception {
+
+		return new WikibaseAPIImportTarget(new WikibaseAPIClient(stub.targetConfiguration("stub", 1, 100)));
+	}
 }